@@ -18,23 +18,14 @@
  */
 package fr.free.jchecs.ai;
 
-import static fr.free.jchecs.core.BoardFactory.State.EMPTY;
-import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
-
-import java.io.DataInputStream;
-import java.io.EOFException;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
-import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
 import fr.free.jchecs.core.BoardFactory;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Implémentation de base des moteurs d'IA pour les échecs.
@@ -49,26 +40,14 @@ abstract class AbstractEngine implements Engine
   /** Valeur d'un Mat. */
   protected static final int MATE_VALUE = Integer.MIN_VALUE / 2;
 
-  /** Modèle de découpage des enregistrements des ouvertures suivant les ';'. */
-  static final Pattern SPLITTER = Pattern.compile(";");
+  /** Valeur d'un gain établi par les tables de finales (en deçà des valeurs de mat). */
+  protected static final int TABLEBASE_WIN = -(MATE_VALUE / 4);
 
-  /** Buffer des ouvertures. */
-  private static Map<Integer, int []> S_openings;
-  static
-  {
-    final Thread preload = new Thread(new Runnable()
-    {
-      /**
-       * Tâche de fond pour masquer le temps de chargement...
-       */
-      public void run()
-      {
-        getFromOpenings(BoardFactory.valueOf(FASTEST, EMPTY));
-      }
-    });
-    preload.setPriority(Thread.MIN_PRIORITY);
-    preload.start();
-  }
+  /** Taille mémoire par défaut des tables de transposition (en octets). */
+  static final int DEFAULT_TRANSPOSITION_TABLE_SIZE = 8 * 1024 * 1024;
+
+  /** Masque espaçant les consultations de l'horloge pendant une recherche limitée en temps. */
+  private static final int CLOCK_POLL_MASK = 0x3FF;
 
   /** Limite basse de la profondeur de recherche. */
   private final int _minimalSearchDepth;
@@ -91,12 +70,81 @@ abstract class AbstractEngine implements Engine
   /** Drapeau signalant l'activation de la bibliothèque d'ouvertures. */
   private boolean _openingsEnabled;
 
+  /** Bibliothèque d'ouvertures spécifique au moteur (ou null pour la bibliothèque par défaut). */
+  private volatile OpeningBook _openingBook;
+
+  /** Mémoire persistante des recherches du moteur (ou null). */
+  private volatile LearningCache _learningCache;
+
+  /** Profondeur de la dernière recherche terminée (en demi-coups, 0 si interrompue d'emblée). */
+  private int _completedDepth;
+
+  /** Réponse attendue de l'adversaire au dernier mouvement calculé (ou null). */
+  private volatile Move _expectedReply;
+
+  /** Drapeau signalant qu'une anticipation est demandée (et pas encore arrêtée). */
+  private volatile boolean _pondering;
+
+  /** Drapeau signalant que la recherche en cours est une anticipation. */
+  private boolean _ponderSearch;
+
+  /** Clé Zobrist de la position anticipée. */
+  private long _ponderKey;
+
+  /** Meilleur mouvement de la position anticipée (ou null). */
+  private Move _ponderMove;
+
+  /** Profondeur de l'anticipation terminée (en demi-coups). */
+  private int _ponderDepth;
+
+  /** Note du meilleur mouvement de la position anticipée. */
+  private int _ponderScore;
+
+  /** Tables de finales consultées par le moteur (ou null). */
+  private volatile EndgameTablebase _tablebase;
+
+  /** Drapeau signalant l'activation de l'élagage par coup nul. */
+  private volatile boolean _nullMovePruningEnabled = true;
+
+  /** Drapeau signalant l'activation de la réduction de profondeur des mouvements tardifs. */
+  private volatile boolean _lateMoveReductionEnabled = true;
+
+  /** Drapeau signalant l'activation de l'élagage des mouvements futiles. */
+  private volatile boolean _futilityPruningEnabled = true;
+
   /** Score du dernier mouvement. */
   private int _score;
 
   /** Limite de la profondeur de recherche (en demi-coups). */
   private int _searchDepthLimit;
 
+  /** Taille mémoire allouée à l'éventuelle table de transposition (en octets). */
+  private volatile int _transpositionTableSize = DEFAULT_TRANSPOSITION_TABLE_SIZE;
+
+  /** Délai souple de réflexion (en ms, 0 si illimité) : aucune itération n'est lancée au-delà. */
+  private volatile long _softTimeLimit;
+
+  /** Délai strict de réflexion (en ms, 0 si illimité) : la recherche est interrompue au-delà. */
+  private volatile long _hardTimeLimit;
+
+  /** Date limite de la recherche en cours (en ms). */
+  private long _hardDeadline = Long.MAX_VALUE;
+
+  /** Compteur espaçant les consultations de l'horloge (approximatif en recherche parallèle). */
+  private int _clockPolls;
+
+  /** Drapeau signalant l'interruption de la recherche en cours. */
+  private volatile boolean _searchAborted;
+
+  /** Drapeau signalant une demande d'arrêt de la recherche en cours (voir {@link #stop()}). */
+  private volatile boolean _stopRequested;
+
+  /** Nombre de fils d'exécution demandés pour la recherche. */
+  private volatile int _searchThreads = 1;
+
+  /** Meilleur mouvement de la dernière itération terminée (ou null). */
+  private Move _principalMove;
+
   /**
    * Instancie un nouveau moteur IA.
    * 
@@ -155,103 +203,25 @@ abstract class AbstractEngine implements Engine
   }
 
   /**
-   * Renvoi le mouvement correspondant à une position dans la bibliothèque d'ouverture.
+   * Renvoi le nombre total de demi-coups évalués par le moteur.
    * 
-   * @param pEtat Etat du jeu.
-   * @return Mouvement correspondant (ou null)
+   * @return Nombre total de demi-coups évalués par le moteur.
    */
-  static final synchronized Move getFromOpenings(final MoveGenerator pEtat)
+  public final int getHalfmoveCount()
   {
-    assert pEtat != null;
-
-    Move res = null;
-
-    if (S_openings == null)
-    {
-      final InputStream is = Engine.class.getResourceAsStream("jchecs.opn");
-      if (is != null)
-      {
-        S_openings = new HashMap<Integer, int []>();
-        DataInputStream in = null;
-        try
-        {
-          in = new DataInputStream(new GZIPInputStream(is));
-          while (in.available() > 0)
-          {
-            final int nb = in.readByte();
-            assert (nb > 0) && (nb <= 5);
-            final int [] mvtsId = new int [ nb ];
-            final int cle = in.readInt();
-            for (int i = 0; i < nb; i++)
-            {
-              mvtsId[i] = (in.readUnsignedShort() << 8) + in.readUnsignedByte();
-              assert (mvtsId[i] & 0xFF000000) == 0;
-            }
-            S_openings.put(Integer.valueOf(cle), mvtsId);
-          }
-        }
-        catch (final EOFException e)
-        {
-          // Pas grave, le coup sera calculé...
-        }
-        catch (final IOException e)
-        {
-          // Pas grave, le coup sera calculé...
-          assert false;
-        }
-        finally
-        {
-          if (in != null)
-          {
-            try
-            {
-              in.close();
-            }
-            catch (final IOException e1)
-            {
-              // On aura essayé :-)
-            }
-          }
-        }
-      }
-    }
-
-    int [] ids = null;
-    if (S_openings != null)
-    {
-      ids = S_openings.get(Integer.valueOf(pEtat.hashCode()));
-    }
-    if (ids != null)
-    {
-      res = Move.valueOf(ids[RANDOMIZER.nextInt(ids.length)]);
-      // Les hashcodes n'étant pas infaïbles, il vaut mieux valider le mouvement obtenu...
-      boolean erreurHashcode = true;
-      for (final Move mvt : pEtat.getValidMoves(pEtat.isWhiteActive()))
-      {
-        if (mvt.equals(res))
-        {
-          erreurHashcode = false;
-          break;
-        }
-      }
-      if (erreurHashcode)
-      {
-        res = null;
-      }
-    }
-
-    return res;
+    assert _halfmoveCount >= 0;
+    return _halfmoveCount;
   }
 
   /**
-   * Renvoi le nombre total de demi-coups évalués par le moteur.
+   * Renvoi le délai strict de réflexion : au-delà, la recherche en cours est interrompue.
    * 
-   * @return Nombre total de demi-coups évalués par le moteur.
+   * @return Délai strict de réflexion (en ms, 0 si illimité).
    */
-  public final int getHalfmoveCount()
+  public final long getHardTimeLimit()
   {
-    assert _halfmoveCount >= 0;
-    return _halfmoveCount;
+    assert _hardTimeLimit >= 0;
+    return _hardTimeLimit;
   }
 
   /**
@@ -305,16 +275,77 @@ abstract class AbstractEngine implements Engine
 
     if (_openingsEnabled && (pEtat.getFullmoveNumber() < 20))
     {
-      res = getFromOpenings(pEtat);
+      final OpeningBook bibliotheque = getOpeningBook();
+      if (bibliotheque != null)
+      {
+        res = bibliotheque.getMove(pEtat, RANDOMIZER);
+      }
+    }
+
+    final EndgameTablebase tables = _tablebase;
+    if ((res == null) && (tables != null))
+    {
+      // Jeu parfait si la position figure dans les tables de finales...
+      res = tables.getBestMove(pEtat);
+      if (res != null)
+      {
+        setScore(toScore(tables.probeWDL(pEtat), 0));
+      }
+    }
+
+    Move reponse = null;
+    final LearningCache memoire = _learningCache;
+    if ((res == null) && (memoire != null))
+    {
+      // Position déjà analysée au moins aussi profondément...
+      res = getFromLearningCache(memoire, pEtat);
+      if (res != null)
+      {
+        reponse = getCachedReply(memoire, pEtat, res);
+      }
+    }
+
+    final Move anticipe = _ponderMove;
+    _ponderMove = null;
+    _expectedReply = reponse;
+    if ((res == null) && (anticipe != null) && (_ponderKey == pEtat.getZobristKey()))
+    {
+      // La position a été anticipée pendant la réflexion de l'adversaire...
+      res = findMove(pEtat, anticipe.toId());
+      if ((res != null) && (_ponderDepth >= getSearchDepthLimit()))
+      {
+        setScore(_ponderScore);
+      }
+      else
+      {
+        // ... mais pas assez profondément : le mouvement trouvé est examiné en premier.
+        _principalMove = res;
+        res = null;
+      }
     }
 
     if (res == null)
     {
       // Calcul du meilleur coup...
-      final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-      assert coups.length > 0;
-
-      res = searchMoveFor(pEtat, coups);
+      final long souple;
+      if (_softTimeLimit > 0)
+      {
+        souple = debut + _softTimeLimit;
+      }
+      else
+      {
+        souple = Long.MAX_VALUE;
+      }
+      final long strict;
+      if (_hardTimeLimit > 0)
+      {
+        strict = debut + _hardTimeLimit;
+      }
+      else
+      {
+        strict = Long.MAX_VALUE;
+      }
+      res = search(pEtat, souple, strict);
     }
 
     final long duree = System.currentTimeMillis() - debut;
@@ -324,6 +355,124 @@ abstract class AbstractEngine implements Engine
     return res;
   }
 
+  /**
+   * Recherche un mouvement valide à partir de son identifiant (pour écarter les éventuelles
+   * collisions des clés de positions).
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pId Identifiant du mouvement.
+   * @return Mouvement valide correspondant (ou null s'il n'est pas valide).
+   */
+  private static Move findMove(final MoveGenerator pEtat, final int pId)
+  {
+    assert pEtat != null;
+
+    for (final Move mvt : pEtat.getValidMoves(pEtat.isWhiteActive()))
+    {
+      if (mvt.toId() == pId)
+      {
+        return mvt;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Renvoi la réponse attendue de l'adversaire au dernier mouvement calculé : le mouvement suivant
+   * de la variante principale, à anticiper pendant sa réflexion (voir {@link #ponder}).
+   * 
+   * @return Réponse attendue (ou null si elle n'est pas connue).
+   */
+  public final Move getExpectedReply()
+  {
+    return _expectedReply;
+  }
+
+  /**
+   * Renvoi le meilleur mouvement mémorisé par le moteur pour une position, par exemple dans sa table
+   * de transposition.
+   * <p>
+   * A redéfinir par les moteurs conservant une telle mémoire d'une recherche à l'autre.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @return Mouvement mémorisé (ou null s'il n'est pas connu).
+   */
+  protected Move getHashMove(final SearchBoard pEtat)
+  {
+    return null;
+  }
+
+  /**
+   * Renvoi la réponse attendue de l'adversaire à un mouvement tiré de la mémoire persistante : le
+   * mouvement mémorisé pour la position suivante ou, à défaut, celui de la table de transposition.
+   * 
+   * @param pMemoire Mémoire persistante des recherches.
+   * @param pEtat Etat de l'échiquier.
+   * @param pMouvement Mouvement tiré de la mémoire.
+   * @return Réponse attendue (ou null si elle n'est pas connue).
+   */
+  private Move getCachedReply(final LearningCache pMemoire, final MoveGenerator pEtat,
+      final Move pMouvement)
+  {
+    assert pMemoire != null;
+    assert pEtat != null;
+    assert pMouvement != null;
+
+    final MoveGenerator suivant = pEtat.derive(pMouvement, true);
+    Move res = null;
+    final LearningCache.Entry entree = pMemoire.get(suivant.getZobristKey());
+    if (entree != null)
+    {
+      res = findMove(suivant, entree.getMove());
+    }
+    if (res == null)
+    {
+      res = getHashMove(BoardFactory.newSearchBoard(suivant));
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le mouvement mémorisé pour un état de l'échiquier, si la recherche qui l'a produit est au
+   * moins aussi profonde que celle du moteur.
+   * 
+   * @param pMemoire Mémoire persistante des recherches.
+   * @param pEtat Etat de l'échiquier.
+   * @return Mouvement mémorisé (ou null si la position est inconnue ou trop peu analysée).
+   */
+  private Move getFromLearningCache(final LearningCache pMemoire, final MoveGenerator pEtat)
+  {
+    assert pMemoire != null;
+    assert pEtat != null;
+
+    final LearningCache.Entry entree = pMemoire.get(pEtat.getZobristKey());
+    if ((entree == null) || (entree.getDepth() < getSearchDepthLimit()))
+    {
+      return null;
+    }
+
+    final Move res = findMove(pEtat, entree.getMove());
+    if (res != null)
+    {
+      setScore(entree.getScore());
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la mémoire persistante des recherches du moteur.
+   * 
+   * @return Mémoire des recherches (ou null si le moteur n'en utilise pas).
+   */
+  public final LearningCache getLearningCache()
+  {
+    return _learningCache;
+  }
+
   /**
    * Renvoi la fonction de tri des mouvements.
    * 
@@ -335,6 +484,23 @@ abstract class AbstractEngine implements Engine
     return _moveSorter;
   }
 
+  /**
+   * Renvoi la bibliothèque d'ouvertures utilisée par le moteur.
+   * 
+   * @return Bibliothèque d'ouvertures (par défaut celle fournie avec jChecs, ou null si elle n'est
+   *         pas disponible).
+   */
+  public final OpeningBook getOpeningBook()
+  {
+    OpeningBook res = _openingBook;
+    if (res == null)
+    {
+      res = OpeningsHolder.BOOK;
+    }
+
+    return res;
+  }
+
   /**
    * Renvoi le score obtenu par le dernier mouvement calculé.
    * 
@@ -357,6 +523,104 @@ abstract class AbstractEngine implements Engine
     return _searchDepthLimit;
   }
 
+  /**
+   * Renvoi le nombre de fils d'exécution demandés pour la recherche.
+   * 
+   * @return Nombre de fils de recherche (>= 1).
+   */
+  public final int getSearchThreads()
+  {
+    assert _searchThreads >= 1;
+    return _searchThreads;
+  }
+
+  /**
+   * Renvoi les tables de finales consultées par le moteur.
+   * 
+   * @return Tables de finales (ou null si le moteur n'en consulte pas).
+   */
+  public final EndgameTablebase getTablebase()
+  {
+    return _tablebase;
+  }
+
+  /**
+   * Renvoi le délai souple de réflexion : au-delà, aucune nouvelle itération n'est lancée.
+   * 
+   * @return Délai souple de réflexion (en ms, 0 si illimité).
+   */
+  public final long getSoftTimeLimit()
+  {
+    assert _softTimeLimit >= 0;
+    return _softTimeLimit;
+  }
+
+  /**
+   * Renvoi la taille mémoire allouée à la table de transposition du moteur.
+   * 
+   * @return Taille mémoire de la table de transposition (en octets, > 0).
+   */
+  public final int getTranspositionTableSize()
+  {
+    assert _transpositionTableSize > 0;
+    return _transpositionTableSize;
+  }
+
+  /**
+   * Indique si la recherche en cours doit être interrompue : arrêt demandé ({@link #stop()}),
+   * anticipation arrêtée ou délai strict dépassé.
+   * <p>
+   * Destiné à être appelé fréquemment par les boucles de recherche (les demandes d'arrêt et
+   * l'horloge ne sont réellement consultées qu'une fois sur 1024) : dès que la méthode renvoie vrai,
+   * la recherche doit remonter au plus vite en rendant l'échiquier dans son état initial. Le
+   * résultat d'une itération interrompue est ignoré.
+   * </p>
+   * 
+   * @return "true" si la recherche doit être interrompue.
+   */
+  protected final boolean isSearchAborted()
+  {
+    if ((!_searchAborted)
+        && ((++_clockPolls & CLOCK_POLL_MASK) == 0)
+        && (_stopRequested || (_ponderSearch && !_pondering)
+            || ((_hardDeadline != Long.MAX_VALUE) && (System.currentTimeMillis() >= _hardDeadline))))
+    {
+      _searchAborted = true;
+    }
+
+    return _searchAborted;
+  }
+
+  /**
+   * Indique si l'élagage des mouvements futiles aux noeuds frontières est activé.
+   * 
+   * @return "true" si l'élagage est activé, "false" sinon.
+   */
+  public final boolean isFutilityPruningEnabled()
+  {
+    return _futilityPruningEnabled;
+  }
+
+  /**
+   * Indique si la réduction de profondeur des mouvements tardifs est activée.
+   * 
+   * @return "true" si la réduction est activée, "false" sinon.
+   */
+  public final boolean isLateMoveReductionEnabled()
+  {
+    return _lateMoveReductionEnabled;
+  }
+
+  /**
+   * Indique si l'élagage par coup nul est activé.
+   * 
+   * @return "true" si l'élagage est activé, "false" sinon.
+   */
+  public final boolean isNullMovePruningEnabled()
+  {
+    return _nullMovePruningEnabled;
+  }
+
   /**
    * Indique si l'utilisation de la bibliothèque d'ouvertures est activée.
    * 
@@ -367,14 +631,235 @@ abstract class AbstractEngine implements Engine
     return _openingsEnabled;
   }
 
+  /**
+   * Indique si le moteur utilise une table de transposition (par défaut, non).
+   * 
+   * @return "true" si le moteur utilise une table de transposition, "false" sinon.
+   */
+  public boolean isTranspositionTableUsed()
+  {
+    return false;
+  }
+
+  /**
+   * Recherche par approfondissements successifs du "meilleur" demi-coup, dans des délais de
+   * réflexion.
+   * <p>
+   * Les itérations s'enchaînent jusqu'à la limite de profondeur du moteur, tant que le délai souple
+   * n'est pas écoulé. Une itération dépassant le délai strict (ou arrêtée, voir
+   * {@link #stopPondering()}) est interrompue et c'est le mouvement de la dernière itération
+   * terminée qui est retenu. Ce mouvement est examiné en premier par l'itération suivante (voir
+   * {@link #sortRootMoves(Move[])}), de même que l'éventuel mouvement principal fixé avant la
+   * première itération.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @param pSouple Date limite souple de la réflexion (en ms, Long.MAX_VALUE si illimitée).
+   * @param pStrict Date limite stricte de la réflexion (en ms, Long.MAX_VALUE si illimitée).
+   * @return Mouvement trouvé.
+   */
+  private Move iterate(final SearchBoard pEtat, final Move [] pCoups, final long pSouple,
+      final long pStrict)
+  {
+    assert pEtat != null;
+    assert pCoups != null;
+
+    _hardDeadline = pStrict;
+    _completedDepth = 0;
+
+    Move res = null;
+    int score = 0;
+    try
+    {
+      final int limite = getSearchDepthLimit();
+      for (int p = 1; p <= limite; p++)
+      {
+        final Move mvt = searchMoveFor(pEtat, pCoups, p);
+        if (_searchAborted)
+        {
+          if (res == null)
+          {
+            // Aucune itération terminée : le meilleur des mouvements complètement examinés...
+            res = mvt;
+            score = getScore();
+          }
+          break;
+        }
+        res = mvt;
+        score = getScore();
+        _completedDepth = p;
+        _principalMove = mvt;
+        if (System.currentTimeMillis() >= pSouple)
+        {
+          break;
+        }
+      }
+    }
+    finally
+    {
+      _hardDeadline = Long.MAX_VALUE;
+      _principalMove = null;
+    }
+
+    setScore(score);
+
+    assert res != null;
+    return res;
+  }
+
+  /**
+   * Anticipe, pendant la réflexion de l'adversaire, la position qui suivrait sa réponse attendue.
+   * <p>
+   * La recherche, limitée par la seule profondeur, ne démarre que si une anticipation a été demandée
+   * au préalable ({@link #startPondering()}) et s'interrompt dès son arrêt
+   * ({@link #stopPondering()}) : elle est destinée à un fil de faible priorité. Son résultat est
+   * conservé pour {@link #getMoveFor(MoveGenerator)} : si la position anticipée se présente, le
+   * mouvement est joué aussitôt (ou, si l'anticipation a été arrêtée trop tôt, examiné en premier).
+   * Les moteurs conservant leur table de transposition en profitent de plus dans tous les cas.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier anticipé.
+   */
+  public final synchronized void ponder(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    if ((!_pondering) || (pEtat.getValidMoves(pEtat.isWhiteActive()).length == 0))
+    {
+      _pondering = false;
+      return;
+    }
+
+    _ponderSearch = true;
+    try
+    {
+      final Move res = search(pEtat, Long.MAX_VALUE, Long.MAX_VALUE);
+      if (_completedDepth > 0)
+      {
+        _ponderKey = pEtat.getZobristKey();
+        _ponderMove = res;
+        _ponderDepth = _completedDepth;
+        _ponderScore = getScore();
+      }
+    }
+    finally
+    {
+      _ponderSearch = false;
+      _pondering = false;
+    }
+  }
+
+  /**
+   * Consulte les tables de finales pour une position de la recherche.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
+   * @return Note de la position pour le joueur ayant le trait (ou null si la position ne figure
+   *         pas dans les tables).
+   */
+  protected final Integer probeTablebase(final SearchBoard pEtat, final int pPly)
+  {
+    assert pEtat != null;
+
+    final EndgameTablebase tables = _tablebase;
+    if (tables == null)
+    {
+      return null;
+    }
+
+    final int resultat = tables.probeWDL(pEtat);
+    if (resultat == EndgameTablebase.UNKNOWN)
+    {
+      return null;
+    }
+
+    return Integer.valueOf(toScore(resultat, pPly));
+  }
+
+  /**
+   * Calcule le meilleur mouvement pour un état de l'échiquier, puis mémorise le résultat et la
+   * réponse attendue de l'adversaire.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pSouple Date limite souple de la réflexion (en ms, Long.MAX_VALUE si illimitée).
+   * @param pStrict Date limite stricte de la réflexion (en ms, Long.MAX_VALUE si illimitée).
+   * @return Mouvement trouvé.
+   */
+  private Move search(final MoveGenerator pEtat, final long pSouple, final long pStrict)
+  {
+    assert pEtat != null;
+
+    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
+    assert coups.length > 0;
+
+    _searchAborted = false;
+    _clockPolls = 0;
+    final SearchBoard plateau = BoardFactory.newSearchBoard(pEtat);
+    final Move res;
+    if ((pSouple != Long.MAX_VALUE) || (pStrict != Long.MAX_VALUE) || _ponderSearch)
+    {
+      res = iterate(plateau, coups, pSouple, pStrict);
+    }
+    else
+    {
+      res = searchMoveFor(plateau, coups, getSearchDepthLimit());
+      if (_searchAborted)
+      {
+        // Recherche arrêtée : le mouvement n'est pas fiable.
+        _completedDepth = 0;
+      }
+      else
+      {
+        _completedDepth = getSearchDepthLimit();
+      }
+      _principalMove = null;
+    }
+
+    if (_completedDepth > 0)
+    {
+      final LearningCache memoire = _learningCache;
+      if (memoire != null)
+      {
+        memoire.put(pEtat.getZobristKey(), res.toId(), _completedDepth, getScore());
+      }
+      plateau.makeMove(res);
+      _expectedReply = getHashMove(plateau);
+      plateau.unmakeMove();
+    }
+
+    return res;
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
+   * <p>
+   * L'état reçu est une copie modifiable propre à la recherche : les mouvements examinés y sont
+   * joués puis annulés sur place, il doit être rendu dans son état initial.
+   * </p>
+   * 
+   * <p>
+   * Lorsque la recherche dispose d'un délai strict, elle doit consulter régulièrement
+   * {@link #isSearchAborted()} et, en cas d'interruption, renvoyer le meilleur des mouvements
+   * complètement examinés.
+   * </p>
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
    * @return Mouvement trouvé.
    */
-  protected abstract Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups);
+  protected abstract Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur);
+
+  /**
+   * Annule une éventuelle demande d'arrêt, au moment de confier une nouvelle recherche à un autre
+   * fil.
+   */
+  public final void resetStop()
+  {
+    _stopRequested = false;
+  }
 
   /**
    * Modifie la fonction d'évaluation utilisée par le moteur.
@@ -400,6 +885,70 @@ abstract class AbstractEngine implements Engine
     _moveSorter = pComparateur;
   }
 
+  /**
+   * Active / désactive l'élagage des mouvements futiles aux noeuds frontières.
+   * <p>
+   * Sans effet pour les moteurs ne le mettant pas en oeuvre.
+   * </p>
+   * 
+   * @param pActif A "true" pour activer l'élagage, à "false" sinon.
+   */
+  public final void setFutilityPruningEnabled(final boolean pActif)
+  {
+    _futilityPruningEnabled = pActif;
+  }
+
+  /**
+   * Modifie la mémoire persistante des recherches du moteur.
+   * <p>
+   * Chaque recherche terminée y est mémorisée, et une position déjà analysée au moins aussi
+   * profondément est jouée sans nouvelle recherche.
+   * </p>
+   * 
+   * @param pMemoire Mémoire des recherches (ou null pour ne plus en utiliser).
+   */
+  public final void setLearningCache(final LearningCache pMemoire)
+  {
+    _learningCache = pMemoire;
+  }
+
+  /**
+   * Active / désactive la réduction de profondeur des mouvements tardifs.
+   * <p>
+   * Sans effet pour les moteurs ne la mettant pas en oeuvre.
+   * </p>
+   * 
+   * @param pActif A "true" pour activer la réduction, à "false" sinon.
+   */
+  public final void setLateMoveReductionEnabled(final boolean pActif)
+  {
+    _lateMoveReductionEnabled = pActif;
+  }
+
+  /**
+   * Active / désactive l'élagage par coup nul.
+   * <p>
+   * Sans effet pour les moteurs ne le mettant pas en oeuvre.
+   * </p>
+   * 
+   * @param pActif A "true" pour activer l'élagage, à "false" sinon.
+   */
+  public final void setNullMovePruningEnabled(final boolean pActif)
+  {
+    _nullMovePruningEnabled = pActif;
+  }
+
+  /**
+   * Modifie la bibliothèque d'ouvertures utilisée par le moteur.
+   * 
+   * @param pBibliotheque Nouvelle bibliothèque d'ouvertures (ou null pour revenir à celle fournie
+   *          avec jChecs).
+   */
+  public final void setOpeningBook(final OpeningBook pBibliotheque)
+  {
+    _openingBook = pBibliotheque;
+  }
+
   /**
    * Active / désactive l'utilisation de la bibliothèque d'ouvertures.
    * 
@@ -420,6 +969,159 @@ abstract class AbstractEngine implements Engine
     _score = pScore;
   }
 
+  /**
+   * Modifie les tables de finales consultées par le moteur.
+   * <p>
+   * Les positions couvertes par les tables sont jouées parfaitement à la racine, et évaluées
+   * directement aux noeuds de la recherche des moteurs le permettant.
+   * </p>
+   * 
+   * @param pTables Tables de finales (ou null pour ne plus en consulter).
+   */
+  public final void setTablebase(final EndgameTablebase pTables)
+  {
+    _tablebase = pTables;
+  }
+
+  /**
+   * Modifie les délais de réflexion du moteur.
+   * <p>
+   * Avec au moins un délai, la recherche procède par approfondissements successifs jusqu'à la
+   * limite de profondeur : aucune nouvelle itération n'est lancée après le délai souple et
+   * l'itération en cours est abandonnée au délai strict. Sans délai (0, 0), la recherche est menée
+   * directement à la limite de profondeur.
+   * </p>
+   * 
+   * @param pSouple Délai souple de réflexion (en ms, 0 si illimité).
+   * @param pStrict Délai strict de réflexion (en ms, 0 si illimité).
+   */
+  public final void setTimeLimits(final long pSouple, final long pStrict)
+  {
+    assert pSouple >= 0;
+    assert pStrict >= 0;
+
+    _softTimeLimit = pSouple;
+    _hardTimeLimit = pStrict;
+  }
+
+  /**
+   * Modifie le nombre de fils d'exécution demandés pour la recherche.
+   * <p>
+   * Au-delà de 1, les moteurs le permettant répartissent l'évaluation des mouvements initiaux entre
+   * plusieurs fils (dans la limite du nombre de processeurs disponibles). Sans effet pour les autres
+   * moteurs.
+   * </p>
+   * 
+   * @param pNombre Nombre de fils de recherche (>= 1).
+   */
+  public final void setSearchThreads(final int pNombre)
+  {
+    assert pNombre >= 1;
+
+    _searchThreads = pNombre;
+  }
+
+  /**
+   * Modifie la taille mémoire allouée à la table de transposition du moteur.
+   * <p>
+   * La nouvelle taille est prise en compte au début de la recherche suivante. Sans effet pour les
+   * moteurs n'utilisant pas de table de transposition.
+   * </p>
+   * 
+   * @param pOctets Taille mémoire de la table de transposition (en octets, > 0).
+   */
+  public final void setTranspositionTableSize(final int pOctets)
+  {
+    assert pOctets > 0;
+
+    _transpositionTableSize = pOctets;
+  }
+
+  /**
+   * Demande l'anticipation de la prochaine position (voir {@link #ponder(MoveGenerator)}).
+   * <p>
+   * A appeler avant de confier l'anticipation à un autre fil, de sorte qu'un arrêt survenant avant
+   * son démarrage soit pris en compte.
+   * </p>
+   */
+  public final void startPondering()
+  {
+    _stopRequested = false;
+    _pondering = true;
+  }
+
+  /**
+   * Arrête au plus vite la recherche en cours (calcul d'un mouvement ou anticipation), depuis un
+   * autre fil d'exécution.
+   * <p>
+   * La recherche est interrompue en quelques milliers de noeuds au plus : le mouvement alors
+   * renvoyé par {@link #getMoveFor(MoveGenerator)} est valide mais peu fiable et doit être ignoré.
+   * La demande reste valable, y compris pour une recherche pas encore démarrée, jusqu'à l'appel de
+   * {@link #resetStop()} ou de {@link #startPondering()}.
+   * </p>
+   */
+  public final void stop()
+  {
+    _pondering = false;
+    _stopRequested = true;
+  }
+
+  /**
+   * Arrête l'éventuelle anticipation en cours (ou demandée) : la recherche d'anticipation se termine
+   * au plus vite, libérant le moteur pour {@link #getMoveFor(MoveGenerator)}.
+   */
+  public final void stopPondering()
+  {
+    _pondering = false;
+  }
+
+  /**
+   * Trie les mouvements initiaux suivant la fonction de tri du moteur, le meilleur mouvement de
+   * l'itération précédente (s'il y en a une) étant placé en tête.
+   * 
+   * @param pCoups Liste des mouvement initiaux à trier.
+   */
+  protected final void sortRootMoves(final Move [] pCoups)
+  {
+    assert pCoups != null;
+
+    Arrays.sort(pCoups, getMoveSorter());
+    if (_principalMove != null)
+    {
+      for (int i = pCoups.length; --i > 0; /* Pré-décrémenté */)
+      {
+        if (pCoups[i].equals(_principalMove))
+        {
+          System.arraycopy(pCoups, 0, pCoups, 1, i);
+          pCoups[0] = _principalMove;
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Convertit un résultat des tables de finales en note.
+   * 
+   * @param pResultat Résultat des tables pour le joueur ayant le trait.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche (un gain proche est préféré).
+   * @return Note correspondante.
+   */
+  private static int toScore(final int pResultat, final int pPly)
+  {
+    int res = 0;
+    if (pResultat == EndgameTablebase.WIN)
+    {
+      res = TABLEBASE_WIN - pPly;
+    }
+    else if (pResultat == EndgameTablebase.LOSS)
+    {
+      res = pPly - TABLEBASE_WIN;
+    }
+
+    return res;
+  }
+
   /**
    * Aliment la valeur de la limite de la profondeur de recherche (en demi-coups).
    * 
@@ -432,4 +1134,21 @@ abstract class AbstractEngine implements Engine
 
     _searchDepthLimit = pLimite;
   }
+
+  /**
+   * Détenteur de la bibliothèque d'ouvertures, projetée lors de sa première consultation.
+   */
+  private static final class OpeningsHolder
+  {
+    /** Bibliothèque d'ouvertures (ou null si elle n'est pas disponible). */
+    static final MappedOpeningBook BOOK = MappedOpeningBook.openResource("jchecs.jbk");
+
+    /**
+     * Classe utilitaire : ne pas instancier.
+     */
+    private OpeningsHolder()
+    {
+      // Rien de spécifique...
+    }
+  }
 }
@@ -0,0 +1,293 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Implémentation de base des moteurs d'IA dont la recherche est confiée à des fils de recherche
+ * ({@link Searcher}), les mouvements initiaux pouvant être répartis entre plusieurs d'entre eux.
+ * 
+ * @author David Cotton
+ */
+abstract class AbstractSearcherEngine extends AbstractEngine
+{
+  /** Fils de recherche du moteur (créés à la demande). */
+  private Searcher [] _searchers;
+
+  /**
+   * Instancie un nouveau moteur IA.
+   * 
+   * @param pProfMin Limite basse de la profondeur de recherche (>= 1).
+   * @param pProfMax Limite haute de la profondeur de recherche (>= pProfMin).
+   * @param pProfDef Limite par défaut de la profondeur de recherche ([pProfMin, pProfMax]).
+   */
+  protected AbstractSearcherEngine(final int pProfMin, final int pProfMax, final int pProfDef)
+  {
+    super(pProfMin, pProfMax, pProfDef);
+  }
+
+  /**
+   * Crée un nouveau fil de recherche pour le moteur.
+   * 
+   * @param pTri Fonction de tri des mouvements propre au fil.
+   * @return Fil de recherche.
+   */
+  protected abstract Searcher newSearcher(final Comparator<Move> pTri);
+
+  /**
+   * Evalue un mouvement initial à l'aide d'un fil de recherche et retient son résultat.
+   * 
+   * @param pFil Fil de recherche.
+   * @param pEtat Etat de l'échiquier propre au fil.
+   * @param pMouvement Mouvement initial.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+   * @param pResultat Meilleur résultat de la racine.
+   * @return "false" si la recherche a été interrompue (le mouvement n'est pas retenu).
+   */
+  private boolean searchRootMove(final Searcher pFil, final SearchBoard pEtat,
+      final Move pMouvement, final int pProfondeur, final RootResult pResultat)
+  {
+    pEtat.makeMove(pMouvement);
+    final int note = pFil.evaluate(pEtat, pProfondeur, pResultat.getScore());
+    pEtat.unmakeMove();
+    if (isSearchAborted())
+    {
+      return false;
+    }
+    pResultat.offer(pMouvement, note);
+
+    return true;
+  }
+
+  /**
+   * Evalue les mouvements initiaux et renvoi le meilleur.
+   * <p>
+   * Le premier mouvement (a priori le meilleur, voir {@link #sortRootMoves(Move[])}) est évalué
+   * seul, afin de fixer la borne des suivants. Si plusieurs fils de recherche ont été demandés, les
+   * mouvements restants sont ensuite répartis entre le fil courant et des fils de la réserve
+   * partagée, chacun travaillant sur sa propre copie de l'échiquier et profitant de la meilleure
+   * note déjà obtenue par les autres.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+   * @return Mouvement trouvé.
+   */
+  protected final Move searchRootMoves(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
+  {
+    assert pEtat != null;
+    assert pCoups != null;
+
+    final int l = pCoups.length;
+    assert l > 0;
+    addHalfmove(l);
+    sortRootMoves(pCoups);
+
+    final int nbFils = Math.max(1, Math.min(getSearchThreads(), SearchPool.MAX_THREADS));
+    final Comparator<Move> tri = getMoveSorter();
+    if ((_searchers == null) || (_searchers.length != nbFils)
+        || (_searchers[0].getMoveSorter() != tri))
+    {
+      _searchers = new Searcher [ nbFils ];
+      _searchers[0] = newSearcher(tri);
+      for (int i = 1; i < nbFils; i++)
+      {
+        if (tri instanceof ContextSorter)
+        {
+          _searchers[i] = newSearcher(((ContextSorter) tri).newInstance());
+        }
+        else
+        {
+          _searchers[i] = newSearcher(tri);
+        }
+      }
+    }
+    final Searcher [] fils = _searchers;
+
+    final RootResult res = new RootResult(pCoups[0]);
+    if (searchRootMove(fils[0], pEtat, pCoups[0], pProfondeur, res))
+    {
+      final AtomicInteger suivant = new AtomicInteger(1);
+      final List<Future<?>> aides = new ArrayList<Future<?>>(nbFils);
+      for (int f = Math.min(nbFils, l - 1); --f > 0; /* Pré-décrémenté */)
+      {
+        final Searcher fil = fils[f];
+        final SearchBoard copie = BoardFactory.newSearchBoard(pEtat);
+        aides.add(SearchPool.getExecutor().submit(new Runnable()
+        {
+          /**
+           * Evalue les mouvements initiaux restants, en concurrence avec les autres fils.
+           */
+          public void run()
+          {
+            for (int i = suivant.getAndIncrement(); i < l; i = suivant.getAndIncrement())
+            {
+              if (!searchRootMove(fil, copie, pCoups[i], pProfondeur, res))
+              {
+                break;
+              }
+            }
+          }
+        }));
+      }
+      for (int i = suivant.getAndIncrement(); i < l; i = suivant.getAndIncrement())
+      {
+        if (!searchRootMove(fils[0], pEtat, pCoups[i], pProfondeur, res))
+        {
+          break;
+        }
+      }
+      waitFor(aides);
+    }
+
+    for (final Searcher fil : fils)
+    {
+      addHalfmove(fil.takeHalfmoveCount());
+      fil.clear();
+    }
+
+    setScore(res.getScore());
+
+    return res.getMove();
+  }
+
+  /**
+   * Attend la fin des tâches auxiliaires d'une recherche parallèle.
+   * <p>
+   * Une tâche qui n'a pas encore démarré (la réserve étant occupée par d'autres moteurs) est
+   * annulée : les mouvements initiaux ont déjà tous été évalués par les autres fils.
+   * </p>
+   * 
+   * @param pAides Tâches auxiliaires.
+   */
+  private static void waitFor(final List<Future<?>> pAides)
+  {
+    assert pAides != null;
+
+    boolean interrompu = false;
+    for (final Future<?> aide : pAides)
+    {
+      if (!aide.cancel(false))
+      {
+        while (true)
+        {
+          try
+          {
+            aide.get();
+            break;
+          }
+          catch (final InterruptedException e)
+          {
+            // Les tâches utilisent encore les données de la recherche : il faut les attendre.
+            interrompu = true;
+          }
+          catch (final ExecutionException e)
+          {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+              throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+              throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+          }
+        }
+      }
+    }
+    if (interrompu)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Meilleur résultat obtenu à la racine, partagé entre les fils d'une recherche.
+   */
+  private static final class RootResult
+  {
+    /** Meilleur mouvement. */
+    private Move _move;
+
+    /** Note du meilleur mouvement. */
+    private int _score = MATE_VALUE - 1;
+
+    /**
+     * Instancie un nouveau résultat.
+     * 
+     * @param pDefaut Mouvement retenu si aucun mouvement n'est évalué.
+     */
+    RootResult(final Move pDefaut)
+    {
+      assert pDefaut != null;
+
+      _move = pDefaut;
+    }
+
+    /**
+     * Renvoi le meilleur mouvement.
+     * 
+     * @return Meilleur mouvement.
+     */
+    synchronized Move getMove()
+    {
+      return _move;
+    }
+
+    /**
+     * Renvoi la note du meilleur mouvement.
+     * 
+     * @return Note du meilleur mouvement.
+     */
+    synchronized int getScore()
+    {
+      return _score;
+    }
+
+    /**
+     * Propose un mouvement évalué, retenu s'il est meilleur que le meilleur actuel.
+     * 
+     * @param pMouvement Mouvement évalué.
+     * @param pNote Note du mouvement.
+     */
+    synchronized void offer(final Move pMouvement, final int pNote)
+    {
+      if ((pNote > _score) || ((pNote == _score) && RANDOMIZER.nextBoolean()))
+      {
+        // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
+        _score = pNote;
+        _move = pMouvement;
+      }
+    }
+  }
+}
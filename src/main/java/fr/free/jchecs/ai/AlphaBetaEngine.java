@@ -18,18 +18,18 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
 import java.util.Comparator;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
- * Moteur d'IA basé sur un alpha/beta (façon NegaMax) sur 5 demi-coups.
+ * Moteur d'IA basé sur un alpha/beta (façon NegaMax) sur 4 demi-coups, prolongé par une recherche
+ * de quiescence limitée aux prises.
  * 
  * @author David Cotton
  */
-final class AlphaBetaEngine extends AbstractEngine
+final class AlphaBetaEngine extends AbstractSearcherEngine
 {
   /**
    * Instancie un nouveau moteur IA alpha/beta.
@@ -38,118 +38,142 @@ final class AlphaBetaEngine extends AbstractEngine
   {
     super(3, 6, 5);
 
-    setMoveSorter(new KillerMoveSorter());
+    setMoveSorter(new SearchMoveSorter());
   }
 
   /**
-   * Recherche le meilleur coup évalué à partir d'une position.
+   * Crée un nouveau fil de recherche pour le moteur.
+   * 
+   * @param pTri Fonction de tri des mouvements propre au fil.
+   * @return Fil de recherche.
+   */
+  @Override
+  protected Searcher newSearcher(final Comparator<Move> pTri)
+  {
+    return new AlphaBetaSearcher(pTri);
+  }
+
+  /**
+   * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
    * @param pEtat Etat de l'échiquier.
-   * @param pProfondeur Profondeur d'évaluation actuelle.
-   * @param pAlpha Seuil alpha.
-   * @param pBeta Seuil beta.
-   * @return Meilleure évaluation obtenue à ce niveau.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+   * @return Mouvement trouvé.
    */
-  private int alphabeta(final MoveGenerator pEtat, final int pProfondeur, final int pAlpha,
-      final int pBeta)
+  @Override
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
   {
     assert pEtat != null;
-    assert pProfondeur >= 0;
-    assert pAlpha <= pBeta;
+    assert pCoups != null;
 
-    final boolean trait = pEtat.isWhiteActive();
+    final Move res = searchRootMoves(pEtat, pCoups, pProfondeur);
 
-    if (pProfondeur == 0)
-    {
-      return getHeuristic().evaluate(pEtat, trait);
-    }
+    assert res != null;
+    return res;
+  }
 
-    final Move [] coups = pEtat.getValidMoves(trait);
-    final int l = coups.length;
-    if (l == 0)
+  /**
+   * Fil de recherche alpha/beta.
+   */
+  private final class AlphaBetaSearcher extends Searcher
+  {
+    /**
+     * Instancie un nouveau fil de recherche.
+     * 
+     * @param pTri Fonction de tri des mouvements propre au fil.
+     */
+    AlphaBetaSearcher(final Comparator<Move> pTri)
     {
-      return getHeuristic().evaluate(pEtat, trait);
+      super(pTri);
     }
 
-    int res = MATE_VALUE - 1;
-
-    final Comparator<Move> tri = getMoveSorter();
-    final KillerMoveSorter killer;
-    if (tri instanceof KillerMoveSorter)
+    /**
+     * Evalue la position obtenue après un mouvement initial.
+     * 
+     * @param pEtat Etat de l'échiquier, le mouvement initial venant d'y être joué.
+     * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+     * @param pAlpha Meilleure note déjà obtenue à la racine.
+     * @return Note du mouvement initial, du point de vue du joueur ayant le trait à la racine.
+     */
+    @Override
+    int evaluate(final SearchBoard pEtat, final int pProfondeur, final int pAlpha)
     {
-      killer = (KillerMoveSorter) tri;
+      return -alphabeta(pEtat, 1, pProfondeur - 1, MATE_VALUE, -pAlpha);
     }
-    else
-    {
-      killer = null;
-    }
-    Arrays.sort(coups, tri);
-    addHalfmove(l);
-    int alpha = pAlpha;
-    for (final Move mvt : coups)
+
+    /**
+     * Recherche le meilleur coup évalué à partir d'une position.
+     * 
+     * @param pEtat Etat de l'échiquier.
+     * @param pPly Nombre de demi-coups depuis la racine de la recherche.
+     * @param pProfondeur Profondeur d'évaluation actuelle.
+     * @param pAlpha Seuil alpha.
+     * @param pBeta Seuil beta.
+     * @return Meilleure évaluation obtenue à ce niveau.
+     */
+    int alphabeta(final SearchBoard pEtat, final int pPly, final int pProfondeur,
+        final int pAlpha, final int pBeta)
     {
-      final int note = -alphabeta(pEtat.derive(mvt, true), pProfondeur - 1, -pBeta, -alpha);
-      if (note > res)
+      assert pEtat != null;
+      assert pProfondeur >= 0;
+      assert pAlpha <= pBeta;
+
+      final Integer resultat = probeTablebase(pEtat, pPly);
+      if (resultat != null)
       {
-        res = note;
-        if (res > alpha)
-        {
-          alpha = res;
-          if (alpha > pBeta)
-          {
-            if (killer != null)
-            {
-              killer.put(mvt);
-            }
-            return res;
-          }
-        }
+        // Position de finale couverte par les tables : sa valeur est connue.
+        return resultat.intValue();
       }
-    }
 
-    return res;
-  }
+      final boolean trait = pEtat.isWhiteActive();
 
-  /**
-   * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
-   * 
-   * @param pEtat Etat de l'échiquier.
-   * @param pCoups Liste des mouvement initiaux valides.
-   * @return Mouvement trouvé.
-   */
-  @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
-  {
-    assert pEtat != null;
-    assert pCoups != null;
+      if (pProfondeur == 0)
+      {
+        return quiesce(pEtat, pPly, pAlpha, pBeta, getHeuristic());
+      }
 
-    final int l = pCoups.length;
-    assert l > 0;
-    addHalfmove(l);
-    final Comparator<Move> tri = getMoveSorter();
-    Arrays.sort(pCoups, tri);
-    Move res = pCoups[0];
-    int alpha = MATE_VALUE - 1;
-    for (final Move mvt : pCoups)
-    {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = -alphabeta(etat, getSearchDepthLimit() - 1, MATE_VALUE, -alpha);
-      if ((note > alpha) || ((note == alpha) && RANDOMIZER.nextBoolean()))
+      final MoveList coups = getMoveList();
+      final int l = coups.generate(pEtat, pPly);
+      if (l == 0)
       {
-        // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
-        alpha = note;
-        res = mvt;
+        return getHeuristic().evaluate(pEtat, trait);
       }
-    }
 
-    setScore(alpha);
+      int res = MATE_VALUE - 1;
 
-    if (tri instanceof KillerMoveSorter)
-    {
-      ((KillerMoveSorter) tri).clear();
-    }
+      final int precedent = pEtat.getLastMove();
+      scoreMoves(pPly, precedent);
+      addHalfmove(l);
+      int alpha = pAlpha;
+      for (int i = 0; i < l; i++)
+      {
+        final int mvt = coups.next(pPly, i);
+        pEtat.makeMove(mvt);
+        final int note = -alphabeta(pEtat, pPly + 1, pProfondeur - 1, -pBeta, -alpha);
+        pEtat.unmakeMove();
+        if (isSearchAborted())
+        {
+          return res;
+        }
+        if (note > res)
+        {
+          res = note;
+          if (res > alpha)
+          {
+            alpha = res;
+            if (alpha > pBeta)
+            {
+              cutoff(pPly, pProfondeur, i, precedent);
+              return res;
+            }
+          }
+        }
+      }
 
-    assert res != null;
-    return res;
+      return res;
+    }
   }
+
 }
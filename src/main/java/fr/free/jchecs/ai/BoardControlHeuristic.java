@@ -21,6 +21,7 @@ package fr.free.jchecs.ai;
 import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
 import static fr.free.jchecs.core.Constants.FILE_COUNT;
 import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.PieceType.PAWN;
 
 import fr.free.jchecs.core.MoveGenerator;
 import fr.free.jchecs.core.Piece;
@@ -30,6 +31,10 @@ import fr.free.jchecs.core.Square;
 /**
  * Fonction d'évaluation basée sur le matériel et la position des pièces présentes sur le plateau.
  * <p>
+ * La contribution des pions (matériel et position) est mise en cache dans une table propre à
+ * l'instance, indexée par la clé de hachage des pions.
+ * </p>
+ * <p>
  * Classe sûre vis-à-vis des threads.
  * </p>
  * 
@@ -92,12 +97,27 @@ final class BoardControlHeuristic implements Heuristic
     assert DEFAULT_POSITIONS.length == 64;
   }
 
+  /** Cache des évaluations de structure de pions. */
+  private final transient PawnHashTable _pawnHashTable;
+
   /**
    * Crée une nouvelle instance.
    */
   BoardControlHeuristic()
   {
-    // Rien de spécifique...
+    this(PawnHashTable.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Crée une nouvelle instance, avec une taille de cache de structure de pions spécifique.
+   * 
+   * @param pEntreesPions Nombre d'entrées du cache de structure de pions.
+   */
+  BoardControlHeuristic(final int pEntreesPions)
+  {
+    assert pEntreesPions > 0;
+
+    _pawnHashTable = new PawnHashTable(pEntreesPions);
   }
 
   /**
@@ -114,10 +134,26 @@ final class BoardControlHeuristic implements Heuristic
 
     int res = -pEtat.getHalfmoveCount();
 
+    final long cle = pEtat.getPawnZobristKey();
+    long pions = _pawnHashTable.get(cle);
+    if (pions == PawnHashTable.MISSING)
+    {
+      pions = evaluatePawns(pEtat);
+      _pawnHashTable.put(cle, pions);
+    }
+    if (pTrait)
+    {
+      res += PawnHashTable.getValue(pions);
+    }
+    else
+    {
+      res -= PawnHashTable.getValue(pions);
+    }
+
     for (final Square s : Square.values())
     {
       final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      if ((piece != null) && (piece.getType() != PAWN))
       {
         final boolean traitPiece = piece.isWhite();
         final PieceType typePiece = piece.getType();
@@ -161,16 +197,6 @@ final class BoardControlHeuristic implements Heuristic
               pos = KNIGHT_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
             }
             break;
-          case PAWN :
-            if (traitPiece)
-            {
-              pos = PAWN_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = PAWN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            break;
           default :
             assert false;
             pos = 0;
@@ -189,4 +215,59 @@ final class BoardControlHeuristic implements Heuristic
 
     return res;
   }
+
+  /**
+   * Evalue la contribution des pions d'un état (matériel et position).
+   * 
+   * @param pEtat Etat du jeu.
+   * @return Valeur des pions du point de vue des blancs et masques des colonnes occupées par des
+   *         pions, compactés par {@link PawnHashTable#pack(int, int)}.
+   */
+  private static long evaluatePawns(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    int res = 0;
+    int colonnes = 0;
+    for (final Square s : Square.values())
+    {
+      final Piece piece = pEtat.getPieceAt(s);
+      if ((piece != null) && (piece.getType() == PAWN))
+      {
+        if (piece.isWhite())
+        {
+          res += PAWN.getValue() + PAWN_POSITIONS[s.getIndex()];
+          colonnes |= 1 << s.getFile();
+        }
+        else
+        {
+          res -= PAWN.getValue();
+          res -= PAWN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
+          colonnes |= 1 << (FILE_COUNT + s.getFile());
+        }
+      }
+    }
+
+    return PawnHashTable.pack(res, colonnes);
+  }
+
+  /**
+   * Renvoi le cache des évaluations de structure de pions.
+   * 
+   * @return Cache des structures de pions.
+   */
+  PawnHashTable getPawnHashTable()
+  {
+    return _pawnHashTable;
+  }
+
+  /**
+   * Remplace une instance désérialisée par une nouvelle instance, le cache n'étant pas sérialisé.
+   * 
+   * @return Nouvelle instance.
+   */
+  private Object readResolve()
+  {
+    return new BoardControlHeuristic();
+  }
 }
@@ -29,25 +29,55 @@ import fr.free.jchecs.core.Move;
  * 
  * @author David Cotton
  */
-interface ContextSorter extends Comparator<Move>, Serializable
+interface ContextSorter extends Comparator<Move>, MoveScorer, Serializable
 {
   /**
-   * Efface le contexte mémorisé.
+   * Termine une recherche : efface le contexte qui lui était propre, en ne conservant que ce qui
+   * peut servir aux recherches suivantes.
    */
   void clear();
 
   /**
-   * Renvoie l'évaluation d'un mouvement.
+   * Renvoi la valeur d'un mouvement dans l'historique des coupures.
    * 
-   * @param pMouvement Mouvement à rechercher.
-   * @return Valeur liée au mouvement.
+   * @param pMouvement Entier identifiant le mouvement.
+   * @return Valeur du mouvement dans l'historique (0 si inconnu, négative pour un mouvement ayant
+   *         plus souvent échoué que provoqué des coupures).
    */
-  int get(final Move pMouvement);
+  int getHistory(final int pMouvement);
 
   /**
-   * Mémorise un mouvement important.
+   * Renvoi une nouvelle instance de ce tri, au contexte vide, destinée à un autre fil de recherche.
    * 
-   * @param pMouvement Mouvement à mémoriser.
+   * @return Nouvelle instance du tri.
    */
-  void put(final Move pMouvement);
+  ContextSorter newInstance();
+
+  /**
+   * Mémorise un mouvement calme ayant provoqué une coupure.
+   * 
+   * @param pPly Demi-coup de profondeur de la coupure.
+   * @param pProfondeur Profondeur restant à examiner lors de la coupure.
+   * @param pMouvement Entier identifiant le mouvement.
+   * @param pPrecedent Dernier mouvement joué avant la coupure (0 si inconnu).
+   */
+  void put(final int pPly, final int pProfondeur, final int pMouvement, final int pPrecedent);
+
+  /**
+   * Mémorise un mouvement calme examiné, sans coupure, avant celui ayant provoqué une coupure.
+   * 
+   * @param pProfondeur Profondeur restant à examiner lors de la coupure.
+   * @param pMouvement Entier identifiant le mouvement.
+   */
+  void reject(final int pProfondeur, final int pMouvement);
+
+  /**
+   * Renvoi la note d'un mouvement à un demi-coup donné de la recherche.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pMouvement Entier identifiant un mouvement.
+   * @param pPrecedent Dernier mouvement joué (0 si inconnu).
+   * @return Note du mouvement.
+   */
+  int score(final int pPly, final int pMouvement, final int pPrecedent);
 }
@@ -26,6 +26,7 @@ import java.util.Map;
 import fr.free.jchecs.core.Board;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur IA de debugage : recherche en dur le meilleur de l'ensemble des coups possibles avec une
@@ -48,10 +49,12 @@ final class DebugEngine extends AbstractEngine
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -0,0 +1,790 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KING;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_BISHOP;
+import static fr.free.jchecs.core.Piece.WHITE_KING;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+import static fr.free.jchecs.core.PieceType.PAWN;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.free.jchecs.core.Board;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Piece;
+
+/**
+ * Tables de finales en lecture seule, projetées en mémoire.
+ * <p>
+ * Chaque table couvre une répartition du matériel (par exemple "KQvK" : roi et dame contre roi) et
+ * se compose de deux fichiers, produits par {@link EndgameTablebaseGenerator} :
+ * <ul>
+ * <li>"KQvK{@value #WDL_SUFFIX}" : le résultat de chaque position pour le joueur ayant le trait
+ * ({@link #WIN}, {@link #DRAW} ou {@link #LOSS}, 0 pour une position illégale) ;</li>
+ * <li>"KQvK{@value #DTC_SUFFIX}" : la distance (en demi-coups) à la conversion, c'est-à-dire au
+ * mat, à la prise ou à la promotion qui conclut le résultat (0 pour un joueur mat ou une nulle).</li>
+ * </ul>
+ * Les deux fichiers débutent par un en-tête de {@value #HEADER_SIZE} octets (signature, version,
+ * nature et nombre de pièces) suivi d'un octet par position. L'indice d'une position est formé du
+ * trait (0 pour les blancs) puis des cases des pièces, dans l'ordre roi, dame, tour, fou, cavalier,
+ * pion des blancs puis des noirs. Les positions où le camp le plus fort est noir sont consultées
+ * dans la table du camp le plus fort en blanc, en inversant les couleurs et les rangées.
+ * </p>
+ * <p>
+ * Les positions avec droit de roque effectif ou prise en passant ne sont pas couvertes et la règle
+ * des 50 coups est ignorée. Comme les bibliothèques d'ouvertures, les tables sont consultées sans
+ * verrou.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class EndgameTablebase
+{
+  /** Résultat inconnu (position absente des tables). */
+  public static final int UNKNOWN = 0;
+
+  /** Résultat : défaite du joueur ayant le trait. */
+  public static final int LOSS = 1;
+
+  /** Résultat : partie nulle. */
+  public static final int DRAW = 2;
+
+  /** Résultat : gain du joueur ayant le trait. */
+  public static final int WIN = 3;
+
+  /** Suffixe des fichiers de résultats. */
+  public static final String WDL_SUFFIX = ".jtw";
+
+  /** Suffixe des fichiers de distances à la conversion. */
+  public static final String DTC_SUFFIX = ".jtc";
+
+  /** Signature des fichiers de tables ("JCTB"). */
+  static final int MAGIC = 0x4A435442;
+
+  /** Version du format de fichier. */
+  static final int VERSION = 1;
+
+  /** Taille de l'en-tête (en octets). */
+  static final int HEADER_SIZE = 16;
+
+  /** Nature d'un fichier de résultats. */
+  static final int WDL_KIND = 0;
+
+  /** Nature d'un fichier de distances à la conversion. */
+  static final int DTC_KIND = 1;
+
+  /** Nombre maximum de pièces d'une table (rois compris). */
+  static final int MAX_PIECES = 4;
+
+  /** Ordre canonique des pièces dans l'indice d'une position. */
+  private static final Piece [] CANONICAL_ORDER = {
+      WHITE_KING, WHITE_QUEEN, WHITE_ROOK, WHITE_BISHOP, WHITE_KNIGHT, WHITE_PAWN, BLACK_KING,
+      BLACK_QUEEN, BLACK_ROOK, BLACK_BISHOP, BLACK_KNIGHT, BLACK_PAWN,
+  };
+
+  /** Liste des pièces. */
+  private static final Piece [] PIECES = Piece.values();
+
+  /** Tables disponibles, indexées par la clé de leur matériel. */
+  private final Map<Long, Table> _tables;
+
+  /** Nombre de pièces de la plus grande table disponible. */
+  private final int _maximalPieceCount;
+
+  /**
+   * Instancie un nouvel ensemble de tables.
+   * 
+   * @param pTables Tables disponibles, indexées par la clé de leur matériel.
+   */
+  private EndgameTablebase(final Map<Long, Table> pTables)
+  {
+    assert pTables != null;
+
+    _tables = pTables;
+    int max = 2;
+    for (final Table t : pTables.values())
+    {
+      max = Math.max(max, t.getMaterial().getPieceCount());
+    }
+    _maximalPieceCount = max;
+  }
+
+  /**
+   * Renvoi le mouvement parfait, d'après les tables, pour un état de l'échiquier.
+   * <p>
+   * Le gain le plus rapide est préféré (le mat avant tout), la défaite la plus lente, et à défaut
+   * d'un gain, n'importe quel mouvement conservant la nulle.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @return Mouvement parfait (ou null si la position ou l'une de ses suites n'est pas couverte).
+   */
+  public Move getBestMove(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    if (probeWDL(pEtat) == UNKNOWN)
+    {
+      return null;
+    }
+
+    Move res = null;
+    int meilleur = Integer.MIN_VALUE;
+    for (final Move mvt : pEtat.getValidMoves(pEtat.isWhiteActive()))
+    {
+      final MoveGenerator suite = pEtat.derive(mvt, true);
+      final int resultat = probeWDL(suite);
+      if (resultat == UNKNOWN)
+      {
+        return null;
+      }
+      final int dtc = probeDTC(suite);
+      final int distance;
+      if ((resultat == LOSS) && (dtc == 0))
+      {
+        // Mat...
+        distance = 0;
+      }
+      else if ((mvt.getCaptured() != null) || (dtc < 0) || isPromotion(mvt))
+      {
+        distance = 1;
+      }
+      else
+      {
+        distance = dtc + 1;
+      }
+      final int note;
+      if (resultat == LOSS)
+      {
+        note = 1024 - distance;
+      }
+      else if (resultat == WIN)
+      {
+        note = -1024 + distance;
+      }
+      else
+      {
+        note = 0;
+      }
+      if (note > meilleur)
+      {
+        meilleur = note;
+        res = mvt;
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le nombre de pièces (rois compris) de la plus grande table disponible.
+   * 
+   * @return Nombre maximum de pièces d'une position couverte (>= 2).
+   */
+  public int getMaximalPieceCount()
+  {
+    assert _maximalPieceCount >= 2;
+    return _maximalPieceCount;
+  }
+
+  /**
+   * Renvoi le nombre de tables disponibles.
+   * 
+   * @return Nombre de tables.
+   */
+  public int getSize()
+  {
+    return _tables.size();
+  }
+
+  /**
+   * Indique si un joueur dispose encore effectivement d'un droit de roque.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pBlanc A "true" pour tester les blancs, à "false" pour les noirs.
+   * @return "true" si le roi et l'une des tours du joueur peuvent encore roquer.
+   */
+  private static boolean hasCastling(final Board pEtat, final boolean pBlanc)
+  {
+    assert pEtat != null;
+
+    final int ligne;
+    final Piece roi;
+    final Piece tour;
+    if (pBlanc)
+    {
+      ligne = 0;
+      roi = WHITE_KING;
+      tour = WHITE_ROOK;
+    }
+    else
+    {
+      ligne = 7;
+      roi = BLACK_KING;
+      tour = BLACK_ROOK;
+    }
+
+    return (pEtat.getPieceAt(4, ligne) == roi)
+        && ((pEtat.canCastleShort(pBlanc) && (pEtat.getPieceAt(7, ligne) == tour))
+            || (pEtat.canCastleLong(pBlanc) && (pEtat.getPieceAt(0, ligne) == tour)));
+  }
+
+  /**
+   * Indique si un mouvement est une promotion.
+   * 
+   * @param pMouvement Mouvement.
+   * @return "true" si le mouvement amène un pion sur la dernière rangée.
+   */
+  private static boolean isPromotion(final Move pMouvement)
+  {
+    assert pMouvement != null;
+
+    final int ligne = pMouvement.getTo().getRank();
+    return (pMouvement.getPiece().getType() == PAWN) && ((ligne == 0) || (ligne == 7));
+  }
+
+  /**
+   * Consulte les tables pour un état de l'échiquier.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pDistance A "true" pour lire la distance à la conversion, à "false" pour le résultat.
+   * @return Valeur lue dans les tables (ou -1 si la position n'est pas couverte).
+   */
+  private int probe(final Board pEtat, final boolean pDistance)
+  {
+    assert pEtat != null;
+
+    long cle = 0;
+    long miroir = 0;
+    int nb = 0;
+    for (final Piece p : PIECES)
+    {
+      final int c = pEtat.getPieceCount(p);
+      nb += c;
+      cle |= ((long) c) << (4 * p.ordinal());
+      miroir |= ((long) c) << (4 * Material.swap(p.ordinal()));
+    }
+    if ((nb > _maximalPieceCount) || (pEtat.getEnPassant() != null)
+        || hasCastling(pEtat, true) || hasCastling(pEtat, false))
+    {
+      return -1;
+    }
+    if (nb == 2)
+    {
+      // Rois seuls...
+      return pDistance ? 0 : DRAW;
+    }
+
+    boolean inverse = false;
+    Table table = _tables.get(Long.valueOf(cle));
+    if (table == null)
+    {
+      table = _tables.get(Long.valueOf(miroir));
+      inverse = true;
+    }
+    if (table == null)
+    {
+      return -1;
+    }
+    final ByteBuffer tampon = pDistance ? table.getDTC() : table.getWDL();
+    final int indice = table.getMaterial().indexOf(pEtat, inverse);
+    if ((tampon == null) || (indice < 0))
+    {
+      return -1;
+    }
+
+    return tampon.get(HEADER_SIZE + indice) & 0xFF;
+  }
+
+  /**
+   * Renvoi la distance à la conversion d'un état de l'échiquier.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @return Distance à la conversion (en demi-coups), ou -1 si la position n'est pas couverte.
+   */
+  public int probeDTC(final Board pEtat)
+  {
+    if (pEtat == null)
+    {
+      throw new NullPointerException("Missing board");
+    }
+
+    return probe(pEtat, true);
+  }
+
+  /**
+   * Renvoi le résultat d'un état de l'échiquier pour le joueur ayant le trait.
+   * <p>
+   * Destiné à être appelé aux noeuds de la recherche : une position comptant trop de pièces est
+   * écartée après un simple décompte.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @return {@link #WIN}, {@link #DRAW}, {@link #LOSS}, ou {@link #UNKNOWN} si la position n'est
+   *         pas couverte.
+   */
+  public int probeWDL(final Board pEtat)
+  {
+    if (pEtat == null)
+    {
+      throw new NullPointerException("Missing board");
+    }
+
+    final int res = probe(pEtat, false);
+    if ((res < LOSS) || (res > WIN))
+    {
+      return UNKNOWN;
+    }
+
+    return res;
+  }
+
+  /**
+   * Projette en mémoire un fichier de table.
+   * 
+   * @param pFichier Fichier de la table.
+   * @param pNature Nature attendue du fichier.
+   * @param pMateriel Matériel attendu.
+   * @return Tampon projeté en mémoire.
+   * @throws IOException en cas d'erreur d'accès au fichier ou de contenu invalide.
+   */
+  private static ByteBuffer map(final File pFichier, final int pNature, final Material pMateriel)
+      throws IOException
+  {
+    assert pFichier != null;
+    assert pMateriel != null;
+
+    final RandomAccessFile fichier = new RandomAccessFile(pFichier, "r");
+    try
+    {
+      final FileChannel canal = fichier.getChannel();
+      if (canal.size() != HEADER_SIZE + pMateriel.getSize())
+      {
+        throw new IOException("Invalid tablebase size: " + pFichier);
+      }
+      // La projection reste valide après la fermeture du fichier...
+      final ByteBuffer res = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+      if ((res.getInt(0) != MAGIC) || (res.getInt(4) != VERSION) || (res.getInt(8) != pNature)
+          || (res.getInt(12) != pMateriel.getPieceCount()))
+      {
+        throw new IOException("Invalid tablebase header: " + pFichier);
+      }
+
+      return res;
+    }
+    finally
+    {
+      fichier.close();
+    }
+  }
+
+  /**
+   * Ouvre les tables de finales présentes dans un répertoire.
+   * <p>
+   * Les fichiers de distances à la conversion sont facultatifs : sans eux, seuls les résultats sont
+   * disponibles.
+   * </p>
+   * 
+   * @param pRepertoire Répertoire des tables.
+   * @return Tables correspondantes (éventuellement aucune).
+   * @throws IOException si le répertoire n'est pas accessible ou si une table est invalide.
+   */
+  public static EndgameTablebase open(final File pRepertoire) throws IOException
+  {
+    if (pRepertoire == null)
+    {
+      throw new NullPointerException("Missing tablebase directory");
+    }
+
+    final File [] fichiers = pRepertoire.listFiles();
+    if (fichiers == null)
+    {
+      throw new IOException("Invalid tablebase directory: " + pRepertoire);
+    }
+
+    final Map<Long, Table> tables = new HashMap<Long, Table>();
+    for (final File f : fichiers)
+    {
+      final String nom = f.getName();
+      if (nom.endsWith(WDL_SUFFIX))
+      {
+        final Material materiel;
+        try
+        {
+          materiel = new Material(nom.substring(0, nom.length() - WDL_SUFFIX.length()));
+        }
+        catch (final IllegalArgumentException e)
+        {
+          throw new IOException("Invalid tablebase name: " + f);
+        }
+        final ByteBuffer wdl = map(f, WDL_KIND, materiel);
+        final File dtc = new File(pRepertoire, materiel.getName() + DTC_SUFFIX);
+        ByteBuffer distances = null;
+        if (dtc.isFile())
+        {
+          distances = map(dtc, DTC_KIND, materiel);
+        }
+        tables.put(Long.valueOf(materiel.getKey()), new Table(materiel, wdl, distances));
+      }
+    }
+
+    return new EndgameTablebase(tables);
+  }
+
+  /**
+   * Répartition du matériel d'une table, et calcul des indices de ses positions.
+   */
+  static final class Material
+  {
+    /** Nom de la répartition (par exemple "KQvK"). */
+    private final String _name;
+
+    /** Pièces, dans l'ordre canonique. */
+    private final Piece [] _pieces;
+
+    /** Premier emplacement de chaque pièce dans l'indice, par numéro d'ordre de pièce. */
+    private final int [] _firstSlots = new int [ 12 ];
+
+    /** Nombre de pièces de chaque sorte, par numéro d'ordre de pièce. */
+    private final int [] _counts = new int [ 12 ];
+
+    /** Clé du matériel (nombre de pièces de chaque sorte, sur 4 bits). */
+    private final long _key;
+
+    /**
+     * Instancie une nouvelle répartition à partir de son nom.
+     * 
+     * @param pNom Nom de la répartition : lettres SAN des pièces blanches puis des pièces noires,
+     *          séparées par "v" et débutant par le roi (par exemple "KRPvKR").
+     * @throws IllegalArgumentException si le nom est invalide.
+     */
+    Material(final String pNom)
+    {
+      assert pNom != null;
+
+      final int v = pNom.indexOf('v');
+      if ((v < 1) || (pNom.length() - 1 > MAX_PIECES) || (pNom.charAt(0) != 'K')
+          || (v + 1 >= pNom.length()) || (pNom.charAt(v + 1) != 'K'))
+      {
+        throw new IllegalArgumentException("Invalid material [" + pNom + ']');
+      }
+
+      _name = pNom;
+      _pieces = new Piece [ pNom.length() - 1 ];
+      int n = 0;
+      for (int i = 0; i < pNom.length(); i++)
+      {
+        final char c = pNom.charAt(i);
+        if (i != v)
+        {
+          if ("QRBNP".indexOf(c) < 0 && ((c != 'K') || ((i != 0) && (i != v + 1))))
+          {
+            throw new IllegalArgumentException("Invalid material [" + pNom + ']');
+          }
+          if (i < v)
+          {
+            _pieces[n++] = Piece.valueOf(c);
+          }
+          else
+          {
+            _pieces[n++] = Piece.valueOf(Character.toLowerCase(c));
+          }
+        }
+      }
+      final int [] rangs = new int [ n ];
+      for (int i = 0; i < n; i++)
+      {
+        rangs[i] = Arrays.asList(CANONICAL_ORDER).indexOf(_pieces[i]) * 16 + i;
+      }
+      Arrays.sort(rangs);
+      final Piece [] tri = _pieces.clone();
+      long cle = 0;
+      Arrays.fill(_firstSlots, -1);
+      for (int i = 0; i < n; i++)
+      {
+        final Piece p = tri[rangs[i] & 15];
+        _pieces[i] = p;
+        final int o = p.ordinal();
+        if (_firstSlots[o] < 0)
+        {
+          _firstSlots[o] = i;
+        }
+        _counts[o]++;
+        cle += 1L << (4 * o);
+      }
+      _key = cle;
+    }
+
+    /**
+     * Renvoi la clé du matériel.
+     * 
+     * @return Clé du matériel (nombre de pièces de chaque sorte, sur 4 bits par pièce).
+     */
+    long getKey()
+    {
+      return _key;
+    }
+
+    /**
+     * Renvoi le nom de la répartition.
+     * 
+     * @return Nom de la répartition (par exemple "KQvK").
+     */
+    String getName()
+    {
+      assert _name != null;
+      return _name;
+    }
+
+    /**
+     * Renvoi une pièce de la répartition.
+     * 
+     * @param pEmplacement Emplacement de la pièce dans l'indice.
+     * @return Pièce correspondante.
+     */
+    Piece getPiece(final int pEmplacement)
+    {
+      assert (pEmplacement >= 0) && (pEmplacement < _pieces.length);
+
+      return _pieces[pEmplacement];
+    }
+
+    /**
+     * Renvoi le nombre de pièces de la répartition (rois compris).
+     * 
+     * @return Nombre de pièces.
+     */
+    int getPieceCount()
+    {
+      return _pieces.length;
+    }
+
+    /**
+     * Renvoi le nombre d'indices de la table.
+     * 
+     * @return Nombre d'indices (2 * 64 ^ nombre de pièces).
+     */
+    int getSize()
+    {
+      return 2 << (6 * _pieces.length);
+    }
+
+    /**
+     * Renvoi l'indice d'un état de l'échiquier.
+     * 
+     * @param pEtat Etat de l'échiquier.
+     * @param pInverse A "true" pour inverser les couleurs et les rangées de la position.
+     * @return Indice de la position (ou -1 si son matériel ne correspond pas).
+     */
+    int indexOf(final Board pEtat, final boolean pInverse)
+    {
+      assert pEtat != null;
+
+      final int n = _pieces.length;
+      final int [] cases = new int [ n ];
+      final int [] places = new int [ 12 ];
+      int nb = 0;
+      for (int i = 0; i < 64; i++)
+      {
+        final Piece p = pEtat.getPieceAt(i & 7, i >> 3);
+        if (p != null)
+        {
+          int o = p.ordinal();
+          int c = i;
+          if (pInverse)
+          {
+            o = swap(o);
+            c = i ^ 56;
+          }
+          if (places[o] >= _counts[o])
+          {
+            return -1;
+          }
+          cases[_firstSlots[o] + places[o]++] = c;
+          nb++;
+        }
+      }
+      if (nb != n)
+      {
+        return -1;
+      }
+
+      int res = (pEtat.isWhiteActive() != pInverse) ? 0 : 1;
+      for (final int c : cases)
+      {
+        res = (res << 6) | c;
+      }
+
+      return res;
+    }
+
+    /**
+     * Renvoi le numéro d'ordre de la pièce de même nature de la couleur opposée.
+     * 
+     * @param pOrdre Numéro d'ordre d'une pièce.
+     * @return Numéro d'ordre de la pièce de couleur opposée.
+     */
+    static int swap(final int pOrdre)
+    {
+      assert (pOrdre >= 0) && (pOrdre < 12);
+
+      // Les pièces noires précèdent les pièces blanches, dans le même ordre...
+      return (pOrdre + 6) % 12;
+    }
+
+    /**
+     * Renvoi la chaine FEN de la position correspondant à un indice.
+     * 
+     * @param pIndice Indice de la position.
+     * @return Chaine FEN correspondante (ou null si deux pièces occupent la même case ou si un pion
+     *         est sur une rangée extrême).
+     */
+    String toFEN(final int pIndice)
+    {
+      assert (pIndice >= 0) && (pIndice < getSize());
+
+      final Piece [] echiquier = new Piece [ 64 ];
+      int indice = pIndice;
+      for (int i = _pieces.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        final int c = indice & 63;
+        indice >>= 6;
+        final Piece p = _pieces[i];
+        if ((echiquier[c] != null) || ((p.getType() == PAWN) && ((c < 8) || (c >= 56))))
+        {
+          return null;
+        }
+        echiquier[c] = p;
+      }
+
+      final StringBuilder res = new StringBuilder();
+      for (int ligne = 8; --ligne >= 0; /* Pré-décrémenté */)
+      {
+        int vides = 0;
+        for (int colonne = 0; colonne < 8; colonne++)
+        {
+          final Piece p = echiquier[colonne + ligne * 8];
+          if (p == null)
+          {
+            vides++;
+          }
+          else
+          {
+            if (vides > 0)
+            {
+              res.append(vides);
+              vides = 0;
+            }
+            res.append(p.getFENLetter());
+          }
+        }
+        if (vides > 0)
+        {
+          res.append(vides);
+        }
+        if (ligne > 0)
+        {
+          res.append('/');
+        }
+      }
+      res.append((indice == 0) ? " w" : " b").append(" - - 0 1");
+
+      return res.toString();
+    }
+  }
+
+  /**
+   * Table de finale projetée en mémoire.
+   */
+  private static final class Table
+  {
+    /** Répartition du matériel de la table. */
+    private final Material _material;
+
+    /** Tampon des résultats. */
+    private final ByteBuffer _wdl;
+
+    /** Tampon des distances à la conversion (ou null). */
+    private final ByteBuffer _dtc;
+
+    /**
+     * Instancie une nouvelle table.
+     * 
+     * @param pMateriel Répartition du matériel.
+     * @param pResultats Tampon des résultats.
+     * @param pDistances Tampon des distances à la conversion (ou null).
+     */
+    Table(final Material pMateriel, final ByteBuffer pResultats, final ByteBuffer pDistances)
+    {
+      assert pMateriel != null;
+      assert pResultats != null;
+
+      _material = pMateriel;
+      _wdl = pResultats;
+      _dtc = pDistances;
+    }
+
+    /**
+     * Renvoi le tampon des distances à la conversion.
+     * 
+     * @return Tampon des distances (ou null).
+     */
+    ByteBuffer getDTC()
+    {
+      return _dtc;
+    }
+
+    /**
+     * Renvoi la répartition du matériel de la table.
+     * 
+     * @return Répartition du matériel.
+     */
+    Material getMaterial()
+    {
+      return _material;
+    }
+
+    /**
+     * Renvoi le tampon des résultats.
+     * 
+     * @return Tampon des résultats.
+     */
+    ByteBuffer getWDL()
+    {
+      return _wdl;
+    }
+  }
+}
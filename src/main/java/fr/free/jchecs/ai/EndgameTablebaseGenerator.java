@@ -0,0 +1,338 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.ai.EndgameTablebase.DRAW;
+import static fr.free.jchecs.ai.EndgameTablebase.DTC_KIND;
+import static fr.free.jchecs.ai.EndgameTablebase.DTC_SUFFIX;
+import static fr.free.jchecs.ai.EndgameTablebase.LOSS;
+import static fr.free.jchecs.ai.EndgameTablebase.MAGIC;
+import static fr.free.jchecs.ai.EndgameTablebase.UNKNOWN;
+import static fr.free.jchecs.ai.EndgameTablebase.VERSION;
+import static fr.free.jchecs.ai.EndgameTablebase.WDL_KIND;
+import static fr.free.jchecs.ai.EndgameTablebase.WDL_SUFFIX;
+import static fr.free.jchecs.ai.EndgameTablebase.WIN;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import fr.free.jchecs.ai.EndgameTablebase.Material;
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Classe utilitaire calculant des tables de finales (voir {@link EndgameTablebase}) par analyse
+ * rétrograde.
+ * <p>
+ * Usage : <code>EndgameTablebaseGenerator répertoire matériel...</code>, par exemple
+ * <code>EndgameTablebaseGenerator tables KQvK KRvK KPvK</code>.
+ * </p>
+ * <p>
+ * Les mouvements de chaque position sont d'abord générés une fois pour toutes. Les prises et les
+ * promotions, qui changent le matériel, sont évaluées d'après les tables déjà présentes dans le
+ * répertoire : les tables doivent donc être calculées des plus petites aux plus grandes (KQvK avant
+ * KPvK, par exemple). Les gains et les défaites sont ensuite propagés, demi-coup par demi-coup, à
+ * partir des mats et des conversions ; les positions restées indécises sont nulles.
+ * </p>
+ * <p>
+ * Le graphe des mouvements étant conservé en mémoire, le calcul est immédiat pour 3 pièces mais
+ * demande plusieurs Go de mémoire pour 4 pièces.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class EndgameTablebaseGenerator
+{
+  /** Résultat provisoire d'une position encore indécise. */
+  private static final byte PENDING = -1;
+
+  /** Drapeau d'une conversion gagnante (l'adversaire perd dans la table d'arrivée). */
+  private static final byte CONVERSION_WIN = 1;
+
+  /** Drapeau d'une conversion nulle. */
+  private static final byte CONVERSION_DRAW = 2;
+
+  /**
+   * Classe utilitaire : ne pas instancier.
+   */
+  private EndgameTablebaseGenerator()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Calcule une table de finale.
+   * 
+   * @param pMateriel Répartition du matériel de la table.
+   * @param pSousTables Tables déjà calculées, pour l'évaluation des prises et des promotions.
+   * @param pResultats Résultats des positions, à alimenter.
+   * @param pDistances Distances à la conversion des positions, à alimenter.
+   * @return Distance à la conversion maximale.
+   */
+  private static int generate(final Material pMateriel, final EndgameTablebase pSousTables,
+      final byte [] pResultats, final byte [] pDistances)
+  {
+    assert pMateriel != null;
+    assert pSousTables != null;
+    assert pResultats != null;
+    assert pDistances != null;
+
+    // Génération des mouvements de chaque position...
+    final int taille = pMateriel.getSize();
+    final int [] debuts = new int [ taille + 1 ];
+    final byte [] conversions = new byte [ taille ];
+    int [] suites = new int [ taille ];
+    int nb = 0;
+    int res = 0;
+    final int [] coups = new int [ MoveList.MAX_MOVES ];
+    for (int i = 0; i < taille; i++)
+    {
+      debuts[i] = nb;
+      final SearchBoard etat = toBoard(pMateriel, i);
+      if (etat == null)
+      {
+        continue;
+      }
+      final boolean trait = etat.isWhiteActive();
+      final int l = etat.getValidMoves(trait, coups);
+      if (l == 0)
+      {
+        if (etat.isInCheck(trait))
+        {
+          pResultats[i] = LOSS;
+        }
+        else
+        {
+          pResultats[i] = DRAW;
+        }
+        continue;
+      }
+      pResultats[i] = PENDING;
+      if (nb + l > suites.length)
+      {
+        suites = Arrays.copyOf(suites, Math.max(nb + l, suites.length + (suites.length >> 1)));
+      }
+      for (int j = 0; j < l; j++)
+      {
+        etat.makeMove(coups[j]);
+        final int suite = pMateriel.indexOf(etat, false);
+        if (suite >= 0)
+        {
+          suites[nb++] = suite;
+        }
+        else
+        {
+          final int resultat = pSousTables.probeWDL(etat);
+          if (resultat == UNKNOWN)
+          {
+            throw new IllegalStateException("Missing tablebase for " + FENUtils.toFEN(etat));
+          }
+          if (resultat == LOSS)
+          {
+            conversions[i] |= CONVERSION_WIN;
+          }
+          else if (resultat == DRAW)
+          {
+            conversions[i] |= CONVERSION_DRAW;
+          }
+        }
+        etat.unmakeMove();
+      }
+      if ((conversions[i] & CONVERSION_WIN) != 0)
+      {
+        pResultats[i] = WIN;
+        pDistances[i] = 1;
+        res = 1;
+      }
+    }
+    debuts[taille] = nb;
+
+    // Propagation des gains et des défaites, tant que la distance précédente en a produit...
+    for (int d = 1; d <= res + 1; d++)
+    {
+      if (d > 255)
+      {
+        throw new IllegalStateException("Distance to conversion overflow");
+      }
+      for (int i = 0; i < taille; i++)
+      {
+        if (pResultats[i] != PENDING)
+        {
+          continue;
+        }
+        boolean gain = false;
+        boolean perte = (conversions[i] & CONVERSION_DRAW) == 0;
+        for (int j = debuts[i]; j < debuts[i + 1]; j++)
+        {
+          final int s = suites[j];
+          final int r = pResultats[s];
+          final int distance = pDistances[s] & 0xFF;
+          if ((r == LOSS) && (distance == d - 1))
+          {
+            gain = true;
+            break;
+          }
+          if ((r != WIN) || (distance >= d))
+          {
+            perte = false;
+          }
+        }
+        if (gain)
+        {
+          pResultats[i] = WIN;
+        }
+        else if (perte)
+        {
+          pResultats[i] = LOSS;
+        }
+        if (gain || perte)
+        {
+          pDistances[i] = (byte) d;
+          res = d;
+        }
+      }
+    }
+
+    for (int i = 0; i < taille; i++)
+    {
+      if (pResultats[i] == PENDING)
+      {
+        pResultats[i] = DRAW;
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Lance le calcul des tables de finales.
+   * 
+   * @param pArgs Arguments de la ligne de commande : répertoire des tables, puis matériel de
+   *          chaque table à calculer.
+   * @throws IOException en cas d'erreur d'accès aux tables.
+   */
+  public static void main(final String [] pArgs) throws IOException
+  {
+    assert pArgs != null;
+
+    if (pArgs.length < 2)
+    {
+      System.out.println("Usage : EndgameTablebaseGenerator répertoire matériel...");
+      return;
+    }
+
+    final File repertoire = new File(pArgs[0]);
+    if (!repertoire.isDirectory() && !repertoire.mkdirs())
+    {
+      throw new IOException("Can't create tablebase directory: " + repertoire);
+    }
+    for (int i = 1; i < pArgs.length; i++)
+    {
+      final long debut = System.currentTimeMillis();
+      final Material materiel = new Material(pArgs[i]);
+      final byte [] resultats = new byte [ materiel.getSize() ];
+      final byte [] distances = new byte [ materiel.getSize() ];
+      final int max = generate(materiel, EndgameTablebase.open(repertoire), resultats, distances);
+      write(new File(repertoire, materiel.getName() + WDL_SUFFIX), WDL_KIND, materiel, resultats);
+      write(new File(repertoire, materiel.getName() + DTC_SUFFIX), DTC_KIND, materiel, distances);
+
+      final int [] decompte = new int [ WIN + 1 ];
+      for (final byte r : resultats)
+      {
+        decompte[r]++;
+      }
+      System.out.println(materiel.getName() + " : " + decompte[WIN] + " gains, " + decompte[DRAW]
+          + " nulles, " + decompte[LOSS] + " défaites, conversion en " + max
+          + " demi-coups au plus (" + (System.currentTimeMillis() - debut) + " ms).");
+    }
+  }
+
+  /**
+   * Renvoi l'échiquier correspondant à un indice de table.
+   * 
+   * @param pMateriel Répartition du matériel de la table.
+   * @param pIndice Indice de la position.
+   * @return Echiquier correspondant (ou null si la position est illégale).
+   */
+  private static SearchBoard toBoard(final Material pMateriel, final int pIndice)
+  {
+    assert pMateriel != null;
+
+    final String fen = pMateriel.toFEN(pIndice);
+    if (fen == null)
+    {
+      return null;
+    }
+
+    final SearchBoard res;
+    try
+    {
+      res = BoardFactory.newSearchBoard(FENUtils.toBoard(fen));
+    }
+    catch (final FENException e)
+    {
+      return null;
+    }
+    if (res.isInCheck(!res.isWhiteActive()))
+    {
+      // Le joueur n'ayant pas le trait ne peut pas être en échec.
+      return null;
+    }
+
+    return res;
+  }
+
+  /**
+   * Enregistre un fichier de table.
+   * 
+   * @param pFichier Fichier de destination.
+   * @param pNature Nature du fichier.
+   * @param pMateriel Répartition du matériel de la table.
+   * @param pValeurs Valeur de chaque position.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  private static void write(final File pFichier, final int pNature, final Material pMateriel,
+      final byte [] pValeurs) throws IOException
+  {
+    assert pFichier != null;
+    assert pMateriel != null;
+    assert pValeurs != null;
+
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pFichier)));
+    try
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(pNature);
+      out.writeInt(pMateriel.getPieceCount());
+      out.write(pValeurs);
+    }
+    finally
+    {
+      out.close();
+    }
+  }
+}
@@ -37,6 +37,14 @@ public interface Engine
    */
   long getElapsedTime();
 
+  /**
+   * Renvoi la réponse attendue de l'adversaire au dernier mouvement calculé, à anticiper pendant sa
+   * réflexion (voir {@link #ponder(MoveGenerator)}).
+   * 
+   * @return Réponse attendue (ou null si elle n'est pas connue).
+   */
+  Move getExpectedReply();
+
   /**
    * Renvoi le nombre total de demi-coups évalués par le moteur.
    * 
@@ -44,6 +52,13 @@ public interface Engine
    */
   int getHalfmoveCount();
 
+  /**
+   * Renvoi le délai strict de réflexion : au-delà, la recherche en cours est interrompue.
+   * 
+   * @return Délai strict de réflexion (en ms, 0 si illimité).
+   */
+  long getHardTimeLimit();
+
   /**
    * Renvoi la fonction d'évaluation utilisée par le moteur.
    * 
@@ -51,6 +66,13 @@ public interface Engine
    */
   Heuristic getHeuristic();
 
+  /**
+   * Renvoi la mémoire persistante des recherches du moteur.
+   * 
+   * @return Mémoire des recherches (ou null si le moteur n'en utilise pas).
+   */
+  LearningCache getLearningCache();
+
   /**
    * Renvoi la limite haute de la profondeur de recherche supportées par le moteur.
    * 
@@ -80,6 +102,14 @@ public interface Engine
    */
   Comparator<Move> getMoveSorter();
 
+  /**
+   * Renvoi la bibliothèque d'ouvertures utilisée par le moteur.
+   * 
+   * @return Bibliothèque d'ouvertures (par défaut celle fournie avec jChecs, ou null si elle n'est
+   *         pas disponible).
+   */
+  OpeningBook getOpeningBook();
+
   /**
    * Renvoi le score obtenu par le dernier mouvement calculé.
    * 
@@ -95,6 +125,58 @@ public interface Engine
    */
   int getSearchDepthLimit();
 
+  /**
+   * Renvoi le nombre de fils d'exécution demandés pour la recherche.
+   * 
+   * @return Nombre de fils de recherche (>= 1).
+   */
+  int getSearchThreads();
+
+  /**
+   * Renvoi le délai souple de réflexion : au-delà, aucune nouvelle itération n'est lancée.
+   * 
+   * @return Délai souple de réflexion (en ms, 0 si illimité).
+   */
+  long getSoftTimeLimit();
+
+  /**
+   * Renvoi les tables de finales consultées par le moteur.
+   * 
+   * @return Tables de finales (ou null si le moteur n'en consulte pas).
+   */
+  EndgameTablebase getTablebase();
+
+  /**
+   * Renvoi la taille mémoire allouée à la table de transposition du moteur.
+   * 
+   * @return Taille mémoire de la table de transposition (en octets, > 0).
+   */
+  int getTranspositionTableSize();
+
+  /**
+   * Indique si l'élagage des mouvements futiles aux noeuds frontières est activé (sans effet pour
+   * les moteurs ne le mettant pas en oeuvre).
+   * 
+   * @return "true" si l'élagage est activé, "false" sinon.
+   */
+  boolean isFutilityPruningEnabled();
+
+  /**
+   * Indique si la réduction de profondeur des mouvements tardifs est activée (sans effet pour les
+   * moteurs ne la mettant pas en oeuvre).
+   * 
+   * @return "true" si la réduction est activée, "false" sinon.
+   */
+  boolean isLateMoveReductionEnabled();
+
+  /**
+   * Indique si l'élagage par coup nul est activé (sans effet pour les moteurs ne le mettant pas en
+   * oeuvre).
+   * 
+   * @return "true" si l'élagage est activé, "false" sinon.
+   */
+  boolean isNullMovePruningEnabled();
+
   /**
    * Indique si l'utilisation de la bibliothèque d'ouvertures est activée.
    * 
@@ -102,6 +184,37 @@ public interface Engine
    */
   boolean isOpeningsEnabled();
 
+  /**
+   * Indique si le moteur utilise une table de transposition (et donc la taille mémoire fixée par
+   * {@link #setTranspositionTableSize(int)}).
+   * 
+   * @return "true" si le moteur utilise une table de transposition, "false" sinon.
+   */
+  boolean isTranspositionTableUsed();
+
+  /**
+   * Anticipe, pendant la réflexion de l'adversaire, la position qui suivrait sa réponse attendue,
+   * jusqu'à l'appel de {@link #stopPondering()}. Sans effet si {@link #startPondering()} n'a pas été
+   * appelée au préalable.
+   * 
+   * @param pEtat Etat de l'échiquier anticipé.
+   */
+  void ponder(final MoveGenerator pEtat);
+
+  /**
+   * Annule une éventuelle demande d'arrêt ({@link #stop()}) : à appeler au moment de confier une
+   * nouvelle recherche à un autre fil, et non au démarrage de celle-ci, pour qu'un arrêt survenant
+   * entre les deux ne soit pas perdu.
+   */
+  void resetStop();
+
+  /**
+   * Active / désactive l'élagage des mouvements futiles aux noeuds frontières.
+   * 
+   * @param pActif A "true" pour activer l'élagage, à "false" sinon.
+   */
+  void setFutilityPruningEnabled(final boolean pActif);
+
   /**
    * Modifie la fonction d'évaluation utilisée par le moteur.
    * 
@@ -109,6 +222,21 @@ public interface Engine
    */
   void setHeuristic(final Heuristic pHeuristique);
 
+  /**
+   * Active / désactive la réduction de profondeur des mouvements tardifs.
+   * 
+   * @param pActif A "true" pour activer la réduction, à "false" sinon.
+   */
+  void setLateMoveReductionEnabled(final boolean pActif);
+
+  /**
+   * Modifie la mémoire persistante des recherches du moteur : chaque recherche terminée y est
+   * mémorisée, et une position déjà analysée au moins aussi profondément est jouée sans recherche.
+   * 
+   * @param pMemoire Mémoire des recherches (ou null pour ne plus en utiliser).
+   */
+  void setLearningCache(final LearningCache pMemoire);
+
   /**
    * Modifie la fonction d'ordenancement des mouvements.
    * 
@@ -116,6 +244,21 @@ public interface Engine
    */
   void setMoveSorter(final Comparator<Move> pComparateur);
 
+  /**
+   * Active / désactive l'élagage par coup nul.
+   * 
+   * @param pActif A "true" pour activer l'élagage, à "false" sinon.
+   */
+  void setNullMovePruningEnabled(final boolean pActif);
+
+  /**
+   * Modifie la bibliothèque d'ouvertures utilisée par le moteur.
+   * 
+   * @param pBibliotheque Nouvelle bibliothèque d'ouvertures (ou null pour revenir à celle fournie
+   *          avec jChecs).
+   */
+  void setOpeningBook(final OpeningBook pBibliotheque);
+
   /**
    * Active / désactive l'utilisation de la bibliothèque d'ouvertures.
    * 
@@ -123,6 +266,58 @@ public interface Engine
    */
   void setOpeningsEnabled(final boolean pActif);
 
+  /**
+   * Modifie le nombre de fils d'exécution demandés pour la recherche (sans effet pour les moteurs ne
+   * sachant pas répartir leur recherche).
+   * 
+   * @param pNombre Nombre de fils de recherche (>= 1).
+   */
+  void setSearchThreads(final int pNombre);
+
+  /**
+   * Modifie les tables de finales consultées par le moteur : les positions qu'elles couvrent sont
+   * jouées parfaitement.
+   * 
+   * @param pTables Tables de finales (ou null pour ne plus en consulter).
+   */
+  void setTablebase(final EndgameTablebase pTables);
+
+  /**
+   * Modifie les délais de réflexion du moteur. Avec au moins un délai, la recherche procède par
+   * approfondissements successifs et renvoie le coup de la dernière itération terminée.
+   * 
+   * @param pSouple Délai souple de réflexion (en ms, 0 si illimité).
+   * @param pStrict Délai strict de réflexion (en ms, 0 si illimité).
+   */
+  void setTimeLimits(final long pSouple, final long pStrict);
+
+  /**
+   * Modifie la taille mémoire allouée à la table de transposition du moteur (prise en compte à la
+   * recherche suivante, sans effet pour les moteurs n'utilisant pas de table de transposition).
+   * 
+   * @param pOctets Taille mémoire de la table de transposition (en octets, > 0).
+   */
+  void setTranspositionTableSize(final int pOctets);
+
+  /**
+   * Demande l'anticipation de la prochaine position, à confier ensuite à
+   * {@link #ponder(MoveGenerator)}.
+   */
+  void startPondering();
+
+  /**
+   * Arrête au plus vite la recherche en cours (calcul d'un mouvement ou anticipation), depuis un
+   * autre fil d'exécution. Le mouvement alors renvoyé par {@link #getMoveFor(MoveGenerator)} doit
+   * être ignoré. La demande vaut aussi pour une recherche qui n'a pas encore démarré, jusqu'à
+   * l'appel de {@link #resetStop()} ou {@link #startPondering()}.
+   */
+  void stop();
+
+  /**
+   * Arrête l'éventuelle anticipation en cours (ou demandée).
+   */
+  void stopPondering();
+
   /**
    * Aliment la valeur de la limite de la profondeur de recherche (en demi-coups).
    * 
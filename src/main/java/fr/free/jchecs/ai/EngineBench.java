@@ -22,6 +22,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
 
@@ -40,13 +42,77 @@ public final class EngineBench
     // Rien de spécifique...
   }
 
+  /** Positions de test de la recherche sélective. */
+  private static final String [] SELECTIVE_FENS = {
+      FENUtils.STANDART_STARTING_FEN,
+      "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+      "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+  };
+
+  /** Profondeur de recherche utilisée pour la comparaison des recherches sélectives. */
+  private static final int SELECTIVE_DEPTH = 6;
+
+  /**
+   * Compare, sur quelques positions et à profondeur fixe, le nombre de demi-coups évalués par
+   * NegaScout et par ses variantes sélectives.
+   * 
+   * @throws FENException En cas de position de test invalide.
+   */
+  private static void benchSelectiveSearch() throws FENException
+  {
+    final String [] libelles = {
+        "NegaScout", "NegaScout+", "NegaScout+ sans coup nul", "NegaScout+ sans réductions",
+        "NegaScout+ sans futilité",
+    };
+    final MoveGenerator [] positions = new MoveGenerator [ SELECTIVE_FENS.length ];
+    for (int i = 0; i < positions.length; i++)
+    {
+      positions[i] =
+          BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.EMPTY).derive(
+              FENUtils.toBoard(SELECTIVE_FENS[i]));
+    }
+    System.out.println("Recherches sélectives (profondeur " + SELECTIVE_DEPTH + ", "
+        + positions.length + " positions) :");
+    for (int i = 0; i < libelles.length; i++)
+    {
+      final Engine ia;
+      if (i == 0)
+      {
+        ia = new NegaScoutEngine();
+      }
+      else
+      {
+        ia = new SelectiveNegaScoutEngine();
+        ia.setNullMovePruningEnabled(i != 2);
+        ia.setLateMoveReductionEnabled(i != 3);
+        ia.setFutilityPruningEnabled(i != 4);
+      }
+      ia.setOpeningsEnabled(false);
+      ia.setSearchDepthLimit(SELECTIVE_DEPTH);
+      final StringBuilder coups = new StringBuilder();
+      for (final MoveGenerator etat : positions)
+      {
+        final Move mvt = ia.getMoveFor(etat);
+        coups.append(' ').append(mvt.getFrom().getFENString()).append(
+            mvt.getTo().getFENString());
+      }
+      System.out.println(" - " + libelles[i] + " : " + ia.getHalfmoveCount()
+          + " demi-coups évalués en " + ia.getElapsedTime() + "ms," + coups);
+    }
+  }
+
   /**
    * Teste l'efficacité des moteurs de recherche du meilleur mouvement.
    * 
    * @param pArgs Arguments de la ligne de commande : ignorés, aucun argument attendu.
+   * @throws FENException En cas de position de test invalide.
    */
-  public static void main(final String [] pArgs)
+  public static void main(final String [] pArgs) throws FENException
   {
+    benchSelectiveSearch();
+
     final int nbManches = 10;
     final int nbCoups = 50;
     System.out.println("Parties croisées (en " + nbManches + " manches de " + nbCoups
@@ -40,6 +40,7 @@ public final class EngineFactory
     INTERNAL_ENGINES.put("jChecs.MiniMax", MiniMaxEngine.class);
     INTERNAL_ENGINES.put("jChecs.MiniMax++", EnhancedMiniMaxEngine.class);
     INTERNAL_ENGINES.put("jChecs.NegaScout", NegaScoutEngine.class);
+    INTERNAL_ENGINES.put("jChecs.NegaScout+", SelectiveNegaScoutEngine.class);
     INTERNAL_ENGINES.put("jChecs.Random", RandomEngine.class);
   }
 
@@ -111,4 +112,16 @@ public final class EngineFactory
 
     return res;
   }
+
+  /**
+   * Libère les ressources partagées par les moteurs, comme les fils de recherche parallèle, par
+   * exemple avant le déchargement de l'application. Les moteurs restent utilisables.
+   * <p>
+   * Les recherches en cours doivent avoir été arrêtées au préalable (voir {@link Engine#stop()}).
+   * </p>
+   */
+  public static void shutdown()
+  {
+    SearchPool.shutdown();
+  }
 }
@@ -18,10 +18,8 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
-
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur un mini/max ammélioré par un élagae simple, sur 4 demi-coups.
@@ -33,6 +31,9 @@ import fr.free.jchecs.core.MoveGenerator;
  */
 final class EnhancedMiniMaxEngine extends AbstractEngine
 {
+  /** Listes de mouvements préallouées de la recherche. */
+  private final MoveList _moveList = new MoveList();
+
   /** Drapeau indiquant si le trait est aux blancs. */
   private boolean _trait;
 
@@ -48,11 +49,13 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * Recherche la meilleure réplique évaluée à partir d'une position.
    * 
    * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @param pMax Valeur du max du noeud père (petite optimisation, en attendant un vrai Alpha/Béta).
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMin(final MoveGenerator pEtat, final int pProfondeur, final int pMax)
+  private int findMin(final SearchBoard pEtat, final int pPly, final int pProfondeur,
+      final int pMax)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -66,13 +69,18 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
 
     int res = -MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    Arrays.sort(coups, getMoveSorter());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final int l = _moveList.generate(pEtat, pPly);
+    _moveList.score(pPly, getMoveSorter());
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMax(etat, pProfondeur - 1, res);
+      pEtat.makeMove(_moveList.next(pPly, i));
+      final int note = findMax(pEtat, pPly + 1, pProfondeur - 1, res);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        return res;
+      }
       if (note < pMax)
       {
         // Début d'élagage, ajouté par rapport à un mini/max pur...
@@ -91,11 +99,13 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * Recherche le meilleur coup évalué à partir d'une position.
    * 
    * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @param pMin Valeur du min du noeud père (petite optimisation, en attendant un vrai Alpha/Béta).
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMax(final MoveGenerator pEtat, final int pProfondeur, final int pMin)
+  private int findMax(final SearchBoard pEtat, final int pPly, final int pProfondeur,
+      final int pMin)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -109,13 +119,18 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
 
     int res = MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    Arrays.sort(coups, getMoveSorter());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final int l = _moveList.generate(pEtat, pPly);
+    _moveList.score(pPly, getMoveSorter());
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, pProfondeur - 1, res);
+      pEtat.makeMove(_moveList.next(pPly, i));
+      final int note = findMin(pEtat, pPly + 1, pProfondeur - 1, res);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        return res;
+      }
       if (note > pMin)
       {
         // Début d'élagage, ajouté par rapport à un mini/max pur...
@@ -135,10 +150,12 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -148,13 +165,18 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
     final int l = pCoups.length;
     assert l > 0;
     addHalfmove(l);
-    Arrays.sort(pCoups, getMoveSorter());
+    sortRootMoves(pCoups);
     Move res = pCoups[0];
     int meilleur = MATE_VALUE - 1;
     for (final Move mvt : pCoups)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, getSearchDepthLimit() - 1, meilleur);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, 1, pProfondeur - 1, meilleur);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        break;
+      }
       if ((note > meilleur) || ((note == meilleur) && RANDOMIZER.nextBoolean()))
       {
         // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
@@ -0,0 +1,173 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.ARRAY;
+import static fr.free.jchecs.core.BoardFactory.Type.X88;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.Board;
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.PieceSquareTables;
+import fr.free.jchecs.core.SearchBoard;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Tests unitaires des fonctions d'évaluation et des scores maintenus par les états.
+ * 
+ * @author David Cotton
+ */
+public final class HeuristicTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public HeuristicTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Vérifie les nombres de pièces et les scores de position d'un état, comparés à un parcours de
+   * toutes les cases.
+   * 
+   * @param pEtat Etat à vérifier.
+   */
+  private static void validateScores(final Board pEtat)
+  {
+    final String fen = FENUtils.toFEN(pEtat);
+    for (final Piece piece : Piece.values())
+    {
+      int nb = 0;
+      int milieu = 0;
+      int fin = 0;
+      for (final Square s : Square.values())
+      {
+        if (pEtat.getPieceAt(s) == piece)
+        {
+          nb++;
+          milieu += PieceSquareTables.valueOf(piece, s.getIndex(), false);
+          fin += PieceSquareTables.valueOf(piece, s.getIndex(), true);
+        }
+      }
+      assertEquals(fen + ' ' + piece, nb, pEtat.getPieceCount(piece));
+      assertEquals(fen + ' ' + piece, milieu, pEtat.getPieceSquareScore(piece, false));
+      assertEquals(fen + ' ' + piece, fin, pEtat.getPieceSquareScore(piece, true));
+    }
+  }
+
+  /**
+   * Valide les scores de matériel et de position maintenus au fil des mouvements joués et annulés
+   * sur place.
+   */
+  @Test
+  public void valideIncrementalScores()
+  {
+    final Random randomizer = new Random(4000);
+    final int [] coups = new int [ 256 ];
+    for (int p = 20; p >= 0; p--)
+    {
+      final SearchBoard etat =
+          BoardFactory.newSearchBoard(BoardFactory.valueOf(ARRAY, STARTING));
+      for (int cps = 150; cps >= 0; cps--)
+      {
+        validateScores(etat);
+        final int nb = etat.getValidMoves(etat.isWhiteActive(), coups);
+        if (nb == 0)
+        {
+          break;
+        }
+        final int [] ids = new int [ nb ];
+        System.arraycopy(coups, 0, ids, 0, nb);
+        for (final int m : ids)
+        {
+          etat.makeMove(m);
+          validateScores(etat);
+          etat.unmakeMove();
+        }
+        etat.makeMove(ids[randomizer.nextInt(nb)]);
+      }
+    }
+  }
+
+  /**
+   * Valide l'égalité des évaluations des différentes représentations d'un même état.
+   */
+  @Test
+  public void valideEvaluations()
+  {
+    final Heuristic [] references = { new MinimalHeuristic(), new MobilityHeuristic(), };
+    final Heuristic [] heuristiques = { new MinimalHeuristic(), new MobilityHeuristic(), };
+    final Random randomizer = new Random(5000);
+    for (int p = 50; p >= 0; p--)
+    {
+      MoveGenerator reference = BoardFactory.valueOf(ARRAY, STARTING);
+      MoveGenerator x88 = BoardFactory.valueOf(X88, STARTING);
+      final SearchBoard etat = BoardFactory.newSearchBoard(reference);
+      for (int cps = 150; cps >= 0; cps--)
+      {
+        validateScores(reference);
+        validateScores(x88);
+        for (int i = 0; i < references.length; i++)
+        {
+          for (final boolean trait : new boolean [] { true, false, })
+          {
+            final String fen = FENUtils.toFEN(reference);
+            final int attendue = references[i].evaluate(reference, trait);
+            assertEquals(fen, attendue, heuristiques[i].evaluate(etat, trait));
+            assertEquals(fen, attendue, heuristiques[i].evaluate(x88, trait));
+          }
+        }
+        final Move [] mvts = reference.getValidMoves(reference.isWhiteActive());
+        if (mvts.length == 0)
+        {
+          break;
+        }
+        final Move mvt = mvts[randomizer.nextInt(mvts.length)];
+        reference = reference.derive(mvt, true);
+        x88 = x88.derive(mvt, true);
+        etat.makeMove(mvt);
+      }
+    }
+  }
+
+  /**
+   * Valide l'évaluation de la position de départ, symétrique.
+   */
+  @Test
+  public void valideStarting()
+  {
+    final MoveGenerator depart = BoardFactory.valueOf(ARRAY, STARTING);
+    for (final Heuristic h : new Heuristic [] { new MinimalHeuristic(), new MobilityHeuristic(), })
+    {
+      assertEquals(h.evaluate(depart, true), h.evaluate(depart, false));
+    }
+    assertEquals(0, new MinimalHeuristic().evaluate(depart, true));
+  }
+}
@@ -19,6 +19,8 @@
 package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
 
@@ -35,6 +37,13 @@ public final class HeuristicsBench
   /** Nombre de coups par partie. */
   private static final int MOVES_COUNT = 50;
 
+  /** Positions de test du cache de structure de pions. */
+  private static final String [] PAWN_HASH_FENS =
+      { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+          "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+          "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", };
+
   /**
    * Classe utilitaire.
    */
@@ -43,13 +52,46 @@ public final class HeuristicsBench
     // Rien de spécifique...
   }
 
+  /**
+   * Mesure le taux de succès du cache de structure de pions en fonction de sa taille, pour aider à
+   * le dimensionner.
+   * 
+   * @throws FENException En cas d'erreur dans les positions de test.
+   */
+  private static void benchPawnHashTable() throws FENException
+  {
+    System.out.println("Cache de structure de pions (profondeur 5, " + PAWN_HASH_FENS.length
+        + " positions) :");
+    for (int taille = 1 << 8; taille <= 1 << 16; taille <<= 2)
+    {
+      final MobilityHeuristic heuristique = new MobilityHeuristic(taille);
+      final Engine moteur = EngineFactory.newInstance("jChecs.NegaScout");
+      moteur.setSearchDepthLimit(5);
+      moteur.setOpeningsEnabled(false);
+      moteur.setHeuristic(heuristique);
+      final long debut = System.currentTimeMillis();
+      for (final String fen : PAWN_HASH_FENS)
+      {
+        moteur.getMoveFor(BoardFactory.valueOf(BoardFactory.Type.FASTEST,
+            BoardFactory.State.EMPTY).derive(FENUtils.toBoard(fen)));
+      }
+      final PawnHashTable table = heuristique.getPawnHashTable();
+      System.out.println("  " + table.getCapacity() + " entrées : " + table.getProbeCount()
+          + " consultations, " + Math.round(table.getHitRate() * 1000) / 10.0 + "% de succès, "
+          + (System.currentTimeMillis() - debut) + "ms");
+    }
+  }
+
   /**
    * Teste l'efficacité de la gestion des ouvertures.
    * 
    * @param pArgs Arguments de la ligne de commande : ignorés, aucun argument attendu.
+   * @throws FENException En cas d'erreur dans les positions de test.
    */
-  public static void main(final String [] pArgs)
+  public static void main(final String [] pArgs) throws FENException
   {
+    benchPawnHashTable();
+
     System.out.println("Parties croisées (en " + GAMES_COUNT + " manches de " + MOVES_COUNT
         + " coups maximum).");
     final Engine moteur = EngineFactory.newInstance();
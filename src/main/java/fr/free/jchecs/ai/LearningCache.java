@@ -0,0 +1,512 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mémoire persistante des recherches terminées à la racine : pour chaque position déjà analysée
+ * (identifiée par sa clé Zobrist), le meilleur mouvement trouvé, la profondeur et la note de la
+ * recherche.
+ * <p>
+ * Les entrées sont conservées en mémoire, dans la limite d'une capacité au-delà de laquelle les
+ * moins récemment utilisées sont oubliées. Chaque nouvelle entrée est ajoutée à la fin du fichier
+ * par un fil d'exécution dédié, qui réécrit aussi le fichier à partir des seules entrées en mémoire
+ * lorsqu'il a atteint le double de la capacité : les moteurs n'attendent jamais après le disque.
+ * </p>
+ * <p>
+ * Format du fichier (gros-boutiste) : un en-tête de {@value #HEADER_SIZE} octets (signature et
+ * version), puis des enregistrements de {@value #RECORD_SIZE} octets : clé (entier long),
+ * identifiant du mouvement, profondeur et note (entiers). En cas de doublon, le dernier
+ * enregistrement l'emporte.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class LearningCache
+{
+  /** Signature des fichiers de mémoire ("JCLC"). */
+  static final int MAGIC = 0x4A434C43;
+
+  /** Version du format de fichier. */
+  static final int VERSION = 1;
+
+  /** Taille de l'en-tête (en octets). */
+  static final int HEADER_SIZE = 8;
+
+  /** Taille d'un enregistrement (en octets). */
+  static final int RECORD_SIZE = 20;
+
+  /** Délai au-delà duquel le fil d'écriture inactif est libéré (en secondes). */
+  private static final long KEEP_ALIVE = 5;
+
+  /** Log de la classe. */
+  private static final Logger LOGGER = Logger.getLogger(LearningCache.class.getName());
+
+  /** Fichier de la mémoire. */
+  private final File _file;
+
+  /** Nombre maximum d'entrées conservées. */
+  private final int _capacity;
+
+  /** Entrées en mémoire, de la moins récemment utilisée à la plus récente. */
+  private final Map<Long, Entry> _entries;
+
+  /** Fil d'écriture du fichier. */
+  private final ThreadPoolExecutor _writer;
+
+  /** Flux d'ajout au fichier (utilisé par le seul fil d'écriture, ou null s'il est fermé). */
+  private DataOutputStream _out;
+
+  /** Nombre d'enregistrements du fichier (utilisé par le seul fil d'écriture). */
+  private int _records;
+
+  /**
+   * Instancie une nouvelle mémoire.
+   * 
+   * @param pFichier Fichier de la mémoire.
+   * @param pCapacite Nombre maximum d'entrées conservées (> 0).
+   */
+  private LearningCache(final File pFichier, final int pCapacite)
+  {
+    assert pFichier != null;
+    assert pCapacite > 0;
+
+    _file = pFichier;
+    _capacity = pCapacite;
+    _entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true)
+    {
+      /** Identifiant de la classe pour la sérialisation. */
+      private static final long serialVersionUID = -3126807152263401934L;
+
+      /**
+       * Oublie l'entrée la moins récemment utilisée quand la capacité est dépassée.
+       * 
+       * @param pAncienne Entrée la moins récemment utilisée.
+       * @return "true" si l'entrée doit être oubliée.
+       */
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<Long, LearningCache.Entry> pAncienne)
+      {
+        return size() > _capacity;
+      }
+    };
+    _writer =
+        new ThreadPoolExecutor(1, 1, KEEP_ALIVE, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+              /**
+               * Crée le fil d'écriture.
+               * 
+               * @param pTache Tâche exécutée par le fil.
+               * @return Fil créé.
+               */
+              public Thread newThread(final Runnable pTache)
+              {
+                // Pas un démon : les derniers ajouts doivent atteindre le disque.
+                final Thread res = new Thread(pTache, "jChecs-learning");
+                res.setPriority(Thread.MIN_PRIORITY);
+                return res;
+              }
+            });
+    _writer.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Ajoute un enregistrement à la fin du fichier, en le réécrivant au préalable s'il est trop long.
+   * <p>
+   * Appelé par le seul fil d'écriture.
+   * </p>
+   * 
+   * @param pCle Clé Zobrist de la position.
+   * @param pEntree Entrée à enregistrer.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  private void append(final long pCle, final Entry pEntree) throws IOException
+  {
+    assert pEntree != null;
+
+    if ((_out == null) || (_records >= 2 * _capacity))
+    {
+      compact();
+    }
+    _out.writeLong(pCle);
+    _out.writeInt(pEntree.getMove());
+    _out.writeInt(pEntree.getDepth());
+    _out.writeInt(pEntree.getScore());
+    _out.flush();
+    _records++;
+  }
+
+  /**
+   * Attend, après sa fermeture ({@link #close()}), que la mémoire ait terminé ses écritures.
+   * 
+   * @param pDelai Délai maximum d'attente (en ms, >= 0).
+   * @return "true" si les écritures sont terminées, "false" si le délai a expiré.
+   * @throws InterruptedException si l'attente est interrompue.
+   */
+  boolean awaitTermination(final long pDelai) throws InterruptedException
+  {
+    assert pDelai >= 0;
+
+    return _writer.awaitTermination(pDelai, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Ferme la mémoire : les ajouts en attente sont terminés par le fil d'écriture, sans attente de
+   * l'appelant.
+   */
+  public synchronized void close()
+  {
+    if (_writer.isShutdown())
+    {
+      return;
+    }
+
+    _writer.execute(new Runnable()
+    {
+      /**
+       * Ferme le fichier.
+       */
+      public void run()
+      {
+        try
+        {
+          if (_out != null)
+          {
+            _out.close();
+            _out = null;
+          }
+        }
+        catch (final IOException e)
+        {
+          LOGGER.log(Level.WARNING, "Can't close learning cache " + _file, e);
+        }
+      }
+    });
+    _writer.shutdown();
+  }
+
+  /**
+   * Réécrit le fichier à partir des seules entrées en mémoire, puis le rouvre en ajout.
+   * <p>
+   * Appelé par le seul fil d'écriture : le fichier est d'abord écrit à côté, puis remplace
+   * l'ancien, mis de côté le temps du remplacement.
+   * </p>
+   * 
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  private void compact() throws IOException
+  {
+    if (_out != null)
+    {
+      _out.close();
+      _out = null;
+    }
+
+    final long [] cles;
+    final Entry [] entrees;
+    synchronized (_entries)
+    {
+      cles = new long [ _entries.size() ];
+      entrees = new Entry [ _entries.size() ];
+      int i = 0;
+      for (final Map.Entry<Long, Entry> e : _entries.entrySet())
+      {
+        cles[i] = e.getKey().longValue();
+        entrees[i++] = e.getValue();
+      }
+    }
+
+    final File temp = new File(_file.getPath() + ".tmp");
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+    try
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      for (int i = 0; i < cles.length; i++)
+      {
+        out.writeLong(cles[i]);
+        out.writeInt(entrees[i].getMove());
+        out.writeInt(entrees[i].getDepth());
+        out.writeInt(entrees[i].getScore());
+      }
+    }
+    finally
+    {
+      out.close();
+    }
+    // L'ancien fichier est mis de côté avant le remplacement : à tout instant, l'un des deux
+    // fichiers est complet (voir open()).
+    final File sauvegarde = getBackupFile(_file);
+    if ((sauvegarde.exists() && !sauvegarde.delete())
+        || (_file.exists() && !_file.renameTo(sauvegarde)) || !temp.renameTo(_file))
+    {
+      throw new IOException("Can't replace learning cache " + _file);
+    }
+    if (sauvegarde.exists() && !sauvegarde.delete())
+    {
+      LOGGER.warning("Can't delete learning cache backup " + sauvegarde);
+    }
+    _records = cles.length;
+    _out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_file, true)));
+  }
+
+  /**
+   * Renvoi le fichier de sauvegarde utilisé pendant la réécriture d'un fichier de mémoire.
+   * 
+   * @param pFichier Fichier de la mémoire.
+   * @return Fichier de sauvegarde correspondant.
+   */
+  private static File getBackupFile(final File pFichier)
+  {
+    assert pFichier != null;
+
+    return new File(pFichier.getPath() + ".bak");
+  }
+
+  /**
+   * Renvoi l'entrée correspondant à une position.
+   * 
+   * @param pCle Clé Zobrist de la position.
+   * @return Entrée correspondante (ou null si la position est inconnue).
+   */
+  Entry get(final long pCle)
+  {
+    synchronized (_entries)
+    {
+      return _entries.get(Long.valueOf(pCle));
+    }
+  }
+
+  /**
+   * Renvoi le nombre maximum d'entrées conservées.
+   * 
+   * @return Capacité de la mémoire (> 0).
+   */
+  public int getCapacity()
+  {
+    assert _capacity > 0;
+    return _capacity;
+  }
+
+  /**
+   * Renvoi le nombre d'entrées en mémoire.
+   * 
+   * @return Nombre d'entrées.
+   */
+  public int getSize()
+  {
+    synchronized (_entries)
+    {
+      return _entries.size();
+    }
+  }
+
+  /**
+   * Ouvre une mémoire persistante, en relisant le fichier s'il existe.
+   * 
+   * @param pFichier Fichier de la mémoire.
+   * @param pCapacite Nombre maximum d'entrées conservées (> 0).
+   * @return Mémoire correspondante.
+   * @throws IOException en cas d'erreur de lecture ou si le fichier n'est pas une mémoire valide.
+   */
+  public static LearningCache open(final File pFichier, final int pCapacite) throws IOException
+  {
+    if (pFichier == null)
+    {
+      throw new NullPointerException("Missing learning cache file");
+    }
+    if (pCapacite <= 0)
+    {
+      throw new IllegalArgumentException("Invalid learning cache capacity: " + pCapacite);
+    }
+
+    final File sauvegarde = getBackupFile(pFichier);
+    if (!pFichier.exists() && sauvegarde.exists())
+    {
+      // Une réécriture a été interrompue avant le remplacement : l'ancien fichier est repris.
+      if (!sauvegarde.renameTo(pFichier))
+      {
+        throw new IOException("Can't restore learning cache backup " + sauvegarde);
+      }
+    }
+
+    final LearningCache res = new LearningCache(pFichier, pCapacite);
+    if (pFichier.exists())
+    {
+      final DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(pFichier)));
+      try
+      {
+        if ((in.readInt() != MAGIC) || (in.readInt() != VERSION))
+        {
+          throw new IOException("Invalid learning cache header: " + pFichier);
+        }
+        while (true)
+        {
+          final long cle = in.readLong();
+          final int mvt = in.readInt();
+          final int profondeur = in.readInt();
+          final int note = in.readInt();
+          res._entries.put(Long.valueOf(cle), new Entry(mvt, profondeur, note));
+        }
+      }
+      catch (final EOFException e)
+      {
+        // Fin du fichier (un éventuel enregistrement tronqué est ignoré)...
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Mémorise le résultat d'une recherche terminée, s'il est au moins aussi profond que celui déjà
+   * connu pour la position.
+   * 
+   * @param pCle Clé Zobrist de la position.
+   * @param pMouvement Identifiant du meilleur mouvement.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+   * @param pNote Note du meilleur mouvement.
+   */
+  void put(final long pCle, final int pMouvement, final int pProfondeur, final int pNote)
+  {
+    assert pProfondeur >= 1;
+
+    final Entry entree = new Entry(pMouvement, pProfondeur, pNote);
+    synchronized (_entries)
+    {
+      final Long cle = Long.valueOf(pCle);
+      final Entry precedente = _entries.get(cle);
+      if ((precedente != null) && (precedente.getDepth() > pProfondeur))
+      {
+        return;
+      }
+      _entries.put(cle, entree);
+    }
+
+    try
+    {
+      _writer.execute(new Runnable()
+      {
+        /**
+         * Enregistre l'entrée dans le fichier.
+         */
+        public void run()
+        {
+          try
+          {
+            append(pCle, entree);
+          }
+          catch (final IOException e)
+          {
+            LOGGER.log(Level.WARNING, "Can't write learning cache " + _file, e);
+          }
+        }
+      });
+    }
+    catch (final RejectedExecutionException e)
+    {
+      // Mémoire fermée : l'entrée n'est conservée qu'en mémoire.
+    }
+  }
+
+  /**
+   * Résultat mémorisé d'une recherche.
+   */
+  static final class Entry
+  {
+    /** Identifiant du meilleur mouvement. */
+    private final int _move;
+
+    /** Profondeur de la recherche (en demi-coups). */
+    private final int _depth;
+
+    /** Note du meilleur mouvement. */
+    private final int _score;
+
+    /**
+     * Instancie une nouvelle entrée.
+     * 
+     * @param pMouvement Identifiant du meilleur mouvement.
+     * @param pProfondeur Profondeur de la recherche (en demi-coups).
+     * @param pNote Note du meilleur mouvement.
+     */
+    Entry(final int pMouvement, final int pProfondeur, final int pNote)
+    {
+      _move = pMouvement;
+      _depth = pProfondeur;
+      _score = pNote;
+    }
+
+    /**
+     * Renvoi la profondeur de la recherche.
+     * 
+     * @return Profondeur de la recherche (en demi-coups).
+     */
+    int getDepth()
+    {
+      return _depth;
+    }
+
+    /**
+     * Renvoi l'identifiant du meilleur mouvement.
+     * 
+     * @return Identifiant du meilleur mouvement.
+     */
+    int getMove()
+    {
+      return _move;
+    }
+
+    /**
+     * Renvoi la note du meilleur mouvement.
+     * 
+     * @return Note du meilleur mouvement.
+     */
+    int getScore()
+    {
+      return _score;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests unitaires de la mémoire persistante des recherches.
+ * 
+ * @author David Cotton
+ */
+public final class LearningCacheTest
+{
+  /** Délai maximum d'attente des écritures (en ms). */
+  private static final long TIMEOUT = 10000;
+
+  /** Fichier de la mémoire testée. */
+  private File _file;
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public LearningCacheTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Prépare un fichier de mémoire temporaire.
+   * 
+   * @throws IOException en cas d'erreur de création du fichier.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    _file = File.createTempFile("jchecs", ".jlc");
+    assertTrue(_file.delete());
+  }
+
+  /**
+   * Supprime les fichiers de la mémoire temporaire.
+   */
+  @After
+  public void tearDown()
+  {
+    for (final String suffixe : new String [] { "", ".tmp", ".bak", })
+    {
+      new File(_file.getPath() + suffixe).delete();
+    }
+  }
+
+  /**
+   * Ferme une mémoire et attend la fin de ses écritures.
+   * 
+   * @param pMemoire Mémoire à fermer.
+   * @throws InterruptedException si l'attente est interrompue.
+   */
+  private static void closeAndWait(final LearningCache pMemoire) throws InterruptedException
+  {
+    pMemoire.close();
+    assertTrue(pMemoire.awaitTermination(TIMEOUT));
+  }
+
+  /**
+   * Valide l'enregistrement et la consultation des entrées.
+   * 
+   * @throws Exception en cas d'erreur.
+   */
+  @Test
+  public void validePutGet() throws Exception
+  {
+    final LearningCache memoire = LearningCache.open(_file, 10);
+    assertEquals(10, memoire.getCapacity());
+    assertEquals(0, memoire.getSize());
+    assertNull(memoire.get(1L));
+
+    memoire.put(1L, 100, 5, 30);
+    LearningCache.Entry entree = memoire.get(1L);
+    assertNotNull(entree);
+    assertEquals(100, entree.getMove());
+    assertEquals(5, entree.getDepth());
+    assertEquals(30, entree.getScore());
+
+    // Une recherche moins profonde ne remplace pas l'entrée, une plus profonde si.
+    memoire.put(1L, 200, 4, -10);
+    assertEquals(100, memoire.get(1L).getMove());
+    memoire.put(1L, 300, 6, 15);
+    entree = memoire.get(1L);
+    assertEquals(300, entree.getMove());
+    assertEquals(6, entree.getDepth());
+    assertEquals(15, entree.getScore());
+    assertEquals(1, memoire.getSize());
+
+    closeAndWait(memoire);
+  }
+
+  /**
+   * Valide l'oubli des entrées les moins récemment utilisées.
+   * 
+   * @throws Exception en cas d'erreur.
+   */
+  @Test
+  public void valideEviction() throws Exception
+  {
+    final LearningCache memoire = LearningCache.open(_file, 3);
+    memoire.put(1L, 1, 1, 0);
+    memoire.put(2L, 2, 1, 0);
+    memoire.put(3L, 3, 1, 0);
+    assertNotNull(memoire.get(1L));
+    memoire.put(4L, 4, 1, 0);
+
+    assertEquals(3, memoire.getSize());
+    assertNotNull(memoire.get(1L));
+    assertNull(memoire.get(2L));
+    assertNotNull(memoire.get(3L));
+    assertNotNull(memoire.get(4L));
+
+    closeAndWait(memoire);
+  }
+
+  /**
+   * Valide la réécriture du fichier et sa relecture.
+   * 
+   * @throws Exception en cas d'erreur.
+   */
+  @Test
+  public void valideCompactionAndReopen() throws Exception
+  {
+    final int capacite = 4;
+    LearningCache memoire = LearningCache.open(_file, capacite);
+    for (int i = 1; i <= 50; i++)
+    {
+      memoire.put(i, 1000 + i, 1 + i % 7, -i);
+    }
+    closeAndWait(memoire);
+
+    // Le fichier est réécrit dès qu'il atteint le double de la capacité.
+    final long taille = _file.length() - LearningCache.HEADER_SIZE;
+    assertTrue(taille > 0);
+    assertEquals(0, taille % LearningCache.RECORD_SIZE);
+    assertTrue(taille <= 2 * capacite * LearningCache.RECORD_SIZE);
+    assertFalse(new File(_file.getPath() + ".tmp").exists());
+    assertFalse(new File(_file.getPath() + ".bak").exists());
+
+    // Seules les dernières entrées sont relues.
+    memoire = LearningCache.open(_file, capacite);
+    assertEquals(capacite, memoire.getSize());
+    for (int i = 1; i <= 50; i++)
+    {
+      final LearningCache.Entry entree = memoire.get(i);
+      if (i > 50 - capacite)
+      {
+        assertNotNull(entree);
+        assertEquals(1000 + i, entree.getMove());
+        assertEquals(1 + i % 7, entree.getDepth());
+        assertEquals(-i, entree.getScore());
+      }
+      else
+      {
+        assertNull(entree);
+      }
+    }
+    closeAndWait(memoire);
+  }
+
+  /**
+   * Valide la reprise de l'ancien fichier après une réécriture interrompue.
+   * 
+   * @throws Exception en cas d'erreur.
+   */
+  @Test
+  public void valideBackupRestore() throws Exception
+  {
+    LearningCache memoire = LearningCache.open(_file, 10);
+    memoire.put(7L, 77, 3, 12);
+    closeAndWait(memoire);
+
+    final File sauvegarde = new File(_file.getPath() + ".bak");
+    assertTrue(_file.renameTo(sauvegarde));
+    memoire = LearningCache.open(_file, 10);
+    assertTrue(_file.exists());
+    assertFalse(sauvegarde.exists());
+    assertEquals(77, memoire.get(7L).getMove());
+    closeAndWait(memoire);
+  }
+}
@@ -0,0 +1,434 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Bibliothèque d'ouvertures en lecture seule, projetée en mémoire.
+ * <p>
+ * Le fichier n'est jamais chargé sur le tas : il est projeté par le système et consulté par
+ * recherche dichotomique, ce qui rend son ouverture instantanée et ses consultations sans verrou
+ * (seules des lectures absolues sont effectuées sur le tampon partagé).
+ * </p>
+ * <p>
+ * Format du fichier (gros-boutiste) :
+ * <ul>
+ * <li>un en-tête de {@value #HEADER_SIZE} octets : signature, version, nombre d'enregistrements
+ * indexés par clé Zobrist puis nombre d'enregistrements indexés par clé 32 bits (entiers longs) ;</li>
+ * <li>des enregistrements de {@value #RECORD_SIZE} octets, triés par clé Zobrist 64 bits (signée)
+ * croissante puis par mouvement : clé (entier long), identifiant du mouvement (entier), poids
+ * (entier strictement positif) ;</li>
+ * <li>des enregistrements de même format, triés de la même façon, dont la clé est celle des
+ * anciennes bibliothèques (".opn") : les 32 bits de poids faible de la clé Zobrist, étendus en
+ * entier long signé. Ils ne sont consultés qu'en l'absence de la position parmi les précédents, et
+ * conservent les positions de ces bibliothèques qui n'ont pu être retrouvées lors de leur
+ * conversion (voir {@link OpeningBookConverter}).</li>
+ * </ul>
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class MappedOpeningBook implements OpeningBook
+{
+  /** Signature des fichiers de bibliothèque ("JCBK"). */
+  static final int MAGIC = 0x4A43424B;
+
+  /** Version du format de fichier. */
+  static final int VERSION = 2;
+
+  /** Taille de l'en-tête (en octets). */
+  static final int HEADER_SIZE = 24;
+
+  /** Taille d'un enregistrement (en octets). */
+  static final int RECORD_SIZE = 16;
+
+  /** Tampon projeté en mémoire. */
+  private final ByteBuffer _buffer;
+
+  /** Nombre d'enregistrements indexés par clé Zobrist. */
+  private final int _size;
+
+  /** Nombre d'enregistrements indexés par clé 32 bits, à la suite des précédents. */
+  private final int _legacySize;
+
+  /**
+   * Instancie une nouvelle bibliothèque à partir du contenu d'un fichier.
+   * 
+   * @param pTampon Tampon contenant le fichier (positionné au début).
+   * @throws IOException si le contenu du tampon n'est pas une bibliothèque valide.
+   */
+  private MappedOpeningBook(final ByteBuffer pTampon) throws IOException
+  {
+    assert pTampon != null;
+
+    if ((pTampon.capacity() < HEADER_SIZE) || (pTampon.getInt(0) != MAGIC)
+        || (pTampon.getInt(4) != VERSION))
+    {
+      throw new IOException("Invalid opening book header");
+    }
+    final long nb = pTampon.getLong(8);
+    final long nbAnciens = pTampon.getLong(16);
+    if ((nb < 0) || (nbAnciens < 0)
+        || (nb + nbAnciens > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE)
+        || (HEADER_SIZE + (nb + nbAnciens) * RECORD_SIZE != pTampon.capacity()))
+    {
+      throw new IOException("Invalid opening book size");
+    }
+
+    _buffer = pTampon;
+    _size = (int) nb;
+    _legacySize = (int) nbAnciens;
+  }
+
+  /**
+   * Renvoi un mouvement de la bibliothèque répondant à un état de l'échiquier.
+   * <p>
+   * Les mouvements sont validés au préalable, les clés Zobrist n'étant pas infaillibles.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pHasard Générateur de nombres aléatoires utilisé pour le choix.
+   * @return Mouvement correspondant (ou null si la position est absente de la bibliothèque).
+   */
+  public Move getMove(final MoveGenerator pEtat, final Random pHasard)
+  {
+    assert pEtat != null;
+    assert pHasard != null;
+
+    final long cle = pEtat.getZobristKey();
+    Move res = getMove(pEtat, pHasard, cle, 0, _size);
+    if (res == null)
+    {
+      res = getMove(pEtat, pHasard, (int) cle, _size, _size + _legacySize);
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi un mouvement d'une section de la bibliothèque répondant à un état de l'échiquier.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pHasard Générateur de nombres aléatoires utilisé pour le choix.
+   * @param pCle Clé de la position dans la section.
+   * @param pDebut Indice du premier enregistrement de la section.
+   * @param pFin Indice suivant le dernier enregistrement de la section.
+   * @return Mouvement correspondant (ou null si la position est absente de la section).
+   */
+  private Move getMove(final MoveGenerator pEtat, final Random pHasard, final long pCle,
+      final int pDebut, final int pFin)
+  {
+    assert pEtat != null;
+    assert pHasard != null;
+    assert (pDebut >= 0) && (pDebut <= pFin);
+
+    final int premier = indexOf(pCle, pDebut, pFin);
+    if ((premier >= pFin) || (getKey(premier) != pCle))
+    {
+      return null;
+    }
+
+    final Move [] valides = pEtat.getValidMoves(pEtat.isWhiteActive());
+    final Move [] candidats = new Move [ valides.length ];
+    final int [] poids = new int [ valides.length ];
+    int nb = 0;
+    long total = 0;
+    for (int i = premier; (i < pFin) && (getKey(i) == pCle); i++)
+    {
+      final int pos = HEADER_SIZE + i * RECORD_SIZE;
+      final int id = _buffer.getInt(pos + 8);
+      for (final Move mvt : valides)
+      {
+        if ((mvt.toId() == id) && (nb < candidats.length))
+        {
+          candidats[nb] = mvt;
+          poids[nb++] = _buffer.getInt(pos + 12);
+          total += poids[nb - 1];
+          break;
+        }
+      }
+    }
+    if (total <= 0)
+    {
+      return null;
+    }
+
+    long tirage = (long) (pHasard.nextDouble() * total);
+    for (int i = 0; i < nb; i++)
+    {
+      tirage -= poids[i];
+      if (tirage < 0)
+      {
+        return candidats[i];
+      }
+    }
+
+    return candidats[nb - 1];
+  }
+
+  /**
+   * Renvoi le nombre d'enregistrements de la bibliothèque indexés par clé 32 bits.
+   * 
+   * @return Nombre d'enregistrements indexés par clé 32 bits.
+   */
+  int getLegacySize()
+  {
+    assert _legacySize >= 0;
+    return _legacySize;
+  }
+
+  /**
+   * Renvoi le nombre d'enregistrements de la bibliothèque indexés par clé Zobrist.
+   * 
+   * @return Nombre d'enregistrements indexés par clé Zobrist.
+   */
+  int getSize()
+  {
+    assert _size >= 0;
+    return _size;
+  }
+
+  /**
+   * Renvoi la clé d'un enregistrement.
+   * 
+   * @param pIndice Indice de l'enregistrement.
+   * @return Clé de l'enregistrement.
+   */
+  private long getKey(final int pIndice)
+  {
+    assert (pIndice >= 0) && (pIndice < _size + _legacySize);
+
+    return _buffer.getLong(HEADER_SIZE + pIndice * RECORD_SIZE);
+  }
+
+  /**
+   * Recherche par dichotomie, dans une section, le premier enregistrement dont la clé n'est pas
+   * inférieure à une clé.
+   * 
+   * @param pCle Clé recherchée.
+   * @param pDebut Indice du premier enregistrement de la section.
+   * @param pFin Indice suivant le dernier enregistrement de la section.
+   * @return Indice du premier enregistrement correspondant (ou pFin).
+   */
+  private int indexOf(final long pCle, final int pDebut, final int pFin)
+  {
+    int bas = pDebut;
+    int haut = pFin;
+    while (bas < haut)
+    {
+      final int milieu = (bas + haut) >>> 1;
+      if (getKey(milieu) < pCle)
+      {
+        bas = milieu + 1;
+      }
+      else
+      {
+        haut = milieu;
+      }
+    }
+
+    return bas;
+  }
+
+  /**
+   * Ouvre une bibliothèque à partir d'un fichier.
+   * 
+   * @param pFichier Fichier de la bibliothèque.
+   * @return Bibliothèque correspondante.
+   * @throws IOException en cas d'erreur d'accès au fichier ou de format invalide.
+   */
+  static MappedOpeningBook open(final File pFichier) throws IOException
+  {
+    assert pFichier != null;
+
+    final RandomAccessFile fichier = new RandomAccessFile(pFichier, "r");
+    try
+    {
+      final FileChannel canal = fichier.getChannel();
+      // La projection reste valide après la fermeture du fichier...
+      return new MappedOpeningBook(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+    }
+    finally
+    {
+      fichier.close();
+    }
+  }
+
+  /**
+   * Ouvre une bibliothèque à partir d'une ressource.
+   * <p>
+   * Une ressource incluse dans une archive ne pouvant être projetée directement, elle est alors
+   * recopiée au préalable dans un fichier temporaire.
+   * </p>
+   * 
+   * @param pNom Nom de la ressource, relativement au paquetage de cette classe.
+   * @return Bibliothèque correspondante (ou null si la ressource est absente ou invalide).
+   */
+  static MappedOpeningBook openResource(final String pNom)
+  {
+    assert pNom != null;
+
+    final URL url = MappedOpeningBook.class.getResource(pNom);
+    if (url == null)
+    {
+      return null;
+    }
+
+    try
+    {
+      if ("file".equals(url.getProtocol()))
+      {
+        return open(new File(url.toURI()));
+      }
+
+      final File copie = File.createTempFile("jchecs", ".jbk");
+      copie.deleteOnExit();
+      final InputStream in = url.openStream();
+      try
+      {
+        final OutputStream out = new FileOutputStream(copie);
+        try
+        {
+          final byte [] tampon = new byte [ 64 * 1024 ];
+          int lus = in.read(tampon);
+          while (lus >= 0)
+          {
+            out.write(tampon, 0, lus);
+            lus = in.read(tampon);
+          }
+        }
+        finally
+        {
+          out.close();
+        }
+      }
+      finally
+      {
+        in.close();
+      }
+      return open(copie);
+    }
+    catch (final IOException e)
+    {
+      // Pas grave, les coups seront calculés...
+      return null;
+    }
+    catch (final URISyntaxException e)
+    {
+      // Pas grave, les coups seront calculés...
+      return null;
+    }
+  }
+
+  /**
+   * Renvoi le nombre d'enregistrements d'une section de bibliothèque.
+   * 
+   * @param pEntrees Poids des mouvements, par mouvement et par clé.
+   * @return Nombre d'enregistrements.
+   */
+  private static long size(final SortedMap<Long, ? extends SortedMap<Integer, Integer>> pEntrees)
+  {
+    assert pEntrees != null;
+
+    long res = 0;
+    for (final Map<Integer, Integer> mvts : pEntrees.values())
+    {
+      res += mvts.size();
+    }
+
+    return res;
+  }
+
+  /**
+   * Ecrit une bibliothèque dans un fichier.
+   * 
+   * @param pFichier Fichier de destination.
+   * @param pEntrees Poids des mouvements, par mouvement et par clé Zobrist.
+   * @param pAnciennes Poids des mouvements, par mouvement et par clé 32 bits (étendue en entier
+   *          long signé).
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  static void write(final File pFichier,
+      final SortedMap<Long, ? extends SortedMap<Integer, Integer>> pEntrees,
+      final SortedMap<Long, ? extends SortedMap<Integer, Integer>> pAnciennes) throws IOException
+  {
+    assert pFichier != null;
+    assert pEntrees != null;
+    assert pAnciennes != null;
+
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pFichier)));
+    try
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(size(pEntrees));
+      out.writeLong(size(pAnciennes));
+      write(out, pEntrees);
+      write(out, pAnciennes);
+    }
+    finally
+    {
+      out.close();
+    }
+  }
+
+  /**
+   * Ecrit une section de bibliothèque dans un flux.
+   * 
+   * @param pFlux Flux de destination.
+   * @param pEntrees Poids des mouvements, par mouvement et par clé.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  private static void write(final DataOutputStream pFlux,
+      final SortedMap<Long, ? extends SortedMap<Integer, Integer>> pEntrees) throws IOException
+  {
+    assert pFlux != null;
+    assert pEntrees != null;
+
+    for (final Map.Entry<Long, ? extends SortedMap<Integer, Integer>> e : pEntrees.entrySet())
+    {
+      for (final Map.Entry<Integer, Integer> mvt : e.getValue().entrySet())
+      {
+        assert mvt.getValue().intValue() > 0;
+        pFlux.writeLong(e.getKey().longValue());
+        pFlux.writeInt(mvt.getKey().intValue());
+        pFlux.writeInt(mvt.getValue().intValue());
+      }
+    }
+  }
+}
@@ -19,7 +19,7 @@
 package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur un mini/max sur 3 demi-coups.
@@ -28,6 +28,9 @@ import fr.free.jchecs.core.MoveGenerator;
  */
 final class MiniMaxEngine extends AbstractEngine
 {
+  /** Listes de mouvements préallouées de la recherche. */
+  private final MoveList _moveList = new MoveList();
+
   /** Drapeau indiquant si le trait est aux blancs. */
   private boolean _trait;
 
@@ -43,10 +46,11 @@ final class MiniMaxEngine extends AbstractEngine
    * Recherche la meilleure réplique évaluée à partir d'une position.
    * 
    * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMin(final MoveGenerator pEtat, final int pProfondeur)
+  private int findMin(final SearchBoard pEtat, final int pPly, final int pProfondeur)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -60,12 +64,17 @@ final class MiniMaxEngine extends AbstractEngine
 
     int res = -MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final int l = _moveList.generate(pEtat, pPly);
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMax(etat, pProfondeur - 1);
+      pEtat.makeMove(_moveList.get(pPly, i));
+      final int note = findMax(pEtat, pPly + 1, pProfondeur - 1);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        return res;
+      }
       if (note < res)
       {
         res = note;
@@ -79,10 +88,11 @@ final class MiniMaxEngine extends AbstractEngine
    * Recherche le meilleur coup évalué à partir d'une position.
    * 
    * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMax(final MoveGenerator pEtat, final int pProfondeur)
+  private int findMax(final SearchBoard pEtat, final int pPly, final int pProfondeur)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -96,12 +106,17 @@ final class MiniMaxEngine extends AbstractEngine
 
     int res = MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final int l = _moveList.generate(pEtat, pPly);
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, pProfondeur - 1);
+      pEtat.makeMove(_moveList.get(pPly, i));
+      final int note = findMin(pEtat, pPly + 1, pProfondeur - 1);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        return res;
+      }
       if (note > res)
       {
         res = note;
@@ -116,10 +131,12 @@ final class MiniMaxEngine extends AbstractEngine
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -133,8 +150,13 @@ final class MiniMaxEngine extends AbstractEngine
     int meilleur = MATE_VALUE - 1;
     for (final Move mvt : pCoups)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, getSearchDepthLimit() - 1);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, 1, pProfondeur - 1);
+      pEtat.unmakeMove();
+      if (isSearchAborted())
+      {
+        break;
+      }
       if ((note > meilleur) || ((note == meilleur) && RANDOMIZER.nextBoolean()))
       {
         // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
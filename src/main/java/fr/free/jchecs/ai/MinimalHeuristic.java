@@ -20,12 +20,15 @@ package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.MoveGenerator;
 import fr.free.jchecs.core.Piece;
-import fr.free.jchecs.core.Square;
 
 /**
  * Implémentation d'une fonction d'évaluation minimale : se base uniquement le matériel,
  * c'est-à-dire la somme des valeurs théoriques des pièces présentes sur le plateau.
  * <p>
+ * Le décompte des pièces est fourni par l'échiquier, qui peut le tenir à jour au fil des
+ * mouvements : l'évaluation ne parcourt plus le plateau.
+ * </p>
+ * <p>
  * Classe sûre vis-à-vis des threads.
  * </p>
  * 
@@ -36,6 +39,9 @@ final class MinimalHeuristic implements Heuristic
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = -6580558874227828006L;
 
+  /** Liste des types de pièces. */
+  private static final Piece [] PIECES = Piece.values();
+
   /**
    * Crée une nouvelle instance.
    */
@@ -58,20 +64,16 @@ final class MinimalHeuristic implements Heuristic
 
     int res = 0;
 
-    for (final Square s : Square.values())
+    for (final Piece piece : PIECES)
     {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      final int valeur = piece.getType().getValue() * pEtat.getPieceCount(piece);
+      if (piece.isWhite() == pTrait)
+      {
+        res += valeur;
+      }
+      else
       {
-        final int valeur = piece.getType().getValue();
-        if (piece.isWhite() == pTrait)
-        {
-          res += valeur;
-        }
-        else
-        {
-          res -= valeur;
-        }
+        res -= valeur;
       }
     }
 
@@ -20,12 +20,12 @@ package fr.free.jchecs.ai;
 
 import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
 import static fr.free.jchecs.core.Constants.FILE_COUNT;
-import static fr.free.jchecs.core.Constants.RANK_COUNT;
 import static fr.free.jchecs.core.PieceType.KING;
 import static fr.free.jchecs.core.PieceType.PAWN;
 
 import fr.free.jchecs.core.MoveGenerator;
 import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.PieceSquareTables;
 import fr.free.jchecs.core.PieceType;
 import fr.free.jchecs.core.Square;
 
@@ -33,6 +33,15 @@ import fr.free.jchecs.core.Square;
  * Fonction d'évaluation basée sur le matériel, la position des pièces présentes sur le plateau et
  * leur mobilité.
  * <p>
+ * Le matériel et les bonus de position (voir {@link PieceSquareTables}) sont fournis par
+ * l'échiquier, qui peut les tenir à jour au fil des mouvements : seuls les termes dynamiques
+ * (mobilité, attaques, échecs, ...) nécessitent encore un parcours des pièces.
+ * </p>
+ * <p>
+ * Les termes liés à la structure de pions (pions doublés, colonnes sans pion) sont mis en cache
+ * dans une table propre à l'instance, indexée par la clé de hachage des pions.
+ * </p>
+ * <p>
  * Classe sûre vis-à-vis des threads.
  * </p>
  * 
@@ -49,131 +58,30 @@ final class MobilityHeuristic implements Heuristic
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 8752973612245818678L;
 
-  /**
-   * Bonus/Malus d'un fou (blanc par défaut) en fonction de sa position.
-   */
-  private static final int [] BISHOP_POSITIONS = { -5, -5, -5, -5, -5, -5, -5, -5, // a1 ... h1
-    -5, 10, 5, 10, 10, 5, 10, -5, // a2 ... h2
-    -5, 5, 3, 12, 12, 3, 5, -5, // a3 ... h3
-    -5, 3, 12, 3, 3, 12, 3, -5, // a4 ... h4
-    -5, 3, 12, 3, 3, 12, 3, -5, // a5 ... h5
-    -5, 5, 3, 12, 12, 3, 5, -5, // a6 ... h6
-    -5, 10, 5, 10, 10, 5, 10, -5, // a7 ... h7
-    -5, -5, -5, -5, -5, -5, -5, -5, // a8 ... h8
-  };
-  static
-  {
-    assert BISHOP_POSITIONS.length == 64;
-  }
-
-  /**
-   * Bonus/Malus d'un roi (blanc par défaut) en fonction de sa position.
-   */
-  private static final int [] KING_POSITIONS = { 2, 3, 5, -5, 0, -4, 6, 4, // a1 ... h1
-    -3, -3, -5, -5, -5, -5, -3, -3, // a2 ... h2
-    -5, -5, -8, -8, -8, -8, -5, -5, // a3 ... h3
-    -8, -8, -13, -13, -13, -13, -8, -8, // a4 ... h4
-    -13, -13, -21, -21, -21, -21, -13, -13, // a5 ... h5
-    -21, -21, -34, -34, -34, -34, -21, -21, // a6 ... h6
-    -34, -34, -55, -55, -55, -55, -34, -34, // a7 ... h7
-    -55, -55, -89, -89, -89, -89, -55, -55, // a8 ... h8
-  };
-  static
-  {
-    assert KING_POSITIONS.length == 64;
-  }
+  /** Liste des types de pièces. */
+  private static final Piece [] PIECES = Piece.values();
 
-  /**
-   * Bonus/Malus d'un roi (blanc par défaut) en fonction de sa position, en fin de partie.
-   */
-  private static final int [] KING_END_POSITIONS = { -5, -3, -1, 0, 0, -1, -3, -5, // a1 ... h1
-    -3, 5, 5, 5, 5, 5, 5, -3, // a2 ... h2
-    -1, 5, 10, 10, 10, 10, 5, -1, // a3 ... h3
-    0, 5, 10, 15, 15, 10, 5, 0, // a4 ... h4
-    0, 5, 10, 15, 15, 10, 5, 0, // a5 ... h5
-    -1, 5, 10, 10, 10, 10, 5, -1, // a6 ... h6
-    -3, 5, 5, 5, 5, 5, 5, -3, // a7 ... h7
-    -5, -3, -1, 0, 0, -1, -3, -5, // a8 ... h8
-  };
-  static
-  {
-    assert KING_END_POSITIONS.length == 64;
-  }
+  /** Cache des évaluations de structure de pions. */
+  private final transient PawnHashTable _pawnHashTable;
 
   /**
-   * Bonus/Malus d'un cavalier (blanc par défaut) en fonction de sa position.
-   */
-  private static final int [] KNIGHT_POSITIONS = { -10, -5, -3, -1, -1, -3, -5, -10, // a1 ... h1
-    -5, 0, 0, 3, 3, 0, 0, -5, // a2 ... h2
-    -3, 0, 5, 5, 5, 5, 0, -3, // a3 ... h3
-    -1, 1, 5, 10, 10, 5, 1, -1, // a4 ... h4
-    -1, 1, 7, 12, 12, 7, 1, -1, // a5 ... h5
-    -3, 0, 5, 7, 7, 5, 0, -3, // a6 ... h6
-    -5, 0, 0, 3, 3, 0, 0, -5, // a7 ... h7
-    -10, -5, -3, -1, -1, -3, -5, -10, // a8 ... h8
-  };
-  static
-  {
-    assert KNIGHT_POSITIONS.length == 64;
-  }
-
-  /**
-   * Bonus/Malus d'un pion (blanc par défaut) en fonction de sa position.
+   * Crée une nouvelle instance.
    */
-  private static final int [] PAWN_POSITIONS = { 0, 0, 0, 0, 0, 0, 0, 0, // a1 ... h1
-    0, 0, 0, -5, -5, 0, 0, 0, // a2 ... h2
-    1, 2, 4, 4, 4, 3, 2, 1, // a3 ... h3
-    2, 4, 7, 8, 8, 6, 4, 2, // a4 ... h4
-    3, 6, 11, 12, 12, 9, 6, 3, // a5 ... h5
-    4, 8, 12, 16, 16, 12, 8, 4, // a6 ... h6
-    5, 10, 15, 20, 20, 15, 10, 5, // a7 ... h7
-    100, 100, 100, 100, 100, 100, 100, 100, // a8 ... h9
-  };
-  static
+  MobilityHeuristic()
   {
-    assert PAWN_POSITIONS.length == 64;
+    this(PawnHashTable.DEFAULT_CAPACITY);
   }
 
   /**
-   * Bonus/Malus d'une reine (blanche par défaut) en fonction de sa position.
+   * Crée une nouvelle instance, avec une taille de cache de structure de pions spécifique.
+   * 
+   * @param pEntreesPions Nombre d'entrées du cache de structure de pions.
    */
-  private static final int [] QUEEN_POSITIONS = { -5, -5, -5, 0, 0, -5, -5, -5, // a1 ... h1
-    0, 0, 3, 3, 3, 0, 0, 0, // a2 ... h2
-    0, 3, 3, 3, 3, 0, 0, 0, // a3 ... h3
-    0, 0, 0, 5, 5, 0, 0, 0, // a4 ... h4
-    0, 0, 0, 5, 5, 0, 0, 0, // a5 ... h5
-    -5, -5, 0, 0, 0, 0, 0, 0, // a6 ... h6
-    -5, -5, 0, 0, 0, 0, 0, 0, // a7 ... h7
-    -5, -5, 0, 0, 0, 0, 0, 0, // a8 ... h8
-  };
-  static
+  MobilityHeuristic(final int pEntreesPions)
   {
-    assert QUEEN_POSITIONS.length == 64;
-  }
+    assert pEntreesPions > 0;
 
-  /**
-   * Bonus/Malus d'une tour (blanche par défaut) en fonction de sa position.
-   */
-  private static final int [] ROOK_POSITIONS = { 0, 0, 0, 5, 5, 0, 0, 0, // a1 ... h1
-    -2, 0, 0, 0, 0, 0, 0, -2, // a2 ... h2
-    -2, 0, 0, 0, 0, 0, 0, -2, // a3 ... h3
-    -2, 0, 0, 0, 0, 0, 0, -2, // a4 ... h4
-    -2, 0, 0, 0, 0, 0, 0, -2, // a5 ... h5
-    -2, 0, 0, 0, 0, 0, 0, -2, // a6 ... h6
-    10, 10, 10, 10, 10, 10, 10, 10, // a7 ... h7
-    0, 0, 0, 0, 0, 0, 0, 0, // a8 ... h8
-  };
-  static
-  {
-    assert ROOK_POSITIONS.length == 64;
-  }
-
-  /**
-   * Crée une nouvelle instance.
-   */
-  MobilityHeuristic()
-  {
-    // Rien de spécifique...
+    _pawnHashTable = new PawnHashTable(pEntreesPions);
   }
 
   /**
@@ -188,40 +96,50 @@ final class MobilityHeuristic implements Heuristic
   {
     assert pEtat != null;
 
-    final int [] pionsTrait = new int [ FILE_COUNT ];
-    final int [] pionsAdversaire = new int [ FILE_COUNT ];
-
     int res = -pEtat.getHalfmoveCount() * 2;
 
     int nbPieces = 0;
-    for (final Square s : Square.values())
+    for (final Piece piece : PIECES)
     {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      nbPieces += pEtat.getPieceCount(piece);
+    }
+    final boolean finDePartie = nbPieces < END_GAME;
+    for (final Piece piece : PIECES)
+    {
+      int score =
+          piece.getType().getValue() * pEtat.getPieceCount(piece)
+              + pEtat.getPieceSquareScore(piece, finDePartie);
+      if ((piece.getType() == PAWN) && (nbPieces <= END_GAME))
       {
-        nbPieces++;
-        if (piece.getType() == PAWN)
-        {
-          final int idx = s.getFile();
-          if (piece.isWhite() == pTrait)
-          {
-            pionsTrait[idx]++;
-            if (pionsTrait[idx] > 1)
-            {
-              res -= 5;
-            }
-          }
-          else
-          {
-            pionsAdversaire[idx]++;
-            if (pionsAdversaire[idx] > 1)
-            {
-              res += 5;
-            }
-          }
-        }
+        // En fin de partie, la progression des pions compte double...
+        score += pEtat.getPieceSquareScore(piece, finDePartie);
       }
+      if (piece.isWhite() == pTrait)
+      {
+        res += score;
+      }
+      else
+      {
+        res -= score;
+      }
+    }
+
+    final long cle = pEtat.getPawnZobristKey();
+    long pions = _pawnHashTable.get(cle);
+    if (pions == PawnHashTable.MISSING)
+    {
+      pions = evaluatePawns(pEtat);
+      _pawnHashTable.put(cle, pions);
+    }
+    if (pTrait)
+    {
+      res += PawnHashTable.getValue(pions);
+    }
+    else
+    {
+      res -= PawnHashTable.getValue(pions);
     }
+    final int colonnes = PawnHashTable.getFiles(pions);
 
     for (final Square s : Square.values())
     {
@@ -231,19 +149,13 @@ final class MobilityHeuristic implements Heuristic
         final boolean traitPiece = piece.isWhite();
         final PieceType typePiece = piece.getType();
         final int mat = typePiece.getValue();
+        // Ajustements des bonus de position déjà comptés...
         final int pos;
         final int mob;
         switch (typePiece)
         {
           case BISHOP :
-            if (traitPiece)
-            {
-              pos = BISHOP_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = BISHOP_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
+            pos = 0;
             if (nbPieces >= MIDDLE_GAME)
             {
               mob = pEtat.getBishopTargets(s, traitPiece).length * 4;
@@ -256,7 +168,8 @@ final class MobilityHeuristic implements Heuristic
           case KING :
             if ((pEtat.getFullmoveNumber() > 5) && pEtat.isInCheck(traitPiece))
             {
-              pos = 0;
+              // Pas de bonus de position pour un roi en échec...
+              pos = -PieceSquareTables.valueOf(piece, s.getIndex(), finDePartie);
               if (pEtat.getValidMoves(traitPiece).length == 0)
               {
                 // Mat : inutile d'aller plus loin...
@@ -273,23 +186,7 @@ final class MobilityHeuristic implements Heuristic
             }
             else
             {
-              final int idx;
-              if (traitPiece)
-              {
-                idx = s.getIndex();
-              }
-              else
-              {
-                idx = ((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile();
-              }
-              if (nbPieces >= END_GAME)
-              {
-                pos = KING_POSITIONS[idx];
-              }
-              else
-              {
-                pos = KING_END_POSITIONS[idx];
-              }
+              pos = 0;
               if ((pEtat.getFullmoveNumber() <= 32) && pEtat.isCastled(traitPiece))
               {
                 // Pour favoriser le roque en début de partie...
@@ -302,14 +199,7 @@ final class MobilityHeuristic implements Heuristic
             }
             break;
           case KNIGHT :
-            if (traitPiece)
-            {
-              pos = KNIGHT_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = KNIGHT_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
+            pos = 0;
             if (nbPieces >= MIDDLE_GAME)
             {
               mob = pEtat.getKnightTargets(s, traitPiece).length * 4;
@@ -320,43 +210,20 @@ final class MobilityHeuristic implements Heuristic
             }
             break;
           case PAWN :
-            if (traitPiece)
-            {
-              pos = PAWN_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = PAWN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (nbPieces > END_GAME)
-            {
-              mob = 0;
-            }
-            else
-            {
-              mob = pos;
-            }
+            pos = 0;
+            mob = 0;
             break;
           case QUEEN :
-            int posReine = 0;
-            if (traitPiece)
+            if ((pEtat.getFullmoveNumber() < 12)
+                && ((traitPiece && (s.getIndex() != 3)) || ((!traitPiece) && (s.getIndex() != 59))))
             {
-              posReine = QUEEN_POSITIONS[s.getIndex()];
+              // Essayer d'éviter de déplacer la reine trop tôt...
+              pos = -30;
             }
             else
             {
-              posReine =
-                  QUEEN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (pEtat.getFullmoveNumber() < 12)
-            {
-              // Essayer d'éviter de déplacer la reine trop tôt...
-              if ((traitPiece && (s.getIndex() != 3)) || ((!traitPiece) && (s.getIndex() != 59)))
-              {
-                posReine -= 30;
-              }
+              pos = 0;
             }
-            pos = posReine;
             if ((nbPieces >= END_GAME) && (nbPieces <= MIDDLE_GAME))
             {
               mob = pEtat.getQueenTargets(s, traitPiece).length;
@@ -367,26 +234,15 @@ final class MobilityHeuristic implements Heuristic
             }
             break;
           case ROOK :
-            if (traitPiece)
-            {
-              pos = ROOK_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = ROOK_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
+            pos = 0;
             if (nbPieces >= END_GAME)
             {
-              final int nbPions;
-              if (traitPiece == pTrait)
+              int pionsColonne = colonnes >>> s.getFile();
+              if (!traitPiece)
               {
-                nbPions = pionsTrait[s.getFile()];
+                pionsColonne >>>= FILE_COUNT;
               }
-              else
-              {
-                nbPions = pionsAdversaire[s.getFile()];
-              }
-              if (nbPions == 0)
+              if ((pionsColonne & 1) == 0)
               {
                 mob = 10;
               }
@@ -417,7 +273,7 @@ final class MobilityHeuristic implements Heuristic
             att -= mat / 10;
           }
         }
-        final int score = mat + pos + mob + att;
+        final int score = pos + mob + att;
         if (traitPiece == pTrait)
         {
           res += score;
@@ -431,4 +287,66 @@ final class MobilityHeuristic implements Heuristic
 
     return res;
   }
+
+  /**
+   * Evalue la structure de pions d'un état.
+   * 
+   * @param pEtat Etat du jeu.
+   * @return Valeur de la structure du point de vue des blancs et masques des colonnes occupées par
+   *         des pions, compactés par {@link PawnHashTable#pack(int, int)}.
+   */
+  private static long evaluatePawns(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    int res = 0;
+    int colonnes = 0;
+    for (final Square s : Square.values())
+    {
+      final Piece piece = pEtat.getPieceAt(s);
+      if ((piece != null) && (piece.getType() == PAWN))
+      {
+        int bit = 1 << s.getFile();
+        if (!piece.isWhite())
+        {
+          bit <<= FILE_COUNT;
+        }
+        if ((colonnes & bit) != 0)
+        {
+          // Malus pour un pion doublé...
+          if (piece.isWhite())
+          {
+            res -= 5;
+          }
+          else
+          {
+            res += 5;
+          }
+        }
+        colonnes |= bit;
+      }
+    }
+
+    return PawnHashTable.pack(res, colonnes);
+  }
+
+  /**
+   * Renvoi le cache des évaluations de structure de pions.
+   * 
+   * @return Cache des structures de pions.
+   */
+  PawnHashTable getPawnHashTable()
+  {
+    return _pawnHashTable;
+  }
+
+  /**
+   * Remplace une instance désérialisée par une nouvelle instance, le cache n'étant pas sérialisé.
+   * 
+   * @return Nouvelle instance.
+   */
+  private Object readResolve()
+  {
+    return new MobilityHeuristic();
+  }
 }
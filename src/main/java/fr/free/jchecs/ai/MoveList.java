@@ -0,0 +1,245 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.Comparator;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Listes de mouvements préallouées, une par demi-coup de profondeur, utilisées par une recherche.
+ * <p>
+ * Les mouvements sont stockés sous forme d'entiers (voir {@link Move#toId()}) avec leur note, et
+ * sont extraits du meilleur au moins bon par un tri par sélection fait au fur et à mesure : une
+ * coupure évite ainsi de trier la fin de la liste. Une instance n'est pas sûre vis-à-vis des
+ * threads : chaque fil de recherche doit disposer de la sienne.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class MoveList
+{
+  /** Nombre maximum de demi-coups de profondeur. */
+  static final int MAX_PLY = 64;
+
+  /** Nombre maximum de mouvements valides dans une position. */
+  static final int MAX_MOVES = 256;
+
+  /** Listes des mouvements, par demi-coup. */
+  private final int [][] _moves = new int [ MAX_PLY ] [ MAX_MOVES ];
+
+  /** Notes des mouvements, par demi-coup. */
+  private final int [][] _scores = new int [ MAX_PLY ] [ MAX_MOVES ];
+
+  /** Nombres de mouvements, par demi-coup. */
+  private final int [] _sizes = new int [ MAX_PLY ];
+
+  /**
+   * Crée une nouvelle instance.
+   */
+  MoveList()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Alimente la liste d'un demi-coup avec les mouvements valides de la position.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pPly Demi-coup de profondeur (de 0 à MAX_PLY - 1).
+   * @return Nombre de mouvements valides.
+   */
+  int generate(final SearchBoard pEtat, final int pPly)
+  {
+    assert pEtat != null;
+    assert (pPly >= 0) && (pPly < MAX_PLY);
+
+    final int res = pEtat.getValidMoves(pEtat.isWhiteActive(), _moves[pPly]);
+    _sizes[pPly] = res;
+
+    return res;
+  }
+
+  /**
+   * Alimente la liste d'un demi-coup avec les seuls prises et promotions valides de la position,
+   * notées de la prise la plus forte par la pièce la plus faible à la moins forte (MVV/LVA).
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pPly Demi-coup de profondeur (de 0 à MAX_PLY - 1).
+   * @return Nombre de mouvements placés dans la liste.
+   */
+  int generateCaptures(final SearchBoard pEtat, final int pPly)
+  {
+    assert pEtat != null;
+    assert (pPly >= 0) && (pPly < MAX_PLY);
+
+    final int [] mvts = _moves[pPly];
+    final int [] notes = _scores[pPly];
+    final int res = pEtat.getCaptureMoves(pEtat.isWhiteActive(), mvts);
+    for (int i = res; --i >= 0; /* Pré-décrémenté */)
+    {
+      notes[i] = StaticMoveSorter.valueOf(mvts[i]);
+    }
+    _sizes[pPly] = res;
+    return res;
+  }
+
+  /**
+   * Renvoi un mouvement de la liste d'un demi-coup, dans l'ordre courant de la liste.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pIndice Indice du mouvement.
+   * @return Entier identifiant le mouvement.
+   */
+  int get(final int pPly, final int pIndice)
+  {
+    assert (pIndice >= 0) && (pIndice < _sizes[pPly]);
+
+    return _moves[pPly][pIndice];
+  }
+
+  /**
+   * Extrait le mouvement le mieux noté parmi ceux restant à examiner, en l'échangeant avec celui
+   * placé à l'indice demandé (étape d'un tri par sélection).
+   * <p>
+   * Les mouvements doivent avoir été notés par {@link #score(int, Comparator)} et être extraits
+   * dans l'ordre des indices.
+   * </p>
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pIndice Indice du mouvement à extraire.
+   * @return Entier identifiant le mouvement.
+   */
+  int next(final int pPly, final int pIndice)
+  {
+    final int l = _sizes[pPly];
+    assert (pIndice >= 0) && (pIndice < l);
+
+    final int [] mvts = _moves[pPly];
+    final int [] notes = _scores[pPly];
+    int meilleur = pIndice;
+    for (int i = pIndice + 1; i < l; i++)
+    {
+      if (notes[i] > notes[meilleur])
+      {
+        meilleur = i;
+      }
+    }
+    final int res = mvts[meilleur];
+    if (meilleur != pIndice)
+    {
+      mvts[meilleur] = mvts[pIndice];
+      mvts[pIndice] = res;
+      final int note = notes[meilleur];
+      notes[meilleur] = notes[pIndice];
+      notes[pIndice] = note;
+    }
+
+    return res;
+  }
+
+  /**
+   * Place en tête un mouvement désigné par ses cases de départ et d'arrivée (par exemple le
+   * meilleur coup d'une recherche précédente), s'il est dans la liste.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pCases Cases du mouvement (<code>origine &lt;&lt; 6 | destination</code>).
+   */
+  void promote(final int pPly, final int pCases)
+  {
+    final int [] mvts = _moves[pPly];
+    for (int i = _sizes[pPly]; --i >= 0; /* Pré-décrémenté */)
+    {
+      final int mvt = mvts[i];
+      if (((Move.getFromIndex(mvt) << 6) | Move.getToIndex(mvt)) == pCases)
+      {
+        _scores[pPly][i] = Integer.MAX_VALUE;
+        break;
+      }
+    }
+  }
+
+  /**
+   * Note les mouvements de la liste d'un demi-coup à partir du contexte de la recherche, une seule
+   * fois par position.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pTri Fonction de tri contextuelle des mouvements.
+   * @param pPrecedent Dernier mouvement joué (0 si inconnu).
+   */
+  void score(final int pPly, final ContextSorter pTri, final int pPrecedent)
+  {
+    assert pTri != null;
+
+    final int [] mvts = _moves[pPly];
+    final int [] notes = _scores[pPly];
+    for (int i = _sizes[pPly]; --i >= 0; /* Pré-décrémenté */)
+    {
+      notes[i] = pTri.score(pPly, mvts[i], pPrecedent);
+    }
+  }
+
+  /**
+   * Note les mouvements de la liste d'un demi-coup.
+   * <p>
+   * Si la fonction de tri ne sait pas noter directement un mouvement ({@link MoveScorer}), la liste
+   * est triée à l'aide du comparateur et les notes reprennent l'ordre obtenu.
+   * </p>
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pTri Fonction de tri des mouvements.
+   */
+  void score(final int pPly, final Comparator<Move> pTri)
+  {
+    assert pTri != null;
+
+    final int l = _sizes[pPly];
+    final int [] mvts = _moves[pPly];
+    final int [] notes = _scores[pPly];
+    if (pTri instanceof MoveScorer)
+    {
+      final MoveScorer notation = (MoveScorer) pTri;
+      for (int i = l; --i >= 0; /* Pré-décrémenté */)
+      {
+        notes[i] = notation.score(mvts[i]);
+      }
+    }
+    else
+    {
+      // Tri par insertion, stable, pour les fonctions de tri externes...
+      for (int i = 1; i < l; i++)
+      {
+        final int mvt = mvts[i];
+        final Move m = Move.valueOf(mvt);
+        int j = i;
+        while ((j > 0) && (pTri.compare(Move.valueOf(mvts[j - 1]), m) > 0))
+        {
+          mvts[j] = mvts[j - 1];
+          j--;
+        }
+        mvts[j] = mvt;
+      }
+      for (int i = l; --i >= 0; /* Pré-décrémenté */)
+      {
+        notes[i] = l - i;
+      }
+    }
+  }
+}
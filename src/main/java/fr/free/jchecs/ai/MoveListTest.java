@@ -0,0 +1,191 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Tests unitaires des listes de mouvements préallouées des recherches.
+ * 
+ * @author David Cotton
+ */
+public final class MoveListTest
+{
+  /** Position riche en prises de valeurs différentes. */
+  private static final String CAPTURES =
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public MoveListTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi un état de recherche initialisé à partir d'une position FEN.
+   * 
+   * @param pFEN Position au format FEN.
+   * @return Etat de recherche correspondant.
+   */
+  private static SearchBoard toSearchBoard(final String pFEN)
+  {
+    try
+    {
+      return BoardFactory.newSearchBoard(FENUtils.toBoard(pFEN));
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Valide l'alimentation des listes, indépendantes d'un demi-coup à l'autre.
+   */
+  @Test
+  public void valideGenerate()
+  {
+    final MoveList liste = new MoveList();
+    final SearchBoard depart = BoardFactory.newSearchBoard(BoardFactory.valueOf(FASTEST, STARTING));
+    final SearchBoard etat = toSearchBoard(CAPTURES);
+
+    assertEquals(20, liste.generate(depart, 0));
+    final int nb = liste.generate(etat, 1);
+    assertEquals(48, nb);
+
+    final Move [] attendus = etat.getValidMoves(true);
+    final Set<Move> obtenus = new HashSet<Move>();
+    for (int i = 0; i < nb; i++)
+    {
+      obtenus.add(Move.valueOf(liste.get(1, i)));
+    }
+    assertEquals(new HashSet<Move>(Arrays.asList(attendus)), obtenus);
+
+    // La liste du demi-coup 0 n'a pas été modifiée...
+    final Set<Move> departs = new HashSet<Move>();
+    for (int i = 0; i < 20; i++)
+    {
+      departs.add(Move.valueOf(liste.get(0, i)));
+    }
+    assertEquals(new HashSet<Move>(Arrays.asList(depart.getValidMoves(true))), departs);
+  }
+
+  /**
+   * Valide l'alimentation avec les seules prises, extraites de la plus forte à la moins forte.
+   */
+  @Test
+  public void valideGenerateCaptures()
+  {
+    final MoveList liste = new MoveList();
+    final SearchBoard etat = toSearchBoard(CAPTURES);
+    final int nb = liste.generateCaptures(etat, 2);
+    assertEquals(8, nb);
+
+    int precedente = Integer.MAX_VALUE;
+    for (int i = 0; i < nb; i++)
+    {
+      final int mvt = liste.next(2, i);
+      assertTrue(Move.getCaptured(mvt) != null);
+      final int note = StaticMoveSorter.valueOf(mvt);
+      assertTrue(note <= precedente);
+      precedente = note;
+    }
+  }
+
+  /**
+   * Valide l'extraction des mouvements du mieux au moins bien noté.
+   */
+  @Test
+  public void valideNext()
+  {
+    final MoveList liste = new MoveList();
+    final SearchBoard etat = toSearchBoard(CAPTURES);
+    final int nb = liste.generate(etat, 3);
+    final StaticMoveSorter tri = new StaticMoveSorter();
+    liste.score(3, tri);
+
+    final Set<Integer> vus = new HashSet<Integer>();
+    int precedente = Integer.MAX_VALUE;
+    for (int i = 0; i < nb; i++)
+    {
+      final int mvt = liste.next(3, i);
+      assertEquals(mvt, liste.get(3, i));
+      final int note = tri.score(mvt);
+      assertTrue(note <= precedente);
+      precedente = note;
+      assertTrue(vus.add(Integer.valueOf(mvt)));
+    }
+    assertEquals(nb, vus.size());
+
+    // Un mouvement promu passe en tête, quelle que soit sa note.
+    liste.generate(etat, 3);
+    liste.score(3, tri);
+    final int dernier = liste.get(3, nb - 1);
+    liste.promote(3, (Move.getFromIndex(dernier) << 6) | Move.getToIndex(dernier));
+    assertEquals(dernier, liste.next(3, 0));
+  }
+
+  /**
+   * Valide la notation à l'aide d'un comparateur externe, qui doit conserver son ordre.
+   */
+  @Test
+  public void valideScoreComparator()
+  {
+    final Comparator<Move> tri = new Comparator<Move>()
+    {
+      public int compare(final Move pMouvement1, final Move pMouvement2)
+      {
+        return pMouvement1.getTo().getIndex() - pMouvement2.getTo().getIndex();
+      }
+    };
+    final MoveList liste = new MoveList();
+    final SearchBoard etat = toSearchBoard(CAPTURES);
+    final int nb = liste.generate(etat, 0);
+    liste.score(0, tri);
+
+    int precedente = -1;
+    for (int i = 0; i < nb; i++)
+    {
+      final int dst = Move.getToIndex(liste.next(0, i));
+      assertTrue(dst >= precedente);
+      precedente = dst;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+/**
+ * Interface présentée par les méthodes de tri des mouvements capables de noter un mouvement
+ * identifié par un entier (voir {@link fr.free.jchecs.core.Move#toId()}).
+ * <p>
+ * Les recherches trient ainsi leurs listes de mouvements sur place, sans instancier de description
+ * de mouvement ni passer par un comparateur.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+interface MoveScorer
+{
+  /**
+   * Renvoi la note d'un mouvement : les mouvements les mieux notés sont examinés en premier.
+   * 
+   * @param pMouvement Entier identifiant un mouvement.
+   * @return Note du mouvement.
+   */
+  int score(final int pMouvement);
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertTrue;
 
 import static fr.free.jchecs.core.Piece.BLACK_PAWN;
 import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
 import static fr.free.jchecs.core.Piece.WHITE_PAWN;
 
 import java.util.Arrays;
@@ -81,4 +82,37 @@ public final class MoveSorterTest
     assertEquals(mvts[2], mvt1);
     assertEquals(mvts[3], mvt4);
   }
+
+  /**
+   * Valide l'ordonnancement contextuel des mouvements.
+   */
+  @Test
+  public void valideSearchMoveSorter()
+  {
+    final SearchMoveSorter tri = new SearchMoveSorter();
+    final int prise =
+        new Move(WHITE_PAWN, Square.valueOf("e4"), Square.valueOf("d5"), BLACK_PAWN).toId();
+    final int cavalier = new Move(WHITE_KNIGHT, Square.valueOf("g1"), Square.valueOf("f3")).toId();
+    final int pion = new Move(WHITE_PAWN, Square.valueOf("a2"), Square.valueOf("a3")).toId();
+    final int precedent = new Move(BLACK_PAWN, Square.valueOf("h7"), Square.valueOf("h6")).toId();
+
+    // "Killer move" limité à son demi-coup, toujours après les prises.
+    tri.put(3, 2, cavalier, 0);
+    assertTrue(tri.score(3, cavalier, 0) > tri.score(3, pion, 0));
+    assertTrue(tri.score(3, prise, 0) > tri.score(3, cavalier, 0));
+    assertEquals(tri.score(4, cavalier, 0), tri.getHistory(cavalier));
+    assertEquals(4, tri.getHistory(cavalier));
+
+    // "Counter move" et pénalité des mouvements examinés sans coupure.
+    tri.put(5, 3, pion, precedent);
+    tri.reject(1, cavalier);
+    assertTrue(tri.score(6, pion, precedent) > tri.score(6, cavalier, precedent));
+    assertEquals(3, tri.getHistory(cavalier));
+
+    // Vieillissement de l'historique à la fin d'une recherche.
+    tri.clear();
+    assertEquals(1, tri.getHistory(cavalier));
+    assertEquals(4, tri.getHistory(pion));
+    assertEquals(tri.score(3, cavalier, 0), tri.getHistory(cavalier));
+  }
 }
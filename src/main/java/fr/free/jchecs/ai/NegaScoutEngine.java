@@ -18,137 +18,167 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
 import java.util.Comparator;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur l'algorithme NegaScout (aussi appelé Principal Variation Search), avec table
- * de transposition, sur 5 demi-coups.
+ * de transposition, sur 4 demi-coups, prolongé par une recherche de quiescence limitée aux prises.
+ * <p>
+ * Dans sa variante sélective, les fenêtres nulles sont de plus élaguées par le coup nul, la
+ * réduction des mouvements tardifs et l'élagage de futilité à la frontière.
+ * </p>
  * 
  * @author David Cotton
  */
-final class NegaScoutEngine extends AbstractEngine
+class NegaScoutEngine extends AbstractSearcherEngine
 {
-  /** Table de transposition. */
-  private static final TranspositionTable TRANSPOSITIONS = new TranspositionTable(1000000);
+  /** Réduction de profondeur appliquée à la recherche suivant un coup nul. */
+  private static final int NULL_MOVE_REDUCTION = 2;
+
+  /** Profondeur minimale de recherche d'un coup nul. */
+  private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+  /** Rang à partir duquel un mouvement calme est considéré comme tardif. */
+  private static final int LATE_MOVE_INDEX = 3;
+
+  /** Profondeur minimale de réduction des mouvements tardifs. */
+  private static final int LATE_MOVE_MIN_DEPTH = 3;
+
+  /** Marge d'élagage de futilité, à un demi-coup de l'horizon. */
+  private static final int FUTILITY_MARGIN = 250;
+
+  /** Marge de "razoring", à deux demi-coups de l'horizon. */
+  private static final int RAZORING_MARGIN = 550;
+
+  /** Seuil au-delà duquel une note est celle d'un mat. */
+  private static final int MATE_THRESHOLD = -(MATE_VALUE / 2);
+
+  /** Pièces, autres que les pions et le roi, écartant le risque de zugzwang pour les blancs. */
+  private static final Piece [] WHITE_OFFICERS = {
+      Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP, Piece.WHITE_ROOK, Piece.WHITE_QUEEN,
+  };
+
+  /** Pièces, autres que les pions et le roi, écartant le risque de zugzwang pour les noirs. */
+  private static final Piece [] BLACK_OFFICERS = {
+      Piece.BLACK_KNIGHT, Piece.BLACK_BISHOP, Piece.BLACK_ROOK, Piece.BLACK_QUEEN,
+  };
+
+  /** Drapeau d'activation de la recherche sélective. */
+  private final boolean _selective;
+
+  /** Table de transposition propre au moteur, conservée d'un coup à l'autre de la partie. */
+  private TranspositionTable _transpositions;
 
   /**
    * Instancie un nouveau moteur IA Negascout.
    */
   NegaScoutEngine()
+  {
+    this(false);
+  }
+
+  /**
+   * Instancie un nouveau moteur IA Negascout, éventuellement sélectif.
+   * 
+   * @param pSelectif A "true" pour activer les élagages de la recherche sélective.
+   */
+  NegaScoutEngine(final boolean pSelectif)
   {
     super(3, 6, 5);
 
-    setMoveSorter(new KillerMoveSorter());
+    _selective = pSelectif;
+    setMoveSorter(new SearchMoveSorter());
   }
 
   /**
-   * Recherche le meilleur coup évalué à partir d'une position.
+   * Renvoi le meilleur mouvement mémorisé par la table de transposition pour une position.
    * 
    * @param pEtat Etat de l'échiquier.
-   * @param pProfondeur Profondeur d'évaluation actuelle.
-   * @param pAlpha Seuil alpha.
-   * @param pBeta Seuil beta.
-   * @param pLimite Profondeur limite.
-   * @return Meilleure évaluation obtenue à ce niveau.
+   * @return Mouvement mémorisé (ou null s'il n'est pas connu).
    */
-  private int negascout(final MoveGenerator pEtat, final int pProfondeur, final int pAlpha,
-      final int pBeta, final int pLimite)
+  @Override
+  protected Move getHashMove(final SearchBoard pEtat)
   {
     assert pEtat != null;
-    assert pAlpha <= pBeta;
 
-    final Integer resultat = TRANSPOSITIONS.get(pEtat, pProfondeur, pAlpha, pBeta);
-    if (resultat != null)
+    if (_transpositions == null)
     {
-      return resultat.intValue();
+      return null;
     }
-
-    final boolean trait = pEtat.isWhiteActive();
-
-    if (pProfondeur <= pLimite)
+    final int hash = _transpositions.getMove(pEtat);
+    if (hash < 0)
     {
-      final int valeur = getHeuristic().evaluate(pEtat, trait);
-      TRANSPOSITIONS.put(pEtat, pProfondeur, pAlpha, pBeta, valeur);
-
-      return valeur;
+      return null;
     }
 
-    final Move [] coups = pEtat.getValidMoves(trait);
-    final int l = coups.length;
-    if (l == 0)
+    // Seules les cases sont mémorisées : le mouvement est rapproché des mouvements valides.
+    for (final Move mvt : pEtat.getValidMoves(pEtat.isWhiteActive()))
     {
-      final int valeur = getHeuristic().evaluate(pEtat, trait);
-      TRANSPOSITIONS.put(pEtat, pProfondeur, pAlpha, pBeta, valeur);
-
-      return valeur;
+      if (((mvt.getFrom().getIndex() << 6) | mvt.getTo().getIndex()) == hash)
+      {
+        return mvt;
+      }
     }
 
-    int res = MATE_VALUE - 1;
+    return null;
+  }
 
-    final Comparator<Move> tri = getMoveSorter();
-    final ContextSorter ctx;
-    if (tri instanceof ContextSorter)
+  /**
+   * Indique si le joueur dispose d'au moins une pièce autre que les pions et le roi.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pBlanc A "true" pour tester les blancs, à "false" pour les noirs.
+   * @return A "true" si le joueur dispose d'une telle pièce.
+   */
+  private static boolean hasPieces(final SearchBoard pEtat, final boolean pBlanc)
+  {
+    assert pEtat != null;
+
+    final Piece [] pieces;
+    if (pBlanc)
     {
-      ctx = (ContextSorter) tri;
+      pieces = WHITE_OFFICERS;
     }
     else
     {
-      ctx = null;
+      pieces = BLACK_OFFICERS;
     }
-    Arrays.sort(coups, tri);
-    addHalfmove(l);
-    int alpha = pAlpha;
-    for (int i = 0; i < l; i++)
+    for (final Piece p : pieces)
     {
-      final Move mvt = coups[i];
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int limite;
-      if (((pProfondeur == 1) && ((l <= 3) || (mvt.getCaptured() != null)))
-          || etat.isInCheck(etat.isWhiteActive()))
-      {
-        limite = -1;
-      }
-      else
-      {
-        limite = 0;
-      }
-      int note;
-      if (i == 0)
+      if (pEtat.getPieceCount(p) > 0)
       {
-        note = -negascout(etat, pProfondeur - 1, -pBeta, -alpha, limite);
-      }
-      else
-      {
-        note = -negascout(etat, pProfondeur - 1, -alpha - 1, -alpha, limite);
-      }
-      if (note > res)
-      {
-        if ((i > 0) && (alpha < note) && (note < pBeta) && (pProfondeur > limite + 2))
-        {
-          note = -negascout(etat, pProfondeur - 1, -pBeta, -note, limite);
-        }
-        res = note;
-        if (res > alpha)
-        {
-          alpha = res;
-          if (alpha > pBeta)
-          {
-            if (ctx != null)
-            {
-              ctx.put(mvt);
-            }
-            break;
-          }
-        }
+        return true;
       }
     }
 
-    TRANSPOSITIONS.put(pEtat, pProfondeur, alpha, pBeta, res);
-    return res;
+    return false;
+  }
+
+  /**
+   * Indique si le moteur utilise une table de transposition.
+   * 
+   * @return "true".
+   */
+  @Override
+  public boolean isTranspositionTableUsed()
+  {
+    return true;
+  }
+
+  /**
+   * Crée un nouveau fil de recherche pour le moteur.
+   * 
+   * @param pTri Fonction de tri des mouvements propre au fil.
+   * @return Fil de recherche.
+   */
+  @Override
+  protected Searcher newSearcher(final Comparator<Move> pTri)
+  {
+    return new NegaScoutSearcher(pTri);
   }
 
   /**
@@ -156,42 +186,236 @@ final class NegaScoutEngine extends AbstractEngine
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups,
+      final int pProfondeur)
   {
     assert pEtat != null;
     assert pCoups != null;
 
-    final int l = pCoups.length;
-    assert l > 0;
-    addHalfmove(l);
-    final Comparator<Move> tri = getMoveSorter();
-    Arrays.sort(pCoups, tri);
-    Move res = pCoups[0];
-    int alpha = MATE_VALUE - 1;
-    for (final Move mvt : pCoups)
+    final int capacite = TranspositionTable.capacityFor(getTranspositionTableSize());
+    if ((_transpositions == null) || (_transpositions.getCapacity() != capacite))
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = -negascout(etat, getSearchDepthLimit() - 1, MATE_VALUE, -alpha, 0);
-      if ((note > alpha) || ((note == alpha) && RANDOMIZER.nextBoolean()))
-      {
-        // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
-        alpha = note;
-        res = mvt;
-      }
+      _transpositions = new TranspositionTable(capacite);
     }
+    _transpositions.newSearch();
+
+    final Move res = searchRootMoves(pEtat, pCoups, pProfondeur);
 
-    setScore(alpha);
+    assert res != null;
+    return res;
+  }
 
-    TRANSPOSITIONS.clear();
-    if (tri instanceof ContextSorter)
+  /**
+   * Fil de recherche NegaScout, partageant la table de transposition du moteur.
+   */
+  private final class NegaScoutSearcher extends Searcher
+  {
+    /**
+     * Instancie un nouveau fil de recherche.
+     * 
+     * @param pTri Fonction de tri des mouvements propre au fil.
+     */
+    NegaScoutSearcher(final Comparator<Move> pTri)
     {
-      ((ContextSorter) tri).clear();
+      super(pTri);
     }
 
-    assert res != null;
-    return res;
+    /**
+     * Evalue la position obtenue après un mouvement initial.
+     * 
+     * @param pEtat Etat de l'échiquier, le mouvement initial venant d'y être joué.
+     * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+     * @param pAlpha Meilleure note déjà obtenue à la racine.
+     * @return Note du mouvement initial, du point de vue du joueur ayant le trait à la racine.
+     */
+    @Override
+    int evaluate(final SearchBoard pEtat, final int pProfondeur, final int pAlpha)
+    {
+      return -negascout(pEtat, 1, pProfondeur - 1, MATE_VALUE, -pAlpha, false);
+    }
+
+    /**
+     * Recherche le meilleur coup évalué à partir d'une position.
+     * 
+     * @param pEtat Etat de l'échiquier.
+     * @param pPly Nombre de demi-coups depuis la racine de la recherche.
+     * @param pProfondeur Profondeur d'évaluation actuelle.
+     * @param pAlpha Seuil alpha.
+     * @param pBeta Seuil beta.
+     * @param pNul Positionné si la position résulte d'un coup nul.
+     * @return Meilleure évaluation obtenue à ce niveau.
+     */
+    int negascout(final SearchBoard pEtat, final int pPly, final int pProfondeur,
+        final int pAlpha, final int pBeta, final boolean pNul)
+    {
+      assert pEtat != null;
+      assert pAlpha <= pBeta;
+
+      Integer resultat = _transpositions.get(pEtat, pProfondeur, pAlpha, pBeta);
+      if (resultat == null)
+      {
+        // Position de finale couverte par les tables : sa valeur est connue.
+        resultat = probeTablebase(pEtat, pPly);
+      }
+      if (resultat != null)
+      {
+        return resultat.intValue();
+      }
+
+      final boolean trait = pEtat.isWhiteActive();
+      if ((pProfondeur < 0) || ((pProfondeur == 0) && !pEtat.isInCheck(trait)))
+      {
+        // Horizon atteint : poursuite par les seules prises (un échec à l'horizon est d'abord
+        // examiné sur un demi-coup complet).
+        return quiesce(pEtat, pPly, pAlpha, pBeta, getHeuristic());
+      }
+
+      // Les élagages ne concernent que les fenêtres nulles, hors échec et hors scores de mat.
+      final boolean echec = _selective && pEtat.isInCheck(trait);
+      final boolean selection =
+          _selective && !echec && (pBeta - pAlpha <= 1) && (pAlpha > -MATE_THRESHOLD)
+              && (pBeta < MATE_THRESHOLD);
+      if (selection && !pNul && (pProfondeur >= NULL_MOVE_MIN_DEPTH)
+          && isNullMovePruningEnabled() && hasPieces(pEtat, trait)
+          && (getHeuristic().evaluate(pEtat, trait) > pBeta))
+      {
+        // Si passer son tour suffit à dépasser beta, jouer ne peut que faire mieux (hors
+        // zugzwang, écarté en l'absence de pièces autres que les pions et le roi)...
+        pEtat.makeNullMove();
+        final int note =
+            -negascout(pEtat, pPly + 1, pProfondeur - 1 - NULL_MOVE_REDUCTION, -pBeta - 1, -pBeta,
+                true);
+        pEtat.unmakeMove();
+        if (isSearchAborted() || ((note > pBeta) && (note < MATE_THRESHOLD)))
+        {
+          return note;
+        }
+      }
+      int statique = 0;
+      boolean futile = false;
+      if (selection && (pProfondeur <= 2) && isFutilityPruningEnabled())
+      {
+        statique = getHeuristic().evaluate(pEtat, trait);
+        if ((pProfondeur == 2) && (statique + RAZORING_MARGIN < pAlpha))
+        {
+          // "Razoring" : position sans espoir, vérifiée par les seules prises...
+          final int note = quiesce(pEtat, pPly, pAlpha, pBeta, getHeuristic());
+          if (note < pAlpha)
+          {
+            return note;
+          }
+        }
+        // ... et, à la frontière, mouvements calmes sans espoir de remonter jusqu'à alpha.
+        futile = (pProfondeur == 1) && (statique + FUTILITY_MARGIN < pAlpha);
+      }
+
+      final MoveList coups = getMoveList();
+      final int l = coups.generate(pEtat, pPly);
+      if (l == 0)
+      {
+        final int valeur = getHeuristic().evaluate(pEtat, trait);
+        _transpositions.put(pEtat, pProfondeur, pAlpha, pBeta, valeur, 0);
+
+        return valeur;
+      }
+
+      int res = MATE_VALUE - 1;
+
+      final boolean reduction =
+          _selective && !echec && (pProfondeur >= LATE_MOVE_MIN_DEPTH)
+              && isLateMoveReductionEnabled();
+      final int precedent = pEtat.getLastMove();
+      scoreMoves(pPly, precedent);
+      final int hash = _transpositions.getMove(pEtat);
+      if (hash >= 0)
+      {
+        // Le meilleur coup d'une recherche précédente est examiné en premier.
+        coups.promote(pPly, hash);
+      }
+      addHalfmove(l);
+      int meilleur = 0;
+      int alpha = pAlpha;
+      for (int i = 0; i < l; i++)
+      {
+        final int mvt = coups.next(pPly, i);
+        final boolean calme = (futile || reduction) && SearchMoveSorter.isQuiet(mvt);
+        pEtat.makeMove(mvt);
+        final boolean donneEchec = calme && pEtat.isInCheck(!trait);
+        if (futile && (i > 0) && calme && !donneEchec)
+        {
+          pEtat.unmakeMove();
+          if (statique + FUTILITY_MARGIN > res)
+          {
+            res = statique + FUTILITY_MARGIN;
+          }
+          continue;
+        }
+        int r = 0;
+        if (reduction && (i >= LATE_MOVE_INDEX) && calme && !donneEchec)
+        {
+          // Réduction des mouvements tardifs, d'autant plus forte que l'historique leur est
+          // défavorable.
+          if (getHistory(mvt) <= 0)
+          {
+            r = 1;
+            if ((i >= 2 * LATE_MOVE_INDEX) && (pProfondeur > 2 * LATE_MOVE_MIN_DEPTH))
+            {
+              r = 2;
+            }
+          }
+          else if (i >= 2 * LATE_MOVE_INDEX)
+          {
+            r = 1;
+          }
+        }
+        int note;
+        if (i == 0)
+        {
+          note = -negascout(pEtat, pPly + 1, pProfondeur - 1, -pBeta, -alpha, false);
+        }
+        else
+        {
+          note =
+              -negascout(pEtat, pPly + 1, pProfondeur - 1 - r, -alpha - 1, -alpha, false);
+          if ((r > 0) && (note > alpha))
+          {
+            // La réduction était injustifiée : nouvel examen à pleine profondeur.
+            note = -negascout(pEtat, pPly + 1, pProfondeur - 1, -alpha - 1, -alpha, false);
+          }
+        }
+        if ((note > res) && (i > 0) && (alpha < note) && (note < pBeta) && (pProfondeur > 2))
+        {
+          note = -negascout(pEtat, pPly + 1, pProfondeur - 1, -pBeta, -note, false);
+        }
+        pEtat.unmakeMove();
+        if (isSearchAborted())
+        {
+          // Evaluation incomplète : surtout pas d'enregistrement dans la table de transposition.
+          return res;
+        }
+        if (note > res)
+        {
+          res = note;
+          meilleur = mvt;
+          if (res > alpha)
+          {
+            alpha = res;
+            if (alpha > pBeta)
+            {
+              cutoff(pPly, pProfondeur, i, precedent);
+              break;
+            }
+          }
+        }
+      }
+
+      _transpositions.put(pEtat, pProfondeur, alpha, pBeta, res, meilleur);
+      return res;
+    }
   }
+
 }
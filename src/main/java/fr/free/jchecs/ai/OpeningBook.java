@@ -0,0 +1,48 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.Random;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Interface présentée par les bibliothèques d'ouvertures.
+ * <p>
+ * Les implémentations doivent pouvoir être consultées simultanément par plusieurs moteurs.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public interface OpeningBook
+{
+  /**
+   * Renvoi un mouvement de la bibliothèque répondant à un état de l'échiquier.
+   * <p>
+   * Lorsque plusieurs mouvements sont disponibles, le choix est aléatoire et proportionnel à leurs
+   * poids. Seuls des mouvements valides sont renvoyés.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pHasard Générateur de nombres aléatoires utilisé pour le choix.
+   * @return Mouvement correspondant (ou null si la position est absente de la bibliothèque).
+   */
+  Move getMove(final MoveGenerator pEtat, final Random pHasard);
+}
@@ -0,0 +1,409 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.PGNException;
+import fr.free.jchecs.core.PGNReader;
+import fr.free.jchecs.core.PGNRecord;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Classe utilitaire construisant une bibliothèque d'ouvertures projetable en mémoire (format
+ * ".jbk") à partir d'anciennes bibliothèques (format ".opn") et/ou de recueils de parties PGN.
+ * <p>
+ * Usage : <code>OpeningBookConverter [-horizon n] [-plies n] [-min n] sortie.jbk entrée...</code>
+ * <ul>
+ * <li>Les anciennes bibliothèques étant indexées par des clés de 32 bits, leurs positions sont
+ * retrouvées en parcourant l'arbre de jeu depuis la position initiale : toutes les positions sont
+ * explorées jusqu'à l'horizon (-horizon, 2 demi-coups par défaut), puis seules celles présentes dans
+ * la bibliothèque sont prolongées. Chaque mouvement reçoit un poids de 1. Les positions qui ne sont
+ * pas retrouvées ainsi (atteintes par des mouvements absents de la bibliothèque) sont conservées
+ * sous leur ancienne clé, consultée en dernier recours : la conversion ne perd aucune entrée.</li>
+ * <li>Pour les recueils PGN, seules les parties démarrant de la position standard sont retenues.
+ * Leurs premiers demi-coups (-plies, 40 par défaut) sont ajoutés, le poids d'un mouvement étant
+ * son nombre d'occurrences. Les mouvements joués moins de -min fois (1 par défaut) sont écartés.</li>
+ * </ul>
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class OpeningBookConverter
+{
+  /** Horizon par défaut du parcours exhaustif des anciennes bibliothèques (en demi-coups). */
+  private static final int DEFAULT_HORIZON = 2;
+
+  /** Nombre par défaut de demi-coups retenus par partie PGN. */
+  private static final int DEFAULT_PLIES = 40;
+
+  /** Nombre d'occurrences minimum par défaut d'un mouvement issu des parties PGN. */
+  private static final int DEFAULT_MINIMUM = 1;
+
+  /**
+   * Classe utilitaire : ne pas instancier.
+   */
+  private OpeningBookConverter()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Ajoute une occurrence d'un mouvement à la bibliothèque en construction.
+   * 
+   * @param pEntrees Bibliothèque en construction.
+   * @param pCle Clé Zobrist de la position.
+   * @param pMouvement Identifiant du mouvement.
+   * @param pPoids Poids à ajouter.
+   */
+  private static void add(final SortedMap<Long, SortedMap<Integer, Integer>> pEntrees,
+      final long pCle, final int pMouvement, final int pPoids)
+  {
+    assert pEntrees != null;
+    assert pPoids > 0;
+
+    final Long cle = Long.valueOf(pCle);
+    SortedMap<Integer, Integer> mvts = pEntrees.get(cle);
+    if (mvts == null)
+    {
+      mvts = new TreeMap<Integer, Integer>();
+      pEntrees.put(cle, mvts);
+    }
+    final Integer mvt = Integer.valueOf(pMouvement);
+    final Integer poids = mvts.get(mvt);
+    if (poids == null)
+    {
+      mvts.put(mvt, Integer.valueOf(pPoids));
+    }
+    else
+    {
+      mvts.put(mvt, Integer.valueOf(poids.intValue() + pPoids));
+    }
+  }
+
+  /**
+   * Convertit une ancienne bibliothèque d'ouvertures.
+   * 
+   * @param pFichier Fichier de l'ancienne bibliothèque.
+   * @param pHorizon Horizon du parcours exhaustif (en demi-coups).
+   * @param pEntrees Bibliothèque en construction.
+   * @param pAnciennes Entrées non retrouvées, par clé 32 bits.
+   * @throws IOException en cas d'erreur de lecture.
+   */
+  private static void convertOpenings(final File pFichier, final int pHorizon,
+      final SortedMap<Long, SortedMap<Integer, Integer>> pEntrees,
+      final SortedMap<Long, SortedMap<Integer, Integer>> pAnciennes) throws IOException
+  {
+    assert pFichier != null;
+    assert pHorizon >= 0;
+    assert pEntrees != null;
+    assert pAnciennes != null;
+
+    final Map<Integer, int []> ouvertures = new HashMap<Integer, int []>();
+    final DataInputStream in =
+        new DataInputStream(new GZIPInputStream(new FileInputStream(pFichier)));
+    try
+    {
+      while (true)
+      {
+        final int nb = in.readByte();
+        final int cle = in.readInt();
+        final int [] mvtsId = new int [ nb ];
+        for (int i = 0; i < nb; i++)
+        {
+          mvtsId[i] = (in.readUnsignedShort() << 8) + in.readUnsignedByte();
+        }
+        ouvertures.put(Integer.valueOf(cle), mvtsId);
+      }
+    }
+    catch (final EOFException e)
+    {
+      // Fin de l'ancienne bibliothèque...
+    }
+    finally
+    {
+      in.close();
+    }
+
+    final Set<Integer> trouvees = new HashSet<Integer>();
+    walk(BoardFactory.newSearchBoard(BoardFactory.valueOf(FASTEST, STARTING)), 0, pHorizon,
+        ouvertures, new HashSet<Long>(), trouvees, pEntrees);
+    int nbAnciennes = 0;
+    for (final Map.Entry<Integer, int []> e : ouvertures.entrySet())
+    {
+      if (!trouvees.contains(e.getKey()))
+      {
+        nbAnciennes++;
+        for (final int id : e.getValue())
+        {
+          add(pAnciennes, e.getKey().longValue(), id, 1);
+        }
+      }
+    }
+    System.out.println(pFichier + " : " + trouvees.size() + " / " + ouvertures.size()
+        + " positions retrouvées, " + nbAnciennes + " conservées sous leur ancienne clé.");
+  }
+
+  /**
+   * Convertit un recueil de parties PGN.
+   * 
+   * @param pFichier Fichier PGN.
+   * @param pDemiCoups Nombre de demi-coups retenus par partie.
+   * @param pEntrees Bibliothèque en construction.
+   * @throws IOException en cas d'erreur de lecture.
+   */
+  private static void convertPGN(final File pFichier, final int pDemiCoups,
+      final SortedMap<Long, SortedMap<Integer, Integer>> pEntrees) throws IOException
+  {
+    assert pFichier != null;
+    assert pDemiCoups > 0;
+    assert pEntrees != null;
+
+    final AtomicInteger nbParties = new AtomicInteger();
+    final AtomicInteger nbRejets = new AtomicInteger();
+    final PGNReader flux =
+        new PGNReader(new InputStreamReader(new FileInputStream(pFichier), "ISO-8859-1"));
+    try
+    {
+      // Les parties sont décodées en parallèle, seul l'ajout à la bibliothèque est synchronisé.
+      flux.read(new PGNReader.Handler()
+      {
+        /**
+         * Ajoute les premiers mouvements d'une partie à la bibliothèque.
+         * 
+         * @param pPartie Description légère de la partie.
+         * @param pMouvements Identifiants des mouvements.
+         */
+        public void gameRead(final PGNRecord pPartie, final int [] pMouvements)
+        {
+          if (!FENUtils.STANDART_STARTING_FEN.equals(pPartie.getStartingPosition()))
+          {
+            nbRejets.incrementAndGet();
+            return;
+          }
+
+          nbParties.incrementAndGet();
+          final int nb = Math.min(pMouvements.length, pDemiCoups);
+          final long [] cles = new long [ nb ];
+          final SearchBoard etat =
+              BoardFactory.newSearchBoard(BoardFactory.valueOf(FASTEST, STARTING));
+          for (int i = 0; i < nb; i++)
+          {
+            cles[i] = etat.getZobristKey();
+            etat.makeMove(pMouvements[i]);
+          }
+          synchronized (pEntrees)
+          {
+            for (int i = 0; i < nb; i++)
+            {
+              add(pEntrees, cles[i], pMouvements[i], 1);
+            }
+          }
+        }
+
+        /**
+         * Ecarte une partie invalide.
+         * 
+         * @param pPartie Description légère de la partie.
+         * @param pErreur Erreur rencontrée.
+         */
+        public void gameRejected(final PGNRecord pPartie, final PGNException pErreur)
+        {
+          nbRejets.incrementAndGet();
+        }
+      }, Runtime.getRuntime().availableProcessors());
+    }
+    catch (final PGNException e)
+    {
+      throw new IOException(e.getMessage(), e);
+    }
+    finally
+    {
+      flux.close();
+    }
+    System.out.println(pFichier + " : " + nbParties + " parties retenues, " + nbRejets
+        + " écartées.");
+  }
+
+  /**
+   * Construit une bibliothèque d'ouvertures.
+   * 
+   * @param pArgs Arguments de la ligne de commande : [-horizon n] [-plies n] [-min n] suivis du
+   *          fichier à produire et des fichiers sources (".opn" ou PGN).
+   * @throws IOException en cas d'erreur de lecture ou d'écriture.
+   */
+  public static void main(final String [] pArgs) throws IOException
+  {
+    assert pArgs != null;
+
+    int horizon = DEFAULT_HORIZON;
+    int demiCoups = DEFAULT_PLIES;
+    int minimum = DEFAULT_MINIMUM;
+    int i = 0;
+    while ((i + 1 < pArgs.length) && pArgs[i].startsWith("-"))
+    {
+      final int valeur = Integer.parseInt(pArgs[i + 1]);
+      if ("-horizon".equals(pArgs[i]))
+      {
+        horizon = valeur;
+      }
+      else if ("-plies".equals(pArgs[i]))
+      {
+        demiCoups = valeur;
+      }
+      else if ("-min".equals(pArgs[i]))
+      {
+        minimum = valeur;
+      }
+      else
+      {
+        throw new IllegalArgumentException("Unknown option " + pArgs[i]);
+      }
+      i += 2;
+    }
+    if (i + 2 > pArgs.length)
+    {
+      System.out.println("Usage : OpeningBookConverter [-horizon n] [-plies n] [-min n] "
+          + "sortie.jbk entrée.opn|entrée.pgn...");
+      return;
+    }
+
+    final SortedMap<Long, SortedMap<Integer, Integer>> legacy =
+        new TreeMap<Long, SortedMap<Integer, Integer>>();
+    final SortedMap<Long, SortedMap<Integer, Integer>> anciennes =
+        new TreeMap<Long, SortedMap<Integer, Integer>>();
+    final SortedMap<Long, SortedMap<Integer, Integer>> parties =
+        new TreeMap<Long, SortedMap<Integer, Integer>>();
+    for (int j = i + 1; j < pArgs.length; j++)
+    {
+      final File source = new File(pArgs[j]);
+      if (source.getName().endsWith(".opn"))
+      {
+        convertOpenings(source, horizon, legacy, anciennes);
+      }
+      else
+      {
+        convertPGN(source, demiCoups, parties);
+      }
+    }
+
+    // Les mouvements trop rares des parties sont écartés lors de la fusion...
+    for (final Map.Entry<Long, SortedMap<Integer, Integer>> e : parties.entrySet())
+    {
+      for (final Map.Entry<Integer, Integer> mvt : e.getValue().entrySet())
+      {
+        if (mvt.getValue().intValue() >= minimum)
+        {
+          add(legacy, e.getKey().longValue(), mvt.getKey().intValue(), mvt.getValue().intValue());
+        }
+      }
+    }
+
+    final File destination = new File(pArgs[i]);
+    MappedOpeningBook.write(destination, legacy, anciennes);
+    final MappedOpeningBook resultat = MappedOpeningBook.open(destination);
+    System.out.println(destination + " : " + legacy.size() + " positions, "
+        + resultat.getSize() + " mouvements ; " + anciennes.size() + " positions, "
+        + resultat.getLegacySize() + " mouvements sous clé 32 bits.");
+  }
+
+  /**
+   * Parcourt l'arbre de jeu à la recherche des positions d'une ancienne bibliothèque.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pDemiCoups Nombre de demi-coups joués depuis la position initiale.
+   * @param pHorizon Horizon du parcours exhaustif (en demi-coups).
+   * @param pOuvertures Ancienne bibliothèque, indexée par clés de 32 bits.
+   * @param pVus Clés Zobrist des positions déjà parcourues.
+   * @param pTrouvees Clés 32 bits des positions de l'ancienne bibliothèque retrouvées.
+   * @param pEntrees Bibliothèque en construction.
+   */
+  private static void walk(final SearchBoard pEtat, final int pDemiCoups, final int pHorizon,
+      final Map<Integer, int []> pOuvertures, final Set<Long> pVus, final Set<Integer> pTrouvees,
+      final SortedMap<Long, SortedMap<Integer, Integer>> pEntrees)
+  {
+    assert pEtat != null;
+    assert pOuvertures != null;
+    assert pVus != null;
+    assert pTrouvees != null;
+    assert pEntrees != null;
+
+    final long cle = pEtat.getZobristKey();
+    if (!pVus.add(Long.valueOf(cle)))
+    {
+      return;
+    }
+
+    final int [] coups = new int [ MoveList.MAX_MOVES ];
+    final int nb = pEtat.getValidMoves(pEtat.isWhiteActive(), coups);
+    final Integer ancienne = Integer.valueOf((int) cle);
+    final int [] ids = pOuvertures.get(ancienne);
+    if (ids != null)
+    {
+      // Seuls les mouvements valides sont conservés, les clés 32 bits n'étant pas infaillibles...
+      int nbValides = 0;
+      for (final int id : ids)
+      {
+        for (int i = 0; i < nb; i++)
+        {
+          if (coups[i] == id)
+          {
+            add(pEntrees, cle, id, 1);
+            nbValides++;
+            break;
+          }
+        }
+      }
+      // ... et l'entrée n'est tenue pour retrouvée que si tous ses mouvements le sont.
+      if (nbValides == ids.length)
+      {
+        pTrouvees.add(ancienne);
+      }
+    }
+    else if (pDemiCoups >= pHorizon)
+    {
+      return;
+    }
+
+    for (int i = 0; i < nb; i++)
+    {
+      pEtat.makeMove(coups[i]);
+      walk(pEtat, pDemiCoups + 1, pHorizon, pOuvertures, pVus, pTrouvees, pEntrees);
+      pEtat.unmakeMove();
+    }
+  }
+}
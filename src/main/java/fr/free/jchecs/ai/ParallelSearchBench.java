@@ -0,0 +1,107 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.core.BoardFactory.State.EMPTY;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Classe utilitaire mesurant le gain apporté par la recherche parallèle des moteurs IA, en nombre
+ * de fils d'exécution croissant.
+ * 
+ * @author David Cotton
+ */
+public final class ParallelSearchBench
+{
+  /** Profondeur de recherche. */
+  private static final int DEPTH = 5;
+
+  /** Positions de test (ouverture, milieu de partie tactique, finale). */
+  private static final String [] POSITIONS =
+      { FENUtils.STANDART_STARTING_FEN,
+          "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+          "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", };
+
+  /**
+   * Classe utilitaire : ne pas intancier.
+   */
+  private ParallelSearchBench()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Mesure, pour chaque moteur parallélisable et chaque nombre de fils, le temps nécessaire pour
+   * atteindre la profondeur de test sur les positions de test, et le nombre de demi-coups évalués
+   * par seconde.
+   * 
+   * @param pArgs Arguments de la ligne de commande : ignorés, aucun argument attendu.
+   * @throws FENException En cas de position de test invalide.
+   */
+  public static void main(final String [] pArgs) throws FENException
+  {
+    final MoveGenerator [] etats = new MoveGenerator [ POSITIONS.length ];
+    for (int i = POSITIONS.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      etats[i] = BoardFactory.valueOf(FASTEST, EMPTY).derive(FENUtils.toBoard(POSITIONS[i]));
+    }
+
+    System.out.println("Recherche parallèle (profondeur " + DEPTH + ", " + etats.length
+        + " positions, " + SearchPool.MAX_THREADS + " processeurs) :");
+    for (final String nom : new String [] { "jChecs.AlphaBeta", "jChecs.NegaScout", })
+    {
+      // Une première passe, non mesurée, laisse le temps au JIT d'optimiser le code...
+      final Engine chauffe = EngineFactory.newInstance(nom);
+      chauffe.setSearchDepthLimit(DEPTH);
+      chauffe.setOpeningsEnabled(false);
+      for (final MoveGenerator etat : etats)
+      {
+        chauffe.getMoveFor(etat);
+      }
+
+      long reference = 0;
+      for (int nbFils = 1; nbFils <= SearchPool.MAX_THREADS; nbFils *= 2)
+      {
+        final Engine moteur = EngineFactory.newInstance(nom);
+        moteur.setSearchDepthLimit(DEPTH);
+        moteur.setOpeningsEnabled(false);
+        moteur.setSearchThreads(nbFils);
+        for (final MoveGenerator etat : etats)
+        {
+          moteur.getMoveFor(etat);
+        }
+        final long duree = Math.max(1, moteur.getElapsedTime());
+        if (nbFils == 1)
+        {
+          reference = duree;
+        }
+        System.out.println(" - " + nom + " x " + nbFils + " : " + duree + "ms (accélération "
+            + ((reference * 100 / duree) / 100.0F) + "), " + moteur.getHalfmoveCount()
+            + " demi-coups, soit " + (int) (1000.0 / duree * moteur.getHalfmoveCount())
+            + " demi-coups/s");
+      }
+    }
+  }
+}
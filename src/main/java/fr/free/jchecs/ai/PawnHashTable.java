@@ -0,0 +1,214 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.Arrays;
+
+/**
+ * Cache des évaluations de structure de pions, indexé par la clé "Zobrist" limitée aux pions
+ * (voir {@link fr.free.jchecs.core.Board#getPawnZobristKey()}).
+ * <p>
+ * La structure de pions change rarement d'un noeud à l'autre d'un arbre de recherche : chaque
+ * fonction d'évaluation dispose de sa propre table, de taille fixe, dans laquelle elle conserve la
+ * valeur de la structure (du point de vue des blancs) et un masque de colonnes (8 bits pour les
+ * pions blancs, 8 bits pour les pions noirs), dont l'interprétation lui est propre.
+ * </p>
+ * <p>
+ * Comme pour {@link TranspositionTable}, chaque entrée tient dans deux <code>long</code> (les
+ * données et la clé combinée par "ou exclusif" avec les données) : une table peut être partagée
+ * entre plusieurs fils de recherche sans verrou. Les compteurs de consultations et de succès, qui
+ * permettent de dimensionner la table, ne sont en revanche pas synchronisés et restent
+ * approximatifs en cas d'accès concurrents.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class PawnHashTable
+{
+  /** Taille par défaut d'une table (en nombre d'entrées). */
+  static final int DEFAULT_CAPACITY = 1 << 14;
+
+  /** Valeur renvoyée par {@link #get(long)} pour une structure inconnue. */
+  static final long MISSING = -1L;
+
+  /** Position des masques de colonnes dans les données compactées. */
+  private static final int FILES_SHIFT = 32;
+
+  /** Masque des colonnes (sur 16 bits). */
+  private static final int FILES_MASK = 0xFFFF;
+
+  /** Tableau des clés de hachage des structures, combinées par "ou exclusif" avec les données. */
+  private final long [] _keys;
+
+  /** Tableau des données compactées des entrées. */
+  private final long [] _datas;
+
+  /** Nombre de consultations de la table. */
+  private long _probes;
+
+  /** Nombre de consultations ayant abouti. */
+  private long _hits;
+
+  /**
+   * Instancie une nouvelle table.
+   * 
+   * @param pCapacite Nombre minimal d'entrées (arrondi à la puissance de 2 supérieure).
+   */
+  PawnHashTable(final int pCapacite)
+  {
+    assert pCapacite > 0;
+
+    int nb = 1;
+    while ((nb < pCapacite) && (nb < (1 << 30)))
+    {
+      nb <<= 1;
+    }
+    _keys = new long [ nb ];
+    _datas = new long [ nb ];
+  }
+
+  /**
+   * Compacte la valeur d'une structure de pions et ses masques de colonnes.
+   * 
+   * @param pValeur Valeur de la structure, du point de vue des blancs.
+   * @param pColonnes Masques de colonnes (bits 0 à 7 pour les blancs, 8 à 15 pour les noirs).
+   * @return Données compactées.
+   */
+  static long pack(final int pValeur, final int pColonnes)
+  {
+    assert (pColonnes & ~FILES_MASK) == 0;
+
+    return (pValeur & 0xFFFFFFFFL) | ((long) pColonnes << FILES_SHIFT);
+  }
+
+  /**
+   * Extrait les masques de colonnes de données compactées.
+   * 
+   * @param pDonnees Données compactées.
+   * @return Masques de colonnes (bits 0 à 7 pour les blancs, 8 à 15 pour les noirs).
+   */
+  static int getFiles(final long pDonnees)
+  {
+    return (int) (pDonnees >>> FILES_SHIFT) & FILES_MASK;
+  }
+
+  /**
+   * Extrait la valeur de la structure de données compactées.
+   * 
+   * @param pDonnees Données compactées.
+   * @return Valeur de la structure, du point de vue des blancs.
+   */
+  static int getValue(final long pDonnees)
+  {
+    return (int) pDonnees;
+  }
+
+  /**
+   * Vide la table et remet à zéro ses compteurs.
+   */
+  void clear()
+  {
+    Arrays.fill(_keys, 0);
+    Arrays.fill(_datas, 0);
+    _probes = 0;
+    _hits = 0;
+  }
+
+  /**
+   * Renvoi les éventuelles données mémorisées pour une structure de pions.
+   * 
+   * @param pCle Clé de hachage des pions.
+   * @return Données compactées, ou {@link #MISSING} si la structure est inconnue.
+   */
+  long get(final long pCle)
+  {
+    _probes++;
+    final int pos = (int) pCle & (_keys.length - 1);
+    final long donnees = _datas[pos];
+    if ((_keys[pos] ^ donnees) == pCle)
+    {
+      _hits++;
+      return donnees;
+    }
+
+    return MISSING;
+  }
+
+  /**
+   * Renvoi la taille de la table.
+   * 
+   * @return Nombre d'entrées de la table.
+   */
+  int getCapacity()
+  {
+    return _keys.length;
+  }
+
+  /**
+   * Renvoi le nombre de consultations ayant abouti depuis la création (ou le dernier vidage) de
+   * la table.
+   * 
+   * @return Nombre de succès.
+   */
+  long getHitCount()
+  {
+    return _hits;
+  }
+
+  /**
+   * Renvoi le taux de succès des consultations de la table.
+   * 
+   * @return Taux de succès (entre 0 et 1).
+   */
+  double getHitRate()
+  {
+    final long nb = _probes;
+    if (nb == 0)
+    {
+      return 0;
+    }
+
+    return (double) _hits / nb;
+  }
+
+  /**
+   * Renvoi le nombre de consultations depuis la création (ou le dernier vidage) de la table.
+   * 
+   * @return Nombre de consultations.
+   */
+  long getProbeCount()
+  {
+    return _probes;
+  }
+
+  /**
+   * Mémorise les données d'une structure de pions (en remplaçant systématiquement l'entrée).
+   * 
+   * @param pCle Clé de hachage des pions.
+   * @param pDonnees Données compactées (voir {@link #pack(int, int)}).
+   */
+  void put(final long pCle, final long pDonnees)
+  {
+    assert pDonnees != MISSING;
+
+    final int pos = (int) pCle & (_keys.length - 1);
+    _datas[pos] = pDonnees;
+    _keys[pos] = pCle ^ pDonnees;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Tests unitaires du cache des évaluations de structure de pions.
+ * 
+ * @author David Cotton
+ */
+public final class PawnHashTableTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public PawnHashTableTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Valide le compactage des données.
+   */
+  @Test
+  public void validePack()
+  {
+    for (final int valeur : new int [] { 0, 1, -1, 12345, -54321, Integer.MAX_VALUE,
+        Integer.MIN_VALUE, })
+    {
+      for (final int colonnes : new int [] { 0, 0x0081, 0xFF00, 0xFFFF, })
+      {
+        final long donnees = PawnHashTable.pack(valeur, colonnes);
+        assertTrue(donnees != PawnHashTable.MISSING);
+        assertEquals(valeur, PawnHashTable.getValue(donnees));
+        assertEquals(colonnes, PawnHashTable.getFiles(donnees));
+      }
+    }
+  }
+
+  /**
+   * Valide le stockage, la relecture et le remplacement des entrées.
+   */
+  @Test
+  public void validePutGet()
+  {
+    final PawnHashTable table = new PawnHashTable(1000);
+    assertEquals(1024, table.getCapacity());
+    assertEquals(0, table.getHitRate(), 0);
+
+    final long cle = 0x123456789ABCDEF0L;
+    final long donnees = PawnHashTable.pack(-42, 0x1234);
+    assertEquals(PawnHashTable.MISSING, table.get(cle));
+    table.put(cle, donnees);
+    assertEquals(donnees, table.get(cle));
+
+    // Une clé de même indice remplace l'entrée...
+    final long autre = cle + table.getCapacity();
+    assertEquals(PawnHashTable.MISSING, table.get(autre));
+    table.put(autre, PawnHashTable.pack(7, 0));
+    assertEquals(PawnHashTable.MISSING, table.get(cle));
+    assertEquals(7, PawnHashTable.getValue(table.get(autre)));
+
+    assertEquals(5, table.getProbeCount());
+    assertEquals(2, table.getHitCount());
+    assertEquals(0.4, table.getHitRate(), 1e-9);
+
+    table.clear();
+    assertEquals(PawnHashTable.MISSING, table.get(autre));
+    assertEquals(1, table.getProbeCount());
+    assertEquals(0, table.getHitCount());
+  }
+
+  /**
+   * Valide la clé "Zobrist" des pions, qui ne dépend que des pions.
+   */
+  @Test
+  public void valideKey()
+  {
+    final MoveGenerator depart = BoardFactory.valueOf(FASTEST, STARTING);
+    final long cle = depart.getPawnZobristKey();
+    assertTrue(cle != 0);
+
+    // Les mouvements de pièces ne changent pas la structure de pions...
+    MoveGenerator etat =
+        depart.derive(new Move(WHITE_KNIGHT, Square.valueOf("g1"), Square.valueOf("f3")), true);
+    etat = etat.derive(new Move(BLACK_KNIGHT, Square.valueOf("b8"), Square.valueOf("c6")), true);
+    assertEquals(cle, etat.getPawnZobristKey());
+    assertFalse(depart.getZobristKey() == etat.getZobristKey());
+
+    // ... contrairement aux mouvements de pions.
+    etat = etat.derive(new Move(WHITE_PAWN, Square.valueOf("e2"), Square.valueOf("e4")), true);
+    assertFalse(cle == etat.getPawnZobristKey());
+  }
+
+  /**
+   * Valide l'égalité des évaluations avec et sans cache significatif, et l'utilisation du cache.
+   */
+  @Test
+  public void valideHeuristicCache()
+  {
+    final MobilityHeuristic cache = new MobilityHeuristic();
+    final MobilityHeuristic minimal = new MobilityHeuristic(1);
+    final Random randomizer = new Random(6000);
+    for (int p = 50; p >= 0; p--)
+    {
+      MoveGenerator etat = BoardFactory.valueOf(FASTEST, STARTING);
+      for (int cps = 150; cps >= 0; cps--)
+      {
+        final int attendue = minimal.evaluate(etat, true);
+        assertEquals(attendue, cache.evaluate(etat, true));
+        assertEquals(attendue, cache.evaluate(etat, true));
+        final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+        if (mvts.length == 0)
+        {
+          break;
+        }
+        etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+      }
+    }
+
+    final PawnHashTable table = cache.getPawnHashTable();
+    assertTrue(table.getProbeCount() > 0);
+    // Chaque position est au moins évaluée deux fois de suite...
+    assertTrue(table.getHitRate() > 0.5);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.core.PieceType.KING;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Bibliothèque d'ouvertures au format "Polyglot" (fichiers ".bin"), projetée en mémoire.
+ * <p>
+ * Le fichier est une suite d'entrées de {@value #ENTRY_SIZE} octets (gros-boutiste), triées par
+ * clé "Polyglot" croissante (non signée) : clé (entier long), mouvement (entier court), poids
+ * (entier court non signé) et données d'apprentissage (entier, ignoré). Comme pour
+ * {@link MappedOpeningBook}, les consultations se font par recherche dichotomique et sans verrou.
+ * </p>
+ * <p>
+ * jChecs promouvant toujours en dame, les mouvements de sous-promotion sont ignorés.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PolyglotOpeningBook implements OpeningBook
+{
+  /** Taille d'une entrée (en octets). */
+  static final int ENTRY_SIZE = 16;
+
+  /** Code "Polyglot" de la promotion en dame. */
+  private static final int QUEEN_PROMOTION = 4;
+
+  /** Tampon projeté en mémoire. */
+  private final ByteBuffer _buffer;
+
+  /** Nombre d'entrées. */
+  private final int _size;
+
+  /**
+   * Instancie une nouvelle bibliothèque à partir du contenu d'un fichier.
+   * 
+   * @param pTampon Tampon contenant le fichier.
+   */
+  private PolyglotOpeningBook(final ByteBuffer pTampon)
+  {
+    assert pTampon != null;
+    assert pTampon.capacity() % ENTRY_SIZE == 0;
+
+    _buffer = pTampon;
+    _size = pTampon.capacity() / ENTRY_SIZE;
+  }
+
+  /**
+   * Renvoi un mouvement de la bibliothèque répondant à un état de l'échiquier.
+   * <p>
+   * Les mouvements sont validés au préalable : les entrées de poids nul, les sous-promotions et les
+   * éventuelles collisions de clés sont écartées.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pHasard Générateur de nombres aléatoires utilisé pour le choix.
+   * @return Mouvement correspondant (ou null si la position est absente de la bibliothèque).
+   */
+  public Move getMove(final MoveGenerator pEtat, final Random pHasard)
+  {
+    assert pEtat != null;
+    assert pHasard != null;
+
+    final long cle = pEtat.getPolyglotKey();
+    final int premier = indexOf(cle);
+    if ((premier >= _size) || (getKey(premier) != cle))
+    {
+      return null;
+    }
+
+    final Move [] valides = pEtat.getValidMoves(pEtat.isWhiteActive());
+    final Move [] candidats = new Move [ valides.length ];
+    final int [] poids = new int [ valides.length ];
+    int nb = 0;
+    long total = 0;
+    for (int i = premier; (i < _size) && (getKey(i) == cle); i++)
+    {
+      final int pos = i * ENTRY_SIZE;
+      final int code = _buffer.getShort(pos + 8) & 0xFFFF;
+      final int p = _buffer.getShort(pos + 10) & 0xFFFF;
+      final int promotion = (code >>> 12) & 7;
+      if ((p == 0) || ((promotion != 0) && (promotion != QUEEN_PROMOTION)))
+      {
+        continue;
+      }
+      final int src = (code >>> 6) & 63;
+      int dst = code & 63;
+      final Piece piece = pEtat.getPieceAt(Square.valueOf(src));
+      if ((piece != null) && (piece.getType() == KING))
+      {
+        // Les roques sont codés comme la prise de sa propre tour par le roi...
+        if (dst == src + 3)
+        {
+          dst = src + 2;
+        }
+        else if (dst == src - 4)
+        {
+          dst = src - 2;
+        }
+      }
+      for (final Move mvt : valides)
+      {
+        if ((mvt.getFrom().getIndex() == src) && (mvt.getTo().getIndex() == dst)
+            && (nb < candidats.length))
+        {
+          candidats[nb] = mvt;
+          poids[nb++] = p;
+          total += p;
+          break;
+        }
+      }
+    }
+    if (total <= 0)
+    {
+      return null;
+    }
+
+    long tirage = (long) (pHasard.nextDouble() * total);
+    for (int i = 0; i < nb; i++)
+    {
+      tirage -= poids[i];
+      if (tirage < 0)
+      {
+        return candidats[i];
+      }
+    }
+
+    return candidats[nb - 1];
+  }
+
+  /**
+   * Renvoi le nombre d'entrées de la bibliothèque.
+   * 
+   * @return Nombre d'entrées.
+   */
+  public int getSize()
+  {
+    assert _size >= 0;
+    return _size;
+  }
+
+  /**
+   * Renvoi la clé d'une entrée.
+   * 
+   * @param pIndice Indice de l'entrée.
+   * @return Clé "Polyglot" de l'entrée.
+   */
+  private long getKey(final int pIndice)
+  {
+    assert (pIndice >= 0) && (pIndice < _size);
+
+    return _buffer.getLong(pIndice * ENTRY_SIZE);
+  }
+
+  /**
+   * Recherche par dichotomie la première entrée dont la clé n'est pas inférieure à une clé, les
+   * clés étant comparées comme des entiers non signés.
+   * 
+   * @param pCle Clé recherchée.
+   * @return Indice de la première entrée correspondante (ou le nombre d'entrées).
+   */
+  private int indexOf(final long pCle)
+  {
+    final long cle = pCle ^ Long.MIN_VALUE;
+    int bas = 0;
+    int haut = _size;
+    while (bas < haut)
+    {
+      final int milieu = (bas + haut) >>> 1;
+      if ((getKey(milieu) ^ Long.MIN_VALUE) < cle)
+      {
+        bas = milieu + 1;
+      }
+      else
+      {
+        haut = milieu;
+      }
+    }
+
+    return bas;
+  }
+
+  /**
+   * Ouvre une bibliothèque "Polyglot".
+   * 
+   * @param pFichier Fichier de la bibliothèque.
+   * @return Bibliothèque correspondante.
+   * @throws IOException en cas d'erreur d'accès au fichier ou de taille invalide.
+   */
+  public static PolyglotOpeningBook open(final File pFichier) throws IOException
+  {
+    if (pFichier == null)
+    {
+      throw new NullPointerException("Missing opening book file");
+    }
+
+    final RandomAccessFile fichier = new RandomAccessFile(pFichier, "r");
+    try
+    {
+      final FileChannel canal = fichier.getChannel();
+      final long taille = canal.size();
+      if ((taille % ENTRY_SIZE != 0) || (taille > Integer.MAX_VALUE))
+      {
+        throw new IOException("Invalid Polyglot opening book size: " + pFichier);
+      }
+      // La projection reste valide après la fermeture du fichier...
+      return new PolyglotOpeningBook(canal.map(FileChannel.MapMode.READ_ONLY, 0, taille));
+    }
+    finally
+    {
+      fichier.close();
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.ai.MoveList.MAX_PLY;
+import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.QUEEN;
+
+import java.util.Arrays;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.Piece;
+
+/**
+ * Trie les mouvements à partir du contexte de la recherche : prises et promotions d'abord (de la
+ * prise la plus forte par la pièce la plus faible, MVV/LVA), puis les "killer moves" du demi-coup,
+ * le mouvement ayant réfuté le dernier coup joué ("counter move"), et enfin les autres mouvements
+ * selon l'historique des coupures.
+ * <p>
+ * L'historique est indexé par couleur, case de départ et case d'arrivée ("butterfly board"). Il
+ * est divisé par deux à la fin de chaque recherche, pour que les coupures récentes l'emportent
+ * sans perdre ce qu'ont appris les recherches précédentes de la partie.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class SearchMoveSorter implements ContextSorter
+{
+  /** Identifiant de la classe pour la sérialisation. */
+  private static final long serialVersionUID = -4380129862167446127L;
+
+  /** Priorité de base d'une prise ou d'une promotion. */
+  private static final int CAPTURE_PRIORITY = 1 << 28;
+
+  /** Bonus d'une promotion sans prise, la classant avec les prises de dame. */
+  private static final int PROMOTION_BONUS = 1000 * QUEEN.getValue();
+
+  /** Priorité de base d'un "killer move". */
+  private static final int KILLER_MOVE_PRIORITY = 1 << 26;
+
+  /** Priorité d'un "counter move". */
+  private static final int COUNTER_MOVE_PRIORITY = 1 << 25;
+
+  /** Valeur absolue maximale d'une entrée de l'historique (au-delà, l'historique est divisé). */
+  private static final int HISTORY_LIMIT = 1 << 20;
+
+  /** Nombre de "killer moves" mémorisés par demi-coup. */
+  private static final int KILLERS_PER_PLY = 2;
+
+  /** Nombre de cases de l'échiquier. */
+  private static final int SQUARE_COUNT = 64;
+
+  /** "Killer moves", par demi-coup (0 pour un emplacement libre). */
+  private final int [] _killerMoves = new int [ MAX_PLY * KILLERS_PER_PLY ];
+
+  /** Mouvements ayant réfuté un mouvement, indexés par pièce et case d'arrivée de celui-ci. */
+  private final int [] _counterMoves = new int [ Piece.values().length * SQUARE_COUNT ];
+
+  /** Historique des coupures, par couleur, case de départ et case d'arrivée. */
+  private final int [] _history = new int [ 2 * SQUARE_COUNT * SQUARE_COUNT ];
+
+  /**
+   * Crée une nouvelle instance.
+   */
+  SearchMoveSorter()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Indique si un mouvement est calme (ni prise, ni promotion).
+   * 
+   * @param pMouvement Entier identifiant le mouvement.
+   * @return A "true" si le mouvement est calme.
+   */
+  static boolean isQuiet(final int pMouvement)
+  {
+    if (Move.getCaptured(pMouvement) != null)
+    {
+      return false;
+    }
+    if (Move.getPiece(pMouvement).getType() == PAWN)
+    {
+      final int dst = Move.getToIndex(pMouvement);
+      return (dst >= 8) && (dst < 56);
+    }
+
+    return true;
+  }
+
+  /**
+   * Renvoi l'indice d'un mouvement dans l'historique.
+   * 
+   * @param pMouvement Entier identifiant le mouvement.
+   * @return Indice du mouvement dans l'historique.
+   */
+  private static int historyIndex(final int pMouvement)
+  {
+    int res = Move.getFromIndex(pMouvement) * SQUARE_COUNT + Move.getToIndex(pMouvement);
+    if (!Move.getPiece(pMouvement).isWhite())
+    {
+      res += SQUARE_COUNT * SQUARE_COUNT;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi l'indice du "counter move" réfutant un mouvement.
+   * 
+   * @param pMouvement Entier identifiant le mouvement à réfuter (différent de 0).
+   * @return Indice du "counter move".
+   */
+  private static int counterIndex(final int pMouvement)
+  {
+    return Move.getPiece(pMouvement).ordinal() * SQUARE_COUNT + Move.getToIndex(pMouvement);
+  }
+
+  /**
+   * Divise l'historique par deux.
+   */
+  private void ageHistory()
+  {
+    final int [] historique = _history;
+    for (int i = historique.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      historique[i] /= 2;
+    }
+  }
+
+  /**
+   * Termine une recherche : les "killer moves" sont effacés et l'historique vieilli.
+   */
+  public void clear()
+  {
+    Arrays.fill(_killerMoves, 0);
+    ageHistory();
+  }
+
+  /**
+   * Tri des mouvements.
+   * 
+   * @param pMvt1 Premier mouvement.
+   * @param pMvt2 Deuxième mouvement.
+   * @return -1, 0, 1 en accord avec le contrat de compare().
+   */
+  public int compare(final Move pMvt1, final Move pMvt2)
+  {
+    final int v1 = score(pMvt1.toId());
+    final int v2 = score(pMvt2.toId());
+    if (v1 > v2)
+    {
+      return -1;
+    }
+    else if (v1 < v2)
+    {
+      return 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Renvoi la valeur d'un mouvement dans l'historique des coupures.
+   * 
+   * @param pMouvement Entier identifiant le mouvement.
+   * @return Valeur du mouvement dans l'historique (négative si le mouvement a plus souvent échoué
+   *         que provoqué des coupures).
+   */
+  public int getHistory(final int pMouvement)
+  {
+    return _history[historyIndex(pMouvement)];
+  }
+
+  /**
+   * Renvoi une nouvelle instance de ce tri, au contexte vide, destinée à un autre fil de
+   * recherche.
+   * 
+   * @return Nouvelle instance du tri.
+   */
+  public ContextSorter newInstance()
+  {
+    return new SearchMoveSorter();
+  }
+
+  /**
+   * Mémorise un mouvement calme ayant provoqué une coupure.
+   * 
+   * @param pPly Demi-coup de profondeur de la coupure.
+   * @param pProfondeur Profondeur restant à examiner lors de la coupure.
+   * @param pMouvement Entier identifiant le mouvement.
+   * @param pPrecedent Dernier mouvement joué avant la coupure (0 si inconnu).
+   */
+  public void put(final int pPly, final int pProfondeur, final int pMouvement,
+      final int pPrecedent)
+  {
+    assert (pPly >= 0) && (pPly < MAX_PLY);
+
+    final int k = pPly * KILLERS_PER_PLY;
+    if (_killerMoves[k] != pMouvement)
+    {
+      _killerMoves[k + 1] = _killerMoves[k];
+      _killerMoves[k] = pMouvement;
+    }
+    if (pPrecedent != 0)
+    {
+      _counterMoves[counterIndex(pPrecedent)] = pMouvement;
+    }
+    final int i = historyIndex(pMouvement);
+    _history[i] += pProfondeur * pProfondeur;
+    if (_history[i] > HISTORY_LIMIT)
+    {
+      ageHistory();
+    }
+  }
+
+  /**
+   * Pénalise dans l'historique un mouvement calme examiné, sans coupure, avant celui ayant
+   * provoqué une coupure.
+   * 
+   * @param pProfondeur Profondeur restant à examiner lors de la coupure.
+   * @param pMouvement Entier identifiant le mouvement.
+   */
+  public void reject(final int pProfondeur, final int pMouvement)
+  {
+    final int i = historyIndex(pMouvement);
+    _history[i] -= pProfondeur * pProfondeur;
+    if (_history[i] < -HISTORY_LIMIT)
+    {
+      ageHistory();
+    }
+  }
+
+  /**
+   * Renvoi la note d'un mouvement, indépendamment du demi-coup (tri des mouvements initiaux).
+   * 
+   * @param pMouvement Entier identifiant un mouvement.
+   * @return Note du mouvement.
+   */
+  public int score(final int pMouvement)
+  {
+    if (isQuiet(pMouvement))
+    {
+      return _history[historyIndex(pMouvement)];
+    }
+
+    int res = CAPTURE_PRIORITY + StaticMoveSorter.valueOf(pMouvement);
+    if (Move.getCaptured(pMouvement) == null)
+    {
+      res += PROMOTION_BONUS;
+    }
+    return res;
+  }
+
+  /**
+   * Renvoi la note d'un mouvement à un demi-coup donné de la recherche.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pMouvement Entier identifiant un mouvement.
+   * @param pPrecedent Dernier mouvement joué (0 si inconnu).
+   * @return Note du mouvement.
+   */
+  public int score(final int pPly, final int pMouvement, final int pPrecedent)
+  {
+    assert (pPly >= 0) && (pPly < MAX_PLY);
+
+    if (isQuiet(pMouvement))
+    {
+      final int k = pPly * KILLERS_PER_PLY;
+      if (pMouvement == _killerMoves[k])
+      {
+        return KILLER_MOVE_PRIORITY + 1;
+      }
+      if (pMouvement == _killerMoves[k + 1])
+      {
+        return KILLER_MOVE_PRIORITY;
+      }
+      if ((pPrecedent != 0) && (pMouvement == _counterMoves[counterIndex(pPrecedent)]))
+      {
+        return COUNTER_MOVE_PRIORITY;
+      }
+    }
+
+    return score(pMouvement);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réserve de fils d'exécution partagée par tous les moteurs pour leurs recherches parallèles.
+ * <p>
+ * Le nombre de fils est borné par le nombre de processeurs disponibles, quel que soit le nombre de
+ * moteurs actifs. Les fils inactifs disparaissent au bout d'une minute et ne bloquent pas l'arrêt
+ * de la JVM.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class SearchPool
+{
+  /** Délai au-delà duquel un fil inactif est libéré (en secondes). */
+  private static final long KEEP_ALIVE = 60;
+
+  /** Nombre maximum de fils de la réserve. */
+  static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+  /** Réserve partagée (créée à la première utilisation). */
+  private static ExecutorService S_executor;
+
+  /**
+   * Classe utilitaire : ne pas intancier.
+   */
+  private SearchPool()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi la réserve de fils d'exécution partagée.
+   * 
+   * @return Réserve de fils d'exécution.
+   */
+  static synchronized ExecutorService getExecutor()
+  {
+    if (S_executor == null)
+    {
+      final ThreadFactory fabrique = new ThreadFactory()
+      {
+        /** Numéro du prochain fil créé. */
+        private final AtomicInteger _numero = new AtomicInteger(1);
+
+        /**
+         * Crée un nouveau fil de recherche.
+         * 
+         * @param pTache Tâche exécutée par le fil.
+         * @return Fil créé.
+         */
+        public Thread newThread(final Runnable pTache)
+        {
+          final Thread res = new Thread(pTache, "jChecs-search-" + _numero.getAndIncrement());
+          res.setDaemon(true);
+          res.setPriority(Thread.NORM_PRIORITY - 1);
+          return res;
+        }
+      };
+      final ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, KEEP_ALIVE, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(), fabrique);
+      executor.allowCoreThreadTimeOut(true);
+      S_executor = executor;
+    }
+
+    return S_executor;
+  }
+
+  /**
+   * Libère les fils de la réserve dès la fin de leurs tâches en cours (une nouvelle réserve sera
+   * créée à la prochaine utilisation).
+   */
+  static synchronized void shutdown()
+  {
+    if (S_executor != null)
+    {
+      S_executor.shutdown();
+      S_executor = null;
+    }
+  }
+}
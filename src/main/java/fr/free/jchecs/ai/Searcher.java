@@ -0,0 +1,292 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.Comparator;
+
+import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
+import static fr.free.jchecs.ai.MoveList.MAX_PLY;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Fil de recherche d'un moteur : porte tout l'état modifiable propre à un fil d'exécution (listes
+ * de mouvements, contexte de tri, décompte des demi-coups), de sorte que plusieurs fils puissent
+ * évaluer en parallèle des mouvements initiaux distincts.
+ * 
+ * @author David Cotton
+ */
+abstract class Searcher
+{
+  /** Listes de mouvements préallouées du fil. */
+  private final MoveList _moveList = new MoveList();
+
+  /** Fonction de tri des mouvements du fil. */
+  private final Comparator<Move> _moveSorter;
+
+  /** Fonction de tri des mouvements du fil, si elle tient compte du contexte (sinon null). */
+  private final ContextSorter _contextSorter;
+
+  /** Nombre de demi-coups évalués par le fil depuis le dernier relevé. */
+  private int _halfmoveCount;
+
+  /**
+   * Instancie un nouveau fil de recherche.
+   * 
+   * @param pTri Fonction de tri des mouvements propre au fil.
+   */
+  Searcher(final Comparator<Move> pTri)
+  {
+    assert pTri != null;
+
+    _moveSorter = pTri;
+    if (pTri instanceof ContextSorter)
+    {
+      _contextSorter = (ContextSorter) pTri;
+    }
+    else
+    {
+      _contextSorter = null;
+    }
+  }
+
+  /**
+   * Ajoute un décompte de demi-coups au nombre de demi-coups évalués par le fil.
+   * 
+   * @param pNombre Nombre de demi-coups à ajouter.
+   */
+  final void addHalfmove(final int pNombre)
+  {
+    assert pNombre >= 0;
+
+    _halfmoveCount += pNombre;
+  }
+
+  /**
+   * Efface l'éventuel contexte de tri accumulé par le fil au cours d'une recherche.
+   */
+  final void clear()
+  {
+    if (_contextSorter != null)
+    {
+      _contextSorter.clear();
+    }
+  }
+
+  /**
+   * Mémorise dans le contexte de tri la coupure provoquée par un mouvement de la liste d'un
+   * demi-coup : un mouvement calme y est conservé, et les mouvements calmes examinés avant lui sont
+   * pénalisés.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pProfondeur Profondeur restant à examiner.
+   * @param pIndice Indice, dans la liste du demi-coup, du mouvement ayant provoqué la coupure.
+   * @param pPrecedent Dernier mouvement joué avant la position (0 si inconnu).
+   */
+  final void cutoff(final int pPly, final int pProfondeur, final int pIndice,
+      final int pPrecedent)
+  {
+    final ContextSorter ctx = _contextSorter;
+    if (ctx == null)
+    {
+      return;
+    }
+
+    final MoveList coups = _moveList;
+    final int mvt = coups.get(pPly, pIndice);
+    if (SearchMoveSorter.isQuiet(mvt))
+    {
+      ctx.put(pPly, pProfondeur, mvt, pPrecedent);
+      for (int i = pIndice; --i >= 0; /* Pré-décrémenté */)
+      {
+        final int autre = coups.get(pPly, i);
+        if (SearchMoveSorter.isQuiet(autre))
+        {
+          ctx.reject(pProfondeur, autre);
+        }
+      }
+    }
+  }
+
+  /**
+   * Renvoi la valeur d'un mouvement dans l'historique des coupures du fil.
+   * 
+   * @param pMouvement Entier identifiant le mouvement.
+   * @return Valeur du mouvement dans l'historique (0 si le tri ne tient pas d'historique).
+   */
+  final int getHistory(final int pMouvement)
+  {
+    if (_contextSorter == null)
+    {
+      return 0;
+    }
+
+    return _contextSorter.getHistory(pMouvement);
+  }
+
+  /**
+   * Renvoi les listes de mouvements préallouées du fil.
+   * 
+   * @return Listes de mouvements du fil.
+   */
+  final MoveList getMoveList()
+  {
+    return _moveList;
+  }
+
+  /**
+   * Renvoi la fonction de tri des mouvements du fil.
+   * 
+   * @return Fonction de tri des mouvements.
+   */
+  final Comparator<Move> getMoveSorter()
+  {
+    return _moveSorter;
+  }
+
+  /**
+   * Recherche de quiescence : au-delà de l'horizon, seules les prises et promotions sont examinées,
+   * jusqu'à obtenir une position calme, pour éviter d'évaluer une position au milieu d'un échange.
+   * <p>
+   * Le joueur ayant le trait peut toujours renoncer à prendre (évaluation statique de la position),
+   * et les prises perdantes d'après le bilan statique des échanges (voir
+   * {@link SearchBoard#getStaticExchange(int)}) ne sont pas examinées.
+   * </p>
+   * <p>
+   * Sauf s'il est en échec : il ne peut alors renoncer à parer, et toutes ses parades sont
+   * examinées (une position de mat est ainsi reconnue comme telle).
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pPly Nombre de demi-coups depuis la racine de la recherche.
+   * @param pAlpha Seuil alpha.
+   * @param pBeta Seuil beta.
+   * @param pHeuristique Fonction d'évaluation des positions.
+   * @return Meilleure évaluation obtenue à ce niveau.
+   */
+  final int quiesce(final SearchBoard pEtat, final int pPly, final int pAlpha, final int pBeta,
+      final Heuristic pHeuristique)
+  {
+    assert pEtat != null;
+    assert pHeuristique != null;
+    assert pAlpha <= pBeta;
+
+    final boolean trait = pEtat.isWhiteActive();
+    if (pPly >= MAX_PLY)
+    {
+      return pHeuristique.evaluate(pEtat, trait);
+    }
+
+    final MoveList coups = _moveList;
+    final boolean echec = pEtat.isInCheck(trait);
+    int res;
+    final int l;
+    if (echec)
+    {
+      l = coups.generate(pEtat, pPly);
+      if (l == 0)
+      {
+        // Mat...
+        return MATE_VALUE;
+      }
+      scoreMoves(pPly, pEtat.getLastMove());
+      res = MATE_VALUE - 1;
+    }
+    else
+    {
+      res = pHeuristique.evaluate(pEtat, trait);
+      if (res > pBeta)
+      {
+        return res;
+      }
+      l = coups.generateCaptures(pEtat, pPly);
+    }
+    addHalfmove(l);
+    int alpha = Math.max(pAlpha, res);
+    for (int i = 0; i < l; i++)
+    {
+      final int mvt = coups.next(pPly, i);
+      if (!echec && (pEtat.getStaticExchange(mvt) < 0))
+      {
+        // Prise perdante : inutile de l'examiner.
+        continue;
+      }
+      pEtat.makeMove(mvt);
+      final int note = -quiesce(pEtat, pPly + 1, -pBeta, -alpha, pHeuristique);
+      pEtat.unmakeMove();
+      if (note > res)
+      {
+        res = note;
+        if (res > alpha)
+        {
+          alpha = res;
+          if (alpha > pBeta)
+          {
+            break;
+          }
+        }
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Note les mouvements de la liste d'un demi-coup, en tenant compte si possible du contexte de la
+   * recherche.
+   * 
+   * @param pPly Demi-coup de profondeur.
+   * @param pPrecedent Dernier mouvement joué avant la position (0 si inconnu).
+   */
+  final void scoreMoves(final int pPly, final int pPrecedent)
+  {
+    if (_contextSorter != null)
+    {
+      _moveList.score(pPly, _contextSorter, pPrecedent);
+    }
+    else
+    {
+      _moveList.score(pPly, _moveSorter);
+    }
+  }
+
+  /**
+   * Relève le nombre de demi-coups évalués par le fil depuis le relevé précédent.
+   * 
+   * @return Nombre de demi-coups évalués.
+   */
+  final int takeHalfmoveCount()
+  {
+    final int res = _halfmoveCount;
+    _halfmoveCount = 0;
+
+    return res;
+  }
+
+  /**
+   * Evalue la position obtenue après un mouvement initial.
+   * 
+   * @param pEtat Etat de l'échiquier, le mouvement initial venant d'y être joué.
+   * @param pProfondeur Profondeur de la recherche (en demi-coups, >= 1).
+   * @param pAlpha Meilleure note déjà obtenue à la racine.
+   * @return Note du mouvement initial, du point de vue du joueur ayant le trait à la racine.
+   */
+  abstract int evaluate(final SearchBoard pEtat, final int pProfondeur, final int pAlpha);
+}
@@ -0,0 +1,37 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+/**
+ * Moteur d'IA NegaScout sélectif : les fenêtres nulles y sont élaguées par le coup nul, la
+ * réduction des mouvements tardifs (guidée par l'historique) et l'élagage de futilité à la
+ * frontière. Chacun de ces élagages peut être désactivé individuellement.
+ * 
+ * @author David Cotton
+ */
+final class SelectiveNegaScoutEngine extends NegaScoutEngine
+{
+  /**
+   * Instancie un nouveau moteur IA Negascout sélectif.
+   */
+  SelectiveNegaScoutEngine()
+  {
+    super(true);
+  }
+}
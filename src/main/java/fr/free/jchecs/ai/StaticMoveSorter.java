@@ -31,7 +31,7 @@ import fr.free.jchecs.core.Piece;
  * 
  * @author David Cotton
  */
-final class StaticMoveSorter implements Comparator<Move>, Serializable
+final class StaticMoveSorter implements Comparator<Move>, MoveScorer, Serializable
 {
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = -1345309675511434759L;
@@ -54,39 +54,47 @@ final class StaticMoveSorter implements Comparator<Move>, Serializable
    */
   public int compare(final Move pMvt1, final Move pMvt2)
   {
-    final Piece prise1 = pMvt1.getCaptured();
-    final Piece prise2 = pMvt2.getCaptured();
-    if (prise1 == null)
+    final int v1 = score(pMvt1.toId());
+    final int v2 = score(pMvt2.toId());
+    if (v1 > v2)
     {
-      if (prise2 != null)
-      {
-        return 1;
-      }
+      return -1;
     }
-    else
+    else if (v1 < v2)
     {
-      if ((prise2 == null) || (prise1.getType().getValue() > prise2.getType().getValue()))
-      {
-        return -1;
-      }
+      return 1;
     }
 
-    final int val1 = pMvt1.getPiece().getType().getValue();
-    final int val2 = pMvt2.getPiece().getType().getValue();
-    int res = 0;
-    if (val1 > val2)
-    {
-      res = -1;
-    }
-    else if (val1 < val2)
-    {
-      res = 1;
-    }
-    if ((prise1 != null) && (prise2 != null))
+    return 0;
+  }
+
+  /**
+   * Renvoi la note d'un mouvement.
+   * 
+   * @param pMouvement Entier identifiant un mouvement.
+   * @return Note du mouvement.
+   */
+  public int score(final int pMouvement)
+  {
+    return valueOf(pMouvement);
+  }
+
+  /**
+   * Renvoi la note statique d'un mouvement : les prises, de la plus forte à la plus faible et par la
+   * pièce la plus faible, puis les autres mouvements par valeur de la pièce déplacée.
+   * 
+   * @param pMouvement Entier identifiant un mouvement.
+   * @return Note statique du mouvement.
+   */
+  static int valueOf(final int pMouvement)
+  {
+    final int vPiece = Move.getPiece(pMouvement).getType().getValue();
+    final Piece prise = Move.getCaptured(pMouvement);
+    if (prise == null)
     {
-      res = -res;
+      return vPiece;
     }
 
-    return res;
+    return 1000 * prise.getType().getValue() - vPiece;
   }
 }
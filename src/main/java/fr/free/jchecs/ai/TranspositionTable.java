@@ -21,16 +21,32 @@ package fr.free.jchecs.ai;
 import java.util.Arrays;
 
 import fr.free.jchecs.core.Board;
+import fr.free.jchecs.core.Move;
 
 /**
  * Classe implémentant la gestion d'une table de transposition intégrable dans un moteur d'I.A.
+ * <p>
+ * Une table appartient à un seul moteur et est conservée d'une recherche à l'autre : les entrées
+ * issues des recherches précédentes restent exploitables, mais peuvent être remplacées en priorité.
+ * </p>
+ * <p>
+ * Les entrées sont indexées par la clé "Zobrist" sur 64 bits des états et regroupées par paires :
+ * la première entrée d'une paire est réservée aux résultats les plus profonds, la seconde est
+ * remplacée systématiquement. Chaque entrée tient dans deux <code>long</code> : les données
+ * compactées (valeur, meilleur coup, profondeur, type, numéro de recherche) et la clé combinée par
+ * "ou exclusif" avec ces données. Une écriture concurrente incomplète est ainsi détectée à la
+ * lecture, ce qui permet de partager une table entre plusieurs fils de recherche sans verrou.
+ * </p>
  * 
  * @author David Cotton
  */
 final class TranspositionTable
 {
-  /** Nombre maximum de collisions entre les clés avant l'abandon. */
-  private static final int MAX_COLLISIONS = 3;
+  /** Taille mémoire d'une entrée de la table (en octets). */
+  static final int ENTRY_SIZE = 16;
+
+  /** Nombre d'entrées par groupe (une à profondeur préférée, une à remplacement systématique). */
+  private static final int BUCKET_SIZE = 2;
 
   /** Identifiant d'une valeur de type "ALPHA". */
   private static final int ALPHA = 0;
@@ -41,17 +57,29 @@ final class TranspositionTable
   /** Identifiant d'une valeur de type "EXACT". */
   private static final int EXACT = 2;
 
-  /** Tableau accueillant les clés de hachage identifiant les états de jeu. */
-  private final int [] _hashCodes;
+  /** Position du meilleur coup dans les données compactées. */
+  private static final int MOVE_SHIFT = 32;
+
+  /** Position de la profondeur dans les données compactées. */
+  private static final int DEPTH_SHIFT = 48;
+
+  /** Position du type de valeur dans les données compactées. */
+  private static final int TYPE_SHIFT = 56;
+
+  /** Position du numéro de recherche dans les données compactées. */
+  private static final int AGE_SHIFT = 58;
+
+  /** Masque du numéro de recherche (sur 6 bits). */
+  private static final int AGE_MASK = 0x3F;
 
-  /** Tableau types d'éléments. */
-  private final byte [] _types;
+  /** Tableau des clés de hachage des états, combinées par "ou exclusif" avec les données. */
+  private final long [] _keys;
 
-  /** Tableau des profondeurs. */
-  private final byte [] _depths;
+  /** Tableau des données compactées des entrées. */
+  private final long [] _datas;
 
-  /** Tableau des valeurs. */
-  private final int [] _values;
+  /** Numéro de la recherche en cours. */
+  private int _age;
 
   /**
    * Instancie une nouvelle table de transposition.
@@ -62,10 +90,20 @@ final class TranspositionTable
   {
     assert pCapacite > 0;
 
-    _hashCodes = new int [ pCapacite ];
-    _types = new byte [ pCapacite ];
-    _depths = new byte [ pCapacite ];
-    _values = new int [ pCapacite ];
+    final int nb = Math.max(BUCKET_SIZE, pCapacite - pCapacite % BUCKET_SIZE);
+    _keys = new long [ nb ];
+    _datas = new long [ nb ];
+  }
+
+  /**
+   * Renvoi le nombre d'entrées d'une table tenant dans une taille mémoire.
+   * 
+   * @param pOctets Taille mémoire disponible (en octets).
+   * @return Nombre d'entrées correspondant (> 0).
+   */
+  static int capacityFor(final int pOctets)
+  {
+    return Math.max(BUCKET_SIZE, pOctets / ENTRY_SIZE);
   }
 
   /**
@@ -73,7 +111,26 @@ final class TranspositionTable
    */
   void clear()
   {
-    Arrays.fill(_hashCodes, 0);
+    Arrays.fill(_keys, 0);
+    Arrays.fill(_datas, 0);
+  }
+
+  /**
+   * Renvoi la taille maximale de la table de transposition.
+   * 
+   * @return Nombre d'entrées de la table.
+   */
+  int getCapacity()
+  {
+    return _keys.length;
+  }
+
+  /**
+   * Signale le début d'une nouvelle recherche : les entrées existantes deviennent remplaçables.
+   */
+  void newSearch()
+  {
+    _age = (_age + 1) & AGE_MASK;
   }
 
   /**
@@ -90,35 +147,54 @@ final class TranspositionTable
     assert pEtat != null;
     // TODO: assert pAlpha <= pBeta;
 
-    final int cleCherchee = pEtat.hashCode();
-    final int capacite = _hashCodes.length;
-    int pos = Math.abs(cleCherchee % capacite);
-    int cle = _hashCodes[pos];
-    for (int i = MAX_COLLISIONS; (cle != 0) && (--i >= 0); /* Pré-décrémenté */)
+    final long cle = pEtat.getZobristKey();
+    final int pos = find(cle);
+    if (pos >= 0)
     {
-      if (cle == cleCherchee)
+      final long donnees = _datas[pos];
+      if (((_keys[pos] ^ donnees) == cle) && ((byte) (donnees >>> DEPTH_SHIFT) >= pProfondeur))
       {
-        if (_depths[pos] >= pProfondeur)
+        final int type = (int) (donnees >>> TYPE_SHIFT) & 3;
+        final int val = (int) donnees;
+        if ((type == EXACT) || ((type == ALPHA) && (val <= pAlpha))
+            || ((type == BETA) && (val >= pBeta)))
         {
-          final int type = _types[pos];
-          final int val = _values[pos];
-          if ((type == EXACT) || ((type == ALPHA) && (val <= pAlpha))
-              || ((type == BETA) && (val >= pBeta)))
-          {
-            return Integer.valueOf(val);
-          }
+          return Integer.valueOf(val);
         }
-        break;
       }
-      pos++;
-      if (pos >= capacite)
+    }
+
+    return null;
+  }
+
+  /**
+   * Renvoi l'éventuel meilleur coup mémorisé pour un état de jeu.
+   * <p>
+   * Seules les cases de départ et d'arrivée sont mémorisées : le coup renvoyé est à rapprocher des
+   * coups valides de l'état.
+   * </p>
+   * 
+   * @param pEtat Etat recherché.
+   * @return Cases de départ et d'arrivée (<code>origine &lt;&lt; 6 | destination</code>), ou -1 si
+   *         inconnu.
+   */
+  int getMove(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    final long cle = pEtat.getZobristKey();
+    final int pos = find(cle);
+    if (pos >= 0)
+    {
+      final long donnees = _datas[pos];
+      final int mvt = (int) (donnees >>> MOVE_SHIFT) & 0xFFFF;
+      if (((_keys[pos] ^ donnees) == cle) && (mvt != 0))
       {
-        pos -= capacite;
+        return mvt;
       }
-      cle = _hashCodes[pos];
     }
 
-    return null;
+    return -1;
   }
 
   /**
@@ -129,46 +205,99 @@ final class TranspositionTable
    * @param pAlpha Valeur alpha.
    * @param pBeta Valeur beta.
    * @param pValeur Valeur du résultat.
+   * @param pCoup Entier identifiant le meilleur coup trouvé (voir {@link Move#toId()}), ou 0.
    */
   void put(final Board pEtat, final int pProfondeur, final int pAlpha, final int pBeta,
-      final int pValeur)
+      final int pValeur, final int pCoup)
   {
     assert pEtat != null;
+    assert (pProfondeur >= Byte.MIN_VALUE) && (pProfondeur <= Byte.MAX_VALUE);
     // TODO: assert pAlpha <= pBeta;
 
-    final int cleEtat = pEtat.hashCode();
-    final int capacite = _hashCodes.length;
-    int pos = Math.abs(cleEtat % capacite);
-    int cle = _hashCodes[pos];
-    for (int i = MAX_COLLISIONS; (cle != 0) && (cle != cleEtat) && (--i >= 0); /* Pré-décrémenté */)
+    final long cle = pEtat.getZobristKey();
+    final int groupe = bucketOf(cle);
+    int pos = groupe;
+    long donnees = _datas[pos];
+    if ((_keys[pos] ^ donnees) != cle)
     {
-      pos++;
-      if (pos >= capacite)
+      final long autres = _datas[pos + 1];
+      if (((_keys[pos + 1] ^ autres) == cle) || !replaceable(donnees, pProfondeur))
       {
-        pos -= capacite;
+        pos++;
+        donnees = autres;
       }
-      cle = _hashCodes[pos];
     }
 
-    if ((cle == 0) || ((cle == cleEtat) && (_depths[pos] < pProfondeur)))
+    int mvt = 0;
+    if (pCoup != 0)
+    {
+      mvt = (Move.getFromIndex(pCoup) << 6) | Move.getToIndex(pCoup);
+    }
+    else if ((_keys[pos] ^ donnees) == cle)
     {
-      byte type = EXACT;
-      if (pProfondeur > 0)
+      // Conserve le meilleur coup d'une recherche précédente sur le même état.
+      mvt = (int) (donnees >>> MOVE_SHIFT) & 0xFFFF;
+    }
+
+    int type = EXACT;
+    if (pValeur > pBeta)
+    {
+      type = BETA;
+    }
+    else if (pValeur < pAlpha)
+    {
+      type = ALPHA;
+    }
+
+    final long nouvelles =
+        (pValeur & 0xFFFFFFFFL) | ((long) mvt << MOVE_SHIFT)
+            | ((long) (pProfondeur & 0xFF) << DEPTH_SHIFT) | ((long) type << TYPE_SHIFT)
+            | ((long) _age << AGE_SHIFT);
+    _datas[pos] = nouvelles;
+    _keys[pos] = cle ^ nouvelles;
+  }
+
+  /**
+   * Renvoi l'indice de la première entrée du groupe correspondant à une clé.
+   * 
+   * @param pCle Clé de hachage de l'état.
+   * @return Indice de la première entrée du groupe.
+   */
+  private int bucketOf(final long pCle)
+  {
+    return (int) ((pCle & Long.MAX_VALUE) % (_keys.length / BUCKET_SIZE)) * BUCKET_SIZE;
+  }
+
+  /**
+   * Renvoi l'indice de l'entrée correspondant à une clé.
+   * 
+   * @param pCle Clé de hachage de l'état.
+   * @return Indice de l'entrée, ou -1 si la clé est absente.
+   */
+  private int find(final long pCle)
+  {
+    final int pos = bucketOf(pCle);
+    for (int i = pos + BUCKET_SIZE; --i >= pos; /* Pré-décrémenté */)
+    {
+      if ((_keys[i] ^ _datas[i]) == pCle)
       {
-        if (pValeur > pBeta)
-        {
-          type = BETA;
-        }
-        else if (pValeur < pAlpha)
-        {
-          type = ALPHA;
-        }
+        return i;
       }
-
-      _hashCodes[pos] = cleEtat;
-      _types[pos] = type;
-      _depths[pos] = (byte) pProfondeur;
-      _values[pos] = pValeur;
     }
+
+    return -1;
+  }
+
+  /**
+   * Indique si l'entrée à profondeur préférée d'un groupe peut être remplacée.
+   * 
+   * @param pDonnees Données compactées de l'entrée en place.
+   * @param pProfondeur Profondeur du nouveau résultat.
+   * @return Vrai si l'entrée est vide, issue d'une recherche précédente ou moins profonde.
+   */
+  private boolean replaceable(final long pDonnees, final int pProfondeur)
+  {
+    return (pDonnees == 0) || (((int) (pDonnees >>> AGE_SHIFT) & AGE_MASK) != _age)
+        || ((byte) (pDonnees >>> DEPTH_SHIFT) <= pProfondeur);
   }
 }
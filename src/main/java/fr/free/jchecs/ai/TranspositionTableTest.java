@@ -0,0 +1,192 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.Board;
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Tests unitaires de la table de transposition.
+ * 
+ * @author David Cotton
+ */
+public final class TranspositionTableTest
+{
+  /** Mouvement e2-e4. */
+  private static final Move E4 = new Move(WHITE_PAWN, Square.valueOf("e2"), Square.valueOf("e4"));
+
+  /** Mouvement g1-f3. */
+  private static final Move NF3 =
+      new Move(WHITE_KNIGHT, Square.valueOf("g1"), Square.valueOf("f3"));
+
+  /** Mouvement b8-c6. */
+  private static final Move NC6 =
+      new Move(BLACK_KNIGHT, Square.valueOf("b8"), Square.valueOf("c6"));
+
+  /** Mouvement e7-e5. */
+  private static final Move E5 = new Move(BLACK_PAWN, Square.valueOf("e7"), Square.valueOf("e5"));
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public TranspositionTableTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi des états distincts, à partir de la position de départ.
+   * 
+   * @return Etats distincts.
+   */
+  private static Board [] states()
+  {
+    final MoveGenerator depart = BoardFactory.valueOf(FASTEST, STARTING);
+    final MoveGenerator e4 = depart.derive(E4, true);
+    final MoveGenerator nf3 = depart.derive(NF3, true);
+
+    return new Board [] { depart, e4, nf3, e4.derive(E5, true), nf3.derive(E5, true), };
+  }
+
+  /**
+   * Valide la clé "Zobrist" sur 64 bits : identique pour des transpositions, distincte sinon.
+   */
+  @Test
+  public void valideZobristKey()
+  {
+    final MoveGenerator depart = BoardFactory.valueOf(FASTEST, STARTING);
+    final Board etat1 =
+        depart.derive(E4, true).derive(E5, true).derive(NF3, true).derive(NC6, true);
+    final Board etat2 =
+        depart.derive(NF3, true).derive(E5, true).derive(E4, true).derive(NC6, true);
+    assertEquals(etat1.getZobristKey(), etat2.getZobristKey());
+    assertEquals((int) etat1.getZobristKey(), etat1.hashCode());
+
+    final Board [] etats = states();
+    for (int i = 0; i < etats.length; i++)
+    {
+      for (int j = i + 1; j < etats.length; j++)
+      {
+        assertFalse(etats[i].getZobristKey() == etats[j].getZobristKey());
+      }
+    }
+  }
+
+  /**
+   * Valide le stockage et la relecture des valeurs et des meilleurs coups.
+   */
+  @Test
+  public void validePutGet()
+  {
+    final TranspositionTable table = new TranspositionTable(1024);
+    assertEquals(1024, table.getCapacity());
+    assertEquals(64, TranspositionTable.capacityFor(64 * TranspositionTable.ENTRY_SIZE));
+
+    final Board [] etats = states();
+    final Board etat = etats[0];
+    assertNull(table.get(etat, 0, -100, 100));
+    assertEquals(-1, table.getMove(etat));
+
+    // Valeur exacte, exploitable jusqu'à sa profondeur...
+    table.put(etat, 4, -100, 100, 30, E4.toId());
+    assertEquals(Integer.valueOf(30), table.get(etat, 4, -100, 100));
+    assertEquals(Integer.valueOf(30), table.get(etat, 2, -10, 10));
+    assertNull(table.get(etat, 5, -100, 100));
+    assertEquals((E4.getFrom().getIndex() << 6) | E4.getTo().getIndex(), table.getMove(etat));
+
+    // ... borne supérieure ("ALPHA")...
+    table.put(etat, 4, 50, 100, 20, 0);
+    assertEquals(Integer.valueOf(20), table.get(etat, 4, 40, 100));
+    assertNull(table.get(etat, 4, 10, 100));
+    // ... le meilleur coup étant conservé en l'absence de nouveau coup...
+    assertEquals((E4.getFrom().getIndex() << 6) | E4.getTo().getIndex(), table.getMove(etat));
+
+    // ... et borne inférieure ("BETA").
+    table.put(etat, 4, -100, 10, 20, NF3.toId());
+    assertEquals(Integer.valueOf(20), table.get(etat, 4, -100, 15));
+    assertNull(table.get(etat, 4, -100, 50));
+    assertEquals((NF3.getFrom().getIndex() << 6) | NF3.getTo().getIndex(), table.getMove(etat));
+
+    // Valeurs négatives...
+    table.put(etats[1], 3, -100, 100, -42, 0);
+    assertEquals(Integer.valueOf(-42), table.get(etats[1], 3, -100, 100));
+    assertEquals(-1, table.getMove(etats[1]));
+
+    table.clear();
+    assertNull(table.get(etat, 0, -100, 100));
+    assertEquals(-1, table.getMove(etat));
+  }
+
+  /**
+   * Valide le remplacement des entrées d'un groupe.
+   */
+  @Test
+  public void valideReplacement()
+  {
+    // Avec un seul groupe, tous les états entrent en collision.
+    final TranspositionTable table = new TranspositionTable(2);
+    final Board [] etats = states();
+
+    // La première entrée accueille le résultat profond, la seconde le suivant...
+    table.put(etats[0], 5, -100, 100, 10, 0);
+    table.put(etats[1], 2, -100, 100, 11, 0);
+    assertEquals(Integer.valueOf(10), table.get(etats[0], 5, -100, 100));
+    assertEquals(Integer.valueOf(11), table.get(etats[1], 2, -100, 100));
+
+    // ... qui est remplacé systématiquement par un résultat moins profond...
+    table.put(etats[2], 1, -100, 100, 12, 0);
+    assertEquals(Integer.valueOf(10), table.get(etats[0], 5, -100, 100));
+    assertNull(table.get(etats[1], 2, -100, 100));
+    assertEquals(Integer.valueOf(12), table.get(etats[2], 1, -100, 100));
+
+    // ... alors qu'un résultat plus profond prend la première entrée.
+    table.put(etats[3], 6, -100, 100, 13, 0);
+    assertNull(table.get(etats[0], 5, -100, 100));
+    assertEquals(Integer.valueOf(13), table.get(etats[3], 6, -100, 100));
+    assertEquals(Integer.valueOf(12), table.get(etats[2], 1, -100, 100));
+
+    // Une entrée déjà présente est mise à jour sur place.
+    table.put(etats[2], 3, -100, 100, 14, 0);
+    assertEquals(Integer.valueOf(13), table.get(etats[3], 6, -100, 100));
+    assertEquals(Integer.valueOf(14), table.get(etats[2], 3, -100, 100));
+
+    // Les entrées d'une recherche précédente sont remplaçables quelle que soit leur profondeur.
+    table.newSearch();
+    table.put(etats[4], 0, -100, 100, 15, 0);
+    assertNull(table.get(etats[3], 6, -100, 100));
+    assertEquals(Integer.valueOf(15), table.get(etats[4], 0, -100, 100));
+    assertEquals(Integer.valueOf(14), table.get(etats[2], 3, -100, 100));
+  }
+}
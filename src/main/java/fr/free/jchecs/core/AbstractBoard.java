@@ -20,6 +20,7 @@ package fr.free.jchecs.core;
 
 import static fr.free.jchecs.core.Constants.FILE_COUNT;
 import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.PieceType.PAWN;
 
 import java.util.Random;
 
@@ -31,49 +32,97 @@ import java.util.Random;
 @SuppressWarnings("serial")
 abstract class AbstractBoard implements Board
 {
-  /** Constantes de pièce / position pour le calcul de clés de hachage "Zobrist". */
-  protected static final int [][] ZOBRIST_PIECE_POSITION;
+  /**
+   * Constantes de pièce / position pour le calcul de clés de hachage "Zobrist".
+   * <p>
+   * Les clés sont sur 64 bits ; leurs 32 bits de poids faible restent ceux des anciennes clés sur
+   * 32 bits, de sorte que {@link #hashCode()} n'est pas modifié.
+   * </p>
+   */
+  protected static final long [][] ZOBRIST_PIECE_POSITION;
 
   /** Constante de prise en passant pour le calcul de clés de hachage "Zobrist". */
-  protected static final int [] ZOBRIST_EN_PASSANT;
+  protected static final long [] ZOBRIST_EN_PASSANT;
 
   /** Constante de petit roque pour les noirs pour le calcul de clés de hachage "Zobrist". */
-  protected static final int ZOBRIST_BLACK_CASTLE_LONG;
+  protected static final long ZOBRIST_BLACK_CASTLE_LONG;
 
   /** Constante de grand roque pour les noirs pour le calcul de clés de hachage "Zobrist". */
-  protected static final int ZOBRIST_BLACK_CASTLE_SHORT;
+  protected static final long ZOBRIST_BLACK_CASTLE_SHORT;
 
   /** Constante de trait aux blancs pour le calcul de clés de hachage "Zobrist". */
-  protected static final int ZOBRIST_WHITE_ACTIVE;
+  protected static final long ZOBRIST_WHITE_ACTIVE;
 
   /** Constante de petit roque pour les blancs pour le calcul de clés de hachage "Zobrist". */
-  protected static final int ZOBRIST_WHITE_CASTLE_LONG;
+  protected static final long ZOBRIST_WHITE_CASTLE_LONG;
 
   /** Constante de grand roque pour les blancs pour le calcul de clés de hachage "Zobrist". */
-  protected static final int ZOBRIST_WHITE_CASTLE_SHORT;
+  protected static final long ZOBRIST_WHITE_CASTLE_SHORT;
+
+  /** Constantes de pièce / position pour le calcul des clés de hachage "Polyglot". */
+  protected static final long [][] POLYGLOT_PIECE_POSITION;
+
+  /** Constante de petit roque pour les noirs pour le calcul des clés de hachage "Polyglot". */
+  protected static final long POLYGLOT_BLACK_CASTLE_SHORT =
+      PolyglotKeys.RANDOM[PolyglotKeys.CASTLE_OFFSET + 2];
+
+  /** Constante de grand roque pour les noirs pour le calcul des clés de hachage "Polyglot". */
+  protected static final long POLYGLOT_BLACK_CASTLE_LONG =
+      PolyglotKeys.RANDOM[PolyglotKeys.CASTLE_OFFSET + 3];
+
+  /** Constante de trait aux blancs pour le calcul des clés de hachage "Polyglot". */
+  protected static final long POLYGLOT_WHITE_ACTIVE =
+      PolyglotKeys.RANDOM[PolyglotKeys.WHITE_ACTIVE_OFFSET];
+
+  /** Constante de petit roque pour les blancs pour le calcul des clés de hachage "Polyglot". */
+  protected static final long POLYGLOT_WHITE_CASTLE_SHORT =
+      PolyglotKeys.RANDOM[PolyglotKeys.CASTLE_OFFSET];
+
+  /** Constante de grand roque pour les blancs pour le calcul des clés de hachage "Polyglot". */
+  protected static final long POLYGLOT_WHITE_CASTLE_LONG =
+      PolyglotKeys.RANDOM[PolyglotKeys.CASTLE_OFFSET + 1];
 
   static
   {
     final Random rnd = new Random(123456789L);
+    final Random rndHaut = new Random(987654321L);
     final int nbPieces = Piece.values().length;
-    ZOBRIST_PIECE_POSITION = new int [ nbPieces ] [ FILE_COUNT * RANK_COUNT ];
+    ZOBRIST_PIECE_POSITION = new long [ nbPieces ] [ FILE_COUNT * RANK_COUNT ];
     for (int i = nbPieces; --i >= 0; /* Pré-décrémenté */)
     {
       for (int j = FILE_COUNT * RANK_COUNT; --j >= 0; /* Pré-décrémenté */)
       {
-        ZOBRIST_PIECE_POSITION[i][j] = rnd.nextInt();
+        ZOBRIST_PIECE_POSITION[i][j] = zobristValue(rnd, rndHaut);
       }
     }
-    ZOBRIST_EN_PASSANT = new int [ FILE_COUNT ];
+    ZOBRIST_EN_PASSANT = new long [ FILE_COUNT ];
     for (int i = FILE_COUNT; --i >= 0; /* Pré-décrémenté */)
     {
-      ZOBRIST_EN_PASSANT[i] = rnd.nextInt();
+      ZOBRIST_EN_PASSANT[i] = zobristValue(rnd, rndHaut);
+    }
+    ZOBRIST_BLACK_CASTLE_LONG = zobristValue(rnd, rndHaut);
+    ZOBRIST_BLACK_CASTLE_SHORT = zobristValue(rnd, rndHaut);
+    ZOBRIST_WHITE_ACTIVE = zobristValue(rnd, rndHaut);
+    ZOBRIST_WHITE_CASTLE_LONG = zobristValue(rnd, rndHaut);
+    ZOBRIST_WHITE_CASTLE_SHORT = zobristValue(rnd, rndHaut);
+
+    // Le format "Polyglot" ordonne les pièces par type (pion, cavalier, fou, tour, dame, roi)
+    // puis par couleur (noir, blanc)...
+    final PieceType [] types = {
+        PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING,
+    };
+    POLYGLOT_PIECE_POSITION = new long [ nbPieces ] [ FILE_COUNT * RANK_COUNT ];
+    for (final Piece p : Piece.values())
+    {
+      int type = 0;
+      while (types[type] != p.getType())
+      {
+        type++;
+      }
+      final int debut = (2 * type + (p.isWhite() ? 1 : 0)) * FILE_COUNT * RANK_COUNT;
+      System.arraycopy(PolyglotKeys.RANDOM, debut, POLYGLOT_PIECE_POSITION[p.ordinal()], 0,
+          FILE_COUNT * RANK_COUNT);
     }
-    ZOBRIST_BLACK_CASTLE_LONG = rnd.nextInt();
-    ZOBRIST_BLACK_CASTLE_SHORT = rnd.nextInt();
-    ZOBRIST_WHITE_ACTIVE = rnd.nextInt();
-    ZOBRIST_WHITE_CASTLE_LONG = rnd.nextInt();
-    ZOBRIST_WHITE_CASTLE_SHORT = rnd.nextInt();
   }
 
   /** Drapeau indiquant le droit de roquer côté roi (petit roque) pour les noirs. */
@@ -387,19 +436,120 @@ abstract class AbstractBoard implements Board
   }
 
   /**
-   * Implémentation par défaut du calcul des clés de hachage, suivant la méthode "Zobrist".
+   * Implémentation par défaut du calcul de la clé de hachage "Zobrist" limitée aux pions.
+   * <p>
+   * Les implémentations concrètes devraient surcharger cette méthode pour des raisons de
+   * performance.
+   * </p>
+   * 
+   * @return Clé de hachage des pions sur 64 bits (0 en l'absence de pion).
+   */
+  public long getPawnZobristKey()
+  {
+    long res = 0;
+    for (final Square s : Square.values())
+    {
+      final Piece p = getPieceAt(s);
+      if ((p != null) && (p.getType() == PAWN))
+      {
+        res ^= ZOBRIST_PIECE_POSITION[p.ordinal()][s.getIndex()];
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Implémentation par défaut du décompte des pièces d'un type donné.
+   * <p>
+   * Les implémentations concrètes devraient surcharger cette méthode pour des raisons de
+   * performance.
+   * </p>
+   * 
+   * @param pPiece Type de pièce.
+   * @return Nombre de pièces (>= 0).
+   */
+  public int getPieceCount(final Piece pPiece)
+  {
+    assert pPiece != null;
+
+    int res = 0;
+    for (final Square s : Square.values())
+    {
+      if (getPieceAt(s) == pPiece)
+      {
+        res++;
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Implémentation par défaut du calcul de la somme des bonus/malus de position des pièces d'un
+   * type donné.
+   * <p>
+   * Les implémentations concrètes devraient surcharger cette méthode pour des raisons de
+   * performance.
+   * </p>
+   * 
+   * @param pPiece Type de pièce.
+   * @param pFinDePartie Positionné à "true" pour utiliser les tables de fin de partie.
+   * @return Somme des bonus/malus de position, du point de vue de la couleur de la pièce.
+   */
+  public int getPieceSquareScore(final Piece pPiece, final boolean pFinDePartie)
+  {
+    assert pPiece != null;
+
+    int res = 0;
+    for (final Square s : Square.values())
+    {
+      if (getPieceAt(s) == pPiece)
+      {
+        res += PieceSquareTables.valueOf(pPiece, s.getIndex(), pFinDePartie);
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Implémentation par défaut du calcul de la clé de hachage au format "Polyglot".
+   * <p>
+   * Les implémentations concrètes devraient surcharger cette méthode pour des raisons de
+   * performance.
+   * </p>
+   * 
+   * @return Clé de hachage "Polyglot".
+   */
+  public long getPolyglotKey()
+  {
+    long res = polyglotRoot() ^ polyglotEnPassant();
+    for (final Square s : Square.values())
+    {
+      final Piece p = getPieceAt(s);
+      if (p != null)
+      {
+        res ^= POLYGLOT_PIECE_POSITION[p.ordinal()][s.getIndex()];
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Implémentation par défaut du calcul de la clé de hachage "Zobrist" sur 64 bits.
    * <p>
    * Les implémentations concrètes devraient surcharger cette méthode pour des raisons de
    * performance. Attention : les résultats produits par les différentes implémentations doivent
    * rester compatibles si l'on souhaite l'interopérabilité.
    * </p>
    * 
-   * @return Clé de hachage.
+   * @return Clé de hachage sur 64 bits.
    */
-  @Override
-  public int hashCode()
+  public long getZobristKey()
   {
-    int res = zobristRoot();
+    long res = zobristRoot();
     for (final Square s : Square.values())
     {
       final Piece p = getPieceAt(s);
@@ -412,6 +562,17 @@ abstract class AbstractBoard implements Board
     return res;
   }
 
+  /**
+   * Calcul des clés de hachage : 32 bits de poids faible de la clé "Zobrist".
+   * 
+   * @return Clé de hachage.
+   */
+  @Override
+  public int hashCode()
+  {
+    return (int) getZobristKey();
+  }
+
   /**
    * Indique si le trait est aux blancs.
    * 
@@ -551,14 +712,85 @@ abstract class AbstractBoard implements Board
     return res.toString();
   }
 
+  /**
+   * Calcule la part de la prise "en passant" dans la clé de hachage "Polyglot".
+   * <p>
+   * Contrairement aux clés "Zobrist", le format "Polyglot" ne tient compte de la case de prise "en
+   * passant" que si un pion du camp ayant le trait est en mesure de l'effectuer.
+   * </p>
+   * 
+   * @return Partie de la clé correspondant à la prise "en passant" (0 si sans objet).
+   */
+  protected final long polyglotEnPassant()
+  {
+    long res = 0;
+
+    if (_enPassant != null)
+    {
+      final int x = _enPassant.getFile();
+      final int y;
+      final Piece pion;
+      if (_whiteActive)
+      {
+        y = _enPassant.getRank() - 1;
+        pion = Piece.WHITE_PAWN;
+      }
+      else
+      {
+        y = _enPassant.getRank() + 1;
+        pion = Piece.BLACK_PAWN;
+      }
+      if (((x > 0) && (getPieceAt(Square.valueOf(x - 1, y)) == pion))
+          || ((x < FILE_COUNT - 1) && (getPieceAt(Square.valueOf(x + 1, y)) == pion)))
+      {
+        res = PolyglotKeys.RANDOM[PolyglotKeys.EN_PASSANT_OFFSET + x];
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Calcule le début de la clé de hachage "Polyglot", hors prise "en passant".
+   * 
+   * @return Partie de la clé correspondant aux droits de roquer et au trait.
+   */
+  protected final long polyglotRoot()
+  {
+    long res = 0;
+
+    if (_blackCastleLong)
+    {
+      res ^= POLYGLOT_BLACK_CASTLE_LONG;
+    }
+    if (_blackCastleShort)
+    {
+      res ^= POLYGLOT_BLACK_CASTLE_SHORT;
+    }
+    if (_whiteActive)
+    {
+      res ^= POLYGLOT_WHITE_ACTIVE;
+    }
+    if (_whiteCastleLong)
+    {
+      res ^= POLYGLOT_WHITE_CASTLE_LONG;
+    }
+    if (_whiteCastleShort)
+    {
+      res ^= POLYGLOT_WHITE_CASTLE_SHORT;
+    }
+
+    return res;
+  }
+
   /**
    * Calcule le début de la clé de hachage "Zobrist".
    * 
    * @return Partie de la clé correspondant aux données internes de cette classe.
    */
-  protected final int zobristRoot()
+  protected final long zobristRoot()
   {
-    int res = 0;
+    long res = 0;
 
     if (_blackCastleLong)
     {
@@ -587,4 +819,16 @@ abstract class AbstractBoard implements Board
 
     return res;
   }
+
+  /**
+   * Tire une constante de hachage "Zobrist" sur 64 bits.
+   * 
+   * @param pBas Générateur des 32 bits de poids faible.
+   * @param pHaut Générateur des 32 bits de poids fort.
+   * @return Constante de hachage.
+   */
+  private static long zobristValue(final Random pBas, final Random pHaut)
+  {
+    return ((long) pHaut.nextInt() << 32) | (pBas.nextInt() & 0xFFFFFFFFL);
+  }
 }
@@ -98,8 +98,8 @@ final class ArrayBoard extends AbstractMoveGenerator
   /** Description du plateau. */
   private final Piece [][] _pieces = new Piece [ FILE_COUNT ] [ RANK_COUNT ];
 
-  /** Buffer de la clé de hachage (peut être à null). */
-  private Integer _hashCode;
+  /** Buffer de la clé de hachage "Zobrist" (peut être à null). */
+  private Long _zobristKey;
 
   /**
    * Crée une nouvelle instance interne.
@@ -935,16 +935,16 @@ final class ArrayBoard extends AbstractMoveGenerator
   }
 
   /**
-   * Surcharge du calcul des clés de hachage, pour optimisation.
+   * Surcharge du calcul de la clé de hachage "Zobrist", pour optimisation.
    * 
-   * @return Clé de hachage.
+   * @return Clé de hachage sur 64 bits.
    */
   @Override
-  public synchronized int hashCode()
+  public synchronized long getZobristKey()
   {
-    if (_hashCode == null)
+    if (_zobristKey == null)
     {
-      int h = zobristRoot();
+      long h = zobristRoot();
       for (int x = FILE_COUNT; --x >= 0; /* Pré-décrémenté */)
       {
         for (int y = RANK_COUNT; --y >= 0; /* Pré-décrémenté */)
@@ -956,12 +956,23 @@ final class ArrayBoard extends AbstractMoveGenerator
           }
         }
       }
-      assert h == super.hashCode();
+      assert h == super.getZobristKey();
 
-      _hashCode = Integer.valueOf(h);
+      _zobristKey = Long.valueOf(h);
     }
 
-    return _hashCode.intValue();
+    return _zobristKey.longValue();
+  }
+
+  /**
+   * Surcharge du calcul des clés de hachage, pour optimisation.
+   * 
+   * @return Clé de hachage.
+   */
+  @Override
+  public int hashCode()
+  {
+    return (int) getZobristKey();
   }
 
   /**
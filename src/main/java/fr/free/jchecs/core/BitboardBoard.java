@@ -0,0 +1,1907 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KING;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_BISHOP;
+import static fr.free.jchecs.core.Piece.WHITE_KING;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+import static fr.free.jchecs.core.PieceType.KING;
+import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.QUEEN;
+import static fr.free.jchecs.core.PieceType.ROOK;
+
+import java.util.Random;
+
+/**
+ * Représentation d'un état de la partie basée sur des cartes binaires de 64 bits (BitBoards).
+ * <p>
+ * Chaque type de pièce dispose de sa carte d'occupation. Les attaques des pièces à déplacement
+ * fixe sont précalculées pour chaque case, celles des pièces glissantes (tour, fou, dame) sont
+ * obtenues par des tables "magiques" indexées par l'occupation des cases pertinentes. La validité
+ * des mouvements est testée directement sur les cartes, sans dériver de nouvel état.
+ * </p>
+ * <p>
+ * Les instances obtenues par {@link BoardFactory#newSearchBoard(Board)} sont aussi modifiables sur
+ * place ({@link SearchBoard}), à l'aide d'une pile d'annulation allouée au premier mouvement joué.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class BitboardBoard extends AbstractMoveGenerator implements SearchBoard
+{
+  /** Identifiant de la classe pour la sérialisation. */
+  private static final long serialVersionUID = 3905436270982117462L;
+
+  /** Nombre de cases de l'échiquier. */
+  private static final int SQUARE_COUNT = FILE_COUNT * RANK_COUNT;
+
+  /** Carte de la première ligne. */
+  private static final long RANK_1 = 0xFFL;
+
+  /** Carte de la dernière ligne. */
+  private static final long RANK_8 = 0xFFL << (SQUARE_COUNT - FILE_COUNT);
+
+  /** Liste de cases cibles vides. */
+  private static final Square [] NO_SQUARE = new Square [ 0 ];
+
+  /** Valeur du roi dans les échanges (il ne peut pas être repris). */
+  private static final int KING_EXCHANGE_VALUE = 100 * QUEEN.getValue();
+
+  /** Pièces blanches, de la moins forte à la plus forte, pour les reprises d'un échange. */
+  private static final Piece [] WHITE_EXCHANGE_ORDER =
+      { WHITE_PAWN, WHITE_KNIGHT, WHITE_BISHOP, WHITE_ROOK, WHITE_QUEEN, WHITE_KING, };
+
+  /** Pièces noires, de la moins forte à la plus forte, pour les reprises d'un échange. */
+  private static final Piece [] BLACK_EXCHANGE_ORDER =
+      { BLACK_PAWN, BLACK_KNIGHT, BLACK_BISHOP, BLACK_ROOK, BLACK_QUEEN, BLACK_KING, };
+
+  /** Nombre maximum de prises dans un échange (toutes les pièces sauf les deux rois). */
+  private static final int MAX_EXCHANGES = 32;
+
+  /** Tampon des gains successifs d'un échange, propre à chaque fil d'exécution. */
+  private static final ThreadLocal<int []> EXCHANGE_BUFFER = new ThreadLocal<int []>()
+  {
+    @Override
+    protected int [] initialValue()
+    {
+      return new int [ MAX_EXCHANGES ];
+    }
+  };
+
+  /** Directions (colonne, ligne) des déplacements d'une tour. */
+  private static final int [][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+
+  /** Directions (colonne, ligne) des déplacements d'un fou. */
+  private static final int [][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+  /** Attaques d'un cavalier, par case. */
+  private static final long [] KNIGHT_ATTACKS = new long [ SQUARE_COUNT ];
+
+  /** Attaques d'un roi, par case. */
+  private static final long [] KING_ATTACKS = new long [ SQUARE_COUNT ];
+
+  /** Prises d'un pion blanc, par case. */
+  private static final long [] WHITE_PAWN_ATTACKS = new long [ SQUARE_COUNT ];
+
+  /** Prises d'un pion noir, par case. */
+  private static final long [] BLACK_PAWN_ATTACKS = new long [ SQUARE_COUNT ];
+
+  /** Masques des cases pertinentes pour les attaques d'une tour. */
+  private static final long [] ROOK_MASKS = new long [ SQUARE_COUNT ];
+
+  /** Multiplicateurs "magiques" des attaques d'une tour. */
+  private static final long [] ROOK_MAGICS = new long [ SQUARE_COUNT ];
+
+  /** Décalages appliqués au produit "magique" des attaques d'une tour. */
+  private static final int [] ROOK_SHIFTS = new int [ SQUARE_COUNT ];
+
+  /** Tables des attaques d'une tour, par case puis par indice "magique". */
+  private static final long [][] ROOK_ATTACKS = new long [ SQUARE_COUNT ] [];
+
+  /** Masques des cases pertinentes pour les attaques d'un fou. */
+  private static final long [] BISHOP_MASKS = new long [ SQUARE_COUNT ];
+
+  /** Multiplicateurs "magiques" des attaques d'un fou. */
+  private static final long [] BISHOP_MAGICS = new long [ SQUARE_COUNT ];
+
+  /** Décalages appliqués au produit "magique" des attaques d'un fou. */
+  private static final int [] BISHOP_SHIFTS = new int [ SQUARE_COUNT ];
+
+  /** Tables des attaques d'un fou, par case puis par indice "magique". */
+  private static final long [][] BISHOP_ATTACKS = new long [ SQUARE_COUNT ] [];
+
+  static
+  {
+    final int [][] cavalier =
+        { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+    final int [][] roi =
+        { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+    for (int i = SQUARE_COUNT; --i >= 0; /* Pré-décrémenté */)
+    {
+      final int x = i % FILE_COUNT;
+      final int y = i / FILE_COUNT;
+      KNIGHT_ATTACKS[i] = steps(x, y, cavalier);
+      KING_ATTACKS[i] = steps(x, y, roi);
+      if (y < RANK_COUNT - 1)
+      {
+        WHITE_PAWN_ATTACKS[i] = steps(x, y, new int [][] { { -1, 1 }, { 1, 1 } });
+      }
+      if (y > 0)
+      {
+        BLACK_PAWN_ATTACKS[i] = steps(x, y, new int [][] { { -1, -1 }, { 1, -1 } });
+      }
+    }
+
+    // Graine fixe : les multiplicateurs trouvés, et donc les tables, sont reproductibles.
+    final Random rnd = new Random(1070372L);
+    for (int i = SQUARE_COUNT; --i >= 0; /* Pré-décrémenté */)
+    {
+      initMagic(i, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS, rnd);
+      initMagic(i, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS,
+          rnd);
+    }
+  }
+
+  /** Cartes d'occupation, indexées par le rang de la pièce dans l'énumération. */
+  private final long [] _bitboards = new long [ Piece.values().length ];
+
+  /** Description du plateau, pour l'accès direct au contenu d'une case. */
+  private final Piece [] _pieces = new Piece [ SQUARE_COUNT ];
+
+  /** Carte des cases occupées par les blancs. */
+  private long _whites;
+
+  /** Carte des cases occupées par les noirs. */
+  private long _blacks;
+
+  /** Clé de hachage. */
+  private long _zobristKey;
+
+  /** Clé de hachage limitée aux pions. */
+  private long _pawnKey;
+
+  /** Clé de hachage "Polyglot", hors prise "en passant" (calculée à la demande). */
+  private long _polyglotKey;
+
+  /** Sommes des bonus/malus de position, indexées par le rang de la pièce dans l'énumération. */
+  private final int [] _positions = new int [ Piece.values().length ];
+
+  /** Sommes des bonus/malus de position en fin de partie, indexées comme {@link #_positions}. */
+  private final int [] _endPositions = new int [ Piece.values().length ];
+
+  /** Pile d'annulation : identifiants des mouvements joués (peut être à null). */
+  private transient int [] _undoMoves;
+
+  /** Pile d'annulation : pièces prises. */
+  private transient Piece [] _undoCaptured;
+
+  /** Pile d'annulation : cases cibles de prise "en passant". */
+  private transient Square [] _undoEnPassant;
+
+  /** Pile d'annulation : clés de hachage. */
+  private transient long [] _undoKeys;
+
+  /** Pile d'annulation : clés de hachage "Polyglot". */
+  private transient long [] _undoPolyglotKeys;
+
+  /** Pile d'annulation : droits de roquer, roques effectués et compteur de demi-coups. */
+  private transient int [] _undoStates;
+
+  /** Nombre de mouvements dans la pile d'annulation. */
+  private transient int _undoCount;
+
+  /**
+   * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
+   * 
+   * @param pEtat Instance initial.
+   */
+  BitboardBoard(final Board pEtat)
+  {
+    super(pEtat);
+
+    for (final Square s : Square.values())
+    {
+      final Piece p = pEtat.getPieceAt(s);
+      if (p != null)
+      {
+        final int idx = s.getIndex();
+        final long bit = 1L << idx;
+        _pieces[idx] = p;
+        _bitboards[p.ordinal()] |= bit;
+        if (p.isWhite())
+        {
+          _whites |= bit;
+        }
+        else
+        {
+          _blacks |= bit;
+        }
+        _positions[p.ordinal()] += PieceSquareTables.valueOf(p, idx, false);
+        _endPositions[p.ordinal()] += PieceSquareTables.valueOf(p, idx, true);
+      }
+    }
+    _zobristKey = super.getZobristKey();
+    _pawnKey = super.getPawnZobristKey();
+    _polyglotKey = super.getPolyglotKey() ^ polyglotEnPassant();
+  }
+
+  /**
+   * Crée une nouvelle instance, copie conforme de l'instance reçue.
+   * 
+   * @param pEtat Instance à copier.
+   */
+  private BitboardBoard(final BitboardBoard pEtat)
+  {
+    super(pEtat);
+
+    System.arraycopy(pEtat._bitboards, 0, _bitboards, 0, _bitboards.length);
+    System.arraycopy(pEtat._pieces, 0, _pieces, 0, SQUARE_COUNT);
+    _whites = pEtat._whites;
+    _blacks = pEtat._blacks;
+    _zobristKey = pEtat._zobristKey;
+    _pawnKey = pEtat._pawnKey;
+    _polyglotKey = pEtat._polyglotKey;
+    System.arraycopy(pEtat._positions, 0, _positions, 0, _positions.length);
+    System.arraycopy(pEtat._endPositions, 0, _endPositions, 0, _endPositions.length);
+  }
+
+  /**
+   * Calcule la carte des cases atteintes en un pas depuis une case, suivant une liste de
+   * déplacements.
+   * 
+   * @param pColonne Colonne de la case d'origine.
+   * @param pLigne Ligne de la case d'origine.
+   * @param pPas Liste des déplacements (colonne, ligne).
+   * @return Carte des cases atteintes.
+   */
+  private static long steps(final int pColonne, final int pLigne, final int [][] pPas)
+  {
+    long res = 0;
+    for (final int [] d : pPas)
+    {
+      final int x = pColonne + d[0];
+      final int y = pLigne + d[1];
+      if ((x >= 0) && (x < FILE_COUNT) && (y >= 0) && (y < RANK_COUNT))
+      {
+        res |= 1L << (x + y * FILE_COUNT);
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Calcule, par parcours des rayons, les attaques d'une pièce glissante pour une occupation.
+   * 
+   * @param pCase Indice de la case d'origine.
+   * @param pOccupation Carte des cases occupées.
+   * @param pDirections Directions de déplacement de la pièce.
+   * @return Carte des cases attaquées (y compris la première case occupée de chaque rayon).
+   */
+  private static long slide(final int pCase, final long pOccupation, final int [][] pDirections)
+  {
+    long res = 0;
+    for (final int [] d : pDirections)
+    {
+      int x = pCase % FILE_COUNT + d[0];
+      int y = pCase / FILE_COUNT + d[1];
+      while ((x >= 0) && (x < FILE_COUNT) && (y >= 0) && (y < RANK_COUNT))
+      {
+        final long bit = 1L << (x + y * FILE_COUNT);
+        res |= bit;
+        if ((pOccupation & bit) != 0)
+        {
+          break;
+        }
+        x += d[0];
+        y += d[1];
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Calcule le masque, recherche un multiplicateur "magique" et remplit la table des attaques d'une
+   * pièce glissante pour une case.
+   * 
+   * @param pCase Indice de la case.
+   * @param pDirections Directions de déplacement de la pièce.
+   * @param pMasques Masques à alimenter.
+   * @param pMagiques Multiplicateurs à alimenter.
+   * @param pDecalages Décalages à alimenter.
+   * @param pAttaques Tables d'attaques à alimenter.
+   * @param pAleatoire Générateur de nombres aléatoires.
+   */
+  private static void initMagic(final int pCase, final int [][] pDirections,
+      final long [] pMasques, final long [] pMagiques, final int [] pDecalages,
+      final long [][] pAttaques, final Random pAleatoire)
+  {
+    // Les cases du bord ne bloquent rien au-delà d'elles-mêmes : elles sont exclues du masque.
+    long masque = 0;
+    for (final int [] d : pDirections)
+    {
+      int x = pCase % FILE_COUNT + d[0];
+      int y = pCase / FILE_COUNT + d[1];
+      while ((x + d[0] >= 0) && (x + d[0] < FILE_COUNT) && (y + d[1] >= 0)
+          && (y + d[1] < RANK_COUNT))
+      {
+        masque |= 1L << (x + y * FILE_COUNT);
+        x += d[0];
+        y += d[1];
+      }
+    }
+
+    final int bits = Long.bitCount(masque);
+    final int nb = 1 << bits;
+    final long [] occupations = new long [ nb ];
+    final long [] references = new long [ nb ];
+    long sousEnsemble = 0;
+    int n = 0;
+    do
+    {
+      occupations[n] = sousEnsemble;
+      references[n++] = slide(pCase, sousEnsemble, pDirections);
+      sousEnsemble = (sousEnsemble - masque) & masque;
+    }
+    while (sousEnsemble != 0);
+
+    final long [] table = new long [ nb ];
+    final int [] essais = new int [ nb ];
+    int essai = 0;
+    long magique;
+    boolean trouve;
+    do
+    {
+      magique = pAleatoire.nextLong() & pAleatoire.nextLong() & pAleatoire.nextLong();
+      trouve = Long.bitCount((masque * magique) & 0xFF00000000000000L) >= 6;
+      essai++;
+      for (int i = 0; trouve && (i < nb); i++)
+      {
+        final int idx = (int) ((occupations[i] * magique) >>> (64 - bits));
+        if (essais[idx] != essai)
+        {
+          essais[idx] = essai;
+          table[idx] = references[i];
+        }
+        else if (table[idx] != references[i])
+        {
+          trouve = false;
+        }
+      }
+    }
+    while (!trouve);
+
+    pMasques[pCase] = masque;
+    pMagiques[pCase] = magique;
+    pDecalages[pCase] = 64 - bits;
+    pAttaques[pCase] = table;
+  }
+
+  /**
+   * Renvoi la carte des attaques d'un fou.
+   * 
+   * @param pCase Indice de la case d'origine.
+   * @param pOccupation Carte des cases occupées.
+   * @return Carte des cases attaquées (y compris les pièces bloquantes, de toutes couleurs).
+   */
+  private static long bishopAttacks(final int pCase, final long pOccupation)
+  {
+    final long produit = (pOccupation & BISHOP_MASKS[pCase]) * BISHOP_MAGICS[pCase];
+    return BISHOP_ATTACKS[pCase][(int) (produit >>> BISHOP_SHIFTS[pCase])];
+  }
+
+  /**
+   * Renvoi la carte des attaques d'une tour.
+   * 
+   * @param pCase Indice de la case d'origine.
+   * @param pOccupation Carte des cases occupées.
+   * @return Carte des cases attaquées (y compris les pièces bloquantes, de toutes couleurs).
+   */
+  private static long rookAttacks(final int pCase, final long pOccupation)
+  {
+    final long produit = (pOccupation & ROOK_MASKS[pCase]) * ROOK_MAGICS[pCase];
+    return ROOK_ATTACKS[pCase][(int) (produit >>> ROOK_SHIFTS[pCase])];
+  }
+
+  /**
+   * Convertit une carte de cases en liste de cases.
+   * 
+   * @param pCarte Carte des cases.
+   * @return Liste des cases correspondantes.
+   */
+  private static Square [] toSquares(final long pCarte)
+  {
+    if (pCarte == 0)
+    {
+      return NO_SQUARE;
+    }
+
+    final Square [] res = new Square [ Long.bitCount(pCarte) ];
+    long reste = pCarte;
+    int n = 0;
+    while (reste != 0)
+    {
+      res[n++] = Square.valueOf(Long.numberOfTrailingZeros(reste));
+      reste &= reste - 1;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la carte des cibles de tous les mouvements possibles (y compris ceux mettant le roi en
+   * échec) pour la pièce contenue par une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Carte des cases cibles (vide si la case est vide).
+   */
+  private long allTargets(final int pOrigine)
+  {
+    assert (pOrigine >= 0) && (pOrigine < SQUARE_COUNT);
+
+    final Piece piece = _pieces[pOrigine];
+    if (piece == null)
+    {
+      return 0;
+    }
+
+    final boolean trait = piece.isWhite();
+    switch (piece.getType())
+    {
+      case BISHOP :
+        return bishopTargets(pOrigine, trait);
+      case KING :
+        return kingTargets(pOrigine, trait);
+      case KNIGHT :
+        return knightTargets(pOrigine, trait);
+      case PAWN :
+        return pawnTargets(pOrigine, trait);
+      case QUEEN :
+        return bishopTargets(pOrigine, trait) | rookTargets(pOrigine, trait);
+      case ROOK :
+        return rookTargets(pOrigine, trait);
+      default :
+        assert false;
+        return 0;
+    }
+  }
+
+  /**
+   * Renvoi la carte des cases cibles d'un mouvement de type "fou".
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cases cibles (y compris celles conduisant à un échec).
+   */
+  private long bishopTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return bishopAttacks(pOrigine, _whites | _blacks) & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Renvoi la carte des cases cibles d'un mouvement de type "roi", roques compris.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cases cibles (y compris celles conduisant à un échec).
+   */
+  private long kingTargets(final int pOrigine, final boolean pBlanc)
+  {
+    long res = KING_ATTACKS[pOrigine] & ~(pBlanc ? _whites : _blacks);
+    if ((res != 0) && (pOrigine % FILE_COUNT == 4))
+    {
+      final Piece tour = pBlanc ? WHITE_ROOK : BLACK_ROOK;
+      if (canCastleShort(pBlanc) && (_pieces[pOrigine + 1] == null)
+          && (_pieces[pOrigine + 2] == null) && (_pieces[pOrigine + 3] == tour))
+      {
+        res |= 1L << (pOrigine + 2);
+      }
+      if (canCastleLong(pBlanc) && (_pieces[pOrigine - 1] == null)
+          && (_pieces[pOrigine - 2] == null) && (_pieces[pOrigine - 3] == null)
+          && (_pieces[pOrigine - 4] == tour))
+      {
+        res |= 1L << (pOrigine - 2);
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la carte des cases cibles d'un mouvement de type "cavalier".
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cases cibles (y compris celles conduisant à un échec).
+   */
+  private long knightTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return KNIGHT_ATTACKS[pOrigine] & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Renvoi la carte des cases cibles d'un mouvement de type "pion", prise en passant comprise.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cases cibles (y compris celles conduisant à un échec).
+   */
+  private long pawnTargets(final int pOrigine, final boolean pBlanc)
+  {
+    final long occupation = _whites | _blacks;
+    final Square ep = getEnPassant();
+    final long bitEP;
+    if (ep == null)
+    {
+      bitEP = 0;
+    }
+    else
+    {
+      bitEP = 1L << ep.getIndex();
+    }
+
+    final int ySrc = pOrigine / FILE_COUNT;
+    long res = 0;
+    if (pBlanc)
+    {
+      if (ySrc < RANK_COUNT - 1)
+      {
+        final long un = 1L << (pOrigine + FILE_COUNT);
+        if ((occupation & un) == 0)
+        {
+          res |= un;
+          final long deux = un << FILE_COUNT;
+          if ((ySrc == 1) && ((occupation & deux) == 0))
+          {
+            res |= deux;
+          }
+        }
+        res |= WHITE_PAWN_ATTACKS[pOrigine] & (_blacks | bitEP);
+      }
+    }
+    else
+    {
+      if (ySrc > 0)
+      {
+        final long un = 1L << (pOrigine - FILE_COUNT);
+        if ((occupation & un) == 0)
+        {
+          res |= un;
+          final long deux = un >>> FILE_COUNT;
+          if ((ySrc == RANK_COUNT - 2) && ((occupation & deux) == 0))
+          {
+            res |= deux;
+          }
+        }
+        res |= BLACK_PAWN_ATTACKS[pOrigine] & (_whites | bitEP);
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la carte des cases cibles d'un mouvement de type "tour".
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cases cibles (y compris celles conduisant à un échec).
+   */
+  private long rookTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return rookAttacks(pOrigine, _whites | _blacks) & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Indique si une case est attaquée par une couleur, pour une occupation donnée.
+   * 
+   * @param pCible Indice de la case cible.
+   * @param pOccupation Carte des cases occupées.
+   * @param pAttaquants Carte des cases dont les pièces peuvent participer à l'attaque.
+   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
+   * @return Vrai si la case est attaquée.
+   */
+  private boolean isAttacked(final int pCible, final long pOccupation, final long pAttaquants,
+      final boolean pCouleur)
+  {
+    final long [] bb = _bitboards;
+    final long dames;
+    if (pCouleur)
+    {
+      dames = bb[WHITE_QUEEN.ordinal()];
+      if ((((KNIGHT_ATTACKS[pCible] & bb[WHITE_KNIGHT.ordinal()])
+          | (KING_ATTACKS[pCible] & bb[WHITE_KING.ordinal()])
+          | (BLACK_PAWN_ATTACKS[pCible] & bb[WHITE_PAWN.ordinal()] & ~RANK_1)) & pAttaquants) != 0)
+      {
+        return true;
+      }
+      if ((bishopAttacks(pCible, pOccupation) & (bb[WHITE_BISHOP.ordinal()] | dames)
+          & pAttaquants) != 0)
+      {
+        return true;
+      }
+      return (rookAttacks(pCible, pOccupation) & (bb[WHITE_ROOK.ordinal()] | dames)
+          & pAttaquants) != 0;
+    }
+
+    dames = bb[BLACK_QUEEN.ordinal()];
+    if ((((KNIGHT_ATTACKS[pCible] & bb[BLACK_KNIGHT.ordinal()])
+        | (KING_ATTACKS[pCible] & bb[BLACK_KING.ordinal()])
+        | (WHITE_PAWN_ATTACKS[pCible] & bb[BLACK_PAWN.ordinal()] & ~RANK_8)) & pAttaquants) != 0)
+    {
+      return true;
+    }
+    if ((bishopAttacks(pCible, pOccupation) & (bb[BLACK_BISHOP.ordinal()] | dames)
+        & pAttaquants) != 0)
+    {
+      return true;
+    }
+    return (rookAttacks(pCible, pOccupation) & (bb[BLACK_ROOK.ordinal()] | dames)
+        & pAttaquants) != 0;
+  }
+
+  /**
+   * Indique si un mouvement laisserait le roi de la pièce déplacée en échec, sans dériver d'état.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pDestination Indice de la case cible du mouvement.
+   * @param pPiece Pièce déplacée.
+   * @return Vrai si le roi serait en échec après le mouvement.
+   */
+  private boolean leavesInCheck(final int pOrigine, final int pDestination, final Piece pPiece)
+  {
+    final boolean trait = pPiece.isWhite();
+    final long bitSrc = 1L << pOrigine;
+    final long bitDst = 1L << pDestination;
+    long occupation = ((_whites | _blacks) & ~bitSrc) | bitDst;
+    long adversaires = (trait ? _blacks : _whites) & ~bitDst;
+    final int roi;
+    final PieceType type = pPiece.getType();
+    if (type == KING)
+    {
+      roi = pDestination;
+      if (pOrigine % FILE_COUNT == 4)
+      {
+        // Le roque déplace aussi la tour...
+        final int delta = pDestination - pOrigine;
+        if (delta == 2)
+        {
+          occupation ^= (1L << (pOrigine + 3)) | (1L << (pOrigine + 1));
+        }
+        else if (delta == -2)
+        {
+          occupation ^= (1L << (pOrigine - 4)) | (1L << (pOrigine - 1));
+        }
+      }
+    }
+    else
+    {
+      roi = getKingSquare(trait).getIndex();
+      if ((type == PAWN) && (Square.valueOf(pDestination) == getEnPassant()))
+      {
+        final long prise;
+        if (trait)
+        {
+          prise = bitDst >>> FILE_COUNT;
+        }
+        else
+        {
+          prise = bitDst << FILE_COUNT;
+        }
+        occupation &= ~prise;
+        adversaires &= ~prise;
+      }
+    }
+
+    return isAttacked(roi, occupation, adversaires, !trait);
+  }
+
+  /**
+   * Renvoi la carte des cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Carte des cases cibles.
+   */
+  private long validTargets(final int pOrigine)
+  {
+    return validTargets(pOrigine, -1L);
+  }
+
+  /**
+   * Renvoi la carte des cibles des mouvements valides à partir d'une case, restreinte à un masque
+   * (la validité n'est vérifiée que pour les cases du masque).
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pMasque Carte des cases cibles admises.
+   * @return Carte des cases cibles.
+   */
+  private long validTargets(final int pOrigine, final long pMasque)
+  {
+    final Piece piece = _pieces[pOrigine];
+    if (piece == null)
+    {
+      return 0;
+    }
+
+    long res = allTargets(pOrigine) & pMasque;
+    long reste = res;
+    final boolean roque = (piece.getType() == KING) && (pOrigine % FILE_COUNT == 4);
+    while (reste != 0)
+    {
+      final int dst = Long.numberOfTrailingZeros(reste);
+      final long bit = reste & -reste;
+      reste ^= bit;
+      if (leavesInCheck(pOrigine, dst, piece))
+      {
+        res ^= bit;
+      }
+      else if (roque)
+      {
+        final int delta = dst - pOrigine;
+        if ((delta == 2) || (delta == -2))
+        {
+          // Elimine le roque si le roi est en échec ou s'il le serait sur la case
+          // intermédiaire...
+          if (isInCheck(piece.isWhite()) || leavesInCheck(pOrigine, pOrigine + delta / 2, piece))
+          {
+            res ^= bit;
+          }
+        }
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Retire la pièce d'une case, en mettant à jour les cartes, la clé de hachage et les bonus de
+   * position.
+   * 
+   * @param pCase Indice de la case.
+   */
+  private void clear(final int pCase)
+  {
+    final Piece p = _pieces[pCase];
+    if (p != null)
+    {
+      final long masque = ~(1L << pCase);
+      _pieces[pCase] = null;
+      _bitboards[p.ordinal()] &= masque;
+      _whites &= masque;
+      _blacks &= masque;
+      _zobristKey ^= ZOBRIST_PIECE_POSITION[p.ordinal()][pCase];
+      _polyglotKey ^= POLYGLOT_PIECE_POSITION[p.ordinal()][pCase];
+      if (p.getType() == PAWN)
+      {
+        _pawnKey ^= ZOBRIST_PIECE_POSITION[p.ordinal()][pCase];
+      }
+      _positions[p.ordinal()] -= PieceSquareTables.valueOf(p, pCase, false);
+      _endPositions[p.ordinal()] -= PieceSquareTables.valueOf(p, pCase, true);
+    }
+  }
+
+  /**
+   * Pose une pièce sur une case vide, en mettant à jour les cartes, la clé de hachage et les bonus
+   * de position.
+   * 
+   * @param pPiece Pièce à poser.
+   * @param pCase Indice de la case.
+   */
+  private void put(final Piece pPiece, final int pCase)
+  {
+    assert _pieces[pCase] == null;
+
+    final long bit = 1L << pCase;
+    _pieces[pCase] = pPiece;
+    _bitboards[pPiece.ordinal()] |= bit;
+    if (pPiece.isWhite())
+    {
+      _whites |= bit;
+    }
+    else
+    {
+      _blacks |= bit;
+    }
+    _zobristKey ^= ZOBRIST_PIECE_POSITION[pPiece.ordinal()][pCase];
+    _polyglotKey ^= POLYGLOT_PIECE_POSITION[pPiece.ordinal()][pCase];
+    if (pPiece.getType() == PAWN)
+    {
+      _pawnKey ^= ZOBRIST_PIECE_POSITION[pPiece.ordinal()][pCase];
+    }
+    _positions[pPiece.ordinal()] += PieceSquareTables.valueOf(pPiece, pCase, false);
+    _endPositions[pPiece.ordinal()] += PieceSquareTables.valueOf(pPiece, pCase, true);
+  }
+
+  /**
+   * Renvoi une nouvelle instance, initialisée à partir d'un état quelconque.
+   * 
+   * @param pEtat Etat de départ.
+   * @return Copie de l'état.
+   */
+  public MoveGenerator derive(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    return new BitboardBoard(pEtat);
+  }
+
+  /**
+   * Renvoi une nouvelle instance décrivant l'état du jeu après application d'un mouvement.
+   * 
+   * @param pMouvement Description de mouvement.
+   * @param pSuivant Drapeau positionné si l'on souhaite que le trait soit modifié.
+   * @return Instance dérivée.
+   */
+  public MoveGenerator derive(final Move pMouvement, final boolean pSuivant)
+  {
+    assert pMouvement != null;
+
+    final BitboardBoard res = new BitboardBoard(this);
+    res.play(pMouvement.toId(), pSuivant);
+
+    return res;
+  }
+
+  /**
+   * Joue un mouvement sur place (le trait est modifié), en mémorisant de quoi l'annuler.
+   * 
+   * @param pMouvement Description d'un mouvement valide.
+   */
+  public void makeMove(final Move pMouvement)
+  {
+    assert pMouvement != null;
+
+    makeMove(pMouvement.toId());
+  }
+
+  /**
+   * Joue sur place un mouvement identifié par un entier (voir {@link Move#toId()}), en mémorisant de
+   * quoi l'annuler.
+   * 
+   * @param pMouvement Entier identifiant un mouvement valide.
+   */
+  public void makeMove(final int pMouvement)
+  {
+    if (_undoMoves == null)
+    {
+      allocateUndo(64);
+    }
+    else if (_undoCount >= _undoMoves.length)
+    {
+      allocateUndo(_undoCount * 2);
+    }
+
+    final Piece piece = Move.getPiece(pMouvement);
+    final Square ep = getEnPassant();
+    final int iDst = Move.getToIndex(pMouvement);
+    final Piece prise;
+    if ((piece.getType() != PAWN) || (ep == null) || (iDst != ep.getIndex()))
+    {
+      prise = _pieces[iDst];
+    }
+    else if (piece.isWhite())
+    {
+      prise = _pieces[iDst - FILE_COUNT];
+    }
+    else
+    {
+      prise = _pieces[iDst + FILE_COUNT];
+    }
+
+    int etat = getHalfmoveCount() << 6;
+    if (canCastleShort(true))
+    {
+      etat |= 1;
+    }
+    if (canCastleLong(true))
+    {
+      etat |= 2;
+    }
+    if (canCastleShort(false))
+    {
+      etat |= 4;
+    }
+    if (canCastleLong(false))
+    {
+      etat |= 8;
+    }
+    if (isCastled(true))
+    {
+      etat |= 16;
+    }
+    if (isCastled(false))
+    {
+      etat |= 32;
+    }
+
+    final int n = _undoCount++;
+    _undoMoves[n] = pMouvement;
+    _undoCaptured[n] = prise;
+    _undoEnPassant[n] = ep;
+    _undoKeys[n] = _zobristKey;
+    _undoPolyglotKeys[n] = _polyglotKey;
+    _undoStates[n] = etat;
+
+    play(pMouvement, true);
+  }
+
+  /**
+   * Passe le trait à l'adversaire sans jouer de mouvement, en mémorisant de quoi l'annuler.
+   */
+  public void makeNullMove()
+  {
+    assert !isInCheck(isWhiteActive());
+
+    if (_undoMoves == null)
+    {
+      allocateUndo(64);
+    }
+    else if (_undoCount >= _undoMoves.length)
+    {
+      allocateUndo(_undoCount * 2);
+    }
+
+    final Square ep = getEnPassant();
+    final int n = _undoCount++;
+    _undoMoves[n] = 0;
+    _undoCaptured[n] = null;
+    _undoEnPassant[n] = ep;
+    _undoKeys[n] = _zobristKey;
+    _undoPolyglotKeys[n] = _polyglotKey;
+    _undoStates[n] = getHalfmoveCount() << 6;
+
+    if (ep != null)
+    {
+      setEnPassant(null);
+      _zobristKey ^= ZOBRIST_EN_PASSANT[ep.getFile()];
+    }
+    final boolean t = !isWhiteActive();
+    setWhiteActive(t);
+    _zobristKey ^= ZOBRIST_WHITE_ACTIVE;
+    _polyglotKey ^= POLYGLOT_WHITE_ACTIVE;
+    if (t)
+    {
+      setFullmoveNumber(getFullmoveNumber() + 1);
+    }
+    setHalfmoveCount(getHalfmoveCount() + 1);
+  }
+
+  /**
+   * Annule le dernier mouvement joué par {@link #makeMove(Move)}, {@link #makeMove(int)} ou
+   * {@link #makeNullMove()}.
+   */
+  public void unmakeMove()
+  {
+    assert _undoCount > 0;
+
+    final int n = --_undoCount;
+    final int mvt = _undoMoves[n];
+    final Piece prise = _undoCaptured[n];
+    final Square ep = _undoEnPassant[n];
+    final int etat = _undoStates[n];
+    _undoCaptured[n] = null;
+    _undoEnPassant[n] = null;
+
+    if (mvt == 0)
+    {
+      // Coup nul : seules les données de la partie sont à restaurer.
+      if (isWhiteActive())
+      {
+        setFullmoveNumber(getFullmoveNumber() - 1);
+      }
+      setWhiteActive(!isWhiteActive());
+      setEnPassant(ep);
+      setHalfmoveCount(etat >>> 6);
+      _zobristKey = _undoKeys[n];
+      _polyglotKey = _undoPolyglotKeys[n];
+      return;
+    }
+
+    // Replace la pièce jouée (en annulant une éventuelle promotion) et la pièce prise...
+    final Piece piece = Move.getPiece(mvt);
+    final boolean trait = piece.isWhite();
+    final int iSrc = Move.getFromIndex(mvt);
+    final int iDst = Move.getToIndex(mvt);
+    final Square src = Square.valueOf(iSrc);
+    final Square dst = Square.valueOf(iDst);
+    clear(iDst);
+    put(piece, iSrc);
+    if (prise != null)
+    {
+      if ((piece.getType() != PAWN) || (dst != ep))
+      {
+        put(prise, iDst);
+      }
+      else if (trait)
+      {
+        put(prise, iDst - FILE_COUNT);
+      }
+      else
+      {
+        put(prise, iDst + FILE_COUNT);
+      }
+    }
+    // ... ramène la tour d'un éventuel roque et restaure le suivi des rois...
+    if (piece.getType() == KING)
+    {
+      setKingSquare(trait, src);
+      if (src.getFile() == 4)
+      {
+        final int xDst = dst.getFile();
+        if (xDst == 2)
+        {
+          final int i = dst.getRank() * FILE_COUNT;
+          final Piece tour = _pieces[i + 3];
+          clear(i + 3);
+          put(tour, i);
+        }
+        else if (xDst == 6)
+        {
+          final int i = FILE_COUNT - 1 + dst.getRank() * FILE_COUNT;
+          final Piece tour = _pieces[i - 2];
+          clear(i - 2);
+          put(tour, i);
+        }
+      }
+    }
+
+    // ... et restaure les données de la partie.
+    if (!trait)
+    {
+      setFullmoveNumber(getFullmoveNumber() - 1);
+    }
+    setWhiteActive(trait);
+    setEnPassant(ep);
+    setHalfmoveCount(etat >>> 6);
+    setCastleShort(true, (etat & 1) != 0);
+    setCastleLong(true, (etat & 2) != 0);
+    setCastleShort(false, (etat & 4) != 0);
+    setCastleLong(false, (etat & 8) != 0);
+    setCastled(true, (etat & 16) != 0);
+    setCastled(false, (etat & 32) != 0);
+    _zobristKey = _undoKeys[n];
+    _polyglotKey = _undoPolyglotKeys[n];
+  }
+
+  /**
+   * Alloue (ou agrandit) la pile d'annulation.
+   * 
+   * @param pTaille Nombre de mouvements que doit pouvoir contenir la pile.
+   */
+  private void allocateUndo(final int pTaille)
+  {
+    final int [] mvts = new int [ pTaille ];
+    final Piece [] prises = new Piece [ pTaille ];
+    final Square [] eps = new Square [ pTaille ];
+    final long [] cles = new long [ pTaille ];
+    final long [] clesPolyglot = new long [ pTaille ];
+    final int [] etats = new int [ pTaille ];
+    if (_undoMoves != null)
+    {
+      System.arraycopy(_undoMoves, 0, mvts, 0, _undoCount);
+      System.arraycopy(_undoCaptured, 0, prises, 0, _undoCount);
+      System.arraycopy(_undoEnPassant, 0, eps, 0, _undoCount);
+      System.arraycopy(_undoKeys, 0, cles, 0, _undoCount);
+      System.arraycopy(_undoPolyglotKeys, 0, clesPolyglot, 0, _undoCount);
+      System.arraycopy(_undoStates, 0, etats, 0, _undoCount);
+    }
+    _undoMoves = mvts;
+    _undoCaptured = prises;
+    _undoEnPassant = eps;
+    _undoKeys = cles;
+    _undoPolyglotKeys = clesPolyglot;
+    _undoStates = etats;
+  }
+
+  /**
+   * Applique un mouvement sur place.
+   * 
+   * @param pMouvement Entier identifiant le mouvement.
+   * @param pSuivant Drapeau positionné si l'on souhaite que le trait soit modifié.
+   */
+  private void play(final int pMouvement, final boolean pSuivant)
+  {
+    // Ajuste les compteurs...
+    if (pSuivant)
+    {
+      final boolean t = !isWhiteActive();
+      setWhiteActive(t);
+      _zobristKey ^= ZOBRIST_WHITE_ACTIVE;
+      _polyglotKey ^= POLYGLOT_WHITE_ACTIVE;
+      if (t)
+      {
+        setFullmoveNumber(getFullmoveNumber() + 1);
+      }
+      if (Move.getCaptured(pMouvement) == null)
+      {
+        setHalfmoveCount(getHalfmoveCount() + 1);
+      }
+      else
+      {
+        setHalfmoveCount(0);
+      }
+    }
+    // Déplace la pièce...
+    final Piece piece = Move.getPiece(pMouvement);
+    final PieceType typePiece = piece.getType();
+    final boolean trait = piece.isWhite();
+    final int iSrc = Move.getFromIndex(pMouvement);
+    final Square src = Square.valueOf(iSrc);
+    final int xSrc = src.getFile();
+    assert _pieces[iSrc] == piece;
+    clear(iSrc);
+    final int iDst = Move.getToIndex(pMouvement);
+    final Square dst = Square.valueOf(iDst);
+    final int xDst = dst.getFile();
+    final int yDst = dst.getRank();
+    clear(iDst);
+    put(piece, iDst);
+    // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
+    if (typePiece == KING)
+    {
+      setKingSquare(trait, dst);
+      if (xSrc == 4)
+      {
+        if (xDst == 2)
+        {
+          // ... côté reine...
+          final int i = yDst * FILE_COUNT;
+          final Piece tour = _pieces[i];
+          assert tour != null;
+          assert tour.getType() == ROOK;
+          clear(i);
+          put(tour, i + 3);
+          setCastled(trait, true);
+        }
+        else if (xDst == 6)
+        {
+          // ... côté roi...
+          final int i = FILE_COUNT - 1 + yDst * FILE_COUNT;
+          final Piece tour = _pieces[i];
+          assert tour != null;
+          assert tour.getType() == ROOK;
+          clear(i);
+          put(tour, i - 2);
+          setCastled(trait, true);
+        }
+      }
+    }
+    // Tient compte des interdictions de roquer que le mouvement peut provoquer...
+    if (canCastleShort(trait))
+    {
+      if ((typePiece == KING) || ((typePiece == ROOK) && (xSrc == FILE_COUNT - 1)))
+      {
+        setCastleShort(trait, false);
+        if (trait)
+        {
+          _zobristKey ^= ZOBRIST_WHITE_CASTLE_SHORT;
+          _polyglotKey ^= POLYGLOT_WHITE_CASTLE_SHORT;
+        }
+        else
+        {
+          _zobristKey ^= ZOBRIST_BLACK_CASTLE_SHORT;
+          _polyglotKey ^= POLYGLOT_BLACK_CASTLE_SHORT;
+        }
+      }
+    }
+    if (canCastleLong(trait))
+    {
+      if ((typePiece == KING) || ((typePiece == ROOK) && (xSrc == 0)))
+      {
+        setCastleLong(trait, false);
+        if (trait)
+        {
+          _zobristKey ^= ZOBRIST_WHITE_CASTLE_LONG;
+          _polyglotKey ^= POLYGLOT_WHITE_CASTLE_LONG;
+        }
+        else
+        {
+          _zobristKey ^= ZOBRIST_BLACK_CASTLE_LONG;
+          _polyglotKey ^= POLYGLOT_BLACK_CASTLE_LONG;
+        }
+      }
+    }
+    // Détecte si une prise "en passant" doit être effectuée ou signalée et gère la promotion...
+    final Square epOrig = getEnPassant();
+    setEnPassant(null);
+    if (typePiece == PAWN)
+    {
+      final int ySrc = src.getRank();
+      // En profite pour aussi gérer le compteur de demis coups...
+      if (pSuivant)
+      {
+        setHalfmoveCount(0);
+      }
+      if (trait)
+      {
+        assert yDst > ySrc;
+        if (yDst == RANK_COUNT - 1)
+        {
+          clear(iDst);
+          put(WHITE_QUEEN, iDst);
+        }
+        else if ((ySrc == 1) && (yDst == 3))
+        {
+          setEnPassant(Square.valueOf(xDst, 2));
+        }
+        else if (dst == epOrig)
+        {
+          clear(iDst - FILE_COUNT);
+        }
+      }
+      else
+      {
+        assert yDst < ySrc;
+        if (yDst == 0)
+        {
+          clear(iDst);
+          put(BLACK_QUEEN, iDst);
+        }
+        else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
+        {
+          setEnPassant(Square.valueOf(xDst, RANK_COUNT - 3));
+        }
+        else if (dst == epOrig)
+        {
+          clear(iDst + FILE_COUNT);
+        }
+      }
+    }
+
+    final Square epFinal = getEnPassant();
+    if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
+    {
+      _zobristKey ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
+    }
+    if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
+    {
+      _zobristKey ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
+    }
+
+  }
+
+  /**
+   * Méthode spécialisée pour tester l'égalité entre deux descriptions de ce type.
+   * 
+   * @param pObjet Objet avec lequel comparer.
+   * @return Vrai si les deux objets sont égaux.
+   */
+  @Override
+  public boolean equals(final Object pObjet)
+  {
+    if (pObjet == this)
+    {
+      return true;
+    }
+
+    if (pObjet instanceof BitboardBoard)
+    {
+      if (hashCode() != pObjet.hashCode())
+      {
+        return false;
+      }
+
+      final BitboardBoard o = (BitboardBoard) pObjet;
+
+      for (int i = _bitboards.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        if (_bitboards[i] != o._bitboards[i])
+        {
+          return false;
+        }
+      }
+
+      return equalsInternal(o);
+    }
+
+    return super.equals(pObjet);
+  }
+
+  /**
+   * Renvoi toutes les cases cibles des mouvements possibles (y compris ceux mettant le roi en
+   * échec) pour la pièce contenue par une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getAllTargets(final Square pOrigine)
+  {
+    assert pOrigine != null;
+
+    return toSquares(allTargets(pOrigine.getIndex()));
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "fou" d'une certaine couleur (y
+   * compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getBishopTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(bishopTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type roi.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getKingTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(kingTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type cavalier.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getKnightTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(knightTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type pion.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getPawnTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(pawnTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi l'éventuelle pièce présente sur la case indiquée.
+   * 
+   * @param pCase Case à tester.
+   * @return Pièce présente sur la case (ou null si aucune).
+   */
+  public Piece getPieceAt(final Square pCase)
+  {
+    assert pCase != null;
+
+    return _pieces[pCase.getIndex()];
+  }
+
+  /**
+   * Renvoi l'éventuelle pièce présente sur la case dont les coordonnées sont indiquées.
+   * 
+   * @param pColonne Colonne de la case à tester (de 0 à 7).
+   * @param pLigne Ligne de la case à tester (de 0 à 7).
+   * @return Pièce présente sur la case (ou null).
+   */
+  public Piece getPieceAt(final int pColonne, final int pLigne)
+  {
+    assert (pColonne >= 0) && (pColonne < FILE_COUNT);
+    assert (pLigne >= 0) && (pLigne < RANK_COUNT);
+
+    return _pieces[pColonne + pLigne * FILE_COUNT];
+  }
+
+  /**
+   * Renvoi le dernier mouvement joué sur place.
+   * 
+   * @return Entier identifiant le dernier mouvement joué, ou 0 si aucun ou si c'est un coup nul.
+   */
+  public int getLastMove()
+  {
+    if (_undoCount == 0)
+    {
+      return 0;
+    }
+
+    return _undoMoves[_undoCount - 1];
+  }
+
+  /**
+   * Surcharge du calcul de la clé de hachage limitée aux pions, pour optimisation.
+   * 
+   * @return Clé de hachage des pions sur 64 bits (0 en l'absence de pion).
+   */
+  @Override
+  public long getPawnZobristKey()
+  {
+    assert _pawnKey == super.getPawnZobristKey();
+    return _pawnKey;
+  }
+
+  /**
+   * Surcharge du décompte des pièces d'un type donné, pour optimisation.
+   * 
+   * @param pPiece Type de pièce.
+   * @return Nombre de pièces (>= 0).
+   */
+  @Override
+  public int getPieceCount(final Piece pPiece)
+  {
+    assert pPiece != null;
+
+    return Long.bitCount(_bitboards[pPiece.ordinal()]);
+  }
+
+  /**
+   * Surcharge de la somme des bonus/malus de position, tenue à jour au fil des mouvements.
+   * 
+   * @param pPiece Type de pièce.
+   * @param pFinDePartie Positionné à "true" pour utiliser les tables de fin de partie.
+   * @return Somme des bonus/malus de position, du point de vue de la couleur de la pièce.
+   */
+  @Override
+  public int getPieceSquareScore(final Piece pPiece, final boolean pFinDePartie)
+  {
+    assert pPiece != null;
+
+    final int idx = pPiece.ordinal();
+    if (pFinDePartie)
+    {
+      assert _endPositions[idx] == super.getPieceSquareScore(pPiece, true);
+      return _endPositions[idx];
+    }
+
+    assert _positions[idx] == super.getPieceSquareScore(pPiece, false);
+    return _positions[idx];
+  }
+
+  /**
+   * Surcharge du calcul de la clé de hachage "Polyglot", tenue à jour au fil des mouvements.
+   * <p>
+   * Seule la part de la prise "en passant", qui dépend des pions adjacents, est calculée à la
+   * demande.
+   * </p>
+   * 
+   * @return Clé de hachage "Polyglot" sur 64 bits.
+   */
+  @Override
+  public long getPolyglotKey()
+  {
+    final long res = _polyglotKey ^ polyglotEnPassant();
+    assert res == super.getPolyglotKey();
+    return res;
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "dame" d'une certaine couleur
+   * (y compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getQueenTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    final int idx = pOrigine.getIndex();
+    return toSquares(bishopTargets(idx, pBlanc) | rookTargets(idx, pBlanc));
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "tour" d'une certaine couleur
+   * (y compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getRookTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(rookTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi tous les mouvements valides pour une couleur.
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @return Liste des mouvements valides.
+   */
+  public Move [] getValidMoves(final boolean pTrait)
+  {
+    Move [] tmp = new Move [ 45 ];
+    int nb = 0;
+    final Square ep = getEnPassant();
+    long pieces = pTrait ? _whites : _blacks;
+    while (pieces != 0)
+    {
+      final int i = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      final Piece p = _pieces[i];
+      final Square orig = Square.valueOf(i);
+      long cibles = validTargets(i);
+      while (cibles != 0)
+      {
+        final int iDst = Long.numberOfTrailingZeros(cibles);
+        cibles &= cibles - 1;
+        final Square dst = Square.valueOf(iDst);
+        final Piece prise;
+        if ((p.getType() != PAWN) || (dst != ep))
+        {
+          prise = _pieces[iDst];
+        }
+        else if (pTrait)
+        {
+          prise = _pieces[iDst - FILE_COUNT];
+        }
+        else
+        {
+          prise = _pieces[iDst + FILE_COUNT];
+        }
+        if (nb >= tmp.length)
+        {
+          final Move [] extension = new Move [ nb + 15 ];
+          System.arraycopy(tmp, 0, extension, 0, nb);
+          tmp = extension;
+        }
+        tmp[nb++] = new Move(p, orig, dst, prise);
+      }
+    }
+
+    final Move [] res = new Move [ nb ];
+    System.arraycopy(tmp, 0, res, 0, nb);
+
+    return res;
+  }
+
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) des seuls mouvements
+   * valides modifiant le matériel d'une couleur : prises (y compris "en passant") et promotions.
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @param pCoups Liste à alimenter à partir de son début (au moins 256 emplacements).
+   * @return Nombre de mouvements placés dans la liste.
+   */
+  public int getCaptureMoves(final boolean pTrait, final int [] pCoups)
+  {
+    assert pCoups != null;
+
+    int nb = 0;
+    final Square ep = getEnPassant();
+    final int iEp;
+    long ciblesPions;
+    if (pTrait)
+    {
+      ciblesPions = _blacks | RANK_8;
+    }
+    else
+    {
+      ciblesPions = _whites | RANK_1;
+    }
+    if (ep == null)
+    {
+      iEp = -1;
+    }
+    else
+    {
+      iEp = ep.getIndex();
+      ciblesPions |= 1L << iEp;
+    }
+    final long adversaires = pTrait ? _blacks : _whites;
+    long pieces = pTrait ? _whites : _blacks;
+    while (pieces != 0)
+    {
+      final int i = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      final Piece p = _pieces[i];
+      final boolean pion = p.getType() == PAWN;
+      long cibles = validTargets(i, pion ? ciblesPions : adversaires);
+      while (cibles != 0)
+      {
+        final int iDst = Long.numberOfTrailingZeros(cibles);
+        cibles &= cibles - 1;
+        final Piece prise;
+        if (!pion || (iDst != iEp))
+        {
+          prise = _pieces[iDst];
+        }
+        else if (pTrait)
+        {
+          prise = _pieces[iDst - FILE_COUNT];
+        }
+        else
+        {
+          prise = _pieces[iDst + FILE_COUNT];
+        }
+        pCoups[nb++] = Move.toId(p, i, iDst, prise);
+      }
+    }
+
+    return nb;
+  }
+
+  /**
+   * Renvoi le bilan matériel statique de la suite de prises sur la case cible d'un mouvement.
+   * 
+   * @param pMouvement Entier identifiant un mouvement valide (voir {@link Move#toId()}).
+   * @return Gain matériel estimé pour le camp jouant le mouvement.
+   */
+  public int getStaticExchange(final int pMouvement)
+  {
+    final Piece piece = Move.getPiece(pMouvement);
+    final Piece prise = Move.getCaptured(pMouvement);
+    final int iSrc = Move.getFromIndex(pMouvement);
+    final int iDst = Move.getToIndex(pMouvement);
+    assert _pieces[iSrc] == piece;
+
+    final int [] gains = EXCHANGE_BUFFER.get();
+    long occupation = (_whites | _blacks) & ~(1L << iSrc);
+    int valeur = exchangeValue(piece);
+    if (prise == null)
+    {
+      gains[0] = 0;
+    }
+    else
+    {
+      gains[0] = exchangeValue(prise);
+      if (_pieces[iDst] == null)
+      {
+        // Prise "en passant" : le pion pris n'est pas sur la case cible.
+        if (piece.isWhite())
+        {
+          occupation &= ~(1L << (iDst - FILE_COUNT));
+        }
+        else
+        {
+          occupation &= ~(1L << (iDst + FILE_COUNT));
+        }
+      }
+    }
+    if ((piece.getType() == PAWN) && (((1L << iDst) & (RANK_1 | RANK_8)) != 0))
+    {
+      // Promotion (en dame) : le gain et la pièce exposée changent.
+      gains[0] += QUEEN.getValue() - PAWN.getValue();
+      valeur = QUEEN.getValue();
+    }
+
+    final long [] bb = _bitboards;
+    final long fous = bb[WHITE_BISHOP.ordinal()] | bb[BLACK_BISHOP.ordinal()];
+    final long tours = bb[WHITE_ROOK.ordinal()] | bb[BLACK_ROOK.ordinal()];
+    final long dames = bb[WHITE_QUEEN.ordinal()] | bb[BLACK_QUEEN.ordinal()];
+    long attaquants = attackers(iDst, occupation) & occupation;
+    boolean trait = !piece.isWhite();
+    int n = 0;
+    while (n + 1 < MAX_EXCHANGES)
+    {
+      final long camp = attaquants & (trait ? _whites : _blacks);
+      if (camp == 0)
+      {
+        break;
+      }
+      // Reprise par la pièce la moins forte...
+      long bit = 0;
+      Piece reprise = null;
+      for (final Piece p : trait ? WHITE_EXCHANGE_ORDER : BLACK_EXCHANGE_ORDER)
+      {
+        final long candidats = camp & bb[p.ordinal()];
+        if (candidats != 0)
+        {
+          bit = candidats & -candidats;
+          reprise = p;
+          break;
+        }
+      }
+      assert reprise != null;
+      n++;
+      gains[n] = valeur - gains[n - 1];
+      valeur = exchangeValue(reprise);
+      occupation ^= bit;
+      // ... en révélant les éventuelles pièces à longue portée placées derrière elle.
+      attaquants |=
+          (bishopAttacks(iDst, occupation) & (fous | dames))
+              | (rookAttacks(iDst, occupation) & (tours | dames));
+      attaquants &= occupation;
+      trait = !trait;
+    }
+    while (n > 0)
+    {
+      // Chaque camp peut renoncer à reprendre si la reprise lui est défavorable.
+      gains[n - 1] = -Math.max(-gains[n - 1], gains[n]);
+      n--;
+    }
+
+    return gains[0];
+  }
+
+  /**
+   * Renvoi la carte des pièces (des deux couleurs) attaquant une case, pour une occupation donnée.
+   * 
+   * @param pCible Indice de la case cible.
+   * @param pOccupation Carte des cases occupées.
+   * @return Carte des cases des pièces attaquant la case.
+   */
+  private long attackers(final int pCible, final long pOccupation)
+  {
+    final long [] bb = _bitboards;
+    final long diagonales =
+        bb[WHITE_BISHOP.ordinal()] | bb[BLACK_BISHOP.ordinal()] | bb[WHITE_QUEEN.ordinal()]
+            | bb[BLACK_QUEEN.ordinal()];
+    final long lignes =
+        bb[WHITE_ROOK.ordinal()] | bb[BLACK_ROOK.ordinal()] | bb[WHITE_QUEEN.ordinal()]
+            | bb[BLACK_QUEEN.ordinal()];
+
+    return (KNIGHT_ATTACKS[pCible] & (bb[WHITE_KNIGHT.ordinal()] | bb[BLACK_KNIGHT.ordinal()]))
+        | (KING_ATTACKS[pCible] & (bb[WHITE_KING.ordinal()] | bb[BLACK_KING.ordinal()]))
+        | (BLACK_PAWN_ATTACKS[pCible] & bb[WHITE_PAWN.ordinal()])
+        | (WHITE_PAWN_ATTACKS[pCible] & bb[BLACK_PAWN.ordinal()])
+        | (bishopAttacks(pCible, pOccupation) & diagonales)
+        | (rookAttacks(pCible, pOccupation) & lignes);
+  }
+
+  /**
+   * Renvoi la valeur d'une pièce dans un échange.
+   * 
+   * @param pPiece Pièce.
+   * @return Valeur de la pièce (le roi valant plus que toutes les autres réunies).
+   */
+  private static int exchangeValue(final Piece pPiece)
+  {
+    if (pPiece.getType() == KING)
+    {
+      return KING_EXCHANGE_VALUE;
+    }
+
+    return pPiece.getType().getValue();
+  }
+
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) de tous les mouvements
+   * valides pour une couleur, sans instancier de description de mouvement.
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @param pCoups Liste à alimenter à partir de son début (au moins 256 emplacements).
+   * @return Nombre de mouvements placés dans la liste.
+   */
+  public int getValidMoves(final boolean pTrait, final int [] pCoups)
+  {
+    assert pCoups != null;
+
+    int nb = 0;
+    final Square ep = getEnPassant();
+    final int iEp;
+    if (ep == null)
+    {
+      iEp = -1;
+    }
+    else
+    {
+      iEp = ep.getIndex();
+    }
+    long pieces = pTrait ? _whites : _blacks;
+    while (pieces != 0)
+    {
+      final int i = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      final Piece p = _pieces[i];
+      final boolean pion = p.getType() == PAWN;
+      long cibles = validTargets(i);
+      while (cibles != 0)
+      {
+        final int iDst = Long.numberOfTrailingZeros(cibles);
+        cibles &= cibles - 1;
+        final Piece prise;
+        if (!pion || (iDst != iEp))
+        {
+          prise = _pieces[iDst];
+        }
+        else if (pTrait)
+        {
+          prise = _pieces[iDst - FILE_COUNT];
+        }
+        else
+        {
+          prise = _pieces[iDst + FILE_COUNT];
+        }
+        pCoups[nb++] = Move.toId(p, i, iDst, prise);
+      }
+    }
+
+    return nb;
+  }
+
+  /**
+   * Renvoi toutes les cases cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @return Liste des cases cibles.
+   */
+  public Square [] getValidTargets(final Square pOrigine)
+  {
+    assert pOrigine != null;
+
+    return toSquares(validTargets(pOrigine.getIndex()));
+  }
+
+  /**
+   * Surcharge du calcul de la clé de hachage "Zobrist", pour optimisation.
+   * 
+   * @return Clé de hachage sur 64 bits.
+   */
+  @Override
+  public long getZobristKey()
+  {
+    assert _zobristKey == super.getZobristKey();
+    return _zobristKey;
+  }
+
+  /**
+   * Surcharge du calcul des clés de hachage, pour optimisation.
+   * 
+   * @return Clé de hachage.
+   */
+  @Override
+  public int hashCode()
+  {
+    return (int) getZobristKey();
+  }
+
+  /**
+   * Indique si une case est attaquée par une couleur.
+   * 
+   * @param pCible Case cible.
+   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
+   * @return Vrai si la case est attaquée.
+   */
+  public boolean isAttacked(final Square pCible, final boolean pCouleur)
+  {
+    assert pCible != null;
+
+    return isAttacked(pCible.getIndex(), _whites | _blacks, -1L, pCouleur);
+  }
+
+  /**
+   * Indique si le roi d'une couleur est en échec.
+   * 
+   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
+   * @return Vrai si le roi est en échec.
+   */
+  public boolean isInCheck(final boolean pCouleur)
+  {
+    return isAttacked(getKingSquare(pCouleur).getIndex(), _whites | _blacks, -1L, !pCouleur);
+  }
+}
@@ -86,6 +86,56 @@ public interface Board extends Comparable<Board>, Serializable
    */
   Piece getPieceAt(final int pColonne, final int pLigne);
 
+  /**
+   * Renvoi le nombre de pièces d'un type donné présentes sur le plateau.
+   * 
+   * @param pPiece Type de pièce.
+   * @return Nombre de pièces (>= 0).
+   */
+  int getPieceCount(final Piece pPiece);
+
+  /**
+   * Renvoi la somme des bonus/malus de position (voir {@link PieceSquareTables}) des pièces d'un
+   * type donné.
+   * 
+   * @param pPiece Type de pièce.
+   * @param pFinDePartie Positionné à "true" pour utiliser les tables de fin de partie.
+   * @return Somme des bonus/malus de position, du point de vue de la couleur de la pièce.
+   */
+  int getPieceSquareScore(final Piece pPiece, final boolean pFinDePartie);
+
+  /**
+   * Renvoi la clé de hachage "Zobrist" sur 64 bits limitée aux pions.
+   * <p>
+   * Cette clé ne dépend que de la position des pions (ni du trait, ni des droits de roquer, ...) :
+   * elle permet de mettre en cache les évaluations de la structure de pions.
+   * </p>
+   * 
+   * @return Clé de hachage des pions sur 64 bits (0 en l'absence de pion).
+   */
+  long getPawnZobristKey();
+
+  /**
+   * Renvoi la clé de hachage de l'état au format des bibliothèques d'ouvertures "Polyglot".
+   * <p>
+   * La case de prise "en passant" n'y est prise en compte que si un pion du camp ayant le trait
+   * peut effectuer la prise.
+   * </p>
+   * 
+   * @return Clé de hachage "Polyglot" sur 64 bits.
+   */
+  long getPolyglotKey();
+
+  /**
+   * Renvoi la clé de hachage "Zobrist" sur 64 bits de l'état.
+   * <p>
+   * Ses 32 bits de poids faible correspondent à {@link Object#hashCode()}.
+   * </p>
+   * 
+   * @return Clé de hachage sur 64 bits.
+   */
+  long getZobristKey();
+
   /**
    * Indique si le trait est aux blancs.
    * 
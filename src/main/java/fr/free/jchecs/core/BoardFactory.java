@@ -33,6 +33,20 @@ public final class BoardFactory
     // Rien de spécifique...
   }
 
+  /**
+   * Renvoi une nouvelle instance modifiable, initialisée à partir d'un état quelconque, destinée
+   * aux recherches des moteurs d'I.A.
+   * 
+   * @param pEtat Etat de départ.
+   * @return Instance modifiable, propre à l'appelant.
+   */
+  public static SearchBoard newSearchBoard(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    return new BitboardBoard(pEtat);
+  }
+
   /**
    * Renvoi une instance de description de l'état d'une partie.
    * 
@@ -61,20 +75,20 @@ public final class BoardFactory
             assert false;
         }
         break;
-      // case BITMAPS :
-      // switch (pEtat)
-      // {
-      // case EMPTY :
-      // res = BitmapsBoard.EMPTY;
-      // break;
-      // case STARTING :
-      // res = BitmapsBoard.STARTING;
-      // break;
-      // default :
-      // assert false;
-      // }
-      // break;
+      case BITBOARD :
       case FASTEST :
+        switch (pEtat)
+        {
+          case EMPTY :
+            res = new BitboardBoard(ArrayBoard.EMPTY);
+            break;
+          case STARTING :
+            res = new BitboardBoard(ArrayBoard.STARTING);
+            break;
+          default :
+            assert false;
+        }
+        break;
       case MAILBOX :
         switch (pEtat)
         {
@@ -128,13 +142,13 @@ public final class BoardFactory
     /** Description basée sur un tableau bordé, à une dimension. */
     MAILBOX,
 
-    /** Description la plus rapide : actuellement équivalent à MAILBOX. */
+    /** Description la plus rapide : actuellement équivalent à BITBOARD. */
     FASTEST,
 
     /** Description basée sur un tableau à une dimension avec indice filtré par la valeur 0x88. */
-    X88;
+    X88,
 
-    // /** Description basée sur des cartes binaires. */
-    // BITMAPS;
+    /** Description basée sur des cartes binaires de 64 bits (BitBoards). */
+    BITBOARD;
   }
 }
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import static fr.free.jchecs.core.Constants.FILE_COUNT;
 import static fr.free.jchecs.core.Constants.RANK_COUNT;
@@ -216,6 +217,64 @@ public final class BoardTest
     }
   }
 
+  /**
+   * Teste le calcul des clés de hachage "Polyglot", à partir des valeurs de référence du format.
+   */
+  @Test
+  public void testPolyglotKey()
+  {
+    final String [] fens = {
+        FENUtils.STANDART_STARTING_FEN,
+        "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+        "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+        "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+        "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+    };
+    final long [] cles = {
+        0x463B96181691FC9CL, 0x823C9B50FD114196L, 0x0756B94461C50FB0L, 0x662FAFB965DB29D4L,
+        0x22A48B5A8E47FF78L, 0x652A607CA3F242C1L, 0x00FDD303C946BDD9L,
+    };
+    final String [] mvts = { "e4", "d5", "e5", "f5", "Ke2", "Kf7" };
+
+    try
+    {
+      for (int i = 0; i < fens.length; i++)
+      {
+        for (final BoardFactory.Type t : BoardFactory.Type.values())
+        {
+          final Board etat = BoardFactory.valueOf(t, BoardFactory.State.EMPTY).derive(
+              toBoard(fens[i]));
+          assertEquals(etat.getClass().getSimpleName(), cles[i], etat.getPolyglotKey());
+        }
+      }
+
+      // Tenue à jour de la clé au fil des mouvements joués et annulés...
+      final SearchBoard plateau =
+          BoardFactory.newSearchBoard(BoardFactory.valueOf(BoardFactory.Type.FASTEST,
+              BoardFactory.State.STARTING));
+      for (int i = 0; i < mvts.length; i++)
+      {
+        plateau.makeMove(SANUtils.toMove(plateau, mvts[i]));
+        assertEquals(cles[i + 1], plateau.getPolyglotKey());
+      }
+      for (int i = mvts.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        plateau.unmakeMove();
+        assertEquals(cles[i], plateau.getPolyglotKey());
+      }
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+    }
+    catch (final SANException e)
+    {
+      fail(e.toString());
+    }
+  }
+
   /**
    * Teste l'état initial standard.
    */
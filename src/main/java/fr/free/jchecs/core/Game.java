@@ -26,12 +26,35 @@ import static fr.free.jchecs.core.SANUtils.toSAN;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Description d'une partie en cours.
+ * <p>
+ * L'historique est conservé sous forme compacte : les mouvements sous forme d'entiers (voir
+ * {@link Move#toId()}), et pour chaque position sa clé Zobrist, son nombre d'occurrences et son
+ * état. Seules une position sur {@value #CHECKPOINT_INTERVAL} et les {@value #SNAPSHOT_CACHE_SIZE}
+ * dernières positions utilisées sont conservées en entier : les autres sont reconstruites à la
+ * demande en rejouant les mouvements depuis la plus proche position conservée qui les précède.
+ * </p>
+ * <p>
+ * Les compteurs de temps des joueurs sont calculés à la demande, à partir de la date du dernier
+ * changement de position : une partie ne mobilise aucun fil d'exécution. Seule la notification
+ * périodique de la propriété "timer", utile à l'affichage d'une horloge, est démarrée dès
+ * qu'un objet se met à l'écoute de cette propriété, et arrêtée lorsque le dernier s'en retire ; elle
+ * est assurée par un fil unique partagé par toutes les parties.
+ * </p>
  * 
  * @author David Cotton
  */
@@ -40,26 +63,79 @@ public final class Game
   /** Temps (en ms) alloué à un joueur, pour une partie. */
   private static final long GAME_DURATION = 15 * 60 * 1000;
 
+  /** Nombre de positions séparant deux positions conservées en permanence. */
+  private static final int CHECKPOINT_INTERVAL = 32;
+
+  /** Nombre de positions récemment utilisées conservées en entier. */
+  private static final int SNAPSHOT_CACHE_SIZE = 8;
+
+  /** Capacité initiale de l'historique (en positions). */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** Etats d'une partie, par ordinal. */
+  private static final State [] STATES = State.values();
+
+  /** Horloge partagée notifiant les parties dont le timer est démarré (créée à la demande). */
+  private static ScheduledExecutorService S_clock;
+
   /** Support des propriétés liées. */
   final PropertyChangeSupport _propertyChangeSupport = new PropertyChangeSupport(this);
 
   /** Description du joueur noir. */
   private final Player _blackPlayer = new Player(false);
 
-  /** Liste des positions de l'échiquier. */
-  private final List<MoveGenerator> _positions = new ArrayList<MoveGenerator>();
+  /** Positions conservées en permanence : une toutes les CHECKPOINT_INTERVAL positions. */
+  private final List<MoveGenerator> _checkpoints = new ArrayList<MoveGenerator>();
 
-  /** Liste des mouvements éxécutés. */
-  private final List<Move> _moves = new ArrayList<Move>();
+  /** Positions récemment utilisées, par indice (les moins récemment utilisées sont oubliées). */
+  private final Map<Integer, MoveGenerator> _snapshots =
+      new LinkedHashMap<Integer, MoveGenerator>(16, 0.75f, true)
+      {
+        /** Identifiant de la classe pour la sérialisation. */
+        private static final long serialVersionUID = 2873409181627718520L;
+
+        /**
+         * Oublie la position la moins récemment utilisée quand la capacité est dépassée.
+         * 
+         * @param pAncienne Position la moins récemment utilisée.
+         * @return "true" si la position doit être oubliée.
+         */
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, MoveGenerator> pAncienne)
+        {
+          return size() > SNAPSHOT_CACHE_SIZE;
+        }
+      };
+
+  /** Positions atteintes par un mouvement irréversible (prise ou mouvement de pion). */
+  private final BitSet _irreversibles = new BitSet();
 
-  /** Liste des notations SAN des mouvements. */
-  private final List<String> _sanMoves = new ArrayList<String>();
+  /**
+   * Indice de la dernière occurrence de chaque position (par clé Zobrist), depuis le dernier
+   * mouvement irréversible de l'historique.
+   */
+  private final Map<Long, Integer> _lastOccurrences = new HashMap<Long, Integer>();
+
+  /** Clé Zobrist de chaque position. */
+  private long [] _keys = new long [ INITIAL_CAPACITY ];
+
+  /** Identifiants des mouvements exécutés (voir {@link Move#toId()}). */
+  private int [] _moves = new int [ INITIAL_CAPACITY ];
+
+  /** Nombre d'occurrences de chaque position, jusqu'à elle incluse. */
+  private int [] _repetitions = new int [ INITIAL_CAPACITY ];
+
+  /** Nombre de positions de l'historique (> 0). */
+  private int _size;
+
+  /** Etat de la partie à chaque position (ordinal + 1, 0 tant qu'il n'a pas été calculé). */
+  private byte [] _states = new byte [ INITIAL_CAPACITY ];
 
   /** Description du joueur blanc. */
   private final Player _whitePlayer = new Player(true);
 
-  /** Valeur courante du compteur de temps des noirs. */
-  long _blackTimer;
+  /** Valeur du compteur de temps des noirs, au dernier relevé. */
+  private long _blackTimer;
 
   /** Mouvement courant (>= 0). */
   private int _currentMove;
@@ -67,14 +143,17 @@ public final class Game
   /** Position courante (> 0). */
   private int _currentPosition;
 
-  /** Valeur du dernier relevé du timer. */
-  long _lastTimerTick;
+  /** Date du dernier relevé des compteurs de temps (en ms). */
+  private long _lastTimerTick;
 
-  /** Timer de l'horloge. */
-  private Timer _timer;
+  /** Drapeau signalant que le temps du joueur ayant le trait s'écoule (partie en cours). */
+  private volatile boolean _timerRunning;
 
-  /** Valeur courante du compteur de temps des blancs. */
-  long _whiteTimer;
+  /** Notification périodique de l'horloge (ou null si elle n'est pas démarrée). */
+  private ScheduledFuture<?> _timerTask;
+
+  /** Valeur du compteur de temps des blancs, au dernier relevé. */
+  private long _whiteTimer;
 
   /**
    * Instancie une nouvelle partie.
@@ -84,6 +163,62 @@ public final class Game
     resetTo(BoardFactory.valueOf(FASTEST, STARTING));
   }
 
+  /**
+   * Ajoute une position en fin d'historique et en fait la position courante.
+   * 
+   * @param pEtat Position à ajouter.
+   * @param pMouvement Identifiant du mouvement y menant (ignoré pour la position de départ).
+   */
+  private void addPosition(final MoveGenerator pEtat, final int pMouvement)
+  {
+    assert pEtat != null;
+
+    final int i = _size;
+    if (i == _keys.length)
+    {
+      final int capacite = i + (i >> 1);
+      _keys = Arrays.copyOf(_keys, capacite);
+      _moves = Arrays.copyOf(_moves, capacite);
+      _repetitions = Arrays.copyOf(_repetitions, capacite);
+      _states = Arrays.copyOf(_states, capacite);
+    }
+    if (i > 0)
+    {
+      _moves[i - 1] = pMouvement;
+    }
+
+    if (pEtat.getHalfmoveCount() == 0)
+    {
+      // Aucune position antérieure à un mouvement irréversible ne peut se répéter.
+      _irreversibles.set(i);
+      _lastOccurrences.clear();
+    }
+    else
+    {
+      _irreversibles.clear(i);
+    }
+    final long cle = pEtat.getZobristKey();
+    final Integer precedente = _lastOccurrences.put(Long.valueOf(cle), Integer.valueOf(i));
+    int rep = 1;
+    if ((precedente != null) && pEtat.equals(getPosition(precedente.intValue())))
+    {
+      rep += _repetitions[precedente.intValue()];
+    }
+    _keys[i] = cle;
+    _repetitions[i] = rep;
+    _states[i] = 0;
+    _size = i + 1;
+    if ((i % CHECKPOINT_INTERVAL) == 0)
+    {
+      _checkpoints.add(pEtat);
+    }
+    synchronized (_snapshots)
+    {
+      _snapshots.put(Integer.valueOf(i), pEtat);
+    }
+    _currentPosition = _size;
+  }
+
   /**
    * Ajoute un objet à l'écoute des changements de propriétés.
    * 
@@ -97,6 +232,10 @@ public final class Game
     assert pEcouteur != null;
 
     _propertyChangeSupport.addPropertyChangeListener(pPropriete, pEcouteur);
+    if ("timer".equals(pPropriete))
+    {
+      startTimer();
+    }
   }
 
   /**
@@ -106,9 +245,9 @@ public final class Game
    */
   public MoveGenerator getBoard()
   {
-    assert (_currentPosition > 0) && (_currentPosition <= _positions.size());
+    assert (_currentPosition > 0) && (_currentPosition <= _size);
 
-    return _positions.get(_currentPosition - 1);
+    return getPosition(_currentPosition - 1);
   }
 
   /**
@@ -120,9 +259,9 @@ public final class Game
   {
     Move res = null;
 
-    if ((_currentMove > 0) && (_currentMove <= _moves.size()))
+    if ((_currentMove > 0) && (_currentMove < _size))
     {
-      res = _moves.get(getCurrentMoveIndex());
+      res = Move.valueOf(_moves[getCurrentMoveIndex()]);
     }
 
     return res;
@@ -135,7 +274,7 @@ public final class Game
    */
   public int getCurrentMoveIndex()
   {
-    assert (_currentMove >= 0) && (_currentMove <= _moves.size());
+    assert (_currentMove >= 0) && (_currentMove < _size);
     return _currentMove - 1;
   }
 
@@ -146,7 +285,7 @@ public final class Game
    */
   public String getFENPosition()
   {
-    assert (_currentPosition > 0) && (_currentPosition <= _positions.size());
+    assert (_currentPosition > 0) && (_currentPosition <= _size);
 
     return toFEN(getBoard());
   }
@@ -158,7 +297,7 @@ public final class Game
    */
   public int getMovesCount()
   {
-    return _moves.size();
+    return _size - 1;
   }
 
   /**
@@ -172,7 +311,7 @@ public final class Game
 
     for (int i = 0; i < _currentMove; i++)
     {
-      res[i] = _moves.get(i);
+      res[i] = Move.valueOf(_moves[i]);
     }
 
     return res;
@@ -194,14 +333,96 @@ public final class Game
     return _blackPlayer;
   }
 
+  /**
+   * Renvoi une position de l'historique, en la reconstruisant si nécessaire à partir de la plus
+   * proche position conservée qui la précède.
+   * 
+   * @param pIndice Indice de la position.
+   * @return Position correspondante.
+   */
+  private MoveGenerator getPosition(final int pIndice)
+  {
+    assert (pIndice >= 0) && (pIndice < _size);
+
+    synchronized (_snapshots)
+    {
+      MoveGenerator res = _snapshots.get(Integer.valueOf(pIndice));
+      if (res == null)
+      {
+        final int base = pIndice - (pIndice % CHECKPOINT_INTERVAL);
+        int i = pIndice - 1;
+        while ((i > base) && !_snapshots.containsKey(Integer.valueOf(i)))
+        {
+          i--;
+        }
+        if (i > base)
+        {
+          res = _snapshots.get(Integer.valueOf(i));
+        }
+        else
+        {
+          i = base;
+          res = _checkpoints.get(base / CHECKPOINT_INTERVAL);
+        }
+        for (/* Pré-initialisé */; i < pIndice; i++)
+        {
+          res = res.derive(Move.valueOf(_moves[i]), true);
+        }
+        _snapshots.put(Integer.valueOf(pIndice), res);
+      }
+
+      return res;
+    }
+  }
+
   /**
    * Renvoi la liste des chaînes SAN correspondant aux mouvements.
+   * <p>
+   * Les chaînes sont reconstruites en rejouant la partie.
+   * </p>
    * 
    * @return Liste des chaînes SAN.
    */
   public String [] getSANStrings()
   {
-    return _sanMoves.toArray(new String [ _sanMoves.size() ]);
+    final String [] res = new String [ _size - 1 ];
+
+    MoveGenerator etat = getPosition(0);
+    for (int i = 0; i < res.length; i++)
+    {
+      final Move mvt = Move.valueOf(_moves[i]);
+      final StringBuilder san = new StringBuilder();
+      if (etat.isWhiteActive())
+      {
+        san.append(etat.getFullmoveNumber()).append(". ");
+      }
+      san.append(toSAN(etat, mvt));
+      san.append(' ');
+      etat = etat.derive(mvt, true);
+      switch (getState(i + 1, etat))
+      {
+        case IN_PROGRESS :
+          break;
+        case WHITE_MATES :
+          san.append("1-0");
+          break;
+        case BLACK_MATES :
+          san.append("0-1");
+          break;
+        case STALEMATE :
+          san.append("1/2-1/2");
+          break;
+        case DRAWN_BY_50_MOVE_RULE :
+        case DRAWN_BY_TRIPLE_REPETITION :
+          san.append("1/2-1/2 {Repetition}");
+          break;
+        default :
+          assert false;
+      }
+      res[i] = san.toString();
+    }
+
+    return res;
   }
 
   /**
@@ -211,19 +432,72 @@ public final class Game
    */
   public String getStartingPosition()
   {
-    return toFEN(_positions.get(0));
+    return toFEN(getPosition(0));
+  }
+
+  /**
+   * Renvoi l'horloge partagée par les parties, en la créant si nécessaire.
+   * 
+   * @return Horloge partagée.
+   */
+  private static synchronized ScheduledExecutorService getClock()
+  {
+    if (S_clock == null)
+    {
+      S_clock = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+      {
+        /**
+         * Crée le fil de l'horloge, qui ne bloque pas l'arrêt de la JVM.
+         * 
+         * @param pTache Tâche exécutée par le fil.
+         * @return Fil créé.
+         */
+        public Thread newThread(final Runnable pTache)
+        {
+          final Thread res = new Thread(pTache, "jChecs-clock");
+          res.setDaemon(true);
+          return res;
+        }
+      });
+    }
+
+    return S_clock;
   }
 
   /**
    * Renvoi l'état de la partie en cours.
+   * <p>
+   * L'état de chaque position n'est calculé qu'une fois.
+   * </p>
    * 
    * @return Etat de la partie.
    */
   public State getState()
   {
+    return getState(_currentPosition - 1, null);
+  }
+
+  /**
+   * Renvoi l'état de la partie à une position de l'historique, en le calculant si nécessaire.
+   * 
+   * @param pIndice Indice de la position.
+   * @param pEtat Position correspondante, si elle est déjà disponible (sinon null).
+   * @return Etat de la partie.
+   */
+  private State getState(final int pIndice, final MoveGenerator pEtat)
+  {
+    if (_states[pIndice] > 0)
+    {
+      return STATES[_states[pIndice] - 1];
+    }
+
     final State res;
 
-    final MoveGenerator etat = getBoard();
+    MoveGenerator etat = pEtat;
+    if (etat == null)
+    {
+      etat = getPosition(pIndice);
+    }
     final boolean trait = etat.isWhiteActive();
     if (etat.getValidMoves(trait).length == 0)
     {
@@ -247,24 +521,15 @@ public final class Game
     {
       res = State.DRAWN_BY_50_MOVE_RULE;
     }
+    else if (_repetitions[pIndice] >= 3)
+    {
+      res = State.DRAWN_BY_TRIPLE_REPETITION;
+    }
     else
     {
-      final MoveGenerator enCours = getBoard();
-      int rep = 0;
-      for (int i = 0; i < _currentPosition; i++)
-      {
-        if (enCours.equals(_positions.get(i)))
-        {
-          rep++;
-          if (rep >= 3)
-          {
-            return State.DRAWN_BY_TRIPLE_REPETITION;
-          }
-        }
-      }
-
       res = State.IN_PROGRESS;
     }
+    _states[pIndice] = (byte) (res.ordinal() + 1);
 
     return res;
   }
@@ -275,14 +540,23 @@ public final class Game
    * @param pCouleur A "true" pour le timer des blancs, à "false" pour les noirs.
    * @return Valeur courante du timer correspondant.
    */
-  public long getTimer(final boolean pCouleur)
+  public synchronized long getTimer(final boolean pCouleur)
   {
+    long res;
     if (pCouleur)
     {
-      return _whiteTimer;
+      res = _whiteTimer;
+    }
+    else
+    {
+      res = _blackTimer;
+    }
+    if (_timerRunning && (isWhiteActive(_currentPosition - 1) == pCouleur))
+    {
+      res -= System.currentTimeMillis() - _lastTimerTick;
     }
 
-    return _blackTimer;
+    return res;
   }
 
   /**
@@ -292,8 +566,10 @@ public final class Game
   {
     if (_currentMove > 0)
     {
+      updateTimers();
       _currentMove = 0;
       _currentPosition = 1;
+      _timerRunning = getState() == State.IN_PROGRESS;
       _propertyChangeSupport.firePropertyChange("position", null, null);
     }
   }
@@ -303,11 +579,13 @@ public final class Game
    */
   public void goLast()
   {
-    final int s = _moves.size();
+    final int s = _size - 1;
     if (_currentMove < s)
     {
+      updateTimers();
       _currentMove = s;
-      _currentPosition = _positions.size();
+      _currentPosition = _size;
+      _timerRunning = getState() == State.IN_PROGRESS;
       _propertyChangeSupport.firePropertyChange("position", null, null);
     }
   }
@@ -317,10 +595,12 @@ public final class Game
    */
   public void goNext()
   {
-    if (_currentMove < _moves.size())
+    if (_currentMove < _size - 1)
     {
+      updateTimers();
       _currentMove++;
       _currentPosition++;
+      _timerRunning = getState() == State.IN_PROGRESS;
       _propertyChangeSupport.firePropertyChange("position", null, null);
     }
   }
@@ -332,12 +612,25 @@ public final class Game
   {
     if (_currentMove > 0)
     {
+      updateTimers();
       _currentMove--;
       _currentPosition--;
+      _timerRunning = getState() == State.IN_PROGRESS;
       _propertyChangeSupport.firePropertyChange("position", null, null);
     }
   }
 
+  /**
+   * Indique si le trait est aux blancs à une position de l'historique, sans la reconstruire.
+   * 
+   * @param pIndice Indice de la position.
+   * @return "true" si le trait est aux blancs.
+   */
+  private boolean isWhiteActive(final int pIndice)
+  {
+    return _checkpoints.get(0).isWhiteActive() == ((pIndice & 1) == 0);
+  }
+
   /**
    * Ajoute un mouvement à partir de la position courante.
    * 
@@ -347,55 +640,44 @@ public final class Game
   {
     assert pMouvement != null;
 
-    while (_moves.size() > _currentMove)
+    if (_size > _currentPosition)
     {
-      _moves.remove(_moves.size() - 1);
-      _sanMoves.remove(_sanMoves.size() - 1);
-    }
-    while (_positions.size() > _currentPosition)
-    {
-      _positions.remove(_positions.size() - 1);
+      // Abandon de la suite de l'historique...
+      _size = _currentPosition;
+      while (_checkpoints.size() > ((_size - 1) / CHECKPOINT_INTERVAL) + 1)
+      {
+        _checkpoints.remove(_checkpoints.size() - 1);
+      }
+      synchronized (_snapshots)
+      {
+        final Iterator<Integer> it = _snapshots.keySet().iterator();
+        while (it.hasNext())
+        {
+          if (it.next().intValue() >= _size)
+          {
+            it.remove();
+          }
+        }
+      }
+      // ... et recalcul des dernières occurrences, depuis le dernier mouvement irréversible.
+      int debut = _size - 1;
+      while ((debut > 0) && !_irreversibles.get(debut))
+      {
+        debut--;
+      }
+      _lastOccurrences.clear();
+      for (int i = debut; i < _size; i++)
+      {
+        _lastOccurrences.put(Long.valueOf(_keys[i]), Integer.valueOf(i));
+      }
     }
 
-    MoveGenerator etat = getBoard();
-    final boolean trait = etat.isWhiteActive();
-    final StringBuilder san = new StringBuilder();
-    if (trait)
-    {
-      san.append(etat.getFullmoveNumber()).append(". ");
-    }
-    san.append(toSAN(etat, pMouvement));
-    san.append(' ');
-    etat = etat.derive(pMouvement, true);
-    _positions.add(etat);
-    _currentPosition = _positions.size();
-    _moves.add(pMouvement);
-    _currentMove = _moves.size();
-
-    switch (getState())
-    {
-      case IN_PROGRESS :
-        break;
-      case WHITE_MATES :
-        san.append("1-0");
-        break;
-      case BLACK_MATES :
-        san.append("0-1");
-        break;
-      case STALEMATE :
-        san.append("1/2-1/2");
-        break;
-      case DRAWN_BY_50_MOVE_RULE :
-      case DRAWN_BY_TRIPLE_REPETITION :
-        san.append("1/2-1/2 {Repetition}");
-        break;
-      default :
-        assert false;
-    }
-    _sanMoves.add(san.toString());
-
-    assert _moves.size() == _sanMoves.size();
-    assert _positions.size() == (_moves.size() + 1);
+    updateTimers();
+    final MoveGenerator etat = getBoard().derive(pMouvement, true);
+    addPosition(etat, pMouvement.toId());
+    _currentMove = _size - 1;
+    _timerRunning = getState(_size - 1, etat) == State.IN_PROGRESS;
+
     _propertyChangeSupport.firePropertyChange("position", null, null);
   }
 
@@ -412,6 +694,10 @@ public final class Game
     assert pEcouteur != null;
 
     _propertyChangeSupport.removePropertyChangeListener(pPropriete, pEcouteur);
+    if ("timer".equals(pPropriete) && !_propertyChangeSupport.hasListeners("timer"))
+    {
+      stopTimer();
+    }
   }
 
   /**
@@ -423,46 +709,86 @@ public final class Game
   {
     assert pEtat != null;
 
-    _moves.clear();
-    _sanMoves.clear();
-    _currentMove = _moves.size();
-    _positions.clear();
-    _positions.add(pEtat);
-    _currentPosition = _positions.size();
-    if (_timer != null)
+    _size = 0;
+    _currentMove = 0;
+    _checkpoints.clear();
+    synchronized (_snapshots)
     {
-      _timer.cancel();
+      _snapshots.clear();
+    }
+    _lastOccurrences.clear();
+    addPosition(pEtat, 0);
+    synchronized (this)
+    {
+      _blackTimer = GAME_DURATION;
+      _whiteTimer = GAME_DURATION;
+      _lastTimerTick = System.currentTimeMillis();
+      _timerRunning = getState() == State.IN_PROGRESS;
     }
-    _blackTimer = GAME_DURATION;
-    _whiteTimer = GAME_DURATION;
-    _lastTimerTick = System.currentTimeMillis();
-    _timer = new Timer();
 
     _propertyChangeSupport.firePropertyChange("position", null, null);
-    _timer.scheduleAtFixedRate(new TimerTask()
+  }
+
+  /**
+   * Démarre la notification périodique (chaque seconde) de la propriété "timer", tant que la partie
+   * est en cours. Appelée à l'ajout d'un objet à l'écoute de cette propriété.
+   * <p>
+   * Les compteurs de temps s'écoulent que l'horloge soit démarrée ou non : seule la notification
+   * est concernée.
+   * </p>
+   */
+  private synchronized void startTimer()
+  {
+    if (_timerTask == null)
     {
-      /**
-       * Action déclenchée périodiquement par le timer gérant l'horloge.
-       */
-      @Override
-      public void run()
+      _timerTask = getClock().scheduleAtFixedRate(new Runnable()
       {
-        if (getState() == State.IN_PROGRESS)
+        /**
+         * Action déclenchée périodiquement par l'horloge partagée.
+         */
+        public void run()
         {
-          final long time = System.currentTimeMillis();
-          if (getBoard().isWhiteActive())
+          if (_timerRunning)
           {
-            _whiteTimer -= time - _lastTimerTick;
+            _propertyChangeSupport.firePropertyChange("timer", null, null);
           }
-          else
-          {
-            _blackTimer -= time - _lastTimerTick;
-          }
-          _lastTimerTick = time;
-          _propertyChangeSupport.firePropertyChange("timer", null, null);
         }
+      }, 250, 1000, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Arrête la notification périodique de la propriété "timer", par exemple lorsque la partie est
+   * abandonnée. Elle reprend à l'ajout d'un nouvel objet à l'écoute de cette propriété.
+   */
+  public synchronized void stopTimer()
+  {
+    if (_timerTask != null)
+    {
+      _timerTask.cancel(false);
+      _timerTask = null;
+    }
+  }
+
+  /**
+   * Décompte le temps écoulé depuis le dernier relevé au joueur ayant le trait, avant un
+   * changement de position.
+   */
+  private synchronized void updateTimers()
+  {
+    final long time = System.currentTimeMillis();
+    if (_timerRunning)
+    {
+      if (isWhiteActive(_currentPosition - 1))
+      {
+        _whiteTimer -= time - _lastTimerTick;
       }
-    }, 250, 1000);
+      else
+      {
+        _blackTimer -= time - _lastTimerTick;
+      }
+    }
+    _lastTimerTick = time;
   }
 
   /** Enumération des états possibles d'une partie. */
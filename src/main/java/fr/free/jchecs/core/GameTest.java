@@ -0,0 +1,604 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static fr.free.jchecs.core.BoardFactory.State.EMPTY;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+import static fr.free.jchecs.core.FENUtils.toBoard;
+import static fr.free.jchecs.core.FENUtils.toFEN;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires de la classe décrivant une partie.
+ * 
+ * @author David Cotton
+ */
+public final class GameTest
+{
+  /** Temps (en ms) alloué à un joueur, pour une partie. */
+  private static final long GAME_DURATION = 15 * 60 * 1000;
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public GameTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Crée un mouvement à partir de ses caractéristiques.
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Case de départ.
+   * @param pDestination Case d'arrivée.
+   * @return Mouvement correspondant.
+   */
+  private static Move move(final Piece pPiece, final String pOrigine, final String pDestination)
+  {
+    return new Move(pPiece, Square.valueOf(pOrigine), Square.valueOf(pDestination));
+  }
+
+  /**
+   * Crée une partie à partir d'une position FEN.
+   * 
+   * @param pFEN Position de départ au format FEN.
+   * @return Partie correspondante.
+   */
+  private static Game newGame(final String pFEN)
+  {
+    final Game res = new Game();
+    try
+    {
+      res.resetTo(BoardFactory.valueOf(FASTEST, EMPTY).derive(toBoard(pFEN)));
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+    }
+
+    return res;
+  }
+
+  /**
+   * Attend quelques millisecondes.
+   * 
+   * @param pDelai Délai d'attente (en ms).
+   */
+  private static void pause(final long pDelai)
+  {
+    try
+    {
+      Thread.sleep(pDelai);
+    }
+    catch (final InterruptedException e)
+    {
+      fail(e.toString());
+    }
+  }
+
+  /**
+   * Vérifie qu'une partie correspond au modèle de référence.
+   * 
+   * @param pReference Modèle de référence.
+   * @param pPartie Partie à vérifier.
+   */
+  private static void validateHistory(final ReferenceGame pReference, final Game pPartie)
+  {
+    final MoveGenerator etat = pReference.getBoard();
+    final String fen = toFEN(etat);
+    assertEquals(fen, pPartie.getFENPosition());
+    assertEquals(fen, etat, pPartie.getBoard());
+    assertEquals(fen, pReference.getCurrentMove(), pPartie.getCurrentMove());
+    assertEquals(fen, pReference.getCurrentMoveIndex(), pPartie.getCurrentMoveIndex());
+    assertEquals(fen, pReference.getMoves().size(), pPartie.getMovesCount());
+    assertEquals(fen, pReference.getMoves().subList(0, pReference.getCurrentMoveIndex() + 1),
+        Arrays.asList(pPartie.getMovesToCurrent()));
+    assertEquals(fen, toFEN(pReference.getStartingPosition()), pPartie.getStartingPosition());
+    assertEquals(fen, pReference.getState(), pPartie.getState());
+  }
+
+  /**
+   * Valide l'historique et la navigation au fil de longues parties aléatoires, avec abandons de la
+   * suite de l'historique, comparés au modèle d'origine conservant toutes les positions.
+   */
+  @Test
+  public void valideHistory()
+  {
+    final Random randomizer = new Random(9000);
+    for (int p = 10; p >= 0; p--)
+    {
+      final Game partie = new Game();
+      final AtomicInteger notifications = new AtomicInteger();
+      partie.addPropertyChangeListener("position", new PropertyChangeListener()
+      {
+        public void propertyChange(final PropertyChangeEvent pEvenement)
+        {
+          notifications.incrementAndGet();
+        }
+      });
+      final ReferenceGame reference = new ReferenceGame(partie.getBoard());
+      int attendues = 0;
+      for (int cps = 400; cps >= 0; cps--)
+      {
+        final int action = randomizer.nextInt(20);
+        boolean change = true;
+        if (action == 0)
+        {
+          change = reference.goFirst();
+          partie.goFirst();
+        }
+        else if (action == 1)
+        {
+          change = reference.goLast();
+          partie.goLast();
+        }
+        else if (action < 4)
+        {
+          for (int i = randomizer.nextInt(40); i >= 0; i--)
+          {
+            if (reference.goPrevious())
+            {
+              attendues++;
+            }
+            partie.goPrevious();
+          }
+          change = false;
+        }
+        else if (action < 6)
+        {
+          change = reference.goNext();
+          partie.goNext();
+        }
+        else if (reference.getState() == Game.State.IN_PROGRESS)
+        {
+          final Move [] mvts = reference.getBoard().getValidMoves(
+              reference.getBoard().isWhiteActive());
+          final Move mvt = mvts[randomizer.nextInt(mvts.length)];
+          reference.moveFromCurrent(mvt);
+          partie.moveFromCurrent(mvt);
+        }
+        else
+        {
+          change = reference.goFirst();
+          partie.goFirst();
+        }
+        if (change)
+        {
+          attendues++;
+        }
+        validateHistory(reference, partie);
+      }
+      assertEquals(attendues, notifications.get());
+      assertEquals(reference.getSANStrings(), Arrays.asList(partie.getSANStrings()));
+    }
+  }
+
+  /**
+   * Valide les états calculés au fil de parties aléatoires, avec retours en arrière et abandons de
+   * la suite de l'historique, comparés à ceux du calcul complet d'origine.
+   */
+  @Test
+  public void valideRandomStates()
+  {
+    final Random randomizer = new Random(8000);
+    for (int p = 30; p >= 0; p--)
+    {
+      // Peu de pièces : les répétitions sont fréquentes.
+      final String fen = "r3k3/8/8/8/8/8/8/R3K3 w - - 0 1";
+      final Game partie = newGame(fen);
+      final ReferenceGame reference = new ReferenceGame(partie.getBoard());
+      for (int cps = 200; cps >= 0; cps--)
+      {
+        assertEquals(toFEN(reference.getBoard()), reference.getState(), partie.getState());
+        final int action = randomizer.nextInt(10);
+        if (action == 0)
+        {
+          reference.goPrevious();
+          partie.goPrevious();
+        }
+        else if (action == 1)
+        {
+          reference.goNext();
+          partie.goNext();
+        }
+        else if (reference.getState() == Game.State.IN_PROGRESS)
+        {
+          final Move [] mvts = reference.getBoard().getValidMoves(
+              reference.getBoard().isWhiteActive());
+          // ... d'autant plus en ne jouant que parmi les premiers mouvements valides.
+          final Move mvt = mvts[randomizer.nextInt(Math.min(3, mvts.length))];
+          reference.moveFromCurrent(mvt);
+          partie.moveFromCurrent(mvt);
+        }
+        else
+        {
+          reference.goFirst();
+          partie.goFirst();
+        }
+      }
+    }
+  }
+
+  /**
+   * Valide la détection des fins de partie.
+   */
+  @Test
+  public void valideStates()
+  {
+    // Répétition de la même position trois fois...
+    final Game partie = new Game();
+    for (int i = 0; i < 2; i++)
+    {
+      assertEquals(Game.State.IN_PROGRESS, partie.getState());
+      partie.moveFromCurrent(move(WHITE_KNIGHT, "g1", "f3"));
+      partie.moveFromCurrent(move(BLACK_KNIGHT, "g8", "f6"));
+      partie.moveFromCurrent(move(WHITE_KNIGHT, "f3", "g1"));
+      assertEquals(Game.State.IN_PROGRESS, partie.getState());
+      partie.moveFromCurrent(move(BLACK_KNIGHT, "f6", "g8"));
+    }
+    assertEquals(Game.State.DRAWN_BY_TRIPLE_REPETITION, partie.getState());
+    partie.goPrevious();
+    assertEquals(Game.State.IN_PROGRESS, partie.getState());
+    partie.goLast();
+    assertEquals(Game.State.DRAWN_BY_TRIPLE_REPETITION, partie.getState());
+    // ... qui ne compte plus après avoir abandonné la suite de l'historique.
+    partie.goPrevious();
+    partie.moveFromCurrent(move(BLACK_KNIGHT, "f6", "h5"));
+    assertEquals(Game.State.IN_PROGRESS, partie.getState());
+
+    // Règle des 50 coups...
+    final Game cinquante = newGame("4k3/8/8/8/8/8/8/R3K3 w - - 50 80");
+    assertEquals(Game.State.IN_PROGRESS, cinquante.getState());
+    cinquante.moveFromCurrent(move(WHITE_ROOK, "a1", "a2"));
+    assertEquals(Game.State.DRAWN_BY_50_MOVE_RULE, cinquante.getState());
+
+    // ... pat et mat.
+    assertEquals(Game.State.STALEMATE, newGame("k7/8/1Q6/8/8/8/8/4K3 b - - 0 1").getState());
+    assertEquals(Game.State.WHITE_MATES, newGame("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1").getState());
+  }
+
+  /**
+   * Valide le décompte du temps des joueurs.
+   */
+  @Test
+  public void valideTimers()
+  {
+    final Game partie = new Game();
+    pause(50);
+    // Seul le temps du joueur ayant le trait s'écoule...
+    final long blancs = partie.getTimer(true);
+    assertTrue(blancs <= GAME_DURATION - 50);
+    assertEquals(GAME_DURATION, partie.getTimer(false));
+
+    partie.moveFromCurrent(move(WHITE_PAWN, "f2", "f3"));
+    final long blancsApres = partie.getTimer(true);
+    assertTrue(blancsApres <= blancs);
+    pause(50);
+    assertEquals(blancsApres, partie.getTimer(true));
+    assertTrue(partie.getTimer(false) <= GAME_DURATION - 50);
+
+    // ... tant que la partie est en cours...
+    partie.moveFromCurrent(move(BLACK_PAWN, "e7", "e5"));
+    partie.moveFromCurrent(move(WHITE_PAWN, "g2", "g4"));
+    partie.moveFromCurrent(move(BLACK_QUEEN, "d8", "h4"));
+    assertEquals(Game.State.BLACK_MATES, partie.getState());
+    final long finBlancs = partie.getTimer(true);
+    final long finNoirs = partie.getTimer(false);
+    pause(50);
+    assertEquals(finBlancs, partie.getTimer(true));
+    assertEquals(finNoirs, partie.getTimer(false));
+
+    // ... et il reprend en revenant sur une position en cours.
+    partie.goPrevious();
+    pause(50);
+    assertTrue(partie.getTimer(false) <= finNoirs - 50);
+    assertEquals(finBlancs, partie.getTimer(true));
+
+    partie.resetTo(BoardFactory.valueOf(FASTEST, BoardFactory.State.STARTING));
+    assertEquals(GAME_DURATION, partie.getTimer(false));
+    assertTrue(partie.getTimer(true) <= GAME_DURATION);
+  }
+
+  /**
+   * Valide la notification périodique du temps, liée à la présence d'objets à l'écoute.
+   */
+  @Test
+  public void valideTimerNotifications()
+  {
+    final Game partie = new Game();
+    final AtomicInteger nb = new AtomicInteger();
+    final CountDownLatch notifie = new CountDownLatch(2);
+    final PropertyChangeListener ecouteur = new PropertyChangeListener()
+    {
+      public void propertyChange(final PropertyChangeEvent pEvenement)
+      {
+        assertEquals("timer", pEvenement.getPropertyName());
+        nb.incrementAndGet();
+        notifie.countDown();
+      }
+    };
+    partie.addPropertyChangeListener("timer", ecouteur);
+    try
+    {
+      assertTrue(notifie.await(5, TimeUnit.SECONDS));
+    }
+    catch (final InterruptedException e)
+    {
+      fail(e.toString());
+    }
+
+    // Plus de notification une fois le dernier objet à l'écoute retiré.
+    partie.removePropertyChangeListener("timer", ecouteur);
+    pause(100);
+    final int fin = nb.get();
+    pause(1500);
+    assertEquals(fin, nb.get());
+  }
+
+  /**
+   * Modèle de référence d'une partie, reproduisant le fonctionnement d'origine de {@link Game} :
+   * toutes les positions sont conservées et l'état est recalculé à chaque demande.
+   */
+  private static final class ReferenceGame
+  {
+    /** Mouvements exécutés. */
+    private final List<Move> _moves = new ArrayList<Move>();
+
+    /** Positions successives. */
+    private final List<MoveGenerator> _positions = new ArrayList<MoveGenerator>();
+
+    /** Chaînes SAN des mouvements exécutés. */
+    private final List<String> _sanMoves = new ArrayList<String>();
+
+    /** Mouvement courant (>= 0). */
+    private int _currentMove;
+
+    /**
+     * Instancie un nouveau modèle de partie.
+     * 
+     * @param pEtat Position de départ.
+     */
+    ReferenceGame(final MoveGenerator pEtat)
+    {
+      _positions.add(pEtat);
+    }
+
+    /**
+     * Renvoi la position courante.
+     * 
+     * @return Position courante.
+     */
+    MoveGenerator getBoard()
+    {
+      return _positions.get(_currentMove);
+    }
+
+    /**
+     * Renvoi le mouvement courant.
+     * 
+     * @return Mouvement courant (ou null si aucun).
+     */
+    Move getCurrentMove()
+    {
+      if (_currentMove > 0)
+      {
+        return _moves.get(_currentMove - 1);
+      }
+
+      return null;
+    }
+
+    /**
+     * Renvoi l'indice du mouvement courant.
+     * 
+     * @return Index du mouvement actuel.
+     */
+    int getCurrentMoveIndex()
+    {
+      return _currentMove - 1;
+    }
+
+    /**
+     * Renvoi les mouvements exécutés.
+     * 
+     * @return Liste des mouvements.
+     */
+    List<Move> getMoves()
+    {
+      return _moves;
+    }
+
+    /**
+     * Renvoi les chaînes SAN des mouvements exécutés.
+     * 
+     * @return Liste des chaînes SAN.
+     */
+    List<String> getSANStrings()
+    {
+      return _sanMoves;
+    }
+
+    /**
+     * Renvoi la position de départ.
+     * 
+     * @return Position de départ.
+     */
+    MoveGenerator getStartingPosition()
+    {
+      return _positions.get(0);
+    }
+
+    /**
+     * Renvoi l'état de la partie à la position courante.
+     * 
+     * @return Etat de la partie.
+     */
+    Game.State getState()
+    {
+      final MoveGenerator etat = getBoard();
+      final boolean trait = etat.isWhiteActive();
+      if (etat.getValidMoves(trait).length == 0)
+      {
+        if (etat.isInCheck(trait))
+        {
+          return trait ? Game.State.BLACK_MATES : Game.State.WHITE_MATES;
+        }
+        return Game.State.STALEMATE;
+      }
+      if (etat.getHalfmoveCount() > 50)
+      {
+        return Game.State.DRAWN_BY_50_MOVE_RULE;
+      }
+      int rep = 0;
+      for (int i = 0; i <= _currentMove; i++)
+      {
+        if (etat.equals(_positions.get(i)))
+        {
+          rep++;
+        }
+      }
+      if (rep >= 3)
+      {
+        return Game.State.DRAWN_BY_TRIPLE_REPETITION;
+      }
+
+      return Game.State.IN_PROGRESS;
+    }
+
+    /**
+     * Aller au premier mouvement.
+     * 
+     * @return "true" si la position courante a changé.
+     */
+    boolean goFirst()
+    {
+      final boolean res = _currentMove > 0;
+      _currentMove = 0;
+      return res;
+    }
+
+    /**
+     * Aller au dernier mouvement.
+     * 
+     * @return "true" si la position courante a changé.
+     */
+    boolean goLast()
+    {
+      final boolean res = _currentMove < _moves.size();
+      _currentMove = _moves.size();
+      return res;
+    }
+
+    /**
+     * Aller au mouvement suivant.
+     * 
+     * @return "true" si la position courante a changé.
+     */
+    boolean goNext()
+    {
+      if (_currentMove < _moves.size())
+      {
+        _currentMove++;
+        return true;
+      }
+
+      return false;
+    }
+
+    /**
+     * Aller au mouvement précédent.
+     * 
+     * @return "true" si la position courante a changé.
+     */
+    boolean goPrevious()
+    {
+      if (_currentMove > 0)
+      {
+        _currentMove--;
+        return true;
+      }
+
+      return false;
+    }
+
+    /**
+     * Ajoute un mouvement à partir de la position courante.
+     * 
+     * @param pMouvement Mouvement à ajouter.
+     */
+    void moveFromCurrent(final Move pMouvement)
+    {
+      while (_moves.size() > _currentMove)
+      {
+        _moves.remove(_moves.size() - 1);
+        _sanMoves.remove(_sanMoves.size() - 1);
+        _positions.remove(_positions.size() - 1);
+      }
+      final MoveGenerator etat = getBoard();
+      final StringBuilder san = new StringBuilder();
+      if (etat.isWhiteActive())
+      {
+        san.append(etat.getFullmoveNumber()).append(". ");
+      }
+      san.append(SANUtils.toSAN(etat, pMouvement)).append(' ');
+      _positions.add(etat.derive(pMouvement, true));
+      _moves.add(pMouvement);
+      _currentMove++;
+      switch (getState())
+      {
+        case IN_PROGRESS :
+          break;
+        case WHITE_MATES :
+          san.append("1-0");
+          break;
+        case BLACK_MATES :
+          san.append("0-1");
+          break;
+        case STALEMATE :
+          san.append("1/2-1/2");
+          break;
+        default :
+          san.append("1/2-1/2 {Repetition}");
+      }
+      _sanMoves.add(san.toString());
+    }
+  }
+}
@@ -71,23 +71,28 @@ final class MailboxBoard extends AbstractMoveGenerator
   private static final Square [] NO_SQUARE = new Square [ 0 ];
 
   /**
-   * Buffer de travail pour optimiser la recherche des cibles de mouvements.
+   * Buffers de travail pour optimiser la recherche des cibles de mouvements.
    * <p>
-   * L'utilisation d'un buffer statique optimise les performances mais nécessite de faire très
-   * attention à la synchronisation pour que la classe reste sûre vis-à-vis des threads.
+   * Chaque fil d'exécution dispose de son propre buffer : la recherche des cibles ne partage
+   * aucune donnée modifiable et n'a donc besoin d'aucune synchronisation.
    * </p>
    */
-  // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas).
-  private static final int [] SQUARES_BUFFER = new int [ 27 ];
-
-  /** Indice du dernier élément valide dans les buffer de travail des cases. */
-  private static int S_nbBufferedSquares;
+  private static final ThreadLocal<int []> SQUARES_BUFFER = new ThreadLocal<int []>()
+  {
+    @Override
+    protected int [] initialValue()
+    {
+      // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des
+      // cas).
+      return new int [ 27 ];
+    }
+  };
 
   /** Description du plateau. */
   private final Piece [] _pieces = new Piece [ FILE_COUNT * RANK_COUNT ];
 
   /** Clé de hachage. */
-  private int _hashCode;
+  private long _zobristKey;
 
   /**
    * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
@@ -102,7 +107,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     {
       _pieces[s.getIndex()] = pEtat.getPieceAt(s);
     }
-    _hashCode = super.hashCode();
+    _zobristKey = super.getZobristKey();
   }
 
   /**
@@ -115,19 +120,24 @@ final class MailboxBoard extends AbstractMoveGenerator
     super(pEtat);
 
     System.arraycopy(pEtat._pieces, 0, _pieces, 0, FILE_COUNT * RANK_COUNT);
-    _hashCode = pEtat._hashCode;
+    _zobristKey = pEtat._zobristKey;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles des mouvements possibles (y compris ceux
    * mettant le roi en échec) pour la pièce contenue par une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addAllTargets(final int pOrigine)
+  private int addAllTargets(final int [] pCibles, final int pNombre, final int pOrigine)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final Piece piece = _pieces[pOrigine];
     if (piece != null)
     {
@@ -135,41 +145,49 @@ final class MailboxBoard extends AbstractMoveGenerator
       switch (piece.getType())
       {
         case BISHOP :
-          addBishopTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
           break;
         case KING :
-          addKingTargets(pOrigine, trait);
+          nb = addKingTargets(pCibles, nb, pOrigine, trait);
           break;
         case KNIGHT :
-          addKnightTargets(pOrigine, trait);
+          nb = addKnightTargets(pCibles, nb, pOrigine, trait);
           break;
         case PAWN :
-          addPawnTargets(pOrigine, trait);
+          nb = addPawnTargets(pCibles, nb, pOrigine, trait);
           break;
         case QUEEN :
-          addBishopTargets(pOrigine, trait);
-          addRookTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         case ROOK :
-          addRookTargets(pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         default :
           assert false;
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "fou" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addBishopTargets(final int pOrigine, final boolean pBlanc)
+  private int addBishopTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
 
     // Mouvements / prise vers le haut/gauche...
@@ -180,13 +198,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -202,13 +220,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -224,13 +242,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -246,32 +264,40 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       mbDst -= 9;
       dst = MAILBOX[mbDst];
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * roi.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addKingTargets(final int pOrigine, final boolean pBlanc)
+  private int addKingTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
     boolean testerRoque = false;
     for (final int km : KING_MOVES)
@@ -282,7 +308,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
           testerRoque = true;
         }
       }
@@ -295,7 +321,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece t = _pieces[dst + 3];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst + 2;
+          pCibles[nb++] = dst + 2;
         }
       }
       if (canCastleLong(pBlanc) && (_pieces[dst - 1] == null) && (_pieces[dst - 2] == null)
@@ -304,23 +330,31 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece t = _pieces[dst - 4];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst - 2;
+          pCibles[nb++] = dst - 2;
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * cavalier.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addKnightTargets(final int pOrigine, final boolean pBlanc)
+  private int addKnightTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
     for (final int km : KNIGHT_MOVES)
     {
@@ -330,23 +364,31 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * pion.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addPawnTargets(final int pOrigine, final boolean pBlanc)
+  private int addPawnTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final Square cSrc = Square.valueOf(pOrigine);
     final int ySrc = cSrc.getRank();
     if (pBlanc)
@@ -356,11 +398,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine + FILE_COUNT] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + FILE_COUNT;
+          pCibles[nb++] = pOrigine + FILE_COUNT;
           // Mouvement initial de 2
           if ((ySrc == 1) && (_pieces[pOrigine + FILE_COUNT * 2] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + FILE_COUNT * 2;
+            pCibles[nb++] = pOrigine + FILE_COUNT * 2;
           }
         }
         final int xSrc = cSrc.getFile();
@@ -371,7 +413,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && (!pDest.isWhite())) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -381,7 +423,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && (!pDest.isWhite())) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
@@ -393,11 +435,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine - FILE_COUNT] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - FILE_COUNT;
+          pCibles[nb++] = pOrigine - FILE_COUNT;
           // Mouvement initial de 2
           if ((ySrc == RANK_COUNT - 2) && (_pieces[pOrigine - FILE_COUNT * 2] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - FILE_COUNT * 2;
+            pCibles[nb++] = pOrigine - FILE_COUNT * 2;
           }
         }
         final int xSrc = cSrc.getFile();
@@ -408,7 +450,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && pDest.isWhite()) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -418,24 +460,32 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && pDest.isWhite()) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "tour" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addRookTargets(final int pOrigine, final boolean pBlanc)
+  private int addRookTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
 
     // Mouvements / prise vers la gauche...
@@ -446,13 +496,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -467,13 +517,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -488,13 +538,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -510,19 +560,21 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       mbDst -= 10;
       dst = MAILBOX[mbDst];
     }
+
+    return nb;
   }
 
   /**
@@ -556,7 +608,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     {
       final boolean t = !isWhiteActive();
       res.setWhiteActive(t);
-      res._hashCode ^= ZOBRIST_WHITE_ACTIVE;
+      res._zobristKey ^= ZOBRIST_WHITE_ACTIVE;
       if (t)
       {
         res.setFullmoveNumber(getFullmoveNumber() + 1);
@@ -580,7 +632,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     assert res._pieces[iSrc] == piece;
     res._pieces[iSrc] = null;
     final int pieceOrdinal = piece.ordinal();
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
+    res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
     final Square dst = pMouvement.getTo();
     final int iDst = dst.getIndex();
     final int xDst = dst.getFile();
@@ -588,10 +640,10 @@ final class MailboxBoard extends AbstractMoveGenerator
     final Piece pieceDst = _pieces[iDst];
     if (pieceDst != null)
     {
-      res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
+      res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
     }
     res._pieces[iDst] = piece;
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+    res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
     // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
     if (typePiece == KING)
     {
@@ -607,9 +659,9 @@ final class MailboxBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i + 3] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
           res.setCastled(trait, true);
         }
         else if (xDst == 6)
@@ -621,9 +673,9 @@ final class MailboxBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i - 2] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
           res.setCastled(trait, true);
         }
       }
@@ -636,11 +688,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         res.setCastleShort(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_WHITE_CASTLE_SHORT;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_BLACK_CASTLE_SHORT;
         }
       }
     }
@@ -651,11 +703,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         res.setCastleLong(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_WHITE_CASTLE_LONG;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_BLACK_CASTLE_LONG;
         }
       }
     }
@@ -676,8 +728,8 @@ final class MailboxBoard extends AbstractMoveGenerator
         if (yDst == RANK_COUNT - 1)
         {
           res._pieces[iDst] = WHITE_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == 1) && (yDst == 3))
         {
@@ -687,7 +739,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         {
           final int epDst = iDst - FILE_COUNT;
           res._pieces[epDst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
         }
       }
       else
@@ -696,8 +748,8 @@ final class MailboxBoard extends AbstractMoveGenerator
         if (yDst == 0)
         {
           res._pieces[iDst] = BLACK_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
         {
@@ -707,7 +759,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         {
           final int epDst = iDst + FILE_COUNT;
           res._pieces[epDst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
         }
       }
     }
@@ -715,11 +767,11 @@ final class MailboxBoard extends AbstractMoveGenerator
     final Square epFinal = res.getEnPassant();
     if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
+      res._zobristKey ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
     }
     if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
+      res._zobristKey ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
     }
 
     return res;
@@ -779,17 +831,13 @@ final class MailboxBoard extends AbstractMoveGenerator
     {
       final Square [] res;
 
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
-
-        addAllTargets(idx);
+      final int [] cibles = SQUARES_BUFFER.get();
+      final int nb = addAllTargets(cibles, 0, idx);
 
-        res = new Square [ S_nbBufferedSquares ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-        }
+      res = new Square [ nb ];
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+      {
+        res[t] = Square.valueOf(cibles[t]);
       }
 
       return res;
@@ -812,17 +860,13 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb = addBishopTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      addBishopTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -841,17 +885,13 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb = addKingTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      addKingTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -870,17 +910,13 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb = addKnightTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      addKnightTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -899,17 +935,13 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addPawnTargets(pOrigine.getIndex(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb = addPawnTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -957,19 +989,15 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      final int idx = pOrigine.getIndex();
-      addBishopTargets(idx, pBlanc);
-      addRookTargets(idx, pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int idx = pOrigine.getIndex();
+    int nb = addBishopTargets(cibles, 0, idx, pBlanc);
+    nb = addRookTargets(cibles, nb, idx, pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -989,17 +1017,13 @@ final class MailboxBoard extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb = addRookTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      addRookTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(cibles[t]);
     }
 
     return res;
@@ -1072,64 +1096,73 @@ final class MailboxBoard extends AbstractMoveGenerator
     final Piece piece = _pieces[iSrc];
     if (piece != null)
     {
-      synchronized (SQUARES_BUFFER)
+      final int [] cibles = SQUARES_BUFFER.get();
+      final int nb = addAllTargets(cibles, 0, iSrc);
+      int nbFinal = nb;
+      final boolean trait = piece.isWhite();
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
       {
-        S_nbBufferedSquares = 0;
-        addAllTargets(iSrc);
-        int nbFinal = S_nbBufferedSquares;
-        final boolean trait = piece.isWhite();
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
+        final int idxCible = cibles[t];
+        final Square cible = Square.valueOf(idxCible);
+        final Piece prise = _pieces[idxCible];
+        if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
         {
-          final int idxCible = SQUARES_BUFFER[t];
-          final Square cible = Square.valueOf(idxCible);
-          final Piece prise = _pieces[idxCible];
-          if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
-          {
-            SQUARES_BUFFER[t] = -1;
-            nbFinal--;
-          }
-          else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
+          cibles[t] = -1;
+          nbFinal--;
+        }
+        else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
+        {
+          final int delta = 4 - cible.getFile();
+          if ((delta == 2) || (delta == -2))
           {
-            final int delta = 4 - cible.getFile();
-            if ((delta == 2) || (delta == -2))
+            // Elimine le roque si le roi est en échec ou s'il le serait sur la case
+            // intermédiaire...
+            if (isInCheck(trait)
+                || derive(
+                    new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
+                    false).isInCheck(trait))
             {
-              // Elimine le roque si le roi est en échec ou s'il le serait sur la case
-              // intermédiaire...
-              if (isInCheck(trait)
-                  || derive(
-                      new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
-                      false).isInCheck(trait))
-              {
-                SQUARES_BUFFER[t] = -1;
-                nbFinal--;
-              }
+              cibles[t] = -1;
+              nbFinal--;
             }
           }
         }
-        assert (nbFinal >= 0) && (nbFinal <= S_nbBufferedSquares);
+      }
+      assert (nbFinal >= 0) && (nbFinal <= nb);
 
-        if (nbFinal == 0)
-        {
-          return NO_SQUARE;
-        }
+      if (nbFinal == 0)
+      {
+        return NO_SQUARE;
+      }
 
-        final Square [] res = new Square [ nbFinal ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
+      final Square [] res = new Square [ nbFinal ];
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+      {
+        final int idx = cibles[t];
+        if (idx >= 0)
         {
-          final int idx = SQUARES_BUFFER[t];
-          if (idx >= 0)
-          {
-            res[--nbFinal] = Square.valueOf(idx);
-          }
+          res[--nbFinal] = Square.valueOf(idx);
         }
-
-        return res;
       }
+
+      return res;
     }
 
     return NO_SQUARE;
   }
 
+  /**
+   * Surcharge du calcul de la clé de hachage "Zobrist", pour optimisation.
+   * 
+   * @return Clé de hachage sur 64 bits.
+   */
+  @Override
+  public long getZobristKey()
+  {
+    assert _zobristKey == super.getZobristKey();
+    return _zobristKey;
+  }
+
   /**
    * Surcharge du calcul des clés de hachage, pour optimisation.
    * 
@@ -1138,8 +1171,7 @@ final class MailboxBoard extends AbstractMoveGenerator
   @Override
   public int hashCode()
   {
-    assert _hashCode == super.hashCode();
-    return _hashCode;
+    return (int) getZobristKey();
   }
 
   /**
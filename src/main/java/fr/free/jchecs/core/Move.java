@@ -33,6 +33,9 @@ public final class Move implements Serializable
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 8372326813848101389L;
 
+  /** Liste des pièces, indexée par leur rang (évite la copie faite par Piece.values()). */
+  private static final Piece [] PIECES = Piece.values();
+
   /** Pièce déplacée. */
   private final Piece _piece;
 
@@ -45,9 +48,6 @@ public final class Move implements Serializable
   /** Eventuelle pièce capturée. */
   private final Piece _captured;
 
-  /** Buffer stockant l'entier identifiant un mouvement. */
-  private Integer _id;
-
   /**
    * Instancie une nouvelle description de mouvement, sans prise.
    * 
@@ -176,17 +176,86 @@ public final class Move implements Serializable
    */
   public int toId()
   {
-    if (_id == null)
+    return toId(_piece, _from.getIndex(), _to.getIndex(), _captured);
+  }
+
+  /**
+   * Renvoi l'entier identifiant un mouvement, sans instancier de description.
+   * <p>
+   * Cet entier, jamais nul, est la représentation compacte des mouvements utilisée par les
+   * recherches des moteurs : il est décodé par {@link #getPiece(int)}, {@link #getFromIndex(int)},
+   * {@link #getToIndex(int)} et {@link #getCaptured(int)}.
+   * </p>
+   * 
+   * @param pPiece Pièce à bouger.
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pDestination Indice de la case finale du mouvement.
+   * @param pPrise Pièce prise (ou null si aucune).
+   * @return Entier identifiant le mouvement.
+   */
+  public static int toId(final Piece pPiece, final int pOrigine, final int pDestination,
+      final Piece pPrise)
+  {
+    assert pPiece != null;
+    assert pOrigine != pDestination;
+
+    int res = (pPiece.ordinal() << 20) + (pOrigine << 14) + (pDestination << 8);
+    if (pPrise != null)
+    {
+      res += (pPrise.ordinal() + 1) << 4;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi l'éventuelle pièce capturée par un mouvement identifié par un entier.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Pièce capturée (ou null si aucune).
+   */
+  public static Piece getCaptured(final int pId)
+  {
+    final int idCpt = (pId >> 4) & 0xF;
+    if (idCpt <= 0)
     {
-      int id = (_piece.ordinal() << 20) + (_from.getIndex() << 14) + (_to.getIndex() << 8);
-      if (_captured != null)
-      {
-        id += (_captured.ordinal() + 1) << 4;
-      }
-      _id = Integer.valueOf(id);
+      return null;
     }
 
-    return _id.intValue();
+    return PIECES[idCpt - 1];
+  }
+
+  /**
+   * Renvoi l'indice de la case de départ d'un mouvement identifié par un entier.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Indice de la case de départ.
+   */
+  public static int getFromIndex(final int pId)
+  {
+    return (pId >> 14) & 0x3F;
+  }
+
+  /**
+   * Renvoi la pièce déplacée par un mouvement identifié par un entier.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Pièce déplacée.
+   */
+  public static Piece getPiece(final int pId)
+  {
+    return PIECES[(pId >> 20) & 0xF];
+  }
+
+  /**
+   * Renvoi l'indice de la case d'arrivée d'un mouvement identifié par un entier.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Indice de la case d'arrivée.
+   */
+  public static int getToIndex(final int pId)
+  {
+    return (pId >> 8) & 0x3F;
   }
 
   /**
@@ -214,20 +283,7 @@ public final class Move implements Serializable
    */
   public static Move valueOf(final int pId)
   {
-    final Piece pce = Piece.values()[(pId >> 20) & 0xF];
-    final Square src = Square.valueOf((pId >> 14) & 0x3F);
-    final Square dst = Square.valueOf((pId >> 8) & 0x3F);
-    final int idCpt = (pId >> 4) & 0xF;
-    final Piece cpt;
-    if (idCpt <= 0)
-    {
-      cpt = null;
-    }
-    else
-    {
-      cpt = Piece.values()[idCpt - 1];
-    }
-
-    return new Move(pce, src, dst, cpt);
+    return new Move(getPiece(pId), Square.valueOf(getFromIndex(pId)),
+        Square.valueOf(getToIndex(pId)), getCaptured(pId));
   }
 }
@@ -413,6 +413,73 @@ public final class MoveGeneratorBench
     }
   }
 
+  /**
+   * Teste la montée en charge de la recherche des cases cibles lorsque plusieurs fils d'exécution
+   * l'utilisent simultanément, chacun sur sa propre position.
+   */
+  private static void benchGetQueenTargetsThreads()
+  {
+    final int nbTests = 2500;
+    final int nbMaxThreads = Runtime.getRuntime().availableProcessors();
+
+    System.out.println("Benchmark (" + 64 * nbTests * 4 + " / thread) : "
+        + "getQueenTargets(Square,boolean) multi-threads");
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      for (int nbThreads = 1; nbThreads <= nbMaxThreads; nbThreads *= 2)
+      {
+        final Thread [] threads = new Thread [ nbThreads ];
+        for (int i = nbThreads; --i >= 0; /* Pré-décrémenté */)
+        {
+          final MoveGenerator etat = BoardFactory.valueOf(t, BoardFactory.State.EMPTY);
+          threads[i] = new Thread(new Runnable()
+          {
+            public void run()
+            {
+              final Square [] lst = Square.values();
+              for (int f = lst.length - 1; f >= 0; f--)
+              {
+                final Square s = lst[f];
+                for (int n = nbTests; n > 0; n--)
+                {
+                  etat.getQueenTargets(s, true);
+                  etat.getQueenTargets(s, false);
+                  etat.getQueenTargets(s, true);
+                  etat.getQueenTargets(s, false);
+                }
+              }
+            }
+          });
+        }
+        final long debut = System.currentTimeMillis();
+        for (final Thread th : threads)
+        {
+          th.start();
+        }
+        try
+        {
+          for (final Thread th : threads)
+          {
+            th.join();
+          }
+        }
+        catch (final InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        final long fin = System.currentTimeMillis();
+        final long duree = Math.max(1, fin - debut);
+        System.out.println("  " + t + " x " + nbThreads + " = " + duree + "ms ("
+            + (64L * nbTests * 4 * nbThreads / duree) + " appels/ms)");
+      }
+    }
+  }
+
   /**
    * Lance les différents tests de performance.
    * 
@@ -431,5 +498,6 @@ public final class MoveGeneratorBench
     benchGetRookTargets();
     benchGetValidMoves();
     benchGetValidTargets();
+    benchGetQueenTargetsThreads();
   }
 }
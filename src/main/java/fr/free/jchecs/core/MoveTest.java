@@ -105,6 +105,48 @@ public final class MoveTest
     assertFalse(mvt1.equals(Move.valueOf(mvt3.toId())));
   }
 
+  /**
+   * Teste le décodage des entiers identifiants de mouvements, sans instanciation.
+   */
+  @Test
+  public void testIdAccessors()
+  {
+    final Piece [] pieces = Piece.values();
+    final Square [] cases = Square.values();
+    for (final Piece piece : pieces)
+    {
+      for (final Square src : cases)
+      {
+        for (final Square dst : cases)
+        {
+          if (src == dst)
+          {
+            continue;
+          }
+          for (int p = -1; p < pieces.length; p++)
+          {
+            Piece prise = null;
+            if (p >= 0)
+            {
+              prise = pieces[p];
+              if (prise.isWhite() == piece.isWhite())
+              {
+                continue;
+              }
+            }
+            final int id = Move.toId(piece, src.getIndex(), dst.getIndex(), prise);
+            assertTrue(id != 0);
+            assertSame(piece, Move.getPiece(id));
+            assertEquals(src.getIndex(), Move.getFromIndex(id));
+            assertEquals(dst.getIndex(), Move.getToIndex(id));
+            assertSame(prise, Move.getCaptured(id));
+            assertEquals(id, new Move(piece, src, dst, prise).toId());
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Teste la méthode "toString".
    */
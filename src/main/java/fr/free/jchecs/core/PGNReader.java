@@ -0,0 +1,368 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lecteur séquentiel de recueils de parties au format PGN.
+ * <p>
+ * Les parties sont lues une à une sous forme de descriptions légères ({@link PGNRecord}) : seules
+ * la partie en cours de lecture et, pour un décodage parallèle, un nombre borné de parties en
+ * attente sont conservées en mémoire, quelle que soit la taille du recueil. Aucune description de
+ * partie complète ({@link Game}) n'est construite, sauf à la demande.
+ * </p>
+ * <p>
+ * Classe non sûre vis-à-vis des threads : une instance ne doit être lue que par un seul fil
+ * d'exécution.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PGNReader implements Closeable
+{
+  /** Nombre de parties en attente de décodage, par fil d'exécution de décodage. */
+  private static final int QUEUE_FACTOR = 4;
+
+  /** Nombre de parties lues. */
+  private long _count;
+
+  /** Flux PGN. */
+  private final BufferedReader _in;
+
+  /** Ligne lue en avance (début de la partie suivante), ou null. */
+  private String _pending;
+
+  /**
+   * Instancie un nouveau lecteur.
+   * 
+   * @param pFlux Flux contenant les données au format PGN.
+   */
+  public PGNReader(final Reader pFlux)
+  {
+    if (pFlux == null)
+    {
+      throw new NullPointerException("Missing PGN stream");
+    }
+
+    if (pFlux instanceof BufferedReader)
+    {
+      _in = (BufferedReader) pFlux;
+    }
+    else
+    {
+      _in = new BufferedReader(pFlux);
+    }
+  }
+
+  /**
+   * Ferme le flux PGN.
+   * 
+   * @throws IOException en cas d'erreur lors de la fermeture.
+   */
+  public void close() throws IOException
+  {
+    _in.close();
+  }
+
+  /**
+   * Renvoi le nombre de parties lues jusqu'ici.
+   * 
+   * @return Nombre de parties lues.
+   */
+  public long getCount()
+  {
+    return _count;
+  }
+
+  /**
+   * Lit la partie suivante du flux.
+   * 
+   * @return Description légère de la partie (ou null si la fin du flux est atteinte).
+   * @throws PGNException en cas d'erreur de lecture du flux.
+   */
+  public PGNRecord next() throws PGNException
+  {
+    final Map<String, String> tags = new LinkedHashMap<String, String>();
+    final StringBuilder mvts = new StringBuilder();
+    int prof = 0;
+
+    try
+    {
+      String ligneLue = readLine();
+      while (ligneLue != null)
+      {
+        final String ligne = ligneLue.trim();
+        if ((prof == 0) && ligne.startsWith("["))
+        {
+          if (mvts.length() > 0)
+          {
+            // Début de la partie suivante, sans marqueur de résultat pour la précédente...
+            _pending = ligneLue;
+            break;
+          }
+          // Interprétation des tags d'en-tête...
+          final int debTag = ligne.indexOf(" \"");
+          if ((debTag >= 0) && ligne.endsWith("\"]"))
+          {
+            tags.put(ligne.substring(1, debTag).trim(), ligne.substring(debTag + 2,
+                ligne.length() - 2).trim());
+          }
+        }
+        else if ((prof > 0) || ((ligne.length() > 0) && !ligne.startsWith("%")))
+        {
+          // Concaténation de la liste des mouvements, jusqu'au marqueur de résultat...
+          mvts.append(' ').append(ligne);
+          for (int i = ligne.length() - 1; i >= 0; i--)
+          {
+            final char c = ligne.charAt(i);
+            if ((c == '(') || (c == '{'))
+            {
+              prof++;
+            }
+            else if ((c == ')') || (c == '}'))
+            {
+              prof--;
+            }
+          }
+          if ((prof <= 0) && isTerminated(ligne))
+          {
+            break;
+          }
+        }
+        ligneLue = readLine();
+      }
+    }
+    catch (final IOException e)
+    {
+      throw new PGNException("PGN stream reading error", e);
+    }
+
+    if (tags.isEmpty() && (mvts.length() == 0))
+    {
+      return null;
+    }
+
+    return new PGNRecord(_count++, tags, mvts.toString());
+  }
+
+  /**
+   * Lit toutes les parties restantes du flux, et transmet leurs mouvements décodés à un
+   * traitement.
+   * <p>
+   * La lecture se fait sur le fil d'exécution appelant. Avec plus d'un fil d'exécution de décodage,
+   * les parties sont décodées et transmises en parallèle, sans ordre garanti : le traitement doit
+   * alors être sûr vis-à-vis des threads. Si les parties en attente de décodage sont trop
+   * nombreuses, la partie suivante est décodée par le fil appelant, ce qui suspend la lecture. Si
+   * le traitement échoue sur un fil de décodage, la lecture s'arrête et la première erreur est
+   * relancée une fois les décodages en cours terminés.
+   * </p>
+   * 
+   * @param pTraitement Traitement des parties.
+   * @param pFils Nombre de fils d'exécution de décodage (1 pour décoder sur le fil appelant).
+   * @return Nombre de parties lues.
+   * @throws PGNException en cas d'erreur de lecture du flux.
+   */
+  public long read(final Handler pTraitement, final int pFils) throws PGNException
+  {
+    if (pTraitement == null)
+    {
+      throw new NullPointerException("Missing PGN handler");
+    }
+    if (pFils < 1)
+    {
+      throw new IllegalArgumentException("Illegal thread count " + pFils);
+    }
+
+    final long debut = _count;
+    if (pFils == 1)
+    {
+      PGNRecord partie = next();
+      while (partie != null)
+      {
+        decode(partie, pTraitement);
+        partie = next();
+      }
+      return _count - debut;
+    }
+
+    final AtomicReference<Throwable> echec = new AtomicReference<Throwable>();
+    final ThreadPoolExecutor decodeurs =
+        new ThreadPoolExecutor(pFils, pFils, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(pFils * QUEUE_FACTOR),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    try
+    {
+      PGNRecord partie = next();
+      while ((partie != null) && (echec.get() == null))
+      {
+        final PGNRecord p = partie;
+        decodeurs.execute(new Runnable()
+        {
+          /**
+           * Décode la partie et la transmet au traitement, en conservant la première erreur.
+           */
+          public void run()
+          {
+            if (echec.get() != null)
+            {
+              return;
+            }
+            try
+            {
+              decode(p, pTraitement);
+            }
+            catch (final RuntimeException e)
+            {
+              echec.compareAndSet(null, e);
+            }
+            catch (final Error e)
+            {
+              echec.compareAndSet(null, e);
+            }
+          }
+        });
+        if (echec.get() == null)
+        {
+          partie = next();
+        }
+      }
+    }
+    finally
+    {
+      decodeurs.shutdown();
+      boolean interrompu = false;
+      while (!decodeurs.isTerminated())
+      {
+        try
+        {
+          decodeurs.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+          interrompu = true;
+        }
+      }
+      if (interrompu)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    final Throwable e = echec.get();
+    if (e instanceof RuntimeException)
+    {
+      throw (RuntimeException) e;
+    }
+    else if (e instanceof Error)
+    {
+      throw (Error) e;
+    }
+
+    return _count - debut;
+  }
+
+  /**
+   * Décode les mouvements d'une partie et la transmet à un traitement.
+   * 
+   * @param pPartie Partie à décoder.
+   * @param pTraitement Traitement des parties.
+   */
+  private static void decode(final PGNRecord pPartie, final Handler pTraitement)
+  {
+    assert pPartie != null;
+    assert pTraitement != null;
+
+    final int [] mvts;
+    try
+    {
+      mvts = pPartie.toMoveIds();
+    }
+    catch (final PGNException e)
+    {
+      pTraitement.gameRejected(pPartie, e);
+      return;
+    }
+    pTraitement.gameRead(pPartie, mvts);
+  }
+
+  /**
+   * Indique si une ligne de mouvements se termine par un marqueur de résultat.
+   * 
+   * @param pLigne Ligne de mouvements.
+   * @return "true" si la ligne se termine par un marqueur de résultat.
+   */
+  private static boolean isTerminated(final String pLigne)
+  {
+    assert pLigne != null;
+
+    return pLigne.endsWith("*") || pLigne.endsWith("1-0") || pLigne.endsWith("0-1")
+        || pLigne.endsWith("1/2-1/2");
+  }
+
+  /**
+   * Lit la ligne suivante du flux, en tenant compte d'une éventuelle ligne lue en avance.
+   * 
+   * @return Ligne lue (ou null si la fin du flux est atteinte).
+   * @throws IOException en cas d'erreur de lecture.
+   */
+  private String readLine() throws IOException
+  {
+    final String res = _pending;
+    if (res != null)
+    {
+      _pending = null;
+      return res;
+    }
+
+    return _in.readLine();
+  }
+
+  /**
+   * Interface à implémenter par les traitements de parties lues par
+   * {@link PGNReader#read(Handler, int)}.
+   */
+  public interface Handler
+  {
+    /**
+     * Traite une partie dont les mouvements ont été décodés.
+     * 
+     * @param pPartie Description légère de la partie.
+     * @param pMouvements Identifiants des mouvements (voir {@link Move#toId()}).
+     */
+    void gameRead(final PGNRecord pPartie, final int [] pMouvements);
+
+    /**
+     * Traite une partie dont les mouvements n'ont pas pu être décodés.
+     * 
+     * @param pPartie Description légère de la partie.
+     * @param pErreur Erreur rencontrée.
+     */
+    void gameRejected(final PGNRecord pPartie, final PGNException pErreur);
+  }
+}
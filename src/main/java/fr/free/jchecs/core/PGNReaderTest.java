@@ -0,0 +1,193 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires du lecteur séquentiel de recueils PGN.
+ * 
+ * @author David Cotton
+ */
+public final class PGNReaderTest
+{
+  /** Recueil de test : une partie correcte, une partie illégale et une partie sans résultat. */
+  private static final String RECUEIL =
+      "[Event \"Test 1\"]\n" + "[White \"A\"]\n" + "[Black \"B\"]\n" + "\n"
+          + "1. e4 {Ouverture} e5 2. Nf3 (2. f4 exf4) Nc6 3. Bb5 a6 1-0\n" + "\n"
+          + "[Event \"Test 2\"]\n" + "\n" + "1. e4 e4 0-1\n" + "\n" + "[Event \"Test 3\"]\n"
+          + "% Ligne ignorée\n" + "1. d4 d5\n" + "2. c4\n" + "[Event \"Test 4\"]\n" + "\n"
+          + "1. Nf3 *\n";
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public PGNReaderTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Décode un recueil constitué de nombreuses copies du recueil de test.
+   * 
+   * @param pCopies Nombre de copies.
+   * @param pFils Nombre de fils de décodage.
+   * @param pTraitement Traitement des parties.
+   * @return Nombre de parties lues.
+   * @throws PGNException en cas d'erreur de lecture.
+   */
+  private static long read(final int pCopies, final int pFils,
+      final PGNReader.Handler pTraitement) throws PGNException
+  {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < pCopies; i++)
+    {
+      sb.append(RECUEIL).append('\n');
+    }
+
+    return new PGNReader(new StringReader(sb.toString())).read(pTraitement, pFils);
+  }
+
+  /**
+   * Teste la lecture partie par partie.
+   */
+  @Test
+  public void testNext()
+  {
+    final PGNReader lecteur = new PGNReader(new StringReader(RECUEIL));
+    try
+    {
+      PGNRecord partie = lecteur.next();
+      assertNotNull(partie);
+      assertEquals(0, partie.getIndex());
+      assertEquals("Test 1", partie.getTag("Event"));
+      assertEquals("A", partie.getTag("White"));
+      assertEquals(3, partie.getTags().size());
+
+      partie = lecteur.next();
+      assertEquals(1, partie.getIndex());
+      assertEquals("Test 2", partie.getTag("Event"));
+
+      // Une partie sans marqueur de résultat s'arrête au début de la suivante...
+      partie = lecteur.next();
+      assertEquals("Test 3", partie.getTag("Event"));
+      assertEquals(3, partie.getSANStrings().length);
+
+      partie = lecteur.next();
+      assertEquals("Test 4", partie.getTag("Event"));
+      assertEquals(1, partie.getSANStrings().length);
+
+      assertNull(lecteur.next());
+      assertEquals(4, lecteur.getCount());
+    }
+    catch (final PGNException e)
+    {
+      fail(e.toString());
+    }
+  }
+
+  /**
+   * Teste le décodage, séquentiel puis parallèle, avec rejet des parties illégales.
+   */
+  @Test
+  public void testRead()
+  {
+    for (final int fils : new int [] { 1, 4, })
+    {
+      final AtomicInteger lues = new AtomicInteger();
+      final AtomicInteger rejetees = new AtomicInteger();
+      final AtomicInteger mouvements = new AtomicInteger();
+      final PGNReader.Handler traitement = new PGNReader.Handler()
+      {
+        public void gameRead(final PGNRecord pPartie, final int [] pMouvements)
+        {
+          lues.incrementAndGet();
+          mouvements.addAndGet(pMouvements.length);
+        }
+
+        public void gameRejected(final PGNRecord pPartie, final PGNException pErreur)
+        {
+          assertEquals("Test 2", pPartie.getTag("Event"));
+          rejetees.incrementAndGet();
+        }
+      };
+      try
+      {
+        assertEquals(400, read(100, fils, traitement));
+      }
+      catch (final PGNException e)
+      {
+        fail(e.toString());
+      }
+      assertEquals(300, lues.get());
+      assertEquals(100, rejetees.get());
+      assertEquals(100 * (6 + 3 + 1), mouvements.get());
+    }
+  }
+
+  /**
+   * Teste la transmission d'une erreur du traitement survenue sur un fil de décodage.
+   */
+  @Test
+  public void testReadFailure()
+  {
+    final IllegalStateException erreur = new IllegalStateException("Test");
+    final Thread appelant = Thread.currentThread();
+    final AtomicBoolean echec = new AtomicBoolean();
+    final PGNReader.Handler traitement = new PGNReader.Handler()
+    {
+      public void gameRead(final PGNRecord pPartie, final int [] pMouvements)
+      {
+        // Seule une erreur survenant sur un fil de décodage est testée...
+        if ((Thread.currentThread() != appelant) && echec.compareAndSet(false, true))
+        {
+          throw erreur;
+        }
+      }
+
+      public void gameRejected(final PGNRecord pPartie, final PGNException pErreur)
+      {
+        // Sans importance ici...
+      }
+    };
+    try
+    {
+      read(1000, 4, traitement);
+      fail("Handler failure lost");
+    }
+    catch (final IllegalStateException e)
+    {
+      assertSame(erreur, e);
+    }
+    catch (final PGNException e)
+    {
+      fail(e.toString());
+    }
+  }
+}
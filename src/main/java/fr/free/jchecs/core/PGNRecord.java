@@ -0,0 +1,224 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+import static fr.free.jchecs.core.FENUtils.STANDART_STARTING_FEN;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description légère d'une partie lue dans un flux PGN : ses tags d'en-tête et le texte brut de
+ * ses mouvements.
+ * <p>
+ * Les mouvements ne sont décodés qu'à la demande, sous forme d'identifiants (voir
+ * {@link Move#toId()}) ou de description de partie complète. Le décodage n'utilise que des
+ * variables locales : plusieurs parties peuvent être décodées en parallèle.
+ * </p>
+ * <p>
+ * Les instances de cette classe sont des <b>immuables</b> : classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PGNRecord
+{
+  /** Taille du tampon de réception des mouvements valides d'une position. */
+  private static final int MAX_MOVES = 256;
+
+  /** Rang de la partie dans le flux (à partir de 0). */
+  private final long _index;
+
+  /** Texte brut de la liste des mouvements. */
+  private final String _moveText;
+
+  /** Tags d'en-tête, dans l'ordre du flux. */
+  private final Map<String, String> _tags;
+
+  /**
+   * Instancie une nouvelle description de partie.
+   * 
+   * @param pIndice Rang de la partie dans le flux.
+   * @param pTags Tags d'en-tête (la table n'est pas copiée).
+   * @param pMouvements Texte brut de la liste des mouvements.
+   */
+  PGNRecord(final long pIndice, final Map<String, String> pTags, final String pMouvements)
+  {
+    assert pIndice >= 0;
+    assert pTags != null;
+    assert pMouvements != null;
+
+    _index = pIndice;
+    _tags = Collections.unmodifiableMap(pTags);
+    _moveText = pMouvements;
+  }
+
+  /**
+   * Renvoi le rang de la partie dans le flux.
+   * 
+   * @return Rang de la partie (à partir de 0).
+   */
+  public long getIndex()
+  {
+    return _index;
+  }
+
+  /**
+   * Renvoi le texte brut de la liste des mouvements, tel que lu dans le flux.
+   * 
+   * @return Texte de la liste des mouvements.
+   */
+  public String getMoveText()
+  {
+    return _moveText;
+  }
+
+  /**
+   * Renvoi les chaines SAN normalisées des mouvements.
+   * 
+   * @return Chaines SAN des mouvements.
+   */
+  public String [] getSANStrings()
+  {
+    final List<String> res = PGNUtils.splitMoveText(new StringBuilder(_moveText));
+
+    return res.toArray(new String [ res.size() ]);
+  }
+
+  /**
+   * Renvoi la position de départ de la partie, au format FEN.
+   * 
+   * @return Contenu du tag "FEN" ou, à défaut, la position de départ standard.
+   */
+  public String getStartingPosition()
+  {
+    final String res = _tags.get("FEN");
+    if (res == null)
+    {
+      return STANDART_STARTING_FEN;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le contenu d'un tag d'en-tête.
+   * 
+   * @param pNom Nom du tag.
+   * @return Contenu du tag (ou null s'il est absent).
+   */
+  public String getTag(final String pNom)
+  {
+    return _tags.get(pNom);
+  }
+
+  /**
+   * Renvoi les tags d'en-tête, dans l'ordre du flux.
+   * 
+   * @return Table non modifiable des tags, indexée par leur nom.
+   */
+  public Map<String, String> getTags()
+  {
+    return _tags;
+  }
+
+  /**
+   * Construit la description de partie complète correspondante.
+   * 
+   * @return Description de partie.
+   * @throws PGNException en cas d'erreur dans la description PGN de la partie.
+   */
+  public Game toGame() throws PGNException
+  {
+    final Game res = new Game();
+    for (final Map.Entry<String, String> tag : _tags.entrySet())
+    {
+      PGNUtils.setTag(res, tag.getKey(), tag.getValue());
+    }
+    for (final int mvt : toMoveIds())
+    {
+      res.moveFromCurrent(Move.valueOf(mvt));
+    }
+
+    return res;
+  }
+
+  /**
+   * Décode les mouvements de la partie.
+   * 
+   * @return Identifiants des mouvements (voir {@link Move#toId()}).
+   * @throws PGNException en cas d'erreur dans la description PGN de la partie.
+   */
+  public int [] toMoveIds() throws PGNException
+  {
+    final SearchBoard etat;
+    final String fen = _tags.get("FEN");
+    if (fen == null)
+    {
+      etat = BoardFactory.newSearchBoard(BoardFactory.valueOf(FASTEST, STARTING));
+    }
+    else
+    {
+      try
+      {
+        etat = BoardFactory.newSearchBoard(FENUtils.toBoard(fen));
+      }
+      catch (final FENException e)
+      {
+        throw new PGNException("Invalid FEN tag", e);
+      }
+    }
+
+    final String [] sans = getSANStrings();
+    final int [] res = new int [ sans.length ];
+    final int [] coups = new int [ MAX_MOVES ];
+    for (int i = 0; i < sans.length; i++)
+    {
+      try
+      {
+        res[i] = SANUtils.toMoveId(etat, sans[i], coups);
+      }
+      catch (final SANException e)
+      {
+        throw new PGNException("Invalid PGN stream", e);
+      }
+      etat.makeMove(res[i]);
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi une chaine représentant la partie.
+   * 
+   * @return Chaine décrivant la partie.
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+    sb.append("[index=").append(_index);
+    sb.append(",tags=").append(_tags).append(']');
+
+    return sb.toString();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+import static fr.free.jchecs.core.FENUtils.STANDART_STARTING_FEN;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires des descriptions légères de parties PGN.
+ * 
+ * @author David Cotton
+ */
+public final class PGNRecordTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public PGNRecordTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Lit la première partie d'un texte PGN.
+   * 
+   * @param pPGN Texte PGN.
+   * @return Partie lue.
+   * @throws PGNException en cas d'erreur de lecture.
+   */
+  private static PGNRecord read(final String pPGN) throws PGNException
+  {
+    return new PGNReader(new StringReader(pPGN)).next();
+  }
+
+  /**
+   * Teste la position de départ, avec et sans tag "FEN".
+   */
+  @Test
+  public void testStartingPosition()
+  {
+    try
+    {
+      assertEquals(STANDART_STARTING_FEN, read("[Event \"?\"]\n\n1. e4 *\n")
+          .getStartingPosition());
+      final String fen = "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1";
+      final PGNRecord partie =
+          read("[FEN \"" + fen + "\"]\n[SetUp \"1\"]\n\n1. e4 Kd7 2. e5 *\n");
+      assertEquals(fen, partie.getStartingPosition());
+      assertEquals(3, partie.toMoveIds().length);
+    }
+    catch (final PGNException e)
+    {
+      fail(e.toString());
+    }
+  }
+
+  /**
+   * Teste le décodage des mouvements, comparé à celui de la classe {@link SANUtils}.
+   */
+  @Test
+  public void testToMoveIds()
+  {
+    try
+    {
+      final PGNRecord partie =
+          read("[Event \"?\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bc4 Nf6 4. 0-0 Nxe4 5. Re1 d5 "
+              + "6. Bxd5 Qxd5 7. Nc3 Qa5 8. Nxe4 Be6 9. Neg5 0-0-0 10. Nxe6 fxe6 "
+              + "11. Nxe5 Kb8 *\n");
+      final String [] sans = partie.getSANStrings();
+      final int [] ids = partie.toMoveIds();
+      assertEquals(sans.length, ids.length);
+
+      MoveGenerator etat = BoardFactory.valueOf(FASTEST, STARTING);
+      for (int i = 0; i < sans.length; i++)
+      {
+        final Move mvt = SANUtils.toMove(etat, sans[i]);
+        assertEquals(mvt.toId(), ids[i]);
+        etat = etat.derive(mvt, true);
+      }
+
+      final Game jeu = partie.toGame();
+      assertEquals(ids.length, jeu.getMovesCount());
+      assertEquals(FENUtils.toFEN(etat), FENUtils.toFEN(jeu.getBoard()));
+    }
+    catch (final PGNException e)
+    {
+      fail(e.toString());
+    }
+    catch (final SANException e)
+    {
+      fail(e.toString());
+    }
+  }
+
+  /**
+   * Teste le rejet d'une partie illégale.
+   */
+  @Test
+  public void testIllegalMove()
+  {
+    try
+    {
+      read("[Event \"?\"]\n\n1. e4 e4 *\n").toMoveIds();
+      fail("Illegal move accepted");
+    }
+    catch (final PGNException e)
+    {
+      // Comportement attendu...
+    }
+  }
+
+  /**
+   * Teste l'accès aux tags.
+   */
+  @Test
+  public void testTags()
+  {
+    try
+    {
+      final PGNRecord partie = read("[Event \"E\"]\n[Site \"S\"]\n[Date \"D\"]\n\n1. e4 *\n");
+      assertArrayEquals(new Object [] { "Event", "Site", "Date", }, partie.getTags().keySet()
+          .toArray());
+      assertEquals("S", partie.getTag("Site"));
+      try
+      {
+        partie.getTags().put("Round", "1");
+        fail("Modifiable tags");
+      }
+      catch (final UnsupportedOperationException e)
+      {
+        // Comportement attendu...
+      }
+    }
+    catch (final PGNException e)
+    {
+      fail(e.toString());
+    }
+  }
+}
@@ -31,7 +31,9 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import fr.free.jchecs.ai.EngineFactory;
@@ -70,9 +72,161 @@ public final class PGNUtils
     return new SimpleDateFormat("yyyy.MM.dd").format(pDate);
   }
 
+  /**
+   * Applique un tag d'en-tête PGN à une description de partie.
+   * <p>
+   * Seuls les tags "White", "Black" et "FEN" sont interprétés, les autres sont ignorés.
+   * </p>
+   * 
+   * @param pPartie Description de partie.
+   * @param pNom Nom du tag.
+   * @param pContenu Contenu du tag.
+   * @throws PGNException en cas de tag "FEN" invalide.
+   */
+  static void setTag(final Game pPartie, final String pNom, final String pContenu)
+      throws PGNException
+  {
+    assert pPartie != null;
+    assert pNom != null;
+    assert pContenu != null;
+
+    if ("Black".equals(pNom) || "White".equals(pNom))
+    {
+      final Player joueur = pPartie.getPlayer("White".equals(pNom));
+      if (pContenu.startsWith(APPLICATION_NAME + '.'))
+      {
+        joueur.setEngine(EngineFactory.newInstance(pContenu));
+        joueur.setName(pContenu.substring(APPLICATION_NAME.length() + 1));
+      }
+      else
+      {
+        joueur.setEngine(null);
+        joueur.setName(pContenu);
+      }
+    }
+    else if ("FEN".equals(pNom))
+    {
+      try
+      {
+        final Board depart = toBoard(pContenu);
+        pPartie.resetTo(BoardFactory.valueOf(FASTEST, STARTING).derive(depart));
+      }
+      catch (final FENException e)
+      {
+        throw new PGNException("Invalid FEN tag", e);
+      }
+    }
+  }
+
+  /**
+   * Découpe la liste des mouvements d'une partie PGN en chaines SAN normalisées.
+   * <p>
+   * Les commentaires, variantes, numéros de coups, annotations et marqueurs d'échecs sont
+   * supprimés. Le découpage s'arrête sur le marqueur de résultat.
+   * </p>
+   * 
+   * @param pTexte Liste des mouvements au format PGN (modifiée par le nettoyage).
+   * @return Chaines SAN normalisées des mouvements.
+   */
+  static List<String> splitMoveText(final StringBuilder pTexte)
+  {
+    assert pTexte != null;
+
+    final StringBuilder sb = pTexte;
+    // Nettoyage de la chaine...
+    int p = 0;
+    int prof = 0;
+    while (p < sb.length())
+    {
+      final char c = sb.charAt(p);
+      if ((c == '(') || (c == '{'))
+      {
+        // Supprime les commentaires, et les propositions de nul...
+        prof++;
+      }
+      if ((prof != 0) || (c == '+') || (c == '#'))
+      {
+        // Supprime les marqueurs d'échecs et de mat.
+        sb.deleteCharAt(p);
+      }
+      else
+      {
+        if (c == 'O')
+        {
+          // Convertir les "o" majuscules en zéro...
+          sb.setCharAt(p, '0');
+        }
+        p++;
+      }
+      if ((c == '}') || (c == ')'))
+      {
+        prof--;
+      }
+    }
+    // Supprime les marqueurs de prise en passant (ajoutés par SAN)...
+    p = sb.indexOf("e.p.");
+    while (p >= 0)
+    {
+      sb.delete(p, p + 4);
+      p = sb.indexOf("e.p.", p);
+    }
+    p = 0;
+    while (p < sb.length())
+    {
+      final char c = sb.charAt(p);
+      if (c == '.')
+      {
+        // Supprime les numéros de coups...
+        int deb = p - 1;
+        while ((deb >= 0) && Character.isDigit(sb.charAt(deb)))
+        {
+          deb--;
+        }
+        int fin = p + 1;
+        while ((fin < sb.length()) && ((" .".indexOf(sb.charAt(fin))) >= 0))
+        {
+          fin++;
+        }
+        sb.delete(deb + 1, fin);
+      }
+      else if (c == '$')
+      {
+        // Supprime les annotations numériques...
+        int fin = p + 1;
+        while ((fin < sb.length()) && Character.isDigit(sb.charAt(fin)))
+        {
+          fin++;
+        }
+        sb.delete(p, fin + 1);
+      }
+      else
+      {
+        p++;
+      }
+    }
+
+    final List<String> res = new ArrayList<String>();
+    for (final String mvt : SPLITTER.split(sb.toString()))
+    {
+      if ("*".equals(mvt) || "1-0".equals(mvt) || "0-1".equals(mvt) || "1/2-1/2".equals(mvt))
+      {
+        break;
+      }
+      if (mvt.length() > 0)
+      {
+        res.add(toNormalizedSAN(mvt));
+      }
+    }
+
+    return res;
+  }
+
   /**
    * Renvoi la description de partie correspondant à la première partie rencontrée dans un flux au
    * format PGN.
+   * <p>
+   * Pour parcourir un recueil de parties, préférer {@link PGNReader}.
+   * </p>
    * 
    * @param pFlux Flux contenant les données au format PGN.
    * @return Description de partie correspondante.
@@ -97,46 +251,7 @@ public final class PGNUtils
           if ((debTag >= 0) && ligne.endsWith("\"]"))
           {
             final String contenu = ligne.substring(debTag + 2, ligne.indexOf("\"]")).trim();
-            if (ligne.startsWith("[Black \""))
-            {
-              final Player joueur = res.getPlayer(false);
-              if (contenu.startsWith(APPLICATION_NAME + '.'))
-              {
-                joueur.setEngine(EngineFactory.newInstance(contenu));
-                joueur.setName(contenu.substring(APPLICATION_NAME.length() + 1));
-              }
-              else
-              {
-                joueur.setEngine(null);
-                joueur.setName(contenu);
-              }
-            }
-            else if (ligne.startsWith("[White \""))
-            {
-              final Player joueur = res.getPlayer(true);
-              if (contenu.startsWith(APPLICATION_NAME + '.'))
-              {
-                joueur.setEngine(EngineFactory.newInstance(contenu));
-                joueur.setName(contenu.substring(APPLICATION_NAME.length() + 1));
-              }
-              else
-              {
-                joueur.setEngine(null);
-                joueur.setName(contenu);
-              }
-            }
-            else if (ligne.startsWith("[FEN \""))
-            {
-              try
-              {
-                final Board depart = toBoard(contenu);
-                res.resetTo(BoardFactory.valueOf(FASTEST, STARTING).derive(depart));
-              }
-              catch (final FENException e)
-              {
-                throw new PGNException("Invalid FEN tag", e);
-              }
-            }
+            setTag(res, ligne.substring(1, debTag), contenu);
           }
         }
         else
@@ -153,87 +268,16 @@ public final class PGNUtils
             sb.append(' ').append(ligne);
             ligneLue = pFlux.readLine();
           }
-          // Nettoyage de la chaine...
-          int p = 0;
-          int prof = 0;
-          while (p < sb.length())
-          {
-            final char c = sb.charAt(p);
-            if ((c == '(') || (c == '{'))
-            {
-              // Supprime les commentaires, et les propositions de nul...
-              prof++;
-            }
-            if ((prof != 0) || (c == '+') || (c == '#'))
-            {
-              // Supprime les marqueurs d'échecs et de mat.
-              sb.deleteCharAt(p);
-            }
-            else
-            {
-              if (c == 'O')
-              {
-                // Convertir les "o" majuscules en zéro...
-                sb.setCharAt(p, '0');
-              }
-              p++;
-            }
-            if ((c == '}') || (c == ')'))
-            {
-              prof--;
-            }
-          }
-          p = 0;
-          while (p < sb.length())
-          {
-            final char c = sb.charAt(p);
-            if (c == '.')
-            {
-              // Supprime les numéros de coups...
-              int deb = p - 1;
-              while ((deb >= 0) && Character.isDigit(sb.charAt(deb)))
-              {
-                deb--;
-              }
-              int fin = p + 1;
-              while ((fin < sb.length()) && ((" .".indexOf(sb.charAt(fin))) >= 0))
-              {
-                fin++;
-              }
-              sb.delete(deb + 1, fin);
-            }
-            else if (c == '$')
-            {
-              // Supprime les annotations numériques...
-              int fin = p + 1;
-              while ((fin < sb.length()) && Character.isDigit(sb.charAt(fin)))
-              {
-                fin++;
-              }
-              sb.delete(p, fin + 1);
-            }
-            else
-            {
-              p++;
-            }
-          }
 
-          for (final String mvt : SPLITTER.split(sb.toString()))
+          for (final String mvt : splitMoveText(sb))
           {
-            if ("*".equals(mvt) || "1-0".equals(mvt) || "0-1".equals(mvt) || "1/2-1/2".equals(mvt))
+            try
             {
-              break;
+              res.moveFromCurrent(toMove(res.getBoard(), mvt));
             }
-            if (mvt.length() > 0)
+            catch (final SANException e)
             {
-              try
-              {
-                res.moveFromCurrent(toMove(res.getBoard(), toNormalizedSAN(mvt)));
-              }
-              catch (final SANException e)
-              {
-                throw new PGNException("Invalid PGN stream", e);
-              }
+              throw new PGNException("Invalid PGN stream", e);
             }
           }
 
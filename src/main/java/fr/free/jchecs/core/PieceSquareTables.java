@@ -0,0 +1,250 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+
+/**
+ * Tables de bonus/malus de position des pièces ("piece-square tables").
+ * <p>
+ * Les valeurs sont exprimées du point de vue de chaque couleur (les tables des noirs sont les
+ * symétriques de celles des blancs) : les échiquiers peuvent ainsi tenir à jour, au fil des
+ * mouvements, la somme des bonus de chaque type de pièce (voir
+ * {@link Board#getPieceSquareScore(Piece, boolean)}).
+ * </p>
+ * <p>
+ * Classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PieceSquareTables
+{
+  /** Nombre de cases de l'échiquier. */
+  private static final int SQUARE_COUNT = FILE_COUNT * RANK_COUNT;
+
+  /**
+   * Bonus/Malus d'un fou (blanc par défaut) en fonction de sa position.
+   */
+  private static final int [] BISHOP_POSITIONS = { -5, -5, -5, -5, -5, -5, -5, -5, // a1 ... h1
+    -5, 10, 5, 10, 10, 5, 10, -5, // a2 ... h2
+    -5, 5, 3, 12, 12, 3, 5, -5, // a3 ... h3
+    -5, 3, 12, 3, 3, 12, 3, -5, // a4 ... h4
+    -5, 3, 12, 3, 3, 12, 3, -5, // a5 ... h5
+    -5, 5, 3, 12, 12, 3, 5, -5, // a6 ... h6
+    -5, 10, 5, 10, 10, 5, 10, -5, // a7 ... h7
+    -5, -5, -5, -5, -5, -5, -5, -5, // a8 ... h8
+  };
+  static
+  {
+    assert BISHOP_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'un roi (blanc par défaut) en fonction de sa position.
+   */
+  private static final int [] KING_POSITIONS = { 2, 3, 5, -5, 0, -4, 6, 4, // a1 ... h1
+    -3, -3, -5, -5, -5, -5, -3, -3, // a2 ... h2
+    -5, -5, -8, -8, -8, -8, -5, -5, // a3 ... h3
+    -8, -8, -13, -13, -13, -13, -8, -8, // a4 ... h4
+    -13, -13, -21, -21, -21, -21, -13, -13, // a5 ... h5
+    -21, -21, -34, -34, -34, -34, -21, -21, // a6 ... h6
+    -34, -34, -55, -55, -55, -55, -34, -34, // a7 ... h7
+    -55, -55, -89, -89, -89, -89, -55, -55, // a8 ... h8
+  };
+  static
+  {
+    assert KING_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'un roi (blanc par défaut) en fonction de sa position, en fin de partie.
+   */
+  private static final int [] KING_END_POSITIONS = { -5, -3, -1, 0, 0, -1, -3, -5, // a1 ... h1
+    -3, 5, 5, 5, 5, 5, 5, -3, // a2 ... h2
+    -1, 5, 10, 10, 10, 10, 5, -1, // a3 ... h3
+    0, 5, 10, 15, 15, 10, 5, 0, // a4 ... h4
+    0, 5, 10, 15, 15, 10, 5, 0, // a5 ... h5
+    -1, 5, 10, 10, 10, 10, 5, -1, // a6 ... h6
+    -3, 5, 5, 5, 5, 5, 5, -3, // a7 ... h7
+    -5, -3, -1, 0, 0, -1, -3, -5, // a8 ... h8
+  };
+  static
+  {
+    assert KING_END_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'un cavalier (blanc par défaut) en fonction de sa position.
+   */
+  private static final int [] KNIGHT_POSITIONS = { -10, -5, -3, -1, -1, -3, -5, -10, // a1 ... h1
+    -5, 0, 0, 3, 3, 0, 0, -5, // a2 ... h2
+    -3, 0, 5, 5, 5, 5, 0, -3, // a3 ... h3
+    -1, 1, 5, 10, 10, 5, 1, -1, // a4 ... h4
+    -1, 1, 7, 12, 12, 7, 1, -1, // a5 ... h5
+    -3, 0, 5, 7, 7, 5, 0, -3, // a6 ... h6
+    -5, 0, 0, 3, 3, 0, 0, -5, // a7 ... h7
+    -10, -5, -3, -1, -1, -3, -5, -10, // a8 ... h8
+  };
+  static
+  {
+    assert KNIGHT_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'un pion (blanc par défaut) en fonction de sa position.
+   */
+  private static final int [] PAWN_POSITIONS = { 0, 0, 0, 0, 0, 0, 0, 0, // a1 ... h1
+    0, 0, 0, -5, -5, 0, 0, 0, // a2 ... h2
+    1, 2, 4, 4, 4, 3, 2, 1, // a3 ... h3
+    2, 4, 7, 8, 8, 6, 4, 2, // a4 ... h4
+    3, 6, 11, 12, 12, 9, 6, 3, // a5 ... h5
+    4, 8, 12, 16, 16, 12, 8, 4, // a6 ... h6
+    5, 10, 15, 20, 20, 15, 10, 5, // a7 ... h7
+    100, 100, 100, 100, 100, 100, 100, 100, // a8 ... h9
+  };
+  static
+  {
+    assert PAWN_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'une reine (blanche par défaut) en fonction de sa position.
+   */
+  private static final int [] QUEEN_POSITIONS = { -5, -5, -5, 0, 0, -5, -5, -5, // a1 ... h1
+    0, 0, 3, 3, 3, 0, 0, 0, // a2 ... h2
+    0, 3, 3, 3, 3, 0, 0, 0, // a3 ... h3
+    0, 0, 0, 5, 5, 0, 0, 0, // a4 ... h4
+    0, 0, 0, 5, 5, 0, 0, 0, // a5 ... h5
+    -5, -5, 0, 0, 0, 0, 0, 0, // a6 ... h6
+    -5, -5, 0, 0, 0, 0, 0, 0, // a7 ... h7
+    -5, -5, 0, 0, 0, 0, 0, 0, // a8 ... h8
+  };
+  static
+  {
+    assert QUEEN_POSITIONS.length == 64;
+  }
+
+  /**
+   * Bonus/Malus d'une tour (blanche par défaut) en fonction de sa position.
+   */
+  private static final int [] ROOK_POSITIONS = { 0, 0, 0, 5, 5, 0, 0, 0, // a1 ... h1
+    -2, 0, 0, 0, 0, 0, 0, -2, // a2 ... h2
+    -2, 0, 0, 0, 0, 0, 0, -2, // a3 ... h3
+    -2, 0, 0, 0, 0, 0, 0, -2, // a4 ... h4
+    -2, 0, 0, 0, 0, 0, 0, -2, // a5 ... h5
+    -2, 0, 0, 0, 0, 0, 0, -2, // a6 ... h6
+    10, 10, 10, 10, 10, 10, 10, 10, // a7 ... h7
+    0, 0, 0, 0, 0, 0, 0, 0, // a8 ... h8
+  };
+  static
+  {
+    assert ROOK_POSITIONS.length == 64;
+  }
+
+
+  /** Bonus/Malus de position, indexés par rang de pièce puis par indice de case. */
+  private static final int [][] MIDDLE_GAME = new int [ Piece.values().length ] [ SQUARE_COUNT ];
+
+  /** Bonus/Malus de position en fin de partie, indexés par rang de pièce puis indice de case. */
+  private static final int [][] END_GAME = new int [ Piece.values().length ] [ SQUARE_COUNT ];
+
+  static
+  {
+    for (final Piece p : Piece.values())
+    {
+      final int [] milieu;
+      final int [] fin;
+      switch (p.getType())
+      {
+        case BISHOP :
+          milieu = BISHOP_POSITIONS;
+          fin = BISHOP_POSITIONS;
+          break;
+        case KING :
+          milieu = KING_POSITIONS;
+          fin = KING_END_POSITIONS;
+          break;
+        case KNIGHT :
+          milieu = KNIGHT_POSITIONS;
+          fin = KNIGHT_POSITIONS;
+          break;
+        case PAWN :
+          milieu = PAWN_POSITIONS;
+          fin = PAWN_POSITIONS;
+          break;
+        case QUEEN :
+          milieu = QUEEN_POSITIONS;
+          fin = QUEEN_POSITIONS;
+          break;
+        case ROOK :
+          milieu = ROOK_POSITIONS;
+          fin = ROOK_POSITIONS;
+          break;
+        default :
+          throw new AssertionError(p);
+      }
+      final int rang = p.ordinal();
+      for (int i = SQUARE_COUNT; --i >= 0; /* Pré-décrémenté */)
+      {
+        final int idx;
+        if (p.isWhite())
+        {
+          idx = i;
+        }
+        else
+        {
+          idx = ((RANK_COUNT - 1) - (i / FILE_COUNT)) * FILE_COUNT + (i % FILE_COUNT);
+        }
+        MIDDLE_GAME[rang][i] = milieu[idx];
+        END_GAME[rang][i] = fin[idx];
+      }
+    }
+  }
+
+  /**
+   * Classe utilitaire : ne pas instancier.
+   */
+  private PieceSquareTables()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi le bonus/malus de position d'une pièce sur une case.
+   * 
+   * @param pPiece Pièce.
+   * @param pCase Indice de la case (de 0 à 63).
+   * @param pFinDePartie Positionné à "true" pour utiliser les tables de fin de partie.
+   * @return Bonus/malus de position de la pièce, de son propre point de vue.
+   */
+  public static int valueOf(final Piece pPiece, final int pCase, final boolean pFinDePartie)
+  {
+    assert pPiece != null;
+    assert (pCase >= 0) && (pCase < SQUARE_COUNT);
+
+    if (pFinDePartie)
+    {
+      return END_GAME[pPiece.ordinal()][pCase];
+    }
+
+    return MIDDLE_GAME[pPiece.ordinal()][pCase];
+  }
+}
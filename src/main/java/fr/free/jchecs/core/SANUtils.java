@@ -18,6 +18,7 @@
  */
 package fr.free.jchecs.core;
 
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
 import static fr.free.jchecs.core.Constants.RANK_COUNT;
 import static fr.free.jchecs.core.Piece.BLACK_KING;
 import static fr.free.jchecs.core.Piece.BLACK_PAWN;
@@ -80,136 +81,66 @@ public final class SANUtils
     {
       throw new NullPointerException("Missing game state");
     }
-    if (pSAN == null)
-    {
-      throw new NullPointerException("Missing SAN string");
-    }
-
-    if (!SAN_VALIDATOR.matcher(pSAN).matches())
-    {
-      throw new SANException("Invalid SAN string [" + pSAN + ']', null);
-    }
 
     final boolean trait = pEtat.isWhiteActive();
-    if ("0-0".equals(pSAN))
-    {
-      // Gère les petits roques...
-      if (trait)
-      {
-        return new Move(WHITE_KING, Square.valueOf(4), Square.valueOf(6));
-      }
-      return new Move(BLACK_KING, Square.valueOf(60), Square.valueOf(62));
-    }
-    else if ("0-0-0".equals(pSAN))
+    final SANMove san = new SANMove(trait, pSAN);
+    Move res = null;
+    int nbRes = 0;
+    for (final Move m : pEtat.getValidMoves(trait))
     {
-      // ... les grands roques...
-      if (trait)
+      if (san.matches(m.getPiece(), m.getFrom().getIndex(), m.getTo().getIndex(),
+          m.getCaptured() != null))
       {
-        return new Move(WHITE_KING, Square.valueOf(4), Square.valueOf(2));
+        res = m;
+        nbRes++;
       }
-      return new Move(BLACK_KING, Square.valueOf(60), Square.valueOf(58));
     }
+    san.check(nbRes);
 
-    // Gère les coups normaux...
-    final Piece piece;
-    int posSrc = 0;
-    char c = pSAN.charAt(posSrc);
-    if (Character.isLowerCase(c))
-    {
-      if (trait)
-      {
-        piece = WHITE_PAWN;
-      }
-      else
-      {
-        piece = BLACK_PAWN;
-      }
-    }
-    else
-    {
-      if (trait)
-      {
-        piece = Piece.valueOf(c);
-      }
-      else
-      {
-        piece = Piece.valueOf(Character.toLowerCase(c));
-      }
-      posSrc++;
-    }
-
-    final boolean prise = pSAN.indexOf('x') >= 0;
-    final List<Move> mvts = new ArrayList<Move>(Arrays.asList(pEtat.getValidMoves(trait)));
-    for (int i = mvts.size() - 1; i >= 0; i--)
-    {
-      final Move m = mvts.get(i);
-      final boolean capture = m.getCaptured() != null;
-      if ((piece != m.getPiece()) || (prise != capture))
-      {
-        mvts.remove(i);
-      }
-    }
+    return res;
+  }
 
-    int posDst = pSAN.length() - 1;
-    while ((posDst > 0) && (!Character.isDigit(pSAN.charAt(posDst))))
-    {
-      posDst--;
-    }
-    final Square dst = Square.valueOf(pSAN.substring(posDst - 1, posDst + 1));
-    for (int i = mvts.size() - 1; i >= 0; i--)
-    {
-      final Move m = mvts.get(i);
-      if (dst != m.getTo())
-      {
-        mvts.remove(i);
-      }
-    }
-    if (mvts.size() == 1)
+  /**
+   * Renvoi l'identifiant du mouvement correspondant à une chaine SAN appliquée à un état
+   * d'échiquier de recherche.
+   * <p>
+   * Equivalent à {@link #toMove(MoveGenerator, String)}, sans instancier de description de
+   * mouvement : destiné au décodage en masse de parties.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pSAN Chaine SAN.
+   * @param pCoups Tampon de réception des mouvements valides (d'au moins 256 éléments).
+   * @return Identifiant du mouvement correspondant (voir {@link Move#toId()}).
+   * @throws SANException en cas d'erreur dans le format de la chaine SAN.
+   */
+  public static int toMoveId(final SearchBoard pEtat, final String pSAN, final int [] pCoups)
+      throws SANException
+  {
+    if (pEtat == null)
     {
-      return mvts.get(0);
+      throw new NullPointerException("Missing game state");
     }
+    assert pCoups != null;
 
-    // Supprime les ambiguités...
-    c = pSAN.charAt(posSrc);
-    if (Character.isLowerCase(c))
-    {
-      final int col = c - 'a';
-      for (int i = mvts.size() - 1; i >= 0; i--)
-      {
-        final Move m = mvts.get(i);
-        if (col != m.getFrom().getFile())
-        {
-          mvts.remove(i);
-        }
-      }
-      posSrc++;
-    }
-    c = pSAN.charAt(posSrc);
-    if (Character.isDigit(c))
+    final boolean trait = pEtat.isWhiteActive();
+    final SANMove san = new SANMove(trait, pSAN);
+    int res = 0;
+    int nbRes = 0;
+    final int nb = pEtat.getValidMoves(trait, pCoups);
+    for (int i = 0; i < nb; i++)
     {
-      final int lig = c - '1';
-      for (int i = mvts.size() - 1; i >= 0; i--)
+      final int m = pCoups[i];
+      if (san.matches(Move.getPiece(m), Move.getFromIndex(m), Move.getToIndex(m),
+          Move.getCaptured(m) != null))
       {
-        final Move m = mvts.get(i);
-        if (lig != m.getFrom().getRank())
-        {
-          mvts.remove(i);
-        }
+        res = m;
+        nbRes++;
       }
-      posSrc++;
-    }
-
-    final int l = mvts.size();
-    if (l > 1)
-    {
-      throw new SANException("Ambiguous SAN string [" + pSAN + ']', null);
-    }
-    else if (l < 1)
-    {
-      throw new SANException("Illegal SAN string context [" + pSAN + ']', null);
     }
+    san.check(nbRes);
 
-    return mvts.get(0);
+    return res;
   }
 
   /**
@@ -345,4 +276,168 @@ public final class SANUtils
     assert SAN_VALIDATOR.matcher(res).matches();
     return res;
   }
+
+  /**
+   * Description d'un mouvement extraite d'une chaine SAN, commune au décodage des mouvements et
+   * de leurs identifiants.
+   */
+  private static final class SANMove
+  {
+    /** Chaine SAN d'origine. */
+    private final String _san;
+
+    /** Pièce déplacée. */
+    private final Piece _piece;
+
+    /** Index de la case de destination. */
+    private final int _to;
+
+    /** Colonne de la case de départ (ou -1 si elle n'est pas précisée). */
+    private final int _file;
+
+    /** Ligne de la case de départ (ou -1 si elle n'est pas précisée). */
+    private final int _rank;
+
+    /** Drapeau indiquant si le mouvement est une prise. */
+    private final boolean _capture;
+
+    /**
+     * Analyse une chaine SAN.
+     * 
+     * @param pTrait A true si le trait est aux blancs.
+     * @param pSAN Chaine SAN.
+     * @throws SANException en cas d'erreur dans le format de la chaine SAN.
+     */
+    SANMove(final boolean pTrait, final String pSAN) throws SANException
+    {
+      if (pSAN == null)
+      {
+        throw new NullPointerException("Missing SAN string");
+      }
+      if (!SAN_VALIDATOR.matcher(pSAN).matches())
+      {
+        throw new SANException("Invalid SAN string [" + pSAN + ']', null);
+      }
+
+      _san = pSAN;
+      int col = -1;
+      int lig = -1;
+      boolean prise = false;
+      if (pSAN.startsWith("0-0"))
+      {
+        // Gère les roques...
+        if (pTrait)
+        {
+          _piece = WHITE_KING;
+          lig = 0;
+        }
+        else
+        {
+          _piece = BLACK_KING;
+          lig = RANK_COUNT - 1;
+        }
+        col = 4;
+        if (pSAN.startsWith("0-0-0"))
+        {
+          _to = (lig * FILE_COUNT) + 2;
+        }
+        else
+        {
+          _to = (lig * FILE_COUNT) + 6;
+        }
+      }
+      else
+      {
+        // ... et les coups normaux.
+        int posSrc = 0;
+        final char c = pSAN.charAt(posSrc);
+        if (Character.isLowerCase(c))
+        {
+          if (pTrait)
+          {
+            _piece = WHITE_PAWN;
+          }
+          else
+          {
+            _piece = BLACK_PAWN;
+          }
+        }
+        else
+        {
+          if (pTrait)
+          {
+            _piece = Piece.valueOf(c);
+          }
+          else
+          {
+            _piece = Piece.valueOf(Character.toLowerCase(c));
+          }
+          posSrc++;
+        }
+
+        int posDst = pSAN.length() - 1;
+        while ((posDst > 0) && (!Character.isDigit(pSAN.charAt(posDst))))
+        {
+          posDst--;
+        }
+        _to = Square.valueOf(pSAN.substring(posDst - 1, posDst + 1)).getIndex();
+
+        // Les caractères précédant la destination lèvent les ambiguités...
+        for (int i = posSrc; i < posDst - 1; i++)
+        {
+          final char d = pSAN.charAt(i);
+          if (d == 'x')
+          {
+            prise = true;
+          }
+          else if (Character.isDigit(d))
+          {
+            lig = d - '1';
+          }
+          else
+          {
+            col = d - 'a';
+          }
+        }
+      }
+      _file = col;
+      _rank = lig;
+      _capture = prise;
+    }
+
+    /**
+     * Vérifie qu'un seul mouvement valide correspond à la chaine SAN.
+     * 
+     * @param pNombre Nombre de mouvements valides correspondants.
+     * @throws SANException si la chaine SAN est ambigüe ou ne correspond à aucun mouvement.
+     */
+    void check(final int pNombre) throws SANException
+    {
+      if (pNombre > 1)
+      {
+        throw new SANException("Ambiguous SAN string [" + _san + ']', null);
+      }
+      else if (pNombre < 1)
+      {
+        throw new SANException("Illegal SAN string context [" + _san + ']', null);
+      }
+    }
+
+    /**
+     * Indique si un mouvement correspond à la chaine SAN.
+     * 
+     * @param pPiece Pièce déplacée.
+     * @param pSource Index de la case de départ.
+     * @param pDestination Index de la case de destination.
+     * @param pPrise A true si le mouvement est une prise.
+     * @return A true si le mouvement correspond.
+     */
+    boolean matches(final Piece pPiece, final int pSource, final int pDestination,
+        final boolean pPrise)
+    {
+      return (pPiece == _piece) && (pDestination == _to) && (pPrise == _capture)
+          && ((_file < 0) || ((pSource % FILE_COUNT) == _file))
+          && ((_rank < 0) || ((pSource / FILE_COUNT) == _rank));
+    }
+  }
 }
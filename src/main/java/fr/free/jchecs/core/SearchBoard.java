@@ -0,0 +1,112 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+/**
+ * Interface mise à disposition par les générateurs de mouvements modifiables, destinés aux
+ * recherches des moteurs d'I.A.
+ * <p>
+ * Contrairement aux autres implémentations de {@link Board}, une telle instance n'est pas immuable :
+ * les mouvements y sont joués puis annulés sur place, ce qui évite de créer un nouvel état pour
+ * chaque position examinée. Une instance ne doit donc être utilisée que par un seul fil
+ * d'exécution, et ne doit pas être conservée comme clé ou partagée en dehors de la recherche.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public interface SearchBoard extends MoveGenerator
+{
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) des seuls mouvements
+   * valides modifiant le matériel d'une couleur : prises (y compris "en passant") et promotions.
+   * <p>
+   * Destinée aux recherches de quiescence, qui n'examinent que ces mouvements au-delà de l'horizon.
+   * </p>
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @param pCoups Liste à alimenter à partir de son début (au moins 256 emplacements).
+   * @return Nombre de mouvements placés dans la liste.
+   */
+  int getCaptureMoves(final boolean pTrait, final int [] pCoups);
+
+  /**
+   * Renvoi le dernier mouvement joué sur place, par exemple pour retrouver le mouvement l'ayant
+   * réfuté lors d'une recherche précédente ("counter move").
+   * 
+   * @return Entier identifiant le dernier mouvement joué (voir {@link Move#toId()}), ou 0 si aucun
+   *         mouvement n'a été joué sur place ou si le dernier est un coup nul.
+   */
+  int getLastMove();
+
+  /**
+   * Renvoi le bilan matériel statique ("Static Exchange Evaluation") de la suite de prises sur la
+   * case cible d'un mouvement, chaque camp reprenant avec sa pièce la moins forte et pouvant
+   * s'arrêter quand cela l'arrange.
+   * <p>
+   * Les clouages ne sont pas pris en compte : la valeur n'est qu'une estimation, utilisée pour
+   * écarter les prises perdantes.
+   * </p>
+   * 
+   * @param pMouvement Entier identifiant un mouvement valide (voir {@link Move#toId()}).
+   * @return Gain matériel estimé pour le camp jouant le mouvement (négatif pour une prise
+   *         perdante).
+   */
+  int getStaticExchange(final int pMouvement);
+
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) de tous les mouvements
+   * valides pour une couleur, sans instancier de description de mouvement.
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @param pCoups Liste à alimenter à partir de son début (au moins 256 emplacements).
+   * @return Nombre de mouvements placés dans la liste.
+   */
+  int getValidMoves(final boolean pTrait, final int [] pCoups);
+
+  /**
+   * Joue un mouvement sur place (le trait est modifié), en mémorisant de quoi l'annuler.
+   * 
+   * @param pMouvement Description d'un mouvement valide.
+   */
+  void makeMove(final Move pMouvement);
+
+  /**
+   * Joue sur place un mouvement identifié par un entier (voir {@link Move#toId()}), en mémorisant de
+   * quoi l'annuler.
+   * 
+   * @param pMouvement Entier identifiant un mouvement valide.
+   */
+  void makeMove(final int pMouvement);
+
+  /**
+   * Passe le trait à l'adversaire sans jouer de mouvement ("coup nul"), en mémorisant de quoi
+   * l'annuler.
+   * <p>
+   * Destiné aux élagages des recherches : le coup nul n'est pas un mouvement valide et ne doit pas
+   * être joué lorsque le joueur ayant le trait est en échec.
+   * </p>
+   */
+  void makeNullMove();
+
+  /**
+   * Annule le dernier mouvement joué par {@link #makeMove(Move)}, {@link #makeMove(int)} ou
+   * {@link #makeNullMove()}.
+   */
+  void unmakeMove();
+}
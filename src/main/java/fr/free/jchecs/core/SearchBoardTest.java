@@ -0,0 +1,433 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.ARRAY;
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.FENUtils.toBoard;
+import static fr.free.jchecs.core.FENUtils.toFEN;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires des états de recherche modifiables sur place.
+ * 
+ * @author David Cotton
+ */
+public final class SearchBoardTest
+{
+  /** Position "Kiwipete", riche en roques, prises "en passant" et promotions. */
+  private static final String KIWIPETE =
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  /** Position de fin de partie, riche en clouages et en prises "en passant". */
+  private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+  /** Position riche en promotions et en échecs (seule la promotion en dame est gérée). */
+  private static final String PROMOTIONS =
+      "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public SearchBoardTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Vérifie que deux listes de cases contiennent les mêmes cases.
+   * 
+   * @param pContexte Contexte du test.
+   * @param pAttendues Cases attendues.
+   * @param pObtenues Cases obtenues.
+   */
+  private static void assertSameSquares(final Object pContexte, final Square [] pAttendues,
+      final Square [] pObtenues)
+  {
+    final Square [] attendues = pAttendues.clone();
+    final Square [] obtenues = pObtenues.clone();
+    Arrays.sort(attendues);
+    Arrays.sort(obtenues);
+    assertEquals(pContexte.toString(), Arrays.asList(attendues), Arrays.asList(obtenues));
+  }
+
+  /**
+   * Compte les feuilles de l'arbre des mouvements valides jusqu'à une profondeur ("perft").
+   * 
+   * @param pEtat Etat de départ, modifié sur place puis restauré.
+   * @param pProfondeur Profondeur de l'arbre.
+   * @param pCoups Listes de mouvements, une par niveau.
+   * @return Nombre de feuilles.
+   */
+  private static long perft(final SearchBoard pEtat, final int pProfondeur, final int [][] pCoups)
+  {
+    final int [] coups = pCoups[pProfondeur];
+    final int nb = pEtat.getValidMoves(pEtat.isWhiteActive(), coups);
+    if (pProfondeur == 1)
+    {
+      return nb;
+    }
+
+    long res = 0;
+    for (int i = 0; i < nb; i++)
+    {
+      pEtat.makeMove(coups[i]);
+      res += perft(pEtat, pProfondeur - 1, pCoups);
+      pEtat.unmakeMove();
+    }
+
+    return res;
+  }
+
+  /**
+   * Compte les feuilles de l'arbre des mouvements valides, en dérivant les états ("perft").
+   * 
+   * @param pEtat Etat de départ.
+   * @param pProfondeur Profondeur de l'arbre.
+   * @return Nombre de feuilles.
+   */
+  private static long perft(final MoveGenerator pEtat, final int pProfondeur)
+  {
+    final Move [] mvts = pEtat.getValidMoves(pEtat.isWhiteActive());
+    if (pProfondeur == 1)
+    {
+      return mvts.length;
+    }
+
+    long res = 0;
+    for (final Move m : mvts)
+    {
+      res += perft(pEtat.derive(m, true), pProfondeur - 1);
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le bilan statique d'un mouvement valide, désigné par ses cases, dans une position.
+   * 
+   * @param pFEN Position au format FEN.
+   * @param pOrigine Case de départ.
+   * @param pDestination Case d'arrivée.
+   * @return Bilan matériel statique de l'échange.
+   */
+  private static int staticExchange(final String pFEN, final String pOrigine,
+      final String pDestination)
+  {
+    final SearchBoard etat;
+    try
+    {
+      etat = BoardFactory.newSearchBoard(toBoard(pFEN));
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+      return 0;
+    }
+    final int [] coups = new int [ 256 ];
+    final int nb = etat.getValidMoves(etat.isWhiteActive(), coups);
+    for (int i = 0; i < nb; i++)
+    {
+      final Move m = Move.valueOf(coups[i]);
+      if ((m.getFrom() == Square.valueOf(pOrigine)) && (m.getTo() == Square.valueOf(pDestination)))
+      {
+        return etat.getStaticExchange(coups[i]);
+      }
+    }
+    fail(pFEN + ' ' + pOrigine + pDestination);
+    return 0;
+  }
+
+  /**
+   * Vérifie les nombres de feuilles de l'arbre des mouvements valides d'une position.
+   * 
+   * @param pFEN Position de départ au format FEN.
+   * @param pAttendus Nombres de feuilles attendus, à partir de la profondeur 1.
+   */
+  private static void validatePerft(final String pFEN, final long... pAttendus)
+  {
+    final SearchBoard etat;
+    try
+    {
+      etat = BoardFactory.newSearchBoard(toBoard(pFEN));
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+      return;
+    }
+    final long cle = etat.getZobristKey();
+    final int [][] coups = new int [ pAttendus.length + 1 ] [ 256 ];
+    for (int p = 1; p <= pAttendus.length; p++)
+    {
+      assertEquals(pFEN + " @" + p, pAttendus[p - 1], perft(etat, p, coups));
+    }
+    assertEquals(pFEN, toFEN(etat));
+    assertEquals(cle, etat.getZobristKey());
+  }
+
+  /**
+   * Vérifie qu'un état de recherche correspond à un état de référence.
+   * 
+   * @param pReference Etat de référence.
+   * @param pEtat Etat de recherche.
+   */
+  private static void validateSame(final MoveGenerator pReference, final SearchBoard pEtat)
+  {
+    final String fen = toFEN(pReference);
+    assertEquals(fen, toFEN(pEtat));
+    // Les clés maintenues sur place doivent correspondre à celles d'un état neuf.
+    final SearchBoard neuf = BoardFactory.newSearchBoard(pReference);
+    assertEquals(fen, neuf.getZobristKey(), pEtat.getZobristKey());
+    assertEquals(fen, neuf.getPawnZobristKey(), pEtat.getPawnZobristKey());
+    assertEquals(fen, neuf.getPolyglotKey(), pEtat.getPolyglotKey());
+    assertEquals(fen, neuf.isInCheck(true), pEtat.isInCheck(true));
+    assertEquals(fen, neuf.isInCheck(false), pEtat.isInCheck(false));
+  }
+
+  /**
+   * Teste les nombres de feuilles des arbres de mouvements de positions de référence.
+   */
+  @Test
+  public void testPerft()
+  {
+    validatePerft(FENUtils.STANDART_STARTING_FEN, 20, 400, 8902, 197281);
+    validatePerft(KIWIPETE, 48, 2039, 97862);
+    validatePerft(ENDGAME, 14, 191, 2812, 43238);
+
+    // Les promotions mineures n'étant pas générées, la référence est la représentation d'origine.
+    try
+    {
+      final MoveGenerator reference =
+          BoardFactory.valueOf(ARRAY, STARTING).derive(toBoard(PROMOTIONS));
+      validatePerft(PROMOTIONS, perft(reference, 1), perft(reference, 2), perft(reference, 3));
+    }
+    catch (final FENException e)
+    {
+      fail(e.toString());
+    }
+  }
+
+  /**
+   * Teste la génération des seules prises et promotions, comparée au filtrage des mouvements
+   * valides.
+   */
+  @Test
+  public void testCaptureMoves()
+  {
+    final Random randomizer = new Random(7000);
+    final int [] coups = new int [ 256 ];
+    final int [] prises = new int [ 256 ];
+    for (int p = 50; p >= 0; p--)
+    {
+      final SearchBoard etat = BoardFactory.newSearchBoard(BoardFactory.valueOf(ARRAY, STARTING));
+      for (int cps = 150; cps >= 0; cps--)
+      {
+        final boolean trait = etat.isWhiteActive();
+        final int nb = etat.getValidMoves(trait, coups);
+        if (nb == 0)
+        {
+          break;
+        }
+        final Set<Integer> attendues = new HashSet<Integer>();
+        for (int i = 0; i < nb; i++)
+        {
+          final int m = coups[i];
+          final int lig = Move.getToIndex(m) / FILE_COUNT;
+          final boolean promotion =
+              (Move.getPiece(m).getType() == PieceType.PAWN)
+                  && ((lig == 0) || (lig == RANK_COUNT - 1));
+          if ((Move.getCaptured(m) != null) || promotion)
+          {
+            attendues.add(Integer.valueOf(m));
+          }
+        }
+        final int nbPrises = etat.getCaptureMoves(trait, prises);
+        final Set<Integer> obtenues = new HashSet<Integer>();
+        for (int i = 0; i < nbPrises; i++)
+        {
+          obtenues.add(Integer.valueOf(prises[i]));
+        }
+        assertEquals(toFEN(etat), nbPrises, obtenues.size());
+        assertEquals(toFEN(etat), attendues, obtenues);
+        etat.makeMove(coups[randomizer.nextInt(nb)]);
+      }
+    }
+  }
+
+  /**
+   * Teste les mouvements joués puis annulés sur place, comparés aux états dérivés d'une
+   * représentation de référence.
+   */
+  @Test
+  public void testMakeUnmake()
+  {
+    final Random randomizer = new Random(2000);
+    final int [] coups = new int [ 256 ];
+    for (int p = 20; p >= 0; p--)
+    {
+      MoveGenerator reference = BoardFactory.valueOf(ARRAY, STARTING);
+      final SearchBoard etat = BoardFactory.newSearchBoard(reference);
+      for (int cps = 150; cps >= 0; cps--)
+      {
+        final boolean trait = reference.isWhiteActive();
+        final int nb = etat.getValidMoves(trait, coups);
+        final Move [] mvts = reference.getValidMoves(trait);
+        assertEquals(toFEN(reference), mvts.length, nb);
+        if (nb == 0)
+        {
+          break;
+        }
+
+        // Chaque mouvement valide, joué puis annulé...
+        final int [] ids = Arrays.copyOf(coups, nb);
+        for (final int m : ids)
+        {
+          etat.makeMove(m);
+          assertEquals(m, etat.getLastMove());
+          validateSame(reference.derive(Move.valueOf(m), true), etat);
+          etat.unmakeMove();
+          validateSame(reference, etat);
+        }
+
+        // ... le coup nul...
+        if (!etat.isInCheck(trait))
+        {
+          etat.makeNullMove();
+          assertTrue(etat.isWhiteActive() != trait);
+          assertEquals(0, etat.getLastMove());
+          etat.unmakeMove();
+          validateSame(reference, etat);
+        }
+
+        // ... puis un mouvement tiré au hasard est conservé.
+        final Move mvt = mvts[randomizer.nextInt(nb)];
+        reference = reference.derive(mvt, true);
+        etat.makeMove(mvt);
+        validateSame(reference, etat);
+      }
+    }
+  }
+
+  /**
+   * Teste les cibles des pièces glissantes ("magic bitboards"), comparées à celles d'une
+   * représentation de référence.
+   */
+  @Test
+  public void testSlidingTargets()
+  {
+    final Random randomizer = new Random(3000);
+    final Piece [] pieces = Piece.values();
+    for (int p = 500; p >= 0; p--)
+    {
+      // Position aléatoire, occupée de façon plus ou moins dense...
+      final StringBuilder sb = new StringBuilder();
+      final int densite = 1 + randomizer.nextInt(6);
+      for (int lig = 7; lig >= 0; lig--)
+      {
+        int vides = 0;
+        for (int col = 0; col < 8; col++)
+        {
+          if (randomizer.nextInt(8) < densite)
+          {
+            if (vides > 0)
+            {
+              sb.append(vides);
+              vides = 0;
+            }
+            sb.append(pieces[randomizer.nextInt(pieces.length)].getFENLetter());
+          }
+          else
+          {
+            vides++;
+          }
+        }
+        if (vides > 0)
+        {
+          sb.append(vides);
+        }
+        if (lig > 0)
+        {
+          sb.append('/');
+        }
+      }
+      sb.append(" w - - 0 1");
+      final MoveGenerator reference;
+      try
+      {
+        reference = BoardFactory.valueOf(ARRAY, STARTING).derive(toBoard(sb.toString()));
+      }
+      catch (final FENException e)
+      {
+        fail(e.toString());
+        return;
+      }
+
+      // ... sur laquelle les cibles de chaque pièce glissante sont comparées.
+      final SearchBoard etat = BoardFactory.newSearchBoard(reference);
+      for (final Square s : Square.values())
+      {
+        for (final boolean blanc : new boolean [] { true, false, })
+        {
+          assertSameSquares(sb, reference.getBishopTargets(s, blanc),
+              etat.getBishopTargets(s, blanc));
+          assertSameSquares(sb, reference.getRookTargets(s, blanc), etat.getRookTargets(s, blanc));
+          assertSameSquares(sb, reference.getQueenTargets(s, blanc),
+              etat.getQueenTargets(s, blanc));
+        }
+      }
+    }
+  }
+
+  /**
+   * Teste le bilan matériel statique des échanges ("Static Exchange Evaluation").
+   */
+  @Test
+  public void testStaticExchange()
+  {
+    // Pion non défendu...
+    assertEquals(100, staticExchange("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1",
+        "e5"));
+    // ... suite de reprises avec pièces à longue portée masquées...
+    assertEquals(-200, staticExchange(
+        "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3", "e5"));
+    // ... prise perdante et mouvement sans prise vers une case attaquée...
+    assertEquals(-900, staticExchange("4k3/3p4/4p3/8/8/8/4Q3/4K3 w - - 0 1", "e2", "e6"));
+    assertEquals(-1000, staticExchange("4k3/1p6/8/8/8/8/4Q3/4K3 w - - 0 1", "e2", "a6"));
+    assertEquals(0, staticExchange("4k3/1p6/8/8/8/8/4Q3/4K3 w - - 0 1", "e2", "e4"));
+    // ... prise "en passant"...
+    assertEquals(100, staticExchange("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5", "d6"));
+    // ... et promotions.
+    assertEquals(900, staticExchange("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7", "a8"));
+    assertEquals(-100, staticExchange("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7", "a8"));
+    assertEquals(1450, staticExchange("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7", "b8"));
+  }
+}
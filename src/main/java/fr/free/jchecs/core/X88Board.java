@@ -43,9 +43,6 @@ import static fr.free.jchecs.core.PieceType.ROOK;
  */
 final class X88Board extends AbstractMoveGenerator
 {
-  /** Indice du dernier élément valide dans les buffer de travail des cases. */
-  private static int S_nbBufferedSquares;
-
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 7427708516011286821L;
 
@@ -71,20 +68,28 @@ final class X88Board extends AbstractMoveGenerator
   private static final Square [] NO_SQUARE = new Square [ 0 ];
 
   /**
-   * Buffer de travail pour optimiser la recherche des cibles de mouvements.
+   * Buffers de travail pour optimiser la recherche des cibles de mouvements.
    * <p>
-   * L'utilisation d'un buffer statique optimise les performances mais nécessite de faire très
-   * attention à la synchronisation pour que la classe reste sûre vis-à-vis des threads.
+   * Chaque fil d'exécution dispose de son propre buffer : la recherche des cibles ne partage
+   * aucune donnée modifiable et n'a donc besoin d'aucune synchronisation.
    * </p>
    */
-  // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas).
-  private static final int [] SQUARES_BUFFER = new int [ 27 ];
+  private static final ThreadLocal<int []> SQUARES_BUFFER = new ThreadLocal<int []>()
+  {
+    @Override
+    protected int [] initialValue()
+    {
+      // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des
+      // cas).
+      return new int [ 27 ];
+    }
+  };
 
   /** Description du plateau. */
   private final Piece [] _pieces = new Piece [ FILE_COUNT * RANK_COUNT * 2 - FILE_COUNT ];
 
   /** Clé de hachage. */
-  private int _hashCode;
+  private long _zobristKey;
 
   /**
    * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
@@ -99,7 +104,7 @@ final class X88Board extends AbstractMoveGenerator
     {
       _pieces[s.getRank() * 16 + s.getFile()] = pEtat.getPieceAt(s);
     }
-    _hashCode = super.hashCode();
+    _zobristKey = super.getZobristKey();
   }
 
   /**
@@ -112,19 +117,24 @@ final class X88Board extends AbstractMoveGenerator
     super(pEtat);
 
     System.arraycopy(pEtat._pieces, 0, _pieces, 0, _pieces.length);
-    _hashCode = pEtat._hashCode;
+    _zobristKey = pEtat._zobristKey;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles des mouvements possibles (y compris ceux
    * mettant le roi en échec) pour la pièce contenue par une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addAllTargets(final int pOrigine)
+  private int addAllTargets(final int [] pCibles, final int pNombre, final int pOrigine)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     final Piece piece = _pieces[pOrigine];
     if (piece != null)
     {
@@ -132,41 +142,49 @@ final class X88Board extends AbstractMoveGenerator
       switch (piece.getType())
       {
         case BISHOP :
-          addBishopTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
           break;
         case KING :
-          addKingTargets(pOrigine, trait);
+          nb = addKingTargets(pCibles, nb, pOrigine, trait);
           break;
         case KNIGHT :
-          addKnightTargets(pOrigine, trait);
+          nb = addKnightTargets(pCibles, nb, pOrigine, trait);
           break;
         case PAWN :
-          addPawnTargets(pOrigine, trait);
+          nb = addPawnTargets(pCibles, nb, pOrigine, trait);
           break;
         case QUEEN :
-          addBishopTargets(pOrigine, trait);
-          addRookTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         case ROOK :
-          addRookTargets(pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         default :
           assert false;
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "fou" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addBishopTargets(final int pOrigine, final boolean pBlanc)
+  private int addBishopTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     // Mouvements / prise vers le haut/gauche...
     int dst = pOrigine + 15;
     while ((dst & X88) == 0)
@@ -174,13 +192,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -194,13 +212,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -214,13 +232,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -234,31 +252,39 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       dst -= 15;
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * roi.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addKingTargets(final int pOrigine, final boolean pBlanc)
+  private int addKingTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     boolean testerRoque = false;
     for (final int km : KING_MOVES)
     {
@@ -268,7 +294,7 @@ final class X88Board extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
           testerRoque = true;
         }
       }
@@ -281,7 +307,7 @@ final class X88Board extends AbstractMoveGenerator
         final Piece t = _pieces[pOrigine + 3];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 2;
+          pCibles[nb++] = pOrigine + 2;
         }
       }
       if (canCastleLong(pBlanc) && (_pieces[pOrigine - 1] == null)
@@ -290,23 +316,31 @@ final class X88Board extends AbstractMoveGenerator
         final Piece t = _pieces[pOrigine - 4];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 2;
+          pCibles[nb++] = pOrigine - 2;
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * cavalier.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addKnightTargets(final int pOrigine, final boolean pBlanc)
+  private int addKnightTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     for (final int km : KNIGHT_MOVES)
     {
       final int dst = pOrigine + km;
@@ -315,23 +349,31 @@ final class X88Board extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
    * pion.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addPawnTargets(final int pOrigine, final boolean pBlanc)
+  private int addPawnTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     final int ySrc = pOrigine >>> 4;
     if (pBlanc)
     {
@@ -340,11 +382,11 @@ final class X88Board extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine + 16] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 16;
+          pCibles[nb++] = pOrigine + 16;
           // Mouvement initial de 2
           if ((ySrc == 1) && (_pieces[pOrigine + 32] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 32;
+            pCibles[nb++] = pOrigine + 32;
           }
         }
         final int xSrc = pOrigine & 0xF;
@@ -356,7 +398,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && (!pDest.isWhite()))
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -367,7 +409,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && (!pDest.isWhite()))
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
@@ -379,11 +421,11 @@ final class X88Board extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine - 16] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 16;
+          pCibles[nb++] = pOrigine - 16;
           // Mouvement initial de 2
           if ((ySrc == RANK_COUNT - 2) && (_pieces[pOrigine - 32] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 32;
+            pCibles[nb++] = pOrigine - 32;
           }
         }
         final int xSrc = pOrigine & 0xF;
@@ -395,7 +437,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && pDest.isWhite())
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -406,24 +448,32 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && pDest.isWhite())
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
     }
+
+    return nb;
   }
 
   /**
    * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "tour" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer accueillant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Nombre de cases présentes dans le buffer.
    */
-  private void addRookTargets(final int pOrigine, final boolean pBlanc)
+  private int addRookTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     // Mouvements / prise vers la gauche...
     int dst = pOrigine - 1;
     while ((dst & X88) == 0)
@@ -431,13 +481,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -451,13 +501,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -471,13 +521,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -491,18 +541,20 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       dst -= 16;
     }
+
+    return nb;
   }
 
   /**
@@ -536,7 +588,7 @@ final class X88Board extends AbstractMoveGenerator
     {
       final boolean t = !isWhiteActive();
       res.setWhiteActive(t);
-      res._hashCode ^= ZOBRIST_WHITE_ACTIVE;
+      res._zobristKey ^= ZOBRIST_WHITE_ACTIVE;
       if (t)
       {
         res.setFullmoveNumber(getFullmoveNumber() + 1);
@@ -561,7 +613,7 @@ final class X88Board extends AbstractMoveGenerator
     assert res._pieces[i88Src] == piece;
     res._pieces[i88Src] = null;
     final int pieceOrdinal = piece.ordinal();
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
+    res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
     final Square dst = pMouvement.getTo();
     final int iDst = dst.getIndex();
     final int xDst = dst.getFile();
@@ -570,10 +622,10 @@ final class X88Board extends AbstractMoveGenerator
     final Piece pieceDst = _pieces[i88Dst];
     if (pieceDst != null)
     {
-      res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
+      res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
     }
     res._pieces[i88Dst] = piece;
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+    res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
     // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
     if (typePiece == KING)
     {
@@ -590,9 +642,9 @@ final class X88Board extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i88] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i88 + 3] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
           res.setCastled(trait, true);
         }
         else if (xDst == 6)
@@ -605,9 +657,9 @@ final class X88Board extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i88] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i88 - 2] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
           res.setCastled(trait, true);
         }
       }
@@ -620,11 +672,11 @@ final class X88Board extends AbstractMoveGenerator
         res.setCastleShort(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_WHITE_CASTLE_SHORT;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_BLACK_CASTLE_SHORT;
         }
       }
     }
@@ -635,11 +687,11 @@ final class X88Board extends AbstractMoveGenerator
         res.setCastleLong(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_WHITE_CASTLE_LONG;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_BLACK_CASTLE_LONG;
         }
       }
     }
@@ -660,8 +712,8 @@ final class X88Board extends AbstractMoveGenerator
         if (yDst == RANK_COUNT - 1)
         {
           res._pieces[i88Dst] = WHITE_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == 1) && (yDst == 3))
         {
@@ -672,7 +724,7 @@ final class X88Board extends AbstractMoveGenerator
           final int epDst = iDst - FILE_COUNT;
           final int ep88Dst = i88Dst - 16;
           res._pieces[ep88Dst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
         }
       }
       else
@@ -681,8 +733,8 @@ final class X88Board extends AbstractMoveGenerator
         if (yDst == 0)
         {
           res._pieces[i88Dst] = BLACK_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
         {
@@ -693,7 +745,7 @@ final class X88Board extends AbstractMoveGenerator
           final int epDst = iDst + FILE_COUNT;
           final int ep88Dst = i88Dst + 16;
           res._pieces[ep88Dst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
         }
       }
     }
@@ -701,11 +753,11 @@ final class X88Board extends AbstractMoveGenerator
     final Square epFinal = res.getEnPassant();
     if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
+      res._zobristKey ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
     }
     if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
+      res._zobristKey ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
     }
 
     return res;
@@ -770,17 +822,13 @@ final class X88Board extends AbstractMoveGenerator
     {
       final Square [] res;
 
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
-
-        addAllTargets(idx);
+      final int [] cibles = SQUARES_BUFFER.get();
+      final int nb = addAllTargets(cibles, 0, idx);
 
-        res = new Square [ S_nbBufferedSquares ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-        }
+      res = new Square [ nb ];
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+      {
+        res[t] = Square.valueOf(FROM_X88[cibles[t]]);
       }
 
       return res;
@@ -803,17 +851,14 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addBishopTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb =
+        addBishopTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -832,17 +877,14 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKingTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb =
+        addKingTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -861,17 +903,14 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKnightTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb =
+        addKnightTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -890,17 +929,14 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addPawnTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb =
+        addPawnTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -948,19 +984,15 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      final int idx = pOrigine.getRank() * 16 + pOrigine.getFile();
-      addBishopTargets(idx, pBlanc);
-      addRookTargets(idx, pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int idx = pOrigine.getRank() * 16 + pOrigine.getFile();
+    int nb = addBishopTargets(cibles, 0, idx, pBlanc);
+    nb = addRookTargets(cibles, nb, idx, pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -980,17 +1012,14 @@ final class X88Board extends AbstractMoveGenerator
 
     final Square [] res;
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addRookTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = SQUARES_BUFFER.get();
+    final int nb =
+        addRookTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
+    res = new Square [ nb ];
+    for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+    {
+      res[t] = Square.valueOf(FROM_X88[cibles[t]]);
     }
 
     return res;
@@ -1069,64 +1098,73 @@ final class X88Board extends AbstractMoveGenerator
     final Piece piece = _pieces[iSrc];
     if (piece != null)
     {
-      synchronized (SQUARES_BUFFER)
+      final int [] cibles = SQUARES_BUFFER.get();
+      final int nb = addAllTargets(cibles, 0, iSrc);
+      int nbFinal = nb;
+      final boolean trait = piece.isWhite();
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
       {
-        S_nbBufferedSquares = 0;
-        addAllTargets(iSrc);
-        int nbFinal = S_nbBufferedSquares;
-        final boolean trait = piece.isWhite();
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
+        final int idxCible = cibles[t];
+        final Square cible = Square.valueOf(FROM_X88[idxCible]);
+        final Piece prise = _pieces[idxCible];
+        if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
         {
-          final int idxCible = SQUARES_BUFFER[t];
-          final Square cible = Square.valueOf(FROM_X88[idxCible]);
-          final Piece prise = _pieces[idxCible];
-          if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
-          {
-            SQUARES_BUFFER[t] = -1;
-            nbFinal--;
-          }
-          else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
+          cibles[t] = -1;
+          nbFinal--;
+        }
+        else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
+        {
+          final int delta = 4 - cible.getFile();
+          if ((delta == 2) || (delta == -2))
           {
-            final int delta = 4 - cible.getFile();
-            if ((delta == 2) || (delta == -2))
+            // Elimine le roque si le roi est en échec ou s'il le serait sur la case
+            // intermédiaire...
+            if (isInCheck(trait)
+                || derive(
+                    new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
+                    false).isInCheck(trait))
             {
-              // Elimine le roque si le roi est en échec ou s'il le serait sur la case
-              // intermédiaire...
-              if (isInCheck(trait)
-                  || derive(
-                      new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
-                      false).isInCheck(trait))
-              {
-                SQUARES_BUFFER[t] = -1;
-                nbFinal--;
-              }
+              cibles[t] = -1;
+              nbFinal--;
             }
           }
         }
-        assert (nbFinal >= 0) && (nbFinal <= S_nbBufferedSquares);
+      }
+      assert (nbFinal >= 0) && (nbFinal <= nb);
 
-        if (nbFinal == 0)
-        {
-          return NO_SQUARE;
-        }
+      if (nbFinal == 0)
+      {
+        return NO_SQUARE;
+      }
 
-        final Square [] res = new Square [ nbFinal ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
+      final Square [] res = new Square [ nbFinal ];
+      for (int t = nb; --t >= 0; /* Pré-décrémenté */)
+      {
+        final int idx = cibles[t];
+        if (idx >= 0)
         {
-          final int idx = SQUARES_BUFFER[t];
-          if (idx >= 0)
-          {
-            res[--nbFinal] = Square.valueOf(FROM_X88[idx]);
-          }
+          res[--nbFinal] = Square.valueOf(FROM_X88[idx]);
         }
-
-        return res;
       }
+
+      return res;
     }
 
     return NO_SQUARE;
   }
 
+  /**
+   * Surcharge du calcul de la clé de hachage "Zobrist", pour optimisation.
+   * 
+   * @return Clé de hachage sur 64 bits.
+   */
+  @Override
+  public long getZobristKey()
+  {
+    assert _zobristKey == super.getZobristKey();
+    return _zobristKey;
+  }
+
   /**
    * Surcharge du calcul des clés de hachage, pour optimisation.
    * 
@@ -1135,8 +1173,7 @@ final class X88Board extends AbstractMoveGenerator
   @Override
   public int hashCode()
   {
-    assert _hashCode == super.hashCode();
-    return _hashCode;
+    return (int) getZobristKey();
   }
 
   /**
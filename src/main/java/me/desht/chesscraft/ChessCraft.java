@@ -1,8 +1,11 @@
 package me.desht.chesscraft;
 
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
+import fr.free.jchecs.ai.EngineFactory;
 import me.desht.chesscraft.chess.*;
+import me.desht.chesscraft.chess.ai.AIExecutor;
 import me.desht.chesscraft.chess.ai.AIFactory;
+import me.desht.chesscraft.chess.ai.JChecsAI;
 import me.desht.chesscraft.citizens.CitizensUtil;
 import me.desht.chesscraft.commands.*;
 import me.desht.chesscraft.listeners.*;
@@ -163,6 +166,9 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 		ChessGameManager gm = ChessGameManager.getManager();
 
 		AIFactory.getInstance().clearDown();
+		AIExecutor.shutdown();
+		EngineFactory.shutdown();
+		JChecsAI.closeLearningCaches();
 		for (ChessGame game : gm.listGames()) {
 			game.tick();
 		}
@@ -205,6 +211,14 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 				@Override
 				public int getValue() { return ChessGameManager.getManager().listGames().size(); }
 			});
+			metrics.createGraph("AI Queue Depth").addPlotter(new Plotter() {
+				@Override
+				public int getValue() { return AIExecutor.getInstance().getQueueDepth(); }
+			});
+			metrics.createGraph("AI Average Wait (ms)").addPlotter(new Plotter() {
+				@Override
+				public int getValue() { return (int) Math.min(AIExecutor.getInstance().getAverageWaitTime(), Integer.MAX_VALUE); }
+			});
 			metrics.start();
 		} catch (IOException e) {
 			LogUtils.warning("Can't submit metrics data: " + e.getMessage());
@@ -453,6 +467,10 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 			for (BoardView bv : BoardViewManager.getManager().listBoardViews()) {
 				bv.defaultTimeControlChanged();
 			}
+		} else if (key.equals("ai.hash_budget_mb")) {
+			AIFactory.getInstance().rebalanceHashMemory();
+		} else if (key.equals("ai.worker_threads")) {
+			AIExecutor.getInstance().updateThreads();
 		} else if (key.equals("entity_volume") && isProtocolLibEnabled()) {
 			ProtocolLibIntegration.setEntityVolume((Double) newVal);
 		}
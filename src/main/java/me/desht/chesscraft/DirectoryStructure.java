@@ -14,9 +14,10 @@ public class DirectoryStructure {
 	private static File pluginDir = new File("plugins", "ChessCraft"); //$NON-NLS-1$ //$NON-NLS-2$
 	private static JARUtil jarUtil;
 
-	private static File pgnDir, boardStyleDir, pieceStyleDir, schematicsDir;
-	private static File dataDir, gamePersistDir, boardPersistDir, languagesDir, resultsDir;
+	private static File pgnDir, pgnArchiveDir, boardStyleDir, pieceStyleDir, schematicsDir;
+	private static File dataDir, gamePersistDir, boardPersistDir, languagesDir, resultsDir, learningDir;
 	private static final String pgnFoldername = "pgn"; //$NON-NLS-1$
+	private static final String pgnArchiveFoldername = "archive"; //$NON-NLS-1$
 	private static final String boardStyleFoldername = "board_styles"; //$NON-NLS-1$
 	private static final String pieceStyleFoldername = "piece_styles"; //$NON-NLS-1$
 	private static final String schematicsFoldername = "schematics"; //$NON-NLS-1$
@@ -25,6 +26,7 @@ public class DirectoryStructure {
 	private static final String gamesFoldername = "games"; //$NON-NLS-1$
 	private static final String boardsFoldername = "boards"; //$NON-NLS-1$
 	private static final String resultsFoldername = "results"; //$NON-NLS-1$
+	private static final String learningFoldername = "learning"; //$NON-NLS-1$
 
 	private static File persistFile;
 	private static final String persistFilename = "persist.yml"; //$NON-NLS-1$
@@ -49,6 +51,10 @@ public class DirectoryStructure {
 		return pgnDir;
 	}
 
+	public static File getPGNArchiveDirectory() {
+		return pgnArchiveDir;
+	}
+
 	public static File getBoardStyleDirectory() {
 		return boardStyleDir;
 	}
@@ -81,9 +87,14 @@ public class DirectoryStructure {
 		return resultsDir;
 	}
 
+	public static File getLearningDirectory() {
+		return learningDir;
+	}
+
 	private static void setupDirectoryStructure() {
 		// directories
 		pgnDir = new File(pluginDir, pgnFoldername);
+		pgnArchiveDir = new File(pgnDir, pgnArchiveFoldername);
 		boardStyleDir = new File(pluginDir, boardStyleFoldername);
 		pieceStyleDir = new File(pluginDir, pieceStyleFoldername);
 		dataDir = new File(pluginDir, datasaveFoldername);
@@ -92,6 +103,7 @@ public class DirectoryStructure {
 		schematicsDir = new File(boardPersistDir, schematicsFoldername);
 		languagesDir = new File(pluginDir, languageFoldername);
 		resultsDir = new File(dataDir, resultsFoldername);
+		learningDir = new File(dataDir, learningFoldername);
 
 		// files
 		persistFile = new File(dataDir, persistFilename);
@@ -100,6 +112,8 @@ public class DirectoryStructure {
 		createDir(pluginDir);
 		// [plugins]/ChessCraft/pgn
 		createDir(pgnDir);
+		// [plugins]/ChessCraft/pgn/archive
+		createDir(pgnArchiveDir);
 		// [plugins]/ChessCraft/lang
 		createDir(languagesDir);
 		// [plugins]/ChessCraft/board_styles
@@ -116,6 +130,8 @@ public class DirectoryStructure {
 		createDir(boardPersistDir);
 		// [plugins]/ChessCraft/data/results
 		createDir(resultsDir);
+		// [plugins]/ChessCraft/data/learning
+		createDir(learningDir);
 
 		// saved board schematics may need to be moved into their new location
 		File oldSchematicsDir = new File(pluginDir, "schematics"); //$NON-NLS-1$
@@ -798,6 +798,9 @@ public class ChessGame implements ConfigurationSerializable, ChessPersistable {
 			result = winnerColour == Chess.WHITE ? Chess.RES_WHITE_WINS : Chess.RES_BLACK_WINS;
 		}
 		cpGame.setTag(PGN.TAG_RESULT, getPGNResult());
+		if (ChessCraft.getInstance().getConfig().getBoolean("pgn_archive.auto_archive")) {
+			archivePGNAsync();
+		}
 
 		String msg = Messages.getString(rt.getMsgKey(), p1, p2);
 		if (p1.equals(p2)) {
@@ -940,6 +943,41 @@ public class ChessGame implements ConfigurationSerializable, ChessPersistable {
 		}
 	}
 
+	/**
+	 * Append the game to the bulk PGN archive (see {@link PGNArchive}).  Only finished games
+	 * can be archived, and only once.
+	 *
+	 * @return the archive index entry for the game
+	 * @throws ChessException if the game isn't finished, or is already archived
+	 */
+	public PGNArchive.Entry archivePGN() {
+		ensureGameState(GameState.FINISHED);
+		PGNArchive.Entry entry = PGNArchive.getInstance().appendIfAbsent(getPGN());
+		ChessValidate.notNull(entry, Messages.getString("Game.alreadyArchived", getName()));
+		return entry;
+	}
+
+	/**
+	 * Append the game to the bulk PGN archive in the background.  The PGN is generated right
+	 * away, since the game may be deleted before the archive is written.
+	 */
+	private void archivePGNAsync() {
+		final String pgn = getPGN();
+		Bukkit.getScheduler().runTaskAsynchronously(ChessCraft.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				try {
+					PGNArchive.Entry entry = PGNArchive.getInstance().appendIfAbsent(pgn);
+					if (entry != null) {
+						Debugger.getInstance().debug("archived game " + entry + " to " + entry.getSegmentName());
+					}
+				} catch (ChessException e) {
+					LogUtils.warning(e.getMessage());
+				}
+			}
+		});
+	}
+
 	public String getPGN() {
 		StringWriter strw = new StringWriter();
 		PGNWriter w = new PGNWriter(strw);
@@ -0,0 +1,428 @@
+package me.desht.chesscraft.chess;
+
+import me.desht.chesscraft.ChessCraft;
+import me.desht.chesscraft.DirectoryStructure;
+import me.desht.chesscraft.Messages;
+import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.Debugger;
+import me.desht.dhutils.LogUtils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author desht
+ *
+ * A bulk archive of finished games.  Games are appended to rolling multi-game PGN segment files
+ * (pgn/archive/games-NNNNN.pgn.gz), each game as its own gzip member, so a segment is still a
+ * valid gzip file which can be read with any PGN tool.  A new segment is started once the
+ * current one passes "pgn_archive.segment_size_kb".
+ *
+ * A side index (pgn/archive/archive.idx, one tab-separated line per game) records each game's
+ * name, players, date and result along with its segment, offset and compressed length, so one
+ * game can be read back with a single seek.
+ */
+public class PGNArchive {
+	private static final String INDEX_FILE = "archive.idx";
+	private static final String SEGMENT_PREFIX = "games-";
+	private static final String SEGMENT_SUFFIX = ".pgn.gz";
+	private static final Pattern TAG_PATTERN = Pattern.compile("^\\[(\\w+)\\s+\"(.*)\"\\]\\s*$", Pattern.MULTILINE);
+	private static final Pattern ARCHIVE_FILE_PATTERN = Pattern.compile(".+_\\d{4}\\.\\d{2}\\.\\d{2}_\\d+\\.pgn$");
+
+	private static PGNArchive instance;
+
+	private final File dir;
+	private final File legacyDir;
+	private final long maxSegmentLength;
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private int segment = 1;
+	private long segmentLength = 0L;
+	private boolean migrating = false;
+
+	/**
+	 * Open an archive.
+	 *
+	 * @param dir the archive directory
+	 * @param legacyDir the directory holding old one-file-per-game archives (see migrate())
+	 * @param maxSegmentLength the segment size in bytes, or 0 to use "pgn_archive.segment_size_kb"
+	 */
+	PGNArchive(File dir, File legacyDir, long maxSegmentLength) {
+		this.dir = dir;
+		this.legacyDir = legacyDir;
+		this.maxSegmentLength = maxSegmentLength;
+		loadIndex();
+	}
+
+	public static synchronized PGNArchive getInstance() {
+		if (instance == null) {
+			instance = new PGNArchive(DirectoryStructure.getPGNArchiveDirectory(), DirectoryStructure.getPGNDirectory(), 0L);
+		}
+		return instance;
+	}
+
+	/**
+	 * Append a game to the archive.
+	 *
+	 * @param pgn the game, in PGN format
+	 * @return the index entry for the archived game
+	 */
+	public synchronized Entry append(String pgn) {
+		byte[] data;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			GZIPOutputStream gz = new GZIPOutputStream(bytes);
+			gz.write((pgn.trim() + "\n\n").getBytes("UTF-8"));
+			gz.close();
+			data = bytes.toByteArray();
+		} catch (IOException e) {
+			throw new ChessException(Messages.getString("Game.cantWriteArchive", getSegmentName(segment), e.getMessage()));
+		}
+
+		if (segmentLength > 0 && segmentLength + data.length > getMaxSegmentLength()) {
+			segment++;
+			segmentLength = 0L;
+			Debugger.getInstance().debug("PGN archive: starting new segment " + getSegmentFile(segment).getName());
+		}
+		File f = getSegmentFile(segment);
+		Entry entry = new Entry(getTag(pgn, "Event"), getTag(pgn, "White"), getTag(pgn, "Black"),
+				getTag(pgn, "Date"), getTag(pgn, "Result"), segment, f.length(), data.length);
+		try {
+			FileOutputStream out = new FileOutputStream(f, true);
+			try {
+				out.write(data);
+			} finally {
+				out.close();
+			}
+			Writer idx = new OutputStreamWriter(new FileOutputStream(new File(dir, INDEX_FILE), true), "UTF-8");
+			try {
+				idx.write(entry.toIndexLine() + "\n");
+			} finally {
+				idx.close();
+			}
+		} catch (IOException e) {
+			throw new ChessException(Messages.getString("Game.cantWriteArchive", f.getName(), e.getMessage()));
+		}
+		segmentLength = entry.offset + entry.length;
+		entries.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Append a game to the archive, unless the very same game is already there: same name,
+	 * players, date and result, and the same moves.
+	 *
+	 * @param pgn the game, in PGN format
+	 * @return the index entry for the archived game, or null if it was already archived
+	 */
+	public synchronized Entry appendIfAbsent(String pgn) {
+		String gameName = Entry.clean(getTag(pgn, "Event"));
+		String white = Entry.clean(getTag(pgn, "White"));
+		String black = Entry.clean(getTag(pgn, "Black"));
+		String date = Entry.clean(getTag(pgn, "Date"));
+		String result = Entry.clean(getTag(pgn, "Result"));
+		String moveText = null;
+		for (Entry e : entries) {
+			if (e.gameName.equals(gameName) && e.white.equals(white) && e.black.equals(black)
+					&& e.date.equals(date) && e.result.equals(result)) {
+				// the tags only tell games apart by day, so compare the moves too
+				if (moveText == null) {
+					moveText = getMoveText(pgn);
+				}
+				try {
+					if (getMoveText(read(e)).equals(moveText)) {
+						return null;
+					}
+				} catch (ChessException ex) {
+					LogUtils.warning(ex.getMessage());
+				}
+			}
+		}
+		return append(pgn);
+	}
+
+	/**
+	 * Read an archived game back.
+	 *
+	 * @param entry the game's index entry
+	 * @return the game, in PGN format
+	 */
+	public String read(Entry entry) {
+		File f = getSegmentFile(entry.segment);
+		byte[] data = new byte[entry.length];
+		try {
+			RandomAccessFile raf = new RandomAccessFile(f, "r");
+			try {
+				raf.seek(entry.offset);
+				raf.readFully(data);
+			} finally {
+				raf.close();
+			}
+			Reader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(data)), "UTF-8");
+			StringBuilder sb = new StringBuilder();
+			char[] buf = new char[4096];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				sb.append(buf, 0, n);
+			}
+			in.close();
+			return sb.toString();
+		} catch (IOException e) {
+			throw new ChessException(Messages.getString("Game.cantReadArchive", entry.getGameName(), f.getName(), e.getMessage()));
+		}
+	}
+
+	/**
+	 * Get all archived games, oldest first.
+	 *
+	 * @return an unmodifiable list of index entries
+	 */
+	public synchronized List<Entry> getEntries() {
+		return Collections.unmodifiableList(new ArrayList<Entry>(entries));
+	}
+
+	/**
+	 * Find the archived games with the given name, oldest first.
+	 *
+	 * @param gameName the game name
+	 * @return a list of index entries (empty if there are none)
+	 */
+	public synchronized List<Entry> find(String gameName) {
+		List<Entry> res = new ArrayList<Entry>();
+		for (Entry e : entries) {
+			if (e.gameName.equalsIgnoreCase(gameName)) {
+				res.add(e);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Move the old one-file-per-game archives from the PGN directory into the bulk archive.
+	 * Each file is deleted once its game has been appended; a file whose game is already in the
+	 * archive is left alone.  This can take a while, so don't call it from the main thread.  Only one migration may run
+	 * at a time; games can still be appended or read meanwhile.
+	 *
+	 * @return the number of games migrated
+	 * @throws ChessException if a migration is already running
+	 */
+	public int migrate() {
+		synchronized (this) {
+			if (migrating) {
+				throw new ChessException(Messages.getString("ChessCommandExecutor.PGNmigrationRunning"));
+			}
+			migrating = true;
+		}
+		try {
+			return migrateFiles();
+		} finally {
+			synchronized (this) {
+				migrating = false;
+			}
+		}
+	}
+
+	private int migrateFiles() {
+		File[] files = legacyDir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return ARCHIVE_FILE_PATTERN.matcher(name).matches();
+			}
+		});
+		if (files == null) {
+			return 0;
+		}
+		// oldest first, so the archive stays in chronological order
+		List<File> sorted = new ArrayList<File>();
+		Collections.addAll(sorted, files);
+		Collections.sort(sorted, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				long m1 = f1.lastModified(), m2 = f2.lastModified();
+				return m1 < m2 ? -1 : (m1 == m2 ? f1.getName().compareTo(f2.getName()) : 1);
+			}
+		});
+
+		int n = 0;
+		for (File f : sorted) {
+			try {
+				String pgn = readFile(f);
+				if (pgn.trim().isEmpty()) {
+					continue;
+				}
+				if (appendIfAbsent(pgn) == null) {
+					LogUtils.info("PGN archive: " + f.getName() + " is already archived, not migrating it");
+					continue;
+				}
+				n++;
+				if (!f.delete()) {
+					LogUtils.warning("PGN archive: migrated " + f.getName() + " but can't delete it");
+				}
+			} catch (IOException e) {
+				LogUtils.warning("PGN archive: can't migrate " + f.getName() + ": " + e.getMessage());
+			}
+		}
+		LogUtils.info("PGN archive: migrated " + n + " game(s) into " + dir);
+		return n;
+	}
+
+	private void loadIndex() {
+		File f = new File(dir, INDEX_FILE);
+		if (f.exists()) {
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8"));
+				try {
+					String line;
+					while ((line = in.readLine()) != null) {
+						Entry e = Entry.fromIndexLine(line);
+						if (e != null) {
+							entries.add(e);
+						} else if (!line.isEmpty()) {
+							LogUtils.warning("PGN archive: ignoring bad index line: " + line);
+						}
+					}
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				LogUtils.warning("PGN archive: can't read index " + f + ": " + e.getMessage());
+			}
+		}
+		for (Entry e : entries) {
+			segment = Math.max(segment, e.segment);
+		}
+		segmentLength = getSegmentFile(segment).length();
+		Debugger.getInstance().debug("PGN archive: " + entries.size() + " games indexed, current segment " + segment);
+	}
+
+	private File getSegmentFile(int n) {
+		return new File(dir, getSegmentName(n));
+	}
+
+	private static String getSegmentName(int n) {
+		return String.format("%s%05d%s", SEGMENT_PREFIX, n, SEGMENT_SUFFIX);
+	}
+
+	private long getMaxSegmentLength() {
+		if (maxSegmentLength > 0) {
+			return maxSegmentLength;
+		}
+		return ChessCraft.getInstance().getConfig().getLong("pgn_archive.segment_size_kb", 4096) * 1024L;
+	}
+
+	/**
+	 * Get a game's moves, without its tags and with whitespace normalised.
+	 */
+	private static String getMoveText(String pgn) {
+		return TAG_PATTERN.matcher(pgn).replaceAll("").trim().replaceAll("\\s+", " ");
+	}
+
+	private static String getTag(String pgn, String tag) {
+		Matcher m = TAG_PATTERN.matcher(pgn);
+		while (m.find()) {
+			if (m.group(1).equals(tag)) {
+				return m.group(2);
+			}
+		}
+		return "?";
+	}
+
+	private static String readFile(File f) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8"));
+		try {
+			StringBuilder sb = new StringBuilder();
+			String line;
+			while ((line = in.readLine()) != null) {
+				sb.append(line).append("\n");
+			}
+			return sb.toString();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The index entry for one archived game.
+	 */
+	public static class Entry {
+		private final String gameName;
+		private final String white;
+		private final String black;
+		private final String date;
+		private final String result;
+		private final int segment;
+		private final long offset;
+		private final int length;
+
+		private Entry(String gameName, String white, String black, String date, String result, int segment, long offset, int length) {
+			this.gameName = gameName;
+			this.white = white;
+			this.black = black;
+			this.date = date;
+			this.result = result;
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public String getGameName() {
+			return gameName;
+		}
+
+		public String getWhite() {
+			return white;
+		}
+
+		public String getBlack() {
+			return black;
+		}
+
+		public String getDate() {
+			return date;
+		}
+
+		public String getResult() {
+			return result;
+		}
+
+		public int getSegment() {
+			return segment;
+		}
+
+		public String getSegmentName() {
+			return PGNArchive.getSegmentName(segment);
+		}
+
+		private String toIndexLine() {
+			return clean(gameName) + "\t" + clean(white) + "\t" + clean(black) + "\t" + clean(date) + "\t"
+					+ clean(result) + "\t" + segment + "\t" + offset + "\t" + length;
+		}
+
+		private static Entry fromIndexLine(String line) {
+			String[] f = line.split("\t");
+			if (f.length != 8) {
+				return null;
+			}
+			try {
+				return new Entry(f[0], f[1], f[2], f[3], f[4], Integer.parseInt(f[5]), Long.parseLong(f[6]), Integer.parseInt(f[7]));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private static String clean(String s) {
+			return s.replace('\t', ' ').replace('\n', ' ');
+		}
+
+		@Override
+		public String toString() {
+			return gameName + " (" + white + " - " + black + ", " + date + ", " + result + ")";
+		}
+	}
+}
@@ -182,6 +182,15 @@ public class TimeControl implements ConfigurationSerializable {
 		return rollovers.get(rolloverPhase);
 	}
 
+	/**
+	 * Get the number of moves already made in the current rollover phase.
+	 *
+	 * @return the number of moves made
+	 */
+	public int getRolloverMovesMade() {
+		return rolloverMovesMade;
+	}
+
 	/**
 	 * The player has made a move - adjust time control accordingly, and deactivate the clock.
 	 */
@@ -0,0 +1,305 @@
+package me.desht.chesscraft.chess.ai;
+
+import me.desht.chesscraft.ChessCraft;
+import me.desht.dhutils.Debugger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author desht
+ *
+ * A dedicated execution service for AI work, shared by all running AIs.  AI searches run on a
+ * bounded pool of worker threads (sized by "ai.worker_threads"), so many simultaneous AI games
+ * queue up for a worker instead of starving the Bukkit async scheduler.  Waiting searches are
+ * ordered by the time left on their game's clock: the AI closest to losing on time goes first,
+ * and games without a time control go last.  Every waiting AI's clock is running, so this order
+ * doesn't change while they wait.
+ *
+ * Background work which must not hold up the searches (pondering) runs on separate
+ * low-priority threads; callers are expected to limit it themselves.
+ */
+public class AIExecutor {
+	private static AIExecutor instance;
+
+	private final ThreadPoolExecutor workers;
+	private final ScheduledExecutorService timer;
+	private final ExecutorService background;
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong tasksRun = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private volatile long maxWaitTime = 0L;
+
+	private AIExecutor(int threads) {
+		workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable>(), new AIThreadFactory("ChessCraft AI worker", Thread.NORM_PRIORITY));
+		timer = Executors.newSingleThreadScheduledExecutor(new AIThreadFactory("ChessCraft AI timer", Thread.NORM_PRIORITY));
+		background = Executors.newCachedThreadPool(new AIThreadFactory("ChessCraft AI background", Thread.MIN_PRIORITY));
+	}
+
+	public static synchronized AIExecutor getInstance() {
+		if (instance == null) {
+			instance = new AIExecutor(getConfiguredThreads());
+		}
+		return instance;
+	}
+
+	/**
+	 * Stop all AI threads.  Queued work is discarded; work in progress is left to finish
+	 * on its own.  Called on disable.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.workers.shutdownNow();
+			instance.timer.shutdownNow();
+			instance.background.shutdownNow();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Get the worker pool size from "ai.worker_threads": 0 (the default) means one worker per
+	 * available processor.
+	 *
+	 * @return the number of worker threads
+	 */
+	private static int getConfiguredThreads() {
+		int threads = ChessCraft.getInstance().getConfig().getInt("ai.worker_threads", 0);
+		return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Resize the worker pool after a change to "ai.worker_threads".  Searches already running
+	 * are not affected.
+	 */
+	public void updateThreads() {
+		int threads = getConfiguredThreads();
+		if (threads > workers.getMaximumPoolSize()) {
+			workers.setMaximumPoolSize(threads);
+			workers.setCorePoolSize(threads);
+		} else {
+			workers.setCorePoolSize(threads);
+			workers.setMaximumPoolSize(threads);
+		}
+		Debugger.getInstance().debug("AI worker pool resized to " + threads + " threads");
+	}
+
+	/**
+	 * Queue some AI work, to run on the worker pool once the given delay has passed.
+	 *
+	 * @param name a description of the work, for debugging
+	 * @param work the work to run
+	 * @param priority lower values run first (normally the time left on the AI's clock, in ms)
+	 * @param delay how long to wait before queueing the work, in ms
+	 * @return a handle which can be used to cancel the work
+	 */
+	public Task submit(String name, Runnable work, long priority, long delay) {
+		Task task = newTask(name, work, priority);
+		submit(task, delay);
+		return task;
+	}
+
+	/**
+	 * Create some AI work without queueing it yet.  This lets the caller publish the task
+	 * handle before the work can possibly start; queue it with submit(Task, long).
+	 *
+	 * @param name a description of the work, for debugging
+	 * @param work the work to run
+	 * @param priority lower values run first (normally the time left on the AI's clock, in ms)
+	 * @return a handle which can be used to queue or cancel the work
+	 */
+	public Task newTask(String name, Runnable work, long priority) {
+		return new Task(name, work, priority);
+	}
+
+	/**
+	 * Queue some AI work created by newTask(), to run on the worker pool once the given delay
+	 * has passed.
+	 *
+	 * @param task the work to queue
+	 * @param delay how long to wait before queueing the work, in ms
+	 */
+	public void submit(final Task task, long delay) {
+		if (delay > 0) {
+			task.delayed = timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					task.enqueue();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} else {
+			task.enqueue();
+		}
+	}
+
+	/**
+	 * Run some low-priority background work, outside the worker pool.
+	 *
+	 * @param work the work to run
+	 */
+	public void submitBackground(Runnable work) {
+		background.execute(work);
+	}
+
+	/**
+	 * Run some work after a delay, on the executor's timer thread.  The work must be quick.
+	 *
+	 * @param work the work to run
+	 * @param delay the delay, in ms
+	 */
+	public void schedule(Runnable work, long delay) {
+		timer.schedule(work, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Get the number of AI tasks waiting for a worker.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * Get the number of workers currently running an AI task.
+	 *
+	 * @return the number of busy workers
+	 */
+	public int getActiveWorkers() {
+		return workers.getActiveCount();
+	}
+
+	/**
+	 * Get the size of the worker pool.
+	 *
+	 * @return the number of workers
+	 */
+	public int getWorkerCount() {
+		return workers.getCorePoolSize();
+	}
+
+	/**
+	 * Get the number of AI tasks which have been started so far.
+	 *
+	 * @return the number of tasks run
+	 */
+	public long getTasksRun() {
+		return tasksRun.get();
+	}
+
+	/**
+	 * Get the average time AI tasks have waited in the queue for a worker.
+	 *
+	 * @return the average wait time, in ms
+	 */
+	public long getAverageWaitTime() {
+		long n = tasksRun.get();
+		return n == 0 ? 0L : totalWaitTime.get() / n;
+	}
+
+	/**
+	 * Get the longest time an AI task has waited in the queue for a worker.
+	 *
+	 * @return the maximum wait time, in ms
+	 */
+	public long getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	private void recordWait(Task task, long waited) {
+		tasksRun.incrementAndGet();
+		totalWaitTime.addAndGet(waited);
+		if (waited > maxWaitTime) {
+			maxWaitTime = waited;
+		}
+		Debugger.getInstance().debug(2, "AI task " + task.name + " started after waiting " + waited + "ms, "
+				+ getQueueDepth() + " task(s) still queued");
+	}
+
+	/**
+	 * A unit of queued AI work.
+	 */
+	public class Task implements Runnable, Comparable<Task> {
+		private final String name;
+		private final Runnable work;
+		private final long priority;
+		private final long seq;
+		private volatile boolean cancelled = false;
+		private volatile ScheduledFuture<?> delayed;
+		private long queuedAt;
+
+		private Task(String name, Runnable work, long priority) {
+			this.name = name;
+			this.work = work;
+			this.priority = priority;
+			this.seq = sequence.getAndIncrement();
+		}
+
+		private void enqueue() {
+			if (!cancelled) {
+				queuedAt = System.currentTimeMillis();
+				try {
+					workers.execute(this);
+				} catch (RejectedExecutionException e) {
+					// shutting down
+					cancelled = true;
+				}
+			}
+		}
+
+		/**
+		 * Cancel this work if it hasn't started yet, and flag it as cancelled so that work
+		 * in progress can give up early (see isCancelled()).
+		 */
+		public void cancel() {
+			cancelled = true;
+			ScheduledFuture<?> d = delayed;
+			if (d != null) {
+				d.cancel(false);
+			}
+			workers.remove(this);
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			recordWait(this, System.currentTimeMillis() - queuedAt);
+			work.run();
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			if (priority != other.priority) {
+				return priority < other.priority ? -1 : 1;
+			}
+			return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+		}
+	}
+
+	private static class AIThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final int priority;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private AIThreadFactory(String prefix, int priority) {
+			this.prefix = prefix;
+			this.priority = priority;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + " #" + count.incrementAndGet());
+			t.setDaemon(true);
+			t.setPriority(priority);
+			return t;
+		}
+	}
+}
@@ -35,6 +35,8 @@ public class AIFactory {
 	private final Map<String, AIDefinition> allAliases = new HashMap<String, AIDefinition>();
 	private final Map<String, AIDefinition> coreDefs = new HashMap<String, AIDefinition>();
 
+	private int ponderingAIs = 0;
+
 	private static AIFactory instance;
 
 	public AIFactory() {
@@ -76,12 +78,68 @@ public class AIFactory {
 		}
 		ChessAI ai = aiDef.createInstance(game, isWhiteAI);
 		runningAIs.put(aiName, ai);
+		rebalanceHashMemory();
 
 		return ai;
 	}
 
 	void deleteAI(ChessAI ai) {
 		runningAIs.remove(ai.getName());
+		rebalanceHashMemory();
+	}
+
+	/**
+	 * Share the global transposition table budget (ai.hash_budget_mb) between all running
+	 * jChecs AIs whose engine has a transposition table.  Each AI gets what its definition asks for if possible; when the budget
+	 * is too small, the AIs asking for the most are cut down to an equal share of what is
+	 * left.  New sizes take effect at each AI's next search.
+	 */
+	public void rebalanceHashMemory() {
+		List<JChecsAI> jChecsAIs = new ArrayList<JChecsAI>();
+		for (ChessAI ai : runningAIs.values()) {
+			if (ai instanceof JChecsAI && ((JChecsAI) ai).getRequestedHashSize() > 0) {
+				jChecsAIs.add((JChecsAI) ai);
+			}
+		}
+		Collections.sort(jChecsAIs, new Comparator<JChecsAI>() {
+			@Override
+			public int compare(JChecsAI o1, JChecsAI o2) {
+				return Integer.valueOf(o1.getRequestedHashSize()).compareTo(o2.getRequestedHashSize());
+			}
+		});
+
+		long remaining = Math.max(1, ChessCraft.getInstance().getConfig().getInt("ai.hash_budget_mb", 64)) * 1024L * 1024L;
+		for (int i = 0; i < jChecsAIs.size(); i++) {
+			JChecsAI ai = jChecsAIs.get(i);
+			long share = remaining / (jChecsAIs.size() - i);
+			int size = (int) Math.min(ai.getRequestedHashSize(), share);
+			ai.setHashSize(size);
+			remaining -= size;
+			Debugger.getInstance().debug(2, "AI " + ai.getName() + ": transposition table size " + size + " bytes");
+		}
+	}
+
+	/**
+	 * Try to reserve one of the "ai.ponder_threads" slots, allowing an AI to think on its
+	 * opponent's time.  A successful call must be matched by a call to releasePonderPermit().
+	 *
+	 * @return true if a slot was reserved, false if they are all in use
+	 */
+	public synchronized boolean acquirePonderPermit() {
+		if (ponderingAIs >= ChessCraft.getInstance().getConfig().getInt("ai.ponder_threads", 1)) {
+			return false;
+		}
+		ponderingAIs++;
+		return true;
+	}
+
+	/**
+	 * Release a slot reserved by acquirePonderPermit().
+	 */
+	public synchronized void releasePonderPermit() {
+		if (ponderingAIs > 0) {
+			ponderingAIs--;
+		}
 	}
 
 	/**
@@ -8,10 +8,8 @@ import me.desht.chesscraft.chess.TimeControl;
 import me.desht.chesscraft.chess.player.ChessPlayer;
 import me.desht.dhutils.Debugger;
 import me.desht.dhutils.LogUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.List;
 
@@ -31,7 +29,7 @@ public abstract class ChessAI implements Runnable {
 	public enum PendingAction { NONE, MOVED, DRAW_OFFERED, DRAW_ACCEPTED, DRAW_DECLINED }
 
 	private boolean active = false;
-	private BukkitTask aiTask;
+	private volatile AIExecutor.Task aiTask;
 	private boolean hasFailed = false;
 	private PendingAction pendingAction = PendingAction.NONE;
 	private int pendingFrom, pendingTo;
@@ -247,20 +245,69 @@ public abstract class ChessAI implements Runnable {
 	 */
 	private void startThinking() {
 		long delay = ChessCraft.getInstance().getConfig().getInt("ai.min_move_wait", 0);
-		aiTask = Bukkit.getScheduler().runTaskLaterAsynchronously(ChessCraft.getInstance(), this, delay * 20L);
+		// publish the task before queueing it: with no delay, a worker may start run() at once,
+		// and run() must not mistake a not-yet-assigned task for a cancelled one
+		prepareSearch();
+		AIExecutor executor = AIExecutor.getInstance();
+		AIExecutor.Task task = executor.newTask(getName(), this, getThinkingPriority());
+		aiTask = task;
+		executor.submit(task, delay * 1000L);
 	}
 
 	/**
-	 * Tell the AI to stop thinking.
+	 * Tell the AI to stop thinking.  A search still waiting for a worker thread is dropped;
+	 * one in progress is flagged as cancelled (see isThinkingCancelled()) and aborted
+	 * (see abortSearch()).
 	 */
 	private void stopThinking() {
-		if (Bukkit.getScheduler().isCurrentlyRunning(aiTask.getTaskId())) {
-			Debugger.getInstance().debug(gameDetails + "forcing shutdown for AI task #" + aiTask);
+		if (aiTask != null) {
+			Debugger.getInstance().debug(gameDetails + "cancelling AI task " + getName());
 			aiTask.cancel();
+			abortSearch();
 		}
 		aiTask = null;
 	}
 
+	/**
+	 * Abort a search in progress as quickly as possible, freeing its worker thread.  Called
+	 * when the AI's thinking is cancelled (undo, resignation, game deletion, plugin disable).
+	 * Any move found afterwards is discarded.  The default implementation does nothing.
+	 */
+	protected void abortSearch() {
+	}
+
+	/**
+	 * Get ready for a new search, just before it is queued.  Called from the thread which starts
+	 * the AI thinking, so that an abortSearch() made after this point is never undone by the
+	 * worker thread.  The default implementation does nothing.
+	 */
+	protected void prepareSearch() {
+	}
+
+	/**
+	 * Check if the current search has been cancelled, so that run() can give up early.
+	 *
+	 * @return true if the search has been cancelled
+	 */
+	protected boolean isThinkingCancelled() {
+		AIExecutor.Task task = aiTask;
+		return task == null || task.isCancelled();
+	}
+
+	/**
+	 * Get the scheduling priority of this AI's next search: the time left on its clock, so
+	 * that AIs about to lose on time get a worker thread first.
+	 *
+	 * @return the time left on the AI's clock in ms, or Long.MAX_VALUE if the game isn't timed
+	 */
+	private long getThinkingPriority() {
+		TimeControl tc = chessCraftGame.getClock().getTimeControl();
+		if (tc == null || tc.getControlType() == TimeControl.ControlType.NONE) {
+			return Long.MAX_VALUE;
+		}
+		return chessCraftGame.getClock().getRemainingTime(isWhite ? Chess.WHITE : Chess.BLACK);
+	}
+
 	/**
 	 * Called when the AI has come up with its next move.  Square indices always use the
 	 * Chesspresso sqi representation.
@@ -269,6 +316,10 @@ public abstract class ChessAI implements Runnable {
 	 * @param toSqi		the square the AI is moving to.
 	 */
 	protected void aiHasMoved(int fromSqi, int toSqi) {
+		if (isThinkingCancelled()) {
+			Debugger.getInstance().debug(gameDetails + "aiHasMoved: search was cancelled, move discarded");
+			return;
+		}
 		if (!active) {
 			LogUtils.warning(gameDetails + "aiHasMoved() called when AI not active?");
 			return;
@@ -1,22 +1,49 @@
 package me.desht.chesscraft.chess.ai;
 
+import chesspresso.Chess;
+import fr.free.jchecs.ai.EndgameTablebase;
 import fr.free.jchecs.ai.Engine;
 import fr.free.jchecs.ai.EngineFactory;
+import fr.free.jchecs.ai.LearningCache;
+import fr.free.jchecs.ai.OpeningBook;
+import fr.free.jchecs.ai.PolyglotOpeningBook;
 import fr.free.jchecs.core.*;
 import me.desht.chesscraft.ChessCraft;
+import me.desht.chesscraft.DirectoryStructure;
 import me.desht.chesscraft.Messages;
 import me.desht.chesscraft.chess.ChessGame;
 import me.desht.chesscraft.chess.TimeControl;
+import me.desht.chesscraft.chess.TimeControl.RolloverPhase;
 import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.LogUtils;
 import org.bukkit.configuration.ConfigurationSection;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * @author des
  *
  */
 public class JChecsAI extends ChessAI {
+	private static final int DEFAULT_HASH_MB = 8;
+	private static final int GAME_IN_MOVES_TO_GO = 30;	// assumed moves left in a "game in" control
+	private static final long MIN_MOVE_TIME = 100L;		// milliseconds
+
+	// opening books are memory-mapped and read-only, so AIs using the same file share one instance
+	private static final Map<File, OpeningBook> openingBooks = new HashMap<File, OpeningBook>();
+	// likewise for endgame tablebase directories
+	private static final Map<File, EndgameTablebase> tablebases = new HashMap<File, EndgameTablebase>();
+	// one persistent learning cache per jChecs engine, shared by all AIs using that engine
+	private static final Map<String, LearningCache> learningCaches = new HashMap<String, LearningCache>();
 
 	private final Game jChecsGame;
+	private volatile TimeControl timeControl;
+	// the position being pondered, or null when not pondering
+	private volatile MoveGenerator ponderPosition;
 
 	public JChecsAI(String name, ChessGame chessCraftGame, Boolean isWhite, ConfigurationSection params) {
 		super(name, chessCraftGame, isWhite, params);
@@ -48,19 +75,188 @@ public class JChecsAI extends ChessAI {
 		int searchDepth = params.getInt("depth", 1);
 		moteur.setSearchDepthLimit(searchDepth);
 		moteur.setOpeningsEnabled(ChessCraft.getInstance().getConfig().getBoolean("ai.use_opening_book", false));
+		moteur.setOpeningBook(getOpeningBook(params.getString("book")));
+		moteur.setTablebase(getTablebase(ChessCraft.getInstance().getConfig().getString("ai.tablebase_dir")));
+		moteur.setLearningCache(getLearningCache(engine));
+		if (moteur.isTranspositionTableUsed()) {
+			moteur.setTranspositionTableSize(getDefinedHashSize());
+		}
+		moteur.setSearchThreads(Math.max(1, Math.min(params.getInt("threads", 1), Runtime.getRuntime().availableProcessors())));
+		moteur.setNullMovePruningEnabled(params.getBoolean("null_move", true));
+		moteur.setLateMoveReductionEnabled(params.getBoolean("lmr", true));
+		moteur.setFutilityPruningEnabled(params.getBoolean("futility", true));
 		ai.setEngine(moteur);
 
 		return jChecsGame;
 	}
 
+	/**
+	 * Get the Polyglot opening book named by an AI definition.  Relative paths are resolved
+	 * against the plugin directory.  A book which can't be opened is logged and ignored, so the
+	 * AI falls back to jChecs' bundled book.
+	 *
+	 * @param path the book's path, may be null
+	 * @return the opening book, or null to use the bundled book
+	 */
+	private static OpeningBook getOpeningBook(String path) {
+		if (path == null || path.isEmpty()) {
+			return null;
+		}
+		File file = new File(path);
+		if (!file.isAbsolute()) {
+			file = new File(DirectoryStructure.getPluginDirectory(), path);
+		}
+		synchronized (openingBooks) {
+			OpeningBook book = openingBooks.get(file);
+			if (book == null) {
+				try {
+					book = PolyglotOpeningBook.open(file);
+					openingBooks.put(file, book);
+				} catch (IOException e) {
+					LogUtils.warning("can't open opening book " + file + ": " + e.getMessage());
+				}
+			}
+			return book;
+		}
+	}
+
+	/**
+	 * Get the endgame tablebases in the directory named by "ai.tablebase_dir".  A relative path
+	 * is resolved against the plugin directory.  A directory which can't be opened is logged and
+	 * ignored, so the AI just searches as usual.
+	 *
+	 * @param path the tablebase directory, may be null
+	 * @return the tablebases, or null if none are configured
+	 */
+	private static EndgameTablebase getTablebase(String path) {
+		if (path == null || path.isEmpty()) {
+			return null;
+		}
+		File dir = new File(path);
+		if (!dir.isAbsolute()) {
+			dir = new File(DirectoryStructure.getPluginDirectory(), path);
+		}
+		synchronized (tablebases) {
+			EndgameTablebase tablebase = tablebases.get(dir);
+			if (tablebase == null) {
+				try {
+					tablebase = EndgameTablebase.open(dir);
+					tablebases.put(dir, tablebase);
+				} catch (IOException e) {
+					LogUtils.warning("can't open endgame tablebases in " + dir + ": " + e.getMessage());
+				}
+			}
+			return tablebase;
+		}
+	}
+
+	/**
+	 * Get the persistent learning cache for a jChecs engine, stored in the plugin's data
+	 * directory.  Its size is set by "ai.learning_cache_size" (in positions, 0 disables it).
+	 * A cache which can't be opened is logged and ignored.
+	 *
+	 * @param engine the jChecs engine name
+	 * @return the learning cache, or null if there is none
+	 */
+	private static LearningCache getLearningCache(String engine) {
+		int size = ChessCraft.getInstance().getConfig().getInt("ai.learning_cache_size", 0);
+		if (size <= 0) {
+			return null;
+		}
+		synchronized (learningCaches) {
+			LearningCache cache = learningCaches.get(engine);
+			if (cache == null) {
+				File file = new File(DirectoryStructure.getLearningDirectory(), engine + ".jlc");
+				try {
+					cache = LearningCache.open(file, size);
+					learningCaches.put(engine, cache);
+				} catch (IOException e) {
+					LogUtils.warning("can't open learning cache " + file + ": " + e.getMessage());
+				}
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Close all persistent learning caches.  Pending writes are finished in the background.
+	 * Called on disable.
+	 */
+	public static void closeLearningCaches() {
+		synchronized (learningCaches) {
+			for (LearningCache cache : learningCaches.values()) {
+				cache.close();
+			}
+			learningCaches.clear();
+		}
+	}
+
+	/**
+	 * Get the transposition table size requested by this AI.  Engines without a transposition
+	 * table (e.g. MiniMax) don't need any memory, whatever their definition says.
+	 *
+	 * @return the requested size, in bytes (0 if the engine has no transposition table)
+	 */
+	int getRequestedHashSize() {
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine == null || !engine.isTranspositionTableUsed()) {
+			return 0;
+		}
+		return getDefinedHashSize();
+	}
+
+	/**
+	 * Get the transposition table size set in this AI's definition ("hash_mb").
+	 *
+	 * @return the size, in bytes
+	 */
+	private int getDefinedHashSize() {
+		return Math.max(1, Math.min(params.getInt("hash_mb", DEFAULT_HASH_MB), 1024)) * 1024 * 1024;
+	}
+
+	/**
+	 * Set the transposition table size for this AI's engine.  The new size takes effect
+	 * when the engine next starts searching.
+	 *
+	 * @param bytes the table size, in bytes
+	 */
+	void setHashSize(int bytes) {
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			engine.setTranspositionTableSize(bytes);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see me.desht.chesscraft.chess.ai.AbstractAI#shutdown()
 	 */
 	@Override
 	public void shutdown() {
+		ponderPosition = null;
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			// stops pondering too
+			engine.stop();
+		}
 		jChecsGame.getPlayer(isWhite()).setEngine(null);
 	}
 
+	@Override
+	protected void abortSearch() {
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			engine.stop();
+		}
+	}
+
+	@Override
+	protected void prepareSearch() {
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			engine.resetStop();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see me.desht.chesscraft.chess.ai.AbstractAI#run()
 	 */
@@ -69,18 +265,74 @@ public class JChecsAI extends ChessAI {
 		try {
 			final MoveGenerator plateau = jChecsGame.getBoard();
 			final Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+			if (engine == null || isThinkingCancelled()) {
+				return;
+			}
+			final long[] budget = getMoveTimeBudget();
+			engine.setTimeLimits(budget[0], budget[1]);
 			final fr.free.jchecs.core.Move m = engine.getMoveFor(plateau);
 			aiHasMoved(m.getFrom().getIndex(), m.getTo().getIndex());
+			startPondering(engine);
 		} catch (Exception e) {
 			aiHasFailed(e);
 		}
 	}
 
+	/**
+	 * If this AI is allowed to ponder, and a slot is free in the "ai.ponder_threads" budget,
+	 * search the position after the opponent's expected reply in a low-priority background
+	 * task, until the opponent actually moves.
+	 *
+	 * @param engine this AI's engine, which has just moved
+	 */
+	private void startPondering(final Engine engine) {
+		final fr.free.jchecs.core.Move reply = engine.getExpectedReply();
+		if (reply == null || !params.getBoolean("ponder", false) || !AIFactory.getInstance().acquirePonderPermit()) {
+			return;
+		}
+		final MoveGenerator position = jChecsGame.getBoard().derive(reply, true);
+		ponderPosition = position;
+		engine.startPondering();
+		try {
+			AIExecutor.getInstance().submitBackground(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// skip it if the opponent moved before this task even started
+						if (ponderPosition == position) {
+							engine.ponder(position);
+						}
+					} catch (Exception e) {
+						LogUtils.warning("AI " + getName() + ": pondering failed: " + e.getMessage());
+					} finally {
+						AIFactory.getInstance().releasePonderPermit();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// shutting down
+			AIFactory.getInstance().releasePonderPermit();
+		}
+	}
+
+	/**
+	 * Stop any pondering in progress.  The engine finishes its background search quickly,
+	 * keeping what it found if the opponent made the expected reply.
+	 */
+	private void stopPondering() {
+		ponderPosition = null;
+		Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			engine.stopPondering();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see me.desht.chesscraft.chess.ai.AbstractAI#undoLastMove()
 	 */
 	@Override
 	public void undoLastMove() {
+		stopPondering();
 		jChecsGame.goPrevious();
 		if (!toMove())
 			jChecsGame.goPrevious();
@@ -92,6 +344,9 @@ public class JChecsAI extends ChessAI {
 	@Override
 	protected void movePiece(int fromSqi, int toSqi, boolean otherPlayer) {
 		// conveniently, Chesspresso & jChecs use the same row/column/sqi conventions
+		if (otherPlayer) {
+			stopPondering();
+		}
 		Square from = Square.valueOf(fromSqi);
 		Square to = Square.valueOf(toSqi);
 
@@ -99,8 +354,55 @@ public class JChecsAI extends ChessAI {
 		jChecsGame.moveFromCurrent(m);
 	}
 
+	/**
+	 * Work out how long the engine may think about its next move, from the game's time control
+	 * and the time left on our clock, capped by "ai.max_move_time".  The engine searches with
+	 * iterative deepening: it starts no new iteration after the soft limit, and abandons the
+	 * current one at the hard limit.
+	 *
+	 * @return the soft and hard limits, in milliseconds (0 means unlimited)
+	 */
+	private long[] getMoveTimeBudget() {
+		long soft = 0L, hard = 0L;
+
+		TimeControl tc = timeControl != null ? timeControl : getChessCraftGame().getClock().getTimeControl();
+		if (tc != null && tc.getControlType() != TimeControl.ControlType.NONE) {
+			long remaining = getChessCraftGame().getClock().getRemainingTime(isWhite() ? Chess.WHITE : Chess.BLACK);
+			switch (tc.getControlType()) {
+			case MOVE_IN:
+				// the whole allowance is for this move; keep a safety margin for the clock granularity
+				hard = remaining * 3 / 4;
+				soft = hard / 2;
+				break;
+			case GAME_IN:
+				soft = remaining / GAME_IN_MOVES_TO_GO;
+				hard = Math.min(soft * 4, remaining / 4);
+				break;
+			case ROLLOVER:
+				RolloverPhase phase = tc.getCurrentPhase();
+				int movesToGo = Math.max(1, phase.getMoves() - tc.getRolloverMovesMade());
+				soft = remaining / (movesToGo + 1) + phase.getIncrement() * 3 / 4;
+				hard = Math.min(soft * 4, remaining * 3 / 4);
+				break;
+			default:
+				break;
+			}
+			hard = Math.max(hard, MIN_MOVE_TIME);
+			soft = Math.max(Math.min(soft, hard), MIN_MOVE_TIME);
+		}
+
+		long maxMoveTime = ChessCraft.getInstance().getConfig().getLong("ai.max_move_time", 0L) * 1000L;
+		if (maxMoveTime > 0) {
+			hard = hard == 0 ? maxMoveTime : Math.min(hard, maxMoveTime);
+			soft = soft == 0 ? hard / 2 : Math.min(soft, hard);
+		}
+
+		return new long[] { soft, hard };
+	}
+
 	@Override
 	public void notifyTimeControl(TimeControl timeControl) {
-		// do nothing here... JChecs doesn't support time controls
+		// just note it; the time budget is worked out from the clock when we start thinking
+		this.timeControl = timeControl;
 	}
 }
@@ -3,7 +3,6 @@ package me.desht.chesscraft.chess.ai;
 import chesspresso.Chess;
 import chesspresso.move.IllegalMoveException;
 import chesspresso.move.Move;
-import me.desht.chesscraft.ChessCraft;
 import me.desht.chesscraft.chess.ChessGame;
 import me.desht.chesscraft.chess.TimeControl;
 import me.desht.chesscraft.chess.TimeControl.RolloverPhase;
@@ -11,13 +10,13 @@ import me.desht.chesscraft.exceptions.ChessException;
 import me.desht.dhutils.Debugger;
 import me.desht.dhutils.LogUtils;
 import me.desht.dhutils.MiscUtil;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,6 +33,9 @@ public class XBoardAI extends ChessAI {
 	private final Map<String,String> features = new ConcurrentHashMap<String, String>();
 
 	private boolean moveFormatSAN = false;
+	// true while this AI holds one of the "ai.ponder_threads" slots (for as long as it's in "hard" mode)
+	private boolean pondering = false;
+	private boolean shutDown = false;
 
 	public XBoardAI(String name, ChessGame chessCraftGame, Boolean isWhite, ConfigurationSection params) {
 		super(name, chessCraftGame, isWhite, params);
@@ -51,14 +53,32 @@ public class XBoardAI extends ChessAI {
 	}
 
 	@Override
-	public void shutdown() {
+	public synchronized void shutdown() {
 		io.writeLine("exit");
+		shutDown = true;
+		if (pondering) {
+			pondering = false;
+			AIFactory.getInstance().releasePonderPermit();
+		}
+	}
+
+	/**
+	 * Put the engine in "hard" mode (pondering on) if this AI is allowed to ponder and a slot is
+	 * free in the "ai.ponder_threads" budget, or in "easy" mode otherwise.  The engine ponders
+	 * in its own process, so the slot is held until the AI is shut down.
+	 */
+	private synchronized void setPonderMode() {
+		if (shutDown) {
+			return;
+		}
+		pondering = params.getBoolean("ponder", false) && AIFactory.getInstance().acquirePonderPermit();
+		io.writeLine(pondering ? "hard" : "easy");
 	}
 
 	@Override
 	public void run() {
 		boolean done = false;
-		while (!done) {
+		while (!done && !isThinkingCancelled()) {
 			try {
 				done = parseCommand();
 			} catch (IOException e) {
@@ -175,74 +195,81 @@ public class XBoardAI extends ChessAI {
 	}
 
 	private class FeatureReader implements Runnable {
+		// we give the AI engine 2 seconds to reply to the "protover" command with a list of features
+		private static final long FEATURE_TIMEOUT = 2000L;
+
+		private final AtomicBoolean finished = new AtomicBoolean(false);
 
 		private FeatureReader() {
-			Bukkit.getScheduler().runTaskAsynchronously(ChessCraft.getInstance(), this);
+			AIExecutor.getInstance().submit(getName() + " (features)", this, Long.MIN_VALUE, 0L);
+			AIExecutor.getInstance().schedule(new Runnable() {
+				@Override
+				public void run() {
+					if (finished.compareAndSet(false, true)) {
+						// stop the engine, so the blocked read fails and frees the worker thread
+						io.destroy();
+						aiHasFailed(new TimeoutException("no features reported by the xboard engine within " + FEATURE_TIMEOUT + "ms"));
+					}
+				}
+			}, FEATURE_TIMEOUT);
 		}
 
-		private void readLines() {
+		private void readLines() throws IOException {
 			boolean done = false;
 			while (!done) {
-				try {
-					String s = io.readLine();
-					Debugger.getInstance().debug(2, "featurereader: [" + s + "]");
-					if (s.startsWith("feature ")) {
-						List<String> f = MiscUtil.splitQuotedString(s.replace("=", " "));
-						for (int i = 1; i < f.size(); i += 2) {
-							if ((i + 1) >= f.size()) break;
-							String k = f.get(i);
-							String v = f.get(i+1);
-							features.put(k, v);
-							if (k.equals("done") && v.equals("1")) {
-								Debugger.getInstance().debug("feature reader done: " + features.size() + " features reported");
-								done = true;
-							}
+				String s = io.readLine();
+				if (s == null) {
+					throw new IOException("xboard engine closed its output");
+				}
+				Debugger.getInstance().debug(2, "featurereader: [" + s + "]");
+				if (s.startsWith("feature ")) {
+					List<String> f = MiscUtil.splitQuotedString(s.replace("=", " "));
+					for (int i = 1; i < f.size(); i += 2) {
+						if ((i + 1) >= f.size()) break;
+						String k = f.get(i);
+						String v = f.get(i+1);
+						features.put(k, v);
+						if (k.equals("done") && v.equals("1")) {
+							Debugger.getInstance().debug("feature reader done: " + features.size() + " features reported");
+							done = true;
 						}
 					}
-				} catch (IOException e) {
-					LogUtils.severe("FeatureReader: caught io exception: " + e.getMessage());
-					done = true;
 				}
 			}
-
-			setReady();
 		}
 
 		@Override
 		public void run() {
-			ExecutorService executor = Executors.newFixedThreadPool(1);
-
-			Callable<Void> readTask = new Callable<Void>() {
-				@Override
-				public Void call() throws Exception {
-					readLines();
-					return null;
+			try {
+				readLines();
+			} catch (IOException e) {
+				if (!finished.get()) {
+					LogUtils.severe("FeatureReader: caught io exception: " + e.getMessage());
 				}
-			};
+			}
+			if (!finished.compareAndSet(false, true)) {
+				// timed out
+				return;
+			}
 
-			Future<Void> future = executor.submit(readTask);
-			try {
-				// we give the AI engine 2 seconds to reply to the "protover" command
-				// with a list of features
-				future.get(2000, TimeUnit.MILLISECONDS);
+			setReady();
 
-				// now it's safe to finish AI init
+			// now it's safe to finish AI init
 
-				if (getFeature("san").equals("1")) {
-					moveFormatSAN = true;
-				}
+			if (getFeature("san").equals("1")) {
+				moveFormatSAN = true;
+			}
 
-				if (getFeature("setboard").equals("1")) {
-					io.writeLine("setboard " + getChessCraftGame().getPosition().getFEN());
+			setPonderMode();
 
-					if (toMove()) {
-						io.writeLine("go");
-					}
-				} else {
-					aiHasFailed(new ChessException("This xboard engine doesn't support the 'setboard' feature"));
+			if (getFeature("setboard").equals("1")) {
+				io.writeLine("setboard " + getChessCraftGame().getPosition().getFEN());
+
+				if (toMove()) {
+					io.writeLine("go");
 				}
-			} catch (Exception e) {
-				aiHasFailed(e);
+			} else {
+				aiHasFailed(new ChessException("This xboard engine doesn't support the 'setboard' feature"));
 			}
 		}
 	}
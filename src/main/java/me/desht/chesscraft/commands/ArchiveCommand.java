@@ -1,29 +1,41 @@
 package me.desht.chesscraft.commands;
 
 import me.desht.chesscraft.ChessValidate;
+import me.desht.chesscraft.DirectoryStructure;
 import me.desht.chesscraft.Messages;
 import me.desht.chesscraft.chess.BoardView;
 import me.desht.chesscraft.chess.BoardViewManager;
 import me.desht.chesscraft.chess.ChessGame;
 import me.desht.chesscraft.chess.ChessGameManager;
+import me.desht.chesscraft.chess.PGNArchive;
 import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.MessagePager;
 import me.desht.dhutils.MiscUtil;
+import me.desht.dhutils.PermissionUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
 
 public class ArchiveCommand extends ChessAbstractCommand {
 
 	public ArchiveCommand() {
-		super("chess archive", 0, 1);
+		super("chess archive", 0, 3);
 		setPermissionNode("chesscraft.commands.archive");
 		setUsage(new String[] {
 				"/chess archive",
 				"/chess archive <game-name>",
 				"/chess archive -this",
+				"/chess archive -migrate",
+				"/chess archive -list [<game-name>]",
+				"/chess archive -get <game-name> [<number>]",
 		});
 	}
 
@@ -31,7 +43,21 @@ public class ArchiveCommand extends ChessAbstractCommand {
 	public boolean execute(Plugin plugin, CommandSender sender, String[] args) throws ChessException {
 		ChessGame game;
 		if (args.length >= 1) {
-			if (args[0].equals("-this")) {
+			if (args[0].equals("-migrate")) {
+				PermissionUtils.requirePerms(sender, "chesscraft.commands.archive.migrate");
+				migrate(plugin, sender);
+				return true;
+			} else if (args[0].equals("-list")) {
+				list(sender, args.length >= 2 ? args[1] : null);
+				return true;
+			} else if (args[0].equals("-get")) {
+				if (args.length < 2) {
+					showUsage(sender);
+				} else {
+					get(sender, args[1], args.length >= 3 ? args[2] : null);
+				}
+				return true;
+			} else if (args[0].equals("-this")) {
 				notFromConsole(sender);
 				Player player = (Player)sender;
 				BoardView bv = BoardViewManager.getManager().partOfChessBoard(player.getLocation());
@@ -49,15 +75,101 @@ public class ArchiveCommand extends ChessAbstractCommand {
 		}
 		ChessValidate.notNull(game, Messages.getString("ChessCommandExecutor.noActiveGame"));
 
-		File written = game.writePGN(false);
-		MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.PGNarchiveWritten", written.getName()));
+		PGNArchive.Entry entry = game.archivePGN();
+		MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.PGNgameArchived", game.getName(), entry.getSegmentName()));
 		return true;
 	}
 
+	/**
+	 * List the archived games, all of them or just those with the given name.  Games with the
+	 * same name are numbered, oldest first, for use with "-get".
+	 */
+	private void list(CommandSender sender, String gameName) {
+		List<PGNArchive.Entry> entries = gameName == null ?
+				PGNArchive.getInstance().getEntries() : PGNArchive.getInstance().find(gameName);
+		if (entries.isEmpty()) {
+			throw new ChessException(Messages.getString("ChessCommandExecutor.PGNnoArchivedGames"));
+		}
+		MessagePager pager = MessagePager.getPager(sender).clear().setParseColours(true);
+		int n = 1;
+		for (PGNArchive.Entry entry : entries) {
+			String prefix = gameName == null ? "" : n + ". ";
+			pager.add(MessagePager.BULLET + prefix + entry);
+			n++;
+		}
+		pager.showPage();
+	}
+
+	/**
+	 * Extract an archived game to its own file in the PGN directory.  By default, the most
+	 * recently archived game with the given name is extracted.
+	 */
+	private void get(CommandSender sender, String gameName, String number) {
+		List<PGNArchive.Entry> entries = PGNArchive.getInstance().find(gameName);
+		int n = entries.size();
+		if (number != null) {
+			try {
+				n = Integer.parseInt(number);
+			} catch (NumberFormatException e) {
+				throw new ChessException(Messages.getString("ChessCommandExecutor.invalidNumeric", number));
+			}
+		}
+		if (n < 1 || n > entries.size()) {
+			throw new ChessException(Messages.getString("ChessCommandExecutor.PGNnoArchivedGame", gameName, n));
+		}
+		PGNArchive.Entry entry = entries.get(n - 1);
+		File f = new File(DirectoryStructure.getPGNDirectory(), entry.getGameName() + "_archived_" + n + ".pgn");
+		if (f.exists()) {
+			throw new ChessException(Messages.getString("Game.archiveExists", f.getName()));
+		}
+		String pgn = PGNArchive.getInstance().read(entry);
+		try {
+			Writer out = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+			try {
+				out.write(pgn);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new ChessException(Messages.getString("Game.cantWriteArchive", f.getName(), e.getMessage()));
+		}
+		MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.PGNarchiveWritten", f.getName()));
+	}
+
+	/**
+	 * Move the old one-file-per-game PGN archives into the bulk archive, off the main thread.
+	 */
+	private void migrate(final Plugin plugin, final CommandSender sender) {
+		MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.PGNmigrationStarted"));
+		Bukkit.getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					final int n = PGNArchive.getInstance().migrate();
+					Bukkit.getScheduler().runTask(plugin, new Runnable() {
+						@Override
+						public void run() {
+							MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.PGNmigrationDone", n));
+						}
+					});
+				} catch (final ChessException e) {
+					Bukkit.getScheduler().runTask(plugin, new Runnable() {
+						@Override
+						public void run() {
+							MiscUtil.errorMessage(sender, e.getMessage());
+						}
+					});
+				}
+			}
+		});
+	}
+
 	@Override
 	public List<String> onTabComplete(Plugin plugin, CommandSender sender, String[] args) {
 		if (args.length == 1) {
 			return getGameCompletions(plugin, sender, args[0]);
+		} else if (args.length == 2 && (args[0].equals("-list") || args[0].equals("-get"))) {
+			return getGameCompletions(plugin, sender, args[1]);
 		} else {
 			showUsage(sender);
 			return noCompletions(sender);
@@ -0,0 +1,157 @@
+package me.desht.chesscraft.chess;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PGNArchiveTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private File archiveDir;
+	private File legacyDir;
+
+	@Before
+	public void setUp() throws IOException {
+		legacyDir = tmp.newFolder("pgn");
+		archiveDir = new File(legacyDir, "archive");
+		assertTrue(archiveDir.mkdir());
+	}
+
+	@Test
+	public void appendAndRead() {
+		PGNArchive archive = new PGNArchive(archiveDir, legacyDir, 0x100000L);
+		String pgn1 = makePGN("game1", "alice", "bob", "1-0", "1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0");
+		String pgn2 = makePGN("game2", "carol", "dave", "1/2-1/2", "1. d4 d5 1/2-1/2");
+
+		PGNArchive.Entry e1 = archive.append(pgn1);
+		PGNArchive.Entry e2 = archive.append(pgn2);
+		assertEquals("game1", e1.getGameName());
+		assertEquals("alice", e1.getWhite());
+		assertEquals("bob", e1.getBlack());
+		assertEquals("2014.05.01", e1.getDate());
+		assertEquals("1-0", e1.getResult());
+		assertEquals(1, e1.getSegment());
+		assertEquals("games-00001.pgn.gz", e1.getSegmentName());
+
+		assertEquals(pgn1.trim(), archive.read(e1).trim());
+		assertEquals(pgn2.trim(), archive.read(e2).trim());
+		assertEquals(2, archive.getEntries().size());
+		assertEquals(1, archive.find("GAME2").size());
+		assertTrue(archive.find("game3").isEmpty());
+	}
+
+	@Test
+	public void reloadIndex() {
+		PGNArchive archive = new PGNArchive(archiveDir, legacyDir, 0x100000L);
+		String pgn = makePGN("game1", "alice", "bob", "0-1", "1. f3 e5 2. g4 Qh4# 0-1");
+		archive.append(pgn);
+		archive.append(makePGN("game2", "carol", "dave", "*", "1. e4 *"));
+
+		PGNArchive reloaded = new PGNArchive(archiveDir, legacyDir, 0x100000L);
+		assertEquals(2, reloaded.getEntries().size());
+		List<PGNArchive.Entry> found = reloaded.find("game1");
+		assertEquals(1, found.size());
+		assertEquals("0-1", found.get(0).getResult());
+		assertEquals(pgn.trim(), reloaded.read(found.get(0)).trim());
+
+		// new games go on the end of the current segment
+		PGNArchive.Entry e3 = reloaded.append(makePGN("game3", "erin", "frank", "1-0", "1. e4 1-0"));
+		assertEquals(1, e3.getSegment());
+		assertEquals(3, new PGNArchive(archiveDir, legacyDir, 0x100000L).getEntries().size());
+	}
+
+	@Test
+	public void segmentRollover() {
+		// small enough that every game needs a segment of its own
+		PGNArchive archive = new PGNArchive(archiveDir, legacyDir, 64L);
+		for (int i = 1; i <= 3; i++) {
+			PGNArchive.Entry e = archive.append(makePGN("game" + i, "alice", "bob", "1-0", "1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0"));
+			assertEquals(i, e.getSegment());
+			assertTrue(new File(archiveDir, e.getSegmentName()).exists());
+		}
+		PGNArchive reloaded = new PGNArchive(archiveDir, legacyDir, 64L);
+		for (PGNArchive.Entry e : reloaded.getEntries()) {
+			assertTrue(reloaded.read(e).contains("[Event \"" + e.getGameName() + "\"]"));
+		}
+		assertEquals(4, reloaded.append(makePGN("game4", "alice", "bob", "1-0", "1. e4 1-0")).getSegment());
+	}
+
+	@Test
+	public void appendIfAbsent() {
+		PGNArchive archive = new PGNArchive(archiveDir, legacyDir, 0x100000L);
+		String pgn = makePGN("game1", "alice", "bob", "1-0", "1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0");
+		assertNotNull(archive.appendIfAbsent(pgn));
+		assertNull(archive.appendIfAbsent(pgn));
+		// same name, players, day and result, but a different game
+		assertNotNull(archive.appendIfAbsent(makePGN("game1", "alice", "bob", "1-0", "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0")));
+		assertEquals(2, archive.find("game1").size());
+	}
+
+	@Test
+	public void migrate() throws IOException {
+		String pgn1 = makePGN("game1", "alice", "bob", "1-0", "1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0");
+		String pgn2 = makePGN("game1", "alice", "bob", "1-0", "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0");
+		File f1 = writeFile("game1_2014.05.01_1.pgn", pgn1);
+		File f2 = writeFile("game1_2014.05.01_2.pgn", pgn2);
+		File dup = writeFile("game1_2014.05.01_3.pgn", pgn1);
+		File other = writeFile("notes.pgn", pgn1);
+		assertTrue(f1.setLastModified(1000000000L));
+		assertTrue(f2.setLastModified(2000000000L));
+		assertTrue(dup.setLastModified(3000000000L));
+
+		PGNArchive archive = new PGNArchive(archiveDir, legacyDir, 0x100000L);
+		assertEquals(2, archive.migrate());
+		assertFalse(f1.exists());
+		assertFalse(f2.exists());
+		// a game that was already archived is kept, not lost
+		assertTrue(dup.exists());
+		// only old-style archive files are migrated
+		assertTrue(other.exists());
+
+		List<PGNArchive.Entry> found = archive.find("game1");
+		assertEquals(2, found.size());
+		assertEquals(pgn1.trim(), archive.read(found.get(0)).trim());
+		assertEquals(pgn2.trim(), archive.read(found.get(1)).trim());
+
+		assertEquals(0, archive.migrate());
+		assertEquals(2, archive.getEntries().size());
+	}
+
+	private File writeFile(String name, String contents) throws IOException {
+		File f = new File(legacyDir, name);
+		Writer out = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+		try {
+			out.write(contents);
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	private static String makePGN(String event, String white, String black, String result, String moves) {
+		return "[Event \"" + event + "\"]\n"
+				+ "[Site \"test\"]\n"
+				+ "[Date \"2014.05.01\"]\n"
+				+ "[Round \"?\"]\n"
+				+ "[White \"" + white + "\"]\n"
+				+ "[Black \"" + black + "\"]\n"
+				+ "[Result \"" + result + "\"]\n"
+				+ "\n"
+				+ moves + "\n";
+	}
+}